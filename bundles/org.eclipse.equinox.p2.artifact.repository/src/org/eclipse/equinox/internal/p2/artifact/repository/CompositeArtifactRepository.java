@@ -23,6 +23,8 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader.Result;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -75,8 +77,26 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
 		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
 		boolean failOnChildFailure = shouldFailOnChildFailure(state);
-		for (URI child : state.getChildren())
-			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		List<URI> children = new ArrayList<>();
+		for (URI child : state.getChildren()) {
+			if (registerChild(child))
+				children.add(URIUtil.makeAbsolute(child, getLocation()));
+		}
+		// remember which children the manager already knew before they get loaded concurrently
+		List<Boolean> wereLoaded = new ArrayList<>(children.size());
+		for (URI child : children)
+			wereLoaded.add(getManager().contains(child));
+		List<Result<IArtifactRepository>> results = ChildRepositoryLoader.loadAll(getProvisioningAgent(), getLocation(), children, this::load, failOnChildFailure, sub);
+		// add the children in the order of the composite so that lookups are deterministic
+		for (int i = 0; i < children.size(); i++) {
+			IArtifactRepository repository = results.get(i).repository();
+			if (repository != null)
+				childLoaded(children.get(i), repository, wereLoaded.get(i), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		}
+		for (Result<IArtifactRepository> result : results) {
+			if (result.failure() != null)
+				childFailed(result.failure(), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		}
 	}
 
 	/**
@@ -145,27 +165,47 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 	private void addChild(URI childURI, boolean save, IProgressMonitor monitor, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) throws ProvisionException {
 		SubMonitor sub = SubMonitor.convert(monitor);
 		URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
-		if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute)) {
+		if (!registerChild(childURI)) {
 			sub.done();
 			return;
 		}
-		childrenURIs.add(childURI);
 		if (save)
 			save();
 		try {
 			boolean currentLoaded = getManager().contains(absolute);
-			IArtifactRepository repo = load(childURI, sub);
-			if (!currentLoaded && propagateException)
-				repositoriesToBeRemovedOnFailure.add(absolute);
-			loadedRepos.add(new ChildInfo(repo));
+			childLoaded(absolute, load(childURI, sub), currentLoaded, propagateException, repositoriesToBeRemovedOnFailure);
 		} catch (ProvisionException e) {
-			//repository failed to load. fall through
-			LogHelper.log(e);
-			if (propagateException) {
-				removeFromRepoManager(repositoriesToBeRemovedOnFailure);
-				String msg = NLS.bind(Messages.io_failedRead, getLocation());
-				throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, e));
-			}
+			childFailed(e, propagateException, repositoriesToBeRemovedOnFailure);
+		}
+	}
+
+	/**
+	 * Adds the given URI to the list of child URIs, even if the child cannot be
+	 * loaded later.
+	 *
+	 * @return <code>false</code> if the child was already in the list
+	 */
+	private boolean registerChild(URI childURI) {
+		URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+		if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute))
+			return false;
+		childrenURIs.add(childURI);
+		return true;
+	}
+
+	private void childLoaded(URI absolute, IArtifactRepository repo, boolean currentLoaded, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) {
+		if (!currentLoaded && propagateException)
+			repositoriesToBeRemovedOnFailure.add(absolute);
+		loadedRepos.add(new ChildInfo(repo));
+	}
+
+	private void childFailed(ProvisionException e, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) throws ProvisionException {
+		//repository failed to load. fall through
+		LogHelper.log(e);
+		if (propagateException) {
+			removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+			String msg = NLS.bind(Messages.io_failedRead, getLocation());
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, e));
 		}
 	}
 
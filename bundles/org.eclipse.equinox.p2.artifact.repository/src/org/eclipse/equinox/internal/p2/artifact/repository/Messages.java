@@ -38,7 +38,6 @@ public class Messages extends NLS {
 	public static String repoFailedWrite;
 
 	public static String sar_downloading;
-	public static String sar_downloadJobName;
 	public static String sar_failedMkdir;
 	public static String sar_reportStatus;
 
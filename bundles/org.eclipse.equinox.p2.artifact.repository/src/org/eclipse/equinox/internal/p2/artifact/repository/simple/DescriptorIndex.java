@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository.simple;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.expression.CompoundIterator;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+
+/**
+ * An immutable index of the descriptors of a {@link SimpleArtifactRepository}
+ * by artifact key. The keys are spread over a fixed number of shards, so that
+ * a change only copies the shards holding the keys it touches. The repository
+ * publishes each new version of the index at once, so that readers always see
+ * a consistent index without locking.
+ */
+final class DescriptorIndex {
+	private static final int SHARD_COUNT = 64;
+
+	static final DescriptorIndex EMPTY = new DescriptorIndex(emptyShards(), 0);
+
+	private final Map<IArtifactKey, List<IArtifactDescriptor>>[] shards;
+	private final int keyCount;
+	// derived from the shards the first time they are needed
+	private volatile KeyIndex keyIndex;
+	private volatile Set<SimpleArtifactDescriptor> descriptors;
+
+	private DescriptorIndex(Map<IArtifactKey, List<IArtifactDescriptor>>[] shards, int keyCount) {
+		this.shards = shards;
+		this.keyCount = keyCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<IArtifactKey, List<IArtifactDescriptor>>[] emptyShards() {
+		Map<IArtifactKey, List<IArtifactDescriptor>>[] result = new Map[SHARD_COUNT];
+		Arrays.fill(result, Collections.emptyMap());
+		return result;
+	}
+
+	private static int shardOf(IArtifactKey key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & (SHARD_COUNT - 1);
+	}
+
+	/**
+	 * Returns the descriptors of the given key, or <code>null</code> if there
+	 * are none.
+	 */
+	List<IArtifactDescriptor> get(IArtifactKey key) {
+		return shards[shardOf(key)].get(key);
+	}
+
+	boolean containsKey(IArtifactKey key) {
+		return shards[shardOf(key)].containsKey(key);
+	}
+
+	boolean contains(IArtifactDescriptor descriptor) {
+		List<IArtifactDescriptor> result = get(descriptor.getArtifactKey());
+		return result != null && result.contains(descriptor);
+	}
+
+	Iterator<IArtifactKey> keys() {
+		List<Set<IArtifactKey>> keySets = new ArrayList<>(SHARD_COUNT);
+		for (Map<IArtifactKey, List<IArtifactDescriptor>> shard : shards)
+			keySets.add(shard.keySet());
+		return new CompoundIterator<>(keySets.iterator());
+	}
+
+	Iterator<IArtifactDescriptor> descriptors() {
+		List<Iterator<List<IArtifactDescriptor>>> lists = new ArrayList<>(SHARD_COUNT);
+		for (Map<IArtifactKey, List<IArtifactDescriptor>> shard : shards)
+			lists.add(shard.values().iterator());
+		return new CompoundIterator<>(new CompoundIterator<>(lists.iterator()));
+	}
+
+	/**
+	 * Returns all the descriptors of this index.
+	 */
+	Set<SimpleArtifactDescriptor> getDescriptors() {
+		Set<SimpleArtifactDescriptor> result = descriptors;
+		if (result == null) {
+			Set<SimpleArtifactDescriptor> all = new HashSet<>();
+			for (Iterator<IArtifactDescriptor> iterator = descriptors(); iterator.hasNext();)
+				all.add((SimpleArtifactDescriptor) iterator.next());
+			result = Collections.unmodifiableSet(all);
+			descriptors = result;
+		}
+		return result;
+	}
+
+	KeyIndex getKeyIndex() {
+		KeyIndex result = keyIndex;
+		if (result == null) {
+			List<IArtifactKey> keys = new ArrayList<>(keyCount);
+			for (Iterator<IArtifactKey> iterator = keys(); iterator.hasNext();)
+				keys.add(iterator.next());
+			result = new KeyIndex(keys);
+			keyIndex = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an index where the descriptors of the given keys are replaced by
+	 * the given ones. An empty list removes the key.
+	 */
+	DescriptorIndex with(Map<IArtifactKey, List<IArtifactDescriptor>> changes) {
+		if (changes.isEmpty())
+			return this;
+		Map<IArtifactKey, List<IArtifactDescriptor>>[] result = shards.clone();
+		boolean[] copied = new boolean[SHARD_COUNT];
+		int newKeyCount = keyCount;
+		for (Map.Entry<IArtifactKey, List<IArtifactDescriptor>> change : changes.entrySet()) {
+			int shard = shardOf(change.getKey());
+			if (!copied[shard]) {
+				result[shard] = new HashMap<>(result[shard]);
+				copied[shard] = true;
+			}
+			List<IArtifactDescriptor> previous;
+			if (change.getValue().isEmpty())
+				previous = result[shard].remove(change.getKey());
+			else
+				previous = result[shard].put(change.getKey(), List.copyOf(change.getValue()));
+			if (previous == null && !change.getValue().isEmpty())
+				newKeyCount++;
+			else if (previous != null && change.getValue().isEmpty())
+				newKeyCount--;
+		}
+		for (int i = 0; i < SHARD_COUNT; i++)
+			if (copied[i])
+				result[i] = Collections.unmodifiableMap(result[i]);
+		return new DescriptorIndex(result, newKeyCount);
+	}
+}
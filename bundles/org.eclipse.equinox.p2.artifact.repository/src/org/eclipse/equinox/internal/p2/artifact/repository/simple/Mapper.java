@@ -17,12 +17,17 @@ package org.eclipse.equinox.internal.p2.artifact.repository.simple;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.eclipse.core.runtime.URIUtil;
 import org.osgi.framework.*;
 
 public class Mapper {
 	private Filter[] filters;
 	private String[] outputStrings;
+	// the rules compiled from the filters and output strings, in the same order
+	private Rule[] rules;
+	private volatile RepositoryLocation lastLocation;
 
 	private static final String REPOURL = "repoUrl"; //$NON-NLS-1$
 	private static final String CLASSIFIER = "classifier"; //$NON-NLS-1$
@@ -30,9 +35,137 @@ public class Mapper {
 	private static final String ID = "id"; //$NON-NLS-1$
 	private static final String VERSION = "version"; //$NON-NLS-1$
 
+	/**
+	 * The filters only testing the classifier, such as <code>(&amp; (classifier=osgi.bundle))</code>,
+	 * which are matched without going through an OSGi filter.
+	 */
+	private static final Pattern CLASSIFIER_FILTER = Pattern.compile("\\(\\s*(?:&\\s*\\(\\s*classifier=([^\\s()*\\\\]+)\\)\\s*|classifier=([^\\s()*\\\\]+))\\)", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+
+	/**
+	 * A mapping rule: the filter an artifact must match, and the template of its
+	 * location.
+	 */
+	private static final class Rule {
+		final Filter filter;
+		// the classifier the filter tests, or null if the OSGi filter must be used
+		final String classifier;
+		final Template template;
+
+		Rule(Filter filter, String output) {
+			this.filter = filter;
+			Matcher matcher = CLASSIFIER_FILTER.matcher(filter.toString());
+			this.classifier = matcher.matches() ? (matcher.group(1) != null ? matcher.group(1) : matcher.group(2)) : null;
+			this.template = new Template(output);
+		}
+
+		boolean matches(String artifactClassifier, Dictionary<String, String> allProperties) {
+			if (classifier != null)
+				return classifier.equals(artifactClassifier);
+			return filter.match(allProperties);
+		}
+	}
+
+	/**
+	 * An output string split into its literal parts and the variables between
+	 * them. A variable is one of the properties of the artifact or the name of
+	 * one of its descriptor properties.
+	 */
+	private static final class Template {
+		private static final int PROPERTY = -1;
+		private static final String[] VARIABLES = {REPOURL, CLASSIFIER, ID, VERSION, FORMAT};
+
+		final String pattern;
+		// the literal parts, one more than the variables
+		final String[] literals;
+		// for each variable, its index in VARIABLES or PROPERTY
+		final int[] kinds;
+		final String[] names;
+		final int length;
+
+		Template(String pattern) {
+			this.pattern = pattern;
+			List<String> literalList = new ArrayList<>();
+			List<String> nameList = new ArrayList<>();
+			int index = 0;
+			while (true) {
+				int beginning = pattern.indexOf("${", index); //$NON-NLS-1$
+				if (beginning == -1)
+					break;
+				int end = pattern.indexOf('}', beginning);
+				if (end == -1) {
+					// an unterminated variable leaves the whole pattern as it is
+					literalList.clear();
+					nameList.clear();
+					index = 0;
+					break;
+				}
+				literalList.add(pattern.substring(index, beginning));
+				nameList.add(pattern.substring(beginning + 2, end));
+				index = end + 1;
+			}
+			literalList.add(pattern.substring(index));
+			literals = literalList.toArray(new String[literalList.size()]);
+			names = nameList.toArray(new String[nameList.size()]);
+			kinds = new int[names.length];
+			int literalLength = 0;
+			for (String literal : literals)
+				literalLength += literal.length();
+			length = literalLength;
+			for (int i = 0; i < names.length; i++) {
+				kinds[i] = PROPERTY;
+				for (int j = 0; j < VARIABLES.length; j++) {
+					if (names[i].equalsIgnoreCase(VARIABLES[j])) {
+						kinds[i] = j;
+						break;
+					}
+				}
+			}
+		}
+
+		String expand(String repoLocation, String classifier, String id, String version, String format, Map<String, String> properties) {
+			if (names.length == 0)
+				return pattern;
+			StringBuilder output = new StringBuilder(length + 128);
+			output.append(literals[0]);
+			for (int i = 0; i < names.length; i++) {
+				String value = switch (kinds[i]) {
+				case 0 -> repoLocation;
+				case 1 -> classifier;
+				case 2 -> id;
+				case 3 -> version;
+				case 4 -> format;
+				default -> properties.get(names[i]);
+				};
+				if (value != null)
+					output.append(value);
+				output.append(literals[i + 1]);
+			}
+			return output.toString();
+		}
+	}
+
+	/**
+	 * The string forms of the last repository location mapped, as the location
+	 * of a repository seldom changes.
+	 */
+	private static final class RepositoryLocation {
+		final URI location;
+		final String string;
+		// currently our mapping rules assume the repo URL is not "/" terminated.
+		// This may be the case for repoURLs in the root of a URL space e.g. root of a jar file or file:/c:/
+		final String trimmed;
+
+		RepositoryLocation(URI location) {
+			this.location = location;
+			this.string = URIUtil.toUnencodedString(location);
+			this.trimmed = string != null && string.endsWith("/") ? string.substring(0, string.length() - 1) : string; //$NON-NLS-1$
+		}
+	}
+
 	public Mapper() {
 		filters = new Filter[0];
 		outputStrings = new String[0];
+		rules = new Rule[0];
 	}
 
 	/**
@@ -40,24 +173,51 @@ public class Mapper {
 	 * the more specific filters should be given first.
 	 */
 	public void initialize(BundleContext ctx, String[][] mappingRules) {
-		filters = new Filter[mappingRules.length];
-		outputStrings = new String[mappingRules.length];
-		for (int i = 0; i < mappingRules.length; i++) {
+		List<Filter> filterList = new ArrayList<>(mappingRules.length);
+		List<String> outputList = new ArrayList<>(mappingRules.length);
+		List<Rule> ruleList = new ArrayList<>(mappingRules.length);
+		for (String[] mappingRule : mappingRules) {
 			try {
-				filters[i] = ctx.createFilter(mappingRules[i][0]);
-				outputStrings[i] = mappingRules[i][1];
+				Filter filter = ctx.createFilter(mappingRule[0]);
+				filterList.add(filter);
+				outputList.add(mappingRule[1]);
+				ruleList.add(new Rule(filter, mappingRule[1]));
 			} catch (InvalidSyntaxException e) {
 				//TODO Neeed to process this
 				e.printStackTrace();
 			}
 		}
+		filters = filterList.toArray(new Filter[filterList.size()]);
+		outputStrings = outputList.toArray(new String[outputList.size()]);
+		rules = ruleList.toArray(new Rule[ruleList.size()]);
 	}
 
 	public URI map(URI repositoryLocation, String classifier, String id, String version, String format,
 			Map<String, String> properties) {
-		String locationString = URIUtil.toUnencodedString(repositoryLocation);
-		Dictionary<String, String> allProperties = new Hashtable<>(properties.size() + 4);
-		if (repositoryLocation != null) {
+		RepositoryLocation location = lastLocation;
+		if (location == null || location.location != repositoryLocation) {
+			location = new RepositoryLocation(repositoryLocation);
+			lastLocation = location;
+		}
+		// the properties are only needed by the rules that are not on the classifier
+		Dictionary<String, String> allProperties = null;
+		for (Rule rule : rules) {
+			if (rule.classifier == null && allProperties == null)
+				allProperties = createProperties(location.string, classifier, id, version, format);
+			if (rule.matches(classifier, allProperties)) {
+				try {
+					return URIUtil.fromString(rule.template.expand(location.trimmed, classifier, id, version, format, properties));
+				} catch (URISyntaxException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Dictionary<String, String> createProperties(String locationString, String classifier, String id, String version, String format) {
+		Dictionary<String, String> allProperties = new Hashtable<>(5);
+		if (locationString != null) {
 			allProperties.put(REPOURL, locationString);
 		}
 		if (classifier != null) {
@@ -72,58 +232,7 @@ public class Mapper {
 		if (format != null) {
 			allProperties.put(FORMAT, format);
 		}
-
-		for (int i = 0; i < filters.length; i++) {
-			if (filters[i].match(allProperties))
-				return doReplacement(outputStrings[i], locationString, classifier, id, version, format, properties);
-		}
-		return null;
-	}
-
-	private URI doReplacement(String pattern, String repoLocation, String classifier, String id, String version,
-			String format, Map<String, String> properties) {
-		try {
-			// currently our mapping rules assume the repo URL is not "/" terminated.
-			// This may be the case for repoURLs in the root of a URL space e.g. root of a jar file or file:/c:/
-			if (repoLocation.endsWith("/")) //$NON-NLS-1$
-				repoLocation = repoLocation.substring(0, repoLocation.length() - 1);
-
-			StringBuilder output = new StringBuilder(pattern);
-			int index = 0;
-			while (index < output.length()) {
-				int beginning = output.indexOf("${", index); //$NON-NLS-1$
-				if (beginning == -1)
-					return URIUtil.fromString(output.toString());
-
-				int end = output.indexOf("}", beginning); //$NON-NLS-1$
-				if (end == -1)
-					return URIUtil.fromString(pattern);
-
-				String varName = output.substring(beginning + 2, end);
-				String varValue = null;
-				if (varName.equalsIgnoreCase(CLASSIFIER)) {
-					varValue = classifier;
-				} else if (varName.equalsIgnoreCase(ID)) {
-					varValue = id;
-				} else if (varName.equalsIgnoreCase(VERSION)) {
-					varValue = version;
-				} else if (varName.equalsIgnoreCase(REPOURL)) {
-					varValue = repoLocation;
-				} else if (varName.equalsIgnoreCase(FORMAT)) {
-					varValue = format;
-				} else if (properties.containsKey(varName)) {
-					varValue = properties.get(varName);
-				}
-				if (varValue == null)
-					varValue = ""; //$NON-NLS-1$
-
-				output.replace(beginning, end + 1, varValue);
-				index = beginning + varValue.length();
-			}
-			return URIUtil.fromString(output.toString());
-		} catch (URISyntaxException e) {
-			return null;
-		}
+		return allProperties;
 	}
 
 	@Override
@@ -22,12 +22,12 @@ package org.eclipse.equinox.internal.p2.artifact.repository.simple;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.artifact.processors.checksum.ChecksumUtilities;
 import org.eclipse.equinox.internal.p2.artifact.processors.checksum.ChecksumVerifier;
 import org.eclipse.equinox.internal.p2.artifact.processors.pgp.PGPSignatureVerifier;
@@ -35,12 +35,14 @@ import org.eclipse.equinox.internal.p2.artifact.repository.*;
 import org.eclipse.equinox.internal.p2.artifact.repository.Messages;
 import org.eclipse.equinox.internal.p2.core.helpers.FileUtils;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
-import org.eclipse.equinox.internal.p2.metadata.expression.CompoundIterator;
 import org.eclipse.equinox.internal.p2.metadata.index.IndexProvider;
+import org.eclipse.equinox.internal.p2.repository.DownloadExecutor;
 import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
 import org.eclipse.equinox.internal.p2.repository.Transport;
 import org.eclipse.equinox.internal.p2.repository.helpers.ChecksumHelper;
+import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryJournal;
 import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.*;
 import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -97,14 +99,19 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	/**
 	 * Does this instance of the repository currently hold a lock
 	 */
-	private boolean holdsLock = false;
+	private volatile boolean holdsLock = false;
 	/**
 	 * Does this instance of the repository can be locked.
 	 * It will be initialized when initializing the location for repository
 	 */
-	private Boolean canLock = null;
+	private volatile Boolean canLock = null;
 
-	private long cacheTimestamp = 0l;
+	private volatile long cacheTimestamp = 0l;
+
+	/**
+	 * The location of the repository, so that readers get it without locking.
+	 */
+	private volatile URI currentLocation;
 
 	public class ArtifactOutputStream extends OutputStream implements IStateful, IAdaptable {
 		private boolean closed;
@@ -114,6 +121,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		private File file;
 		private IStatus status = Status.OK_STATUS;
 		private OutputStream firstLink;
+		private FileOutputStream fileTarget;
 
 		public ArtifactOutputStream(OutputStream os, IArtifactDescriptor descriptor) {
 			this(os, descriptor, null);
@@ -191,6 +199,34 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			firstLink = value;
 		}
 
+		void setFileTarget(FileOutputStream fileTarget) {
+			this.fileTarget = fileTarget;
+		}
+
+		/**
+		 * Returns whether bytes can be appended to the artifact file directly,
+		 * see {@link #transferFrom(FileChannel, long, long)}.
+		 */
+		public boolean canTransfer() {
+			return fileTarget != null;
+		}
+
+		/**
+		 * Appends a region of the given file to the artifact file without copying
+		 * it through the heap.
+		 *
+		 * @return the number of bytes appended
+		 * @throws IOException if this stream has been closed or the transfer fails
+		 */
+		public long transferFrom(FileChannel source, long position, long length) throws IOException {
+			if (closed)
+				throw new IOException("Stream closed"); //$NON-NLS-1$
+			destination.flush();
+			long written = source.transferTo(position, length, fileTarget.getChannel());
+			count += written;
+			return written;
+		}
+
 		@Override
 		public <T> T getAdapter(Class<T> adapter) {
 			if (adapter.isInstance(descriptor)) {
@@ -265,22 +301,39 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	protected Set<SimpleArtifactDescriptor> artifactDescriptors = new HashSet<>();
 	private Set<SimpleArtifactDescriptor> addedDescriptors = new HashSet<>();
 	/**
-	 * Map<IArtifactKey,List<IArtifactDescriptor>> containing the index of artifacts in the repository.
+	 * The index of artifacts in the repository, read without locking. Writers
+	 * collect their changes in {@link #pendingChanges} and then publish a new
+	 * index at once.
+	 */
+	private volatile DescriptorIndex index = DescriptorIndex.EMPTY;
+	/**
+	 * The descriptors of each key changed since the index was last published.
 	 */
-	private Map<IArtifactKey, List<IArtifactDescriptor>> artifactMap = new HashMap<>();
-	private transient BlobStore blobStore;
-	transient private Mapper mapper = new Mapper();
-	private KeyIndex keyIndex;
-	private boolean snapshotNeeded = false;
+	private final Map<IArtifactKey, List<IArtifactDescriptor>> pendingChanges = new HashMap<>();
+	private transient volatile BlobStore blobStore;
+	transient private volatile Mapper mapper = new Mapper();
 
 	private static final int DEFAULT_MAX_THREADS = 4;
 
-	protected String[][] mappingRules = DEFAULT_MAPPING_RULES;
+	/**
+	 * The number of ticks reported when copying a local file, whatever its size.
+	 */
+	private static final int COPY_PROGRESS_TICKS = 100;
+
+	/**
+	 * The largest region of a local file transferred at once, so that progress is
+	 * reported while copying large files.
+	 */
+	private static final long TRANSFER_CHUNK_SIZE = 16 * 1024 * 1024;
+
+	protected volatile String[][] mappingRules = DEFAULT_MAPPING_RULES;
 
 	private MirrorSelector mirrors;
 
 	private boolean disableSave = false;
 
+	private RepositoryJournal journal;
+
 	static void delete(File toDelete) {
 		if (toDelete.isDirectory()) {
 			File[] children = toDelete.listFiles();
@@ -316,49 +369,35 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		this.mappingRules = mappingRules;
 		for (SimpleArtifactDescriptor desc : artifactDescriptors)
 			mapDescriptor(desc, false);
+		publishIndex();
 	}
 
 	private synchronized void mapDescriptor(SimpleArtifactDescriptor descriptor, boolean added) {
 		if (added) {
 			addedDescriptors.add(descriptor);
 		}
-		IArtifactKey key = descriptor.getArtifactKey();
-		if (snapshotNeeded) {
-			cloneAritfactMap();
-			snapshotNeeded = false;
-		}
-		List<IArtifactDescriptor> descriptors = artifactMap.get(key);
-		if (descriptors == null) {
-			descriptors = new ArrayList<>();
-			artifactMap.put(key, descriptors);
-		}
-		descriptors.add(descriptor);
-		keyIndex = null;
+		pendingDescriptors(descriptor.getArtifactKey()).add(descriptor);
 	}
 
 	private synchronized void unmapDescriptor(IArtifactDescriptor descriptor) {
 		addedDescriptors.remove(descriptor);
-		IArtifactKey key = descriptor.getArtifactKey();
-		List<IArtifactDescriptor> descriptors = artifactMap.get(key);
-		if (descriptors == null)
-			return;
+		pendingDescriptors(descriptor.getArtifactKey()).remove(descriptor);
+	}
 
-		if (snapshotNeeded) {
-			cloneAritfactMap();
-			snapshotNeeded = false;
-			descriptors = artifactMap.get(key);
-		}
-		descriptors.remove(descriptor);
-		if (descriptors.isEmpty())
-			artifactMap.remove(key);
-		keyIndex = null;
+	private List<IArtifactDescriptor> pendingDescriptors(IArtifactKey key) {
+		return pendingChanges.computeIfAbsent(key, k -> {
+			List<IArtifactDescriptor> current = index.get(k);
+			return current == null ? new ArrayList<>(1) : new ArrayList<>(current);
+		});
 	}
 
-	private void cloneAritfactMap() {
-		HashMap<IArtifactKey, List<IArtifactDescriptor>> clone = new HashMap<>(artifactMap.size());
-		for (Entry<IArtifactKey, List<IArtifactDescriptor>> entry : artifactMap.entrySet())
-			clone.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-		artifactMap = clone;
+	/**
+	 * Makes the descriptors mapped or unmapped so far visible to the readers of
+	 * the index.
+	 */
+	private synchronized void publishIndex() {
+		index = index.with(pendingChanges);
+		pendingChanges.clear();
 	}
 
 	public SimpleArtifactRepository(IProvisioningAgent agent, String repositoryName, URI location, Map<String, String> properties) {
@@ -398,7 +437,8 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			SimpleArtifactDescriptor internalDescriptor = createInternalDescriptor(toAdd);
 			artifactDescriptors.add(internalDescriptor);
 			mapDescriptor(internalDescriptor, true);
-			save();
+			publishIndex();
+			save(RepositoryJournal.ADDED, Collections.singleton(internalDescriptor));
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -437,14 +477,17 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
+			Set<SimpleArtifactDescriptor> added = new LinkedHashSet<>();
 			for (IArtifactDescriptor descriptor : descriptors) {
 				if (artifactDescriptors.contains(descriptor))
 					continue;
 				SimpleArtifactDescriptor internalDescriptor = createInternalDescriptor(descriptor);
 				artifactDescriptors.add(internalDescriptor);
 				mapDescriptor(internalDescriptor, true);
+				added.add(internalDescriptor);
 			}
-			save();
+			publishIndex();
+			save(RepositoryJournal.ADDED, added);
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -537,23 +580,23 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized boolean contains(IArtifactDescriptor descriptor) {
+	public boolean contains(IArtifactDescriptor descriptor) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
 		SimpleArtifactDescriptor simpleDescriptor = createInternalDescriptor(descriptor);
-		return artifactDescriptors.contains(simpleDescriptor);
+		return index.contains(simpleDescriptor);
 	}
 
 	@Override
-	public synchronized boolean contains(IArtifactKey key) {
+	public boolean contains(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		return artifactMap.containsKey(key);
+		return index.containsKey(key);
 	}
 
-	public synchronized URI createLocation(ArtifactDescriptor descriptor) {
+	public URI createLocation(ArtifactDescriptor descriptor) {
 		// if the descriptor is canonical, clear out any UUID that might be set and use the Mapper
 		if (descriptor.getProcessingSteps().length == 0) {
 			descriptor.setProperty(ARTIFACT_UUID, null);
@@ -678,35 +721,55 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 	/**
 	 * Copy a file to an output stream.
-	 * Optionally close the streams when done.
+	 * When the stream directly writes to a file, the bytes are transferred from
+	 * file to file without going through the heap.
 	 * Notify the monitor about progress we make
 	 *
 	 * @return the number of bytes written.
 	 */
 	private IStatus copyFileToStream(File in, OutputStream out, IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
-		// Buffer filled with contents from the stream at a time
-		int bufferSize = 16 * 1024;
-		byte[] buffer = new byte[bufferSize];
-		// Number of passes in the below loop, convert to integer which is needed in monitor conversion below
-		int expected_loops = Double.valueOf(in.length() / bufferSize).intValue() + 1; // +1: also count the initial run
-		SubMonitor sub = SubMonitor.convert(monitor, Messages.downloading + in.getName(), expected_loops);
+		long length = in.length();
+		SubMonitor sub = SubMonitor.convert(monitor, Messages.downloading + in.getName(), COPY_PROGRESS_TICKS);
 		// Be optimistic about the outcome of this...
 		IStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
 		try {
-			long start = System.currentTimeMillis();
-
+			long start = System.nanoTime();
+			long copied = 0;
+			int reported = 0;
 			try (FileInputStream stream = new FileInputStream(in)) {
+				FileChannel source = stream.getChannel();
+				if (out instanceof ArtifactOutputStream artifactStream && artifactStream.canTransfer()) {
+					while (copied < length) {
+						long written = artifactStream.transferFrom(source, copied, Math.min(TRANSFER_CHUNK_SIZE, length - copied));
+						if (written <= 0)
+							break;
+						copied += written;
+						reported = reportCopyProgress(sub, copied, length, reported);
+					}
+				} else if (out instanceof FileOutputStream fileStream) {
+					while (copied < length) {
+						long written = source.transferTo(copied, Math.min(TRANSFER_CHUNK_SIZE, length - copied), fileStream.getChannel());
+						if (written <= 0)
+							break;
+						copied += written;
+						reported = reportCopyProgress(sub, copied, length, reported);
+					}
+				}
+				// copy what could not be transferred, e.g. when the size of the file changed
+				stream.getChannel().position(copied);
+				byte[] buffer = new byte[64 * 1024];
 				int len;
 				while ((len = stream.read(buffer)) != -1) {
 					out.write(buffer, 0, len);
-					sub.worked(1);
+					copied += len;
+					reported = reportCopyProgress(sub, copied, length, reported);
 				}
 			}
-			long end = System.currentTimeMillis();
-			((DownloadStatus) status).setFileSize(in.length());
+			long elapsed = Math.max(System.nanoTime() - start, 1);
+			((DownloadStatus) status).setFileSize(length);
 			((DownloadStatus) status).setLastModified(in.lastModified());
-			((DownloadStatus) status).setTransferRate(in.length() / Math.max((end - start), 1) * 1000);
+			((DownloadStatus) status).setTransferRate((long) (copied * 1e9 / elapsed));
 		} catch (IOException ioe) {
 			status = new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.error_copying_local_file, in.getAbsolutePath()), ioe);
 		}
@@ -714,6 +777,21 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return status;
 	}
 
+	/**
+	 * Reports the ticks corresponding to the bytes copied so far that have not
+	 * been reported yet, independently of the size of the copied chunks.
+	 *
+	 * @return the number of ticks reported so far
+	 */
+	private static int reportCopyProgress(SubMonitor sub, long copied, long length, int reported) {
+		int ticks = length <= 0 ? COPY_PROGRESS_TICKS : (int) Math.min(COPY_PROGRESS_TICKS, copied * COPY_PROGRESS_TICKS / length);
+		if (ticks > reported) {
+			sub.worked(ticks - reported);
+			return ticks;
+		}
+		return reported;
+	}
+
 	private IStatus downloadArtifact(IArtifactDescriptor descriptor, URI mirrorLocation, OutputStream destination,
 			IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
@@ -858,12 +936,12 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized IArtifactDescriptor[] getArtifactDescriptors(IArtifactKey key) {
+	public IArtifactDescriptor[] getArtifactDescriptors(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
 
-		List<IArtifactDescriptor> result = artifactMap.get(key);
+		List<IArtifactDescriptor> result = index.get(key);
 		if (result == null)
 			return new IArtifactDescriptor[0];
 
@@ -896,7 +974,6 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			return Status.CANCEL_STATUS;
 
 		final MultiStatus overallStatus = new MultiStatus(Activator.ID, IStatus.OK, NLS.bind(Messages.message_problemReadingArtifact, getLocation()), null);
-		LinkedList<IArtifactRequest> requestsPending = new LinkedList<>(Arrays.asList(requests));
 
 		int numberOfJobs = Math.min(requests.length, getMaximumThreads());
 		if (numberOfJobs <= 1 || (!isForceThreading() && isLocal())) {
@@ -913,21 +990,30 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 				subMonitor.done();
 			}
 		} else {
-			// initialize the various jobs needed to process the get artifact requests
+			// run the requests on the download threads shared by the agent
 			monitor.beginTask(NLS.bind(Messages.sar_downloading, Integer.toString(requests.length)), requests.length);
 			try {
-				DownloadJob jobs[] = new DownloadJob[numberOfJobs];
-				for (int i = 0; i < numberOfJobs; i++) {
-					jobs[i] = new DownloadJob(Messages.sar_downloadJobName + i, this, requestsPending, monitor,
-							overallStatus);
-					jobs[i].schedule();
-				}
-				// wait for all the jobs to complete
-				try {
-					Job.getJobManager().join(DownloadJob.FAMILY, null);
-				} catch (InterruptedException e) {
-					//ignore
+				IProgressMonitor masterMonitor = monitor;
+				List<Runnable> tasks = new ArrayList<>(requests.length);
+				for (IArtifactRequest request : requests) {
+					tasks.add(() -> {
+						if (masterMonitor.isCanceled())
+							return;
+						SubMonitor subMonitor = SubMonitor.convert(masterMonitor, 1);
+						subMonitor.beginTask("", 1); //$NON-NLS-1$
+						try {
+							IStatus status = getArtifact(request, subMonitor);
+							if (!status.isOK()) {
+								synchronized (overallStatus) {
+									overallStatus.add(status);
+								}
+							}
+						} finally {
+							subMonitor.done();
+						}
+					});
 				}
+				DownloadExecutor.getExecutor(getProvisioningAgent()).invokeAll(tasks, numberOfJobs, monitor);
 			} finally {
 				monitor.done();
 			}
@@ -941,11 +1027,11 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			return overallStatus;
 	}
 
-	public synchronized IArtifactDescriptor getCompleteArtifactDescriptor(IArtifactKey key) {
+	public IArtifactDescriptor getCompleteArtifactDescriptor(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		List<IArtifactDescriptor> descriptors = artifactMap.get(key);
+		List<IArtifactDescriptor> descriptors = index.get(key);
 		if (descriptors == null)
 			return null;
 
@@ -957,14 +1043,14 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return null;
 	}
 
-	public synchronized Set<SimpleArtifactDescriptor> getDescriptors() {
+	public Set<SimpleArtifactDescriptor> getDescriptors() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		return artifactDescriptors;
+		return index.getDescriptors();
 	}
 
-	public synchronized URI getLocation(IArtifactDescriptor descriptor) {
+	public URI getLocation(IArtifactDescriptor descriptor) {
 		// if the artifact has a uuid then use it
 		String uuid = descriptor.getProperty(ARTIFACT_UUID);
 		if (uuid != null)
@@ -1079,7 +1165,10 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 			// finally create and return an output stream suitably wrapped so that when it is
 			// closed the repository is updated with the descriptor
-			return new ArtifactOutputStream(new BufferedOutputStream(target), newDescriptor, outputFile);
+			ArtifactOutputStream result = new ArtifactOutputStream(new BufferedOutputStream(target), newDescriptor, outputFile);
+			if (target instanceof FileOutputStream fileTarget)
+				result.setFileTarget(fileTarget);
+			return result;
 		} catch (IOException e) {
 			throw failedWrite(e);
 		}
@@ -1105,7 +1194,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_WRITE, msg, e));
 	}
 
-	public synchronized String[][] getRules() {
+	public String[][] getRules() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -1143,8 +1232,9 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	private synchronized void initializeMapper() {
-		mapper = new Mapper();
-		mapper.initialize(Activator.getContext(), mappingRules);
+		Mapper newMapper = new Mapper();
+		newMapper.initialize(Activator.getContext(), mappingRules);
+		mapper = newMapper;
 	}
 
 	private boolean isFolderBased(IArtifactDescriptor descriptor) {
@@ -1202,6 +1292,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			boolean changed = false;
 			for (IArtifactDescriptor element : toRemove)
 				changed |= doRemoveArtifact(element);
+			publishIndex();
 			if (changed)
 				save();
 		} finally {
@@ -1221,8 +1312,10 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
-			if (doRemoveArtifact(descriptor))
-				save();
+			boolean removed = doRemoveArtifact(descriptor);
+			publishIndex();
+			if (removed)
+				save(RepositoryJournal.REMOVED, Collections.singleton(toJournal(descriptor)));
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -1240,11 +1333,13 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
-			boolean changed = false;
+			Set<SimpleArtifactDescriptor> removed = new LinkedHashSet<>();
 			for (IArtifactDescriptor descriptor : descriptors)
-				changed |= doRemoveArtifact(descriptor);
-			if (changed)
-				save();
+				if (doRemoveArtifact(descriptor))
+					removed.add(toJournal(descriptor));
+			publishIndex();
+			if (!removed.isEmpty())
+				save(RepositoryJournal.REMOVED, removed);
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -1266,16 +1361,18 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
-			boolean changed = false;
+			Set<SimpleArtifactDescriptor> removed = new LinkedHashSet<>();
 			for (IArtifactKey key : keys) {
 				IArtifactDescriptor[] descriptors = getArtifactDescriptors(key);
 				for (IArtifactDescriptor descriptor : descriptors)
 					if (!removeIfAdded || addedDescriptors.remove(descriptor)) {
-						changed |= doRemoveArtifact(descriptor);
+						if (doRemoveArtifact(descriptor))
+							removed.add(toJournal(descriptor));
 					}
 			}
-			if (changed)
-				save();
+			publishIndex();
+			if (!removed.isEmpty())
+				save(RepositoryJournal.REMOVED, removed);
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -1294,11 +1391,13 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			}
 
 			IArtifactDescriptor[] toRemove = getArtifactDescriptors(key);
-			boolean changed = false;
+			Set<SimpleArtifactDescriptor> removed = new LinkedHashSet<>();
 			for (IArtifactDescriptor element : toRemove)
-				changed |= doRemoveArtifact(element);
-			if (changed)
-				save();
+				if (doRemoveArtifact(element))
+					removed.add(toJournal(element));
+			publishIndex();
+			if (!removed.isEmpty())
+				save(RepositoryJournal.REMOVED, removed);
 		} finally {
 			if (lockAcquired)
 				unlock();
@@ -1385,6 +1484,10 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 				}
 				super.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()), new NullProgressMonitor());
 				new SimpleArtifactRepositoryIO(getProvisioningAgent()).write(this, os);
+				// the index now holds the changes recorded in the journal
+				RepositoryJournal currentJournal = getJournal();
+				if (currentJournal != null)
+					currentJournal.delete();
 			} catch (IOException e) {
 				// TODO proper exception handling
 				e.printStackTrace();
@@ -1398,13 +1501,114 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		}
 	}
 
+	/**
+	 * Saves the given change to the repository. A repository with the
+	 * {@link RepositoryJournal#PROP_JOURNAL} property appends the change to its
+	 * journal, and writes the whole repository again in the background once the
+	 * journal grows as large as the index.
+	 */
+	private void save(byte kind, Set<SimpleArtifactDescriptor> changed) {
+		if (disableSave)
+			return;
+		RepositoryJournal currentJournal = getJournal();
+		if (currentJournal == null || !TRUE.equalsIgnoreCase(getProperty(RepositoryJournal.PROP_JOURNAL))) {
+			save();
+			return;
+		}
+		assertModifiable();
+		try {
+			super.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()), new NullProgressMonitor());
+			ByteArrayOutputStream entry = new ByteArrayOutputStream();
+			new SimpleArtifactRepositoryIO(getProvisioningAgent()).writeJournalEntry(this, changed, entry);
+			currentJournal.append(kind, entry.toByteArray());
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID, NLS.bind(Messages.repoFailedWrite, getLocation()), e));
+			save();
+			return;
+		}
+		updateTimestamp();
+		boolean compress = TRUE.equalsIgnoreCase(getProperty(PROP_COMPRESSED));
+		File index = URIUtil.toFile(getActualLocation(getLocation(), compress));
+		if (currentJournal.shouldCompact(index.length()))
+			currentJournal.scheduleCompaction(this::compact);
+	}
+
+	/**
+	 * Writes the whole repository again, so that its journal is no longer needed.
+	 */
+	private synchronized void compact() {
+		boolean lockAcquired = false;
+		try {
+			if (canLock()) {
+				lockAcquired = lockAndLoad(false, new NullProgressMonitor());
+				if (!lockAcquired)
+					return;
+			}
+			RepositoryJournal currentJournal = getJournal();
+			if (currentJournal != null && currentJournal.exists())
+				save();
+		} finally {
+			if (lockAcquired)
+				unlock();
+		}
+	}
+
+	/**
+	 * Returns the journal beside the index of this repository, or
+	 * <code>null</code> if the repository is not local.
+	 */
+	private synchronized RepositoryJournal getJournal() {
+		if (!URIUtil.isFileURI(getLocation()))
+			return null;
+		File file = URIUtil.toFile(getActualLocation(getLocation(), RepositoryJournal.JOURNAL_EXTENSION));
+		if (journal == null || !journal.getFile().equals(file))
+			journal = new RepositoryJournal(file);
+		return journal;
+	}
+
+	/**
+	 * Returns the descriptor to record in the journal for a removed descriptor.
+	 */
+	private SimpleArtifactDescriptor toJournal(IArtifactDescriptor descriptor) {
+		return descriptor instanceof SimpleArtifactDescriptor ? (SimpleArtifactDescriptor) descriptor : createInternalDescriptor(descriptor);
+	}
+
+	/**
+	 * Applies the changes recorded in the journal to the index this repository
+	 * was just read from.
+	 */
+	synchronized void replayJournal(SimpleArtifactRepositoryIO io) throws ProvisionException {
+		RepositoryJournal currentJournal = getJournal();
+		if (currentJournal == null)
+			return;
+		List<RepositoryJournal.Entry> entries;
+		try {
+			entries = currentJournal.read();
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, getLocation()), e));
+		}
+		for (RepositoryJournal.Entry entry : entries) {
+			SimpleArtifactRepository change = (SimpleArtifactRepository) io.read(getLocation(), new ByteArrayInputStream(entry.content()), new NullProgressMonitor(), false);
+			for (SimpleArtifactDescriptor descriptor : change.artifactDescriptors) {
+				if (entry.kind() == RepositoryJournal.REMOVED) {
+					if (artifactDescriptors.remove(descriptor))
+						unmapDescriptor(descriptor);
+				} else if (artifactDescriptors.add(descriptor)) {
+					mapDescriptor(descriptor, false);
+				}
+			}
+			setProperties(new OrderedProperties(change.getProperties()));
+		}
+		publishIndex();
+	}
+
 	private String doSetProperty(String key, String newValue, IProgressMonitor monitor, boolean save) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 		String oldValue = super.setProperty(key, newValue, new NullProgressMonitor());
 		if (oldValue == newValue || (oldValue != null && oldValue.equals(newValue)))
 			return oldValue;
 		if (save)
-			save();
+			save(RepositoryJournal.ADDED, Collections.emptySet());
 		return oldValue;
 	}
 
@@ -1434,15 +1638,21 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return getLocation().toString();
 	}
 
+	@Override
+	public URI getLocation() {
+		URI result = currentLocation;
+		return result != null ? result : super.getLocation();
+	}
+
+	@Override
+	protected synchronized void setLocation(URI location) {
+		super.setLocation(location);
+		currentLocation = location;
+	}
+
 	@Override
 	public IQueryable<IArtifactDescriptor> descriptorQueryable() {
-		return (query, monitor) -> {
-			synchronized (SimpleArtifactRepository.this) {
-				snapshotNeeded = true;
-				Collection<List<IArtifactDescriptor>> descs = SimpleArtifactRepository.this.artifactMap.values();
-				return query.perform(new CompoundIterator<>(descs.iterator()));
-			}
-		};
+		return (query, monitor) -> query.perform(index.descriptors());
 	}
 
 	@Override
@@ -1452,12 +1662,11 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized Iterator<IArtifactKey> everything() {
+	public Iterator<IArtifactKey> everything() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		snapshotNeeded = true;
-		return artifactMap.keySet().iterator();
+		return index.keys();
 	}
 
 	@Override
@@ -1504,16 +1713,12 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized IIndex<IArtifactKey> getIndex(String memberName) {
+	public IIndex<IArtifactKey> getIndex(String memberName) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		if (ArtifactKey.MEMBER_ID.equals(memberName)) {
-			snapshotNeeded = true;
-			if (keyIndex == null)
-				keyIndex = new KeyIndex(artifactMap.keySet());
-			return keyIndex;
-		}
+		if (ArtifactKey.MEMBER_ID.equals(memberName))
+			return index.getKeyIndex();
 		return null;
 	}
 
@@ -1641,19 +1846,32 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	 */
 	private void load(IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
-		if (!holdsLock())
+		if (!holdsLock() && !isUpToDate())
 			doLoad(monitor);
 		else
 			monitor.done();
 	}
 
+	/**
+	 * Returns true if neither the index nor the journal of this local repository
+	 * changed since they were last read. This is checked without locking, so
+	 * that readers only wait for each other when the repository must be read
+	 * again.
+	 */
+	private boolean isUpToDate() {
+		URI location = getLocation();
+		long lastModified = Math.max(URIUtil.toFile(getActualLocation(location, JAR_EXTENSION)).lastModified(), URIUtil.toFile(getActualLocation(location, XML_EXTENSION)).lastModified());
+		lastModified = Math.max(lastModified, URIUtil.toFile(getActualLocation(location, RepositoryJournal.JOURNAL_EXTENSION)).lastModified());
+		return lastModified != 0 && lastModified <= cacheTimestamp;
+	}
+
 	private void updateTimestamp() {
 		if (!isModifiable())
 			return;
 		try {
 			SimpleArtifactRepositoryFactory repositoryFactory = new SimpleArtifactRepositoryFactory();
 			File localFile = repositoryFactory.getLocalFile(getLocation(), new NullProgressMonitor());
-			long lastModified = localFile.lastModified();
+			long lastModified = getLastModified(localFile);
 			if (lastModified > 0)
 				cacheTimestamp = lastModified;
 		} catch (Exception e) {
@@ -1661,12 +1879,20 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		}
 	}
 
+	/**
+	 * Returns when the given index or the journal beside it was last changed.
+	 */
+	private long getLastModified(File index) {
+		RepositoryJournal currentJournal = getJournal();
+		return Math.max(index.lastModified(), currentJournal == null ? 0 : currentJournal.lastModified());
+	}
+
 	/**
 	 * Loads the repository from disk. If the last modified timestamp on the file <=
 	 * to our cache, then this method does nothing.  Otherwise the artifact repository
 	 * on disk is loaded, and reconciled with this instance of the artifact repository.
 	 */
-	private void doLoad(IProgressMonitor monitor) {
+	private synchronized void doLoad(IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 
 		SimpleArtifactRepositoryFactory repositoryFactory = new SimpleArtifactRepositoryFactory();
@@ -1675,7 +1901,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			SubMonitor subMonitor = SubMonitor.convert(monitor, 4);
 			try {
 				File localFile = repositoryFactory.getLocalFile(getLocation(), subMonitor.newChild(1));
-				long lastModified = localFile.lastModified();
+				long lastModified = getLastModified(localFile);
 				if (lastModified <= cacheTimestamp)
 					return;
 				cacheTimestamp = lastModified;
@@ -1710,7 +1936,8 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 				//
 				this.artifactDescriptors = ((SimpleArtifactRepository) repositoryOnDisk).artifactDescriptors;
-				this.artifactMap = ((SimpleArtifactRepository) repositoryOnDisk).artifactMap;
+				this.pendingChanges.clear();
+				this.index = ((SimpleArtifactRepository) repositoryOnDisk).index;
 				this.addedDescriptors.clear();
 			}
 		} finally {
@@ -110,6 +110,8 @@ public class SimpleArtifactRepositoryFactory extends ArtifactRepositoryFactory {
 				InputStream descriptorStream = jarStream != null ? jarStream : inStream;
 				SimpleArtifactRepositoryIO io = new SimpleArtifactRepositoryIO(getAgent());
 				SimpleArtifactRepository result = (SimpleArtifactRepository) io.read(location, descriptorStream, sub.newChild(100), acquireLock);
+				if (PROTOCOL_FILE.equals(location.getScheme()))
+					result.replayJournal(io);
 				result.initializeAfterLoad(location);
 				if (result != null && (flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0 && !result.isModifiable())
 					return null;
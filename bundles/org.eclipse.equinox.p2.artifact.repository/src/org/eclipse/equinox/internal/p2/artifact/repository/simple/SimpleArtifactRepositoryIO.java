@@ -76,6 +76,18 @@ public class SimpleArtifactRepositoryIO {
 		}
 	}
 
+	/**
+	 * Writes the given descriptors, with the properties of the given repository,
+	 * as an entry of the repository's journal. The entry is read back like a
+	 * repository holding only these descriptors.
+	 * This method performs buffering, and closes the stream when finished.
+	 */
+	public void writeJournalEntry(SimpleArtifactRepository repository, Set<SimpleArtifactDescriptor> descriptors, OutputStream output) throws IOException {
+		try (OutputStream bufferedOutput = new BufferedOutputStream(output)) {
+			new Writer(bufferedOutput).write(repository, descriptors);
+		}
+	}
+
 	/**
 	 * Reads the artifact repository from the given stream,
 	 * and returns the contained array of abstract artifact repositories.
@@ -229,6 +241,10 @@ public class SimpleArtifactRepositoryIO {
 		 * Write the given artifact repository to the output stream.
 		 */
 		public void write(SimpleArtifactRepository repository) {
+			write(repository, repository.getDescriptors());
+		}
+
+		void write(SimpleArtifactRepository repository, Set<SimpleArtifactDescriptor> artifactDescriptors) {
 			start(REPOSITORY_ELEMENT);
 			attribute(NAME_ATTRIBUTE, repository.getName());
 			attribute(TYPE_ATTRIBUTE, repository.getType());
@@ -238,7 +254,7 @@ public class SimpleArtifactRepositoryIO {
 
 			writeProperties(repository.getProperties());
 			writeMappingRules(repository.getRules());
-			writeArtifacts(repository.getDescriptors());
+			writeArtifacts(artifactDescriptors);
 
 			end(REPOSITORY_ELEMENT);
 			flush();
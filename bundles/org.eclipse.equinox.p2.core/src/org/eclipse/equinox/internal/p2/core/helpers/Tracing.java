@@ -36,6 +36,7 @@ public class Tracing {
 	public static boolean DEBUG_PLANNER_OPERANDS = false;
 	public static boolean DEBUG_PLANNER_PROJECTOR = false;
 	public static boolean DEBUG_PLANNER_PROJECTOR_ENCODING = false;
+	public static boolean DEBUG_PLANNER_TIMING = false;
 	public static boolean DEBUG_PROFILE_PREFERENCES = false;
 	public static boolean DEBUG_PUBLISHING = false;
 	public static boolean DEBUG_RECONCILER = false;
@@ -62,6 +63,7 @@ public class Tracing {
 					DEBUG_PLANNER_PROJECTOR = options.getBooleanOption(Activator.ID + "/planner/projector", false); //$NON-NLS-1$
 					DEBUG_PLANNER_PROJECTOR_ENCODING = options.getBooleanOption(Activator.ID + "/planner/encoding", //$NON-NLS-1$
 							false);
+					DEBUG_PLANNER_TIMING = options.getBooleanOption(Activator.ID + "/planner/timing", false); //$NON-NLS-1$
 					DEBUG_PROFILE_PREFERENCES = options.getBooleanOption(Activator.ID + "/engine/profilepreferences", //$NON-NLS-1$
 							false);
 					DEBUG_PUBLISHING = options.getBooleanOption(Activator.ID + "/publisher", false); //$NON-NLS-1$
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import org.sat4j.minisat.restarts.LubyRestarts;
+import org.sat4j.pb.IPBSolver;
+import org.sat4j.pb.SolverFactory;
+import org.sat4j.pb.core.PBSolverResolution;
+
+/**
+ * The single solver the {@link Projector} has always used.
+ */
+public class DefaultSolverFactory implements ISolverFactory {
+	public static final ISolverFactory INSTANCE = new DefaultSolverFactory();
+
+	@Override
+	public IPBSolver createSolver(boolean userDefinedFunction) {
+		if (userDefinedFunction) {
+			return createResolutionSolver();
+		}
+		return SolverFactory.newEclipseP2();
+	}
+
+	static PBSolverResolution createResolutionSolver() {
+		PBSolverResolution solver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
+		solver.setSimplifier(solver.SIMPLE_SIMPLIFICATION);
+		solver.setRestartStrategy(new LubyRestarts(512));
+		return solver;
+	}
+}
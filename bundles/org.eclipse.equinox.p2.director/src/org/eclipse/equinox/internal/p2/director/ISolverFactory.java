@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import org.sat4j.pb.IPBSolver;
+
+/**
+ * Creates the pseudo-boolean solver a {@link Projector} encodes its problem
+ * into.
+ */
+public interface ISolverFactory {
+	/**
+	 * Creates a new solver.
+	 *
+	 * @param userDefinedFunction whether the problem is optimized with the user
+	 *                            defined optimization function
+	 * @return a new, empty solver
+	 */
+	IPBSolver createSolver(boolean userDefinedFunction);
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+
+/**
+ * Interns the installable units seen during a planning session and gives each
+ * of them a dense int id, in the order in which they were first interned. Two
+ * units with the same id and version (see {@link IInstallableUnit#equals})
+ * share the same int id, so planner structures can use arrays and bit sets
+ * indexed by that id instead of hash maps keyed on units or on
+ * <code>id_version</code> strings.
+ * <p>
+ * The table uses open addressing and remembers the hash code of each unit so
+ * that neither lookups nor growth need to recompute it. It is not thread safe.
+ */
+public class InstallableUnitTable {
+	private static final int NOT_FOUND = -1;
+
+	private IInstallableUnit[] units;
+	private int[] hashes;
+	/** The slots of the hash table, holding int id + 1, 0 for an empty slot */
+	private int[] slots;
+	private int size;
+
+	public InstallableUnitTable() {
+		this(16);
+	}
+
+	public InstallableUnitTable(int expectedSize) {
+		int capacity = Math.max(16, expectedSize);
+		units = new IInstallableUnit[capacity];
+		hashes = new int[capacity];
+		slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+	}
+
+	/**
+	 * Returns the int id of the given unit, giving it the next free id if no
+	 * equal unit has been interned yet.
+	 */
+	public int intern(IInstallableUnit iu) {
+		int hash = iu.hashCode();
+		int mask = slots.length - 1;
+		int index = mix(hash) & mask;
+		for (int slot; (slot = slots[index]) != 0; index = (index + 1) & mask) {
+			if (hashes[slot - 1] == hash && units[slot - 1].equals(iu)) {
+				return slot - 1;
+			}
+		}
+		int id = size++;
+		if (id == units.length) {
+			units = Arrays.copyOf(units, id * 2);
+			hashes = Arrays.copyOf(hashes, id * 2);
+		}
+		units[id] = iu;
+		hashes[id] = hash;
+		slots[index] = id + 1;
+		if (size * 2 > slots.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the int id of the given unit, or -1 if no equal unit has been
+	 * interned.
+	 */
+	public int indexOf(IInstallableUnit iu) {
+		int hash = iu.hashCode();
+		int mask = slots.length - 1;
+		for (int index = mix(hash) & mask, slot; (slot = slots[index]) != 0; index = (index + 1) & mask) {
+			if (hashes[slot - 1] == hash && units[slot - 1].equals(iu)) {
+				return slot - 1;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Returns the unit that was first interned with the given id.
+	 */
+	public IInstallableUnit get(int id) {
+		return units[id];
+	}
+
+	/**
+	 * Replaces the unit stored under the given id by an equal unit.
+	 */
+	public void set(int id, IInstallableUnit iu) {
+		units[id] = iu;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a read-only view of the interned units, in id order.
+	 */
+	public List<IInstallableUnit> units() {
+		return new AbstractList<>() {
+			@Override
+			public IInstallableUnit get(int index) {
+				return units[Objects.checkIndex(index, size)];
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private void rehash() {
+		int[] newSlots = new int[slots.length * 2];
+		int mask = newSlots.length - 1;
+		for (int id = 0; id < size; id++) {
+			int index = mix(hashes[id]) & mask;
+			while (newSlots[index] != 0) {
+				index = (index + 1) & mask;
+			}
+			newSlots[index] = id + 1;
+		}
+		slots = newSlots;
+	}
+
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+
+/**
+ * Remembers, per profile, the installable units that were available to the
+ * last planning request together with the requirement expansions computed by
+ * the {@link Slicer}. A subsequent request that sees exactly the same units
+ * (by identity) reuses the indexed queryable and only expands the requirements
+ * that have not been seen before, instead of re-indexing and re-slicing the
+ * whole dependency graph.
+ */
+class PlanningCache {
+	private static final int MAX_PROFILES = 4;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(MAX_PROFILES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_PROFILES;
+		}
+	};
+
+	static final class Entry {
+		private final Set<IInstallableUnit> units;
+		private final QueryableArray queryable;
+		private final Map<String, String> selectionContext;
+		private final boolean considerMetaRequirements;
+		private final Map<IMatchExpression<IInstallableUnit>, Collection<IInstallableUnit>> expansions = new ConcurrentHashMap<>();
+
+		Entry(Collection<IInstallableUnit> units, Map<String, String> selectionContext,
+				boolean considerMetaRequirements) {
+			this.units = Collections.newSetFromMap(new IdentityHashMap<>(units.size()));
+			this.units.addAll(units);
+			this.queryable = new QueryableArray(units);
+			this.selectionContext = new HashMap<>(selectionContext);
+			this.considerMetaRequirements = considerMetaRequirements;
+		}
+
+		boolean matches(Collection<IInstallableUnit> available, Map<String, String> context,
+				boolean metaRequirements) {
+			if (considerMetaRequirements != metaRequirements || units.size() != available.size()
+					|| !selectionContext.equals(context)) {
+				return false;
+			}
+			for (IInstallableUnit iu : available) {
+				if (!units.contains(iu)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		QueryableArray getAvailableUnits() {
+			return queryable;
+		}
+
+		Map<IMatchExpression<IInstallableUnit>, Collection<IInstallableUnit>> getExpansions() {
+			return expansions;
+		}
+	}
+
+	/**
+	 * Returns the cache entry for the given profile, replacing the previous one
+	 * when the available units or the resolution context have changed since the
+	 * last request.
+	 */
+	synchronized Entry getEntry(String profileId, Collection<IInstallableUnit> available,
+			Map<String, String> selectionContext, boolean considerMetaRequirements) {
+		Entry entry = entries.get(profileId);
+		if (entry == null || !entry.matches(available, selectionContext, considerMetaRequirements)) {
+			entry = new Entry(available, selectionContext, considerMetaRequirements);
+			entries.put(profileId, entry);
+		}
+		return entry;
+	}
+}
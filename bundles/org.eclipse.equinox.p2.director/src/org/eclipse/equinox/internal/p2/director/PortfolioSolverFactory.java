@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.sat4j.pb.IPBSolver;
+import org.sat4j.pb.SolverFactory;
+import org.sat4j.pb.tools.ManyCorePB;
+
+/**
+ * Creates a solver that races several differently configured solvers on the
+ * same encoding, one thread each; the first one to answer (and, while
+ * optimizing, the first one to find a better solution) wins. The default
+ * solver is always part of the portfolio.
+ */
+public class PortfolioSolverFactory implements ISolverFactory {
+	private final int size;
+
+	/**
+	 * @param size the maximum number of solvers to race, bounded by the number of
+	 *             available processors
+	 */
+	public PortfolioSolverFactory(int size) {
+		this.size = Math.min(size, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public IPBSolver createSolver(boolean userDefinedFunction) {
+		List<IPBSolver> solvers = new ArrayList<>(3);
+		solvers.add(DefaultSolverFactory.INSTANCE.createSolver(userDefinedFunction));
+		solvers.add(userDefinedFunction ? SolverFactory.newEclipseP2() : DefaultSolverFactory.createResolutionSolver());
+		solvers.add(SolverFactory.newDefault());
+		if (size < 2) {
+			return solvers.get(0);
+		}
+		return new ManyCorePB<>(solvers.subList(0, Math.min(size, solvers.size())).toArray(IPBSolver[]::new));
+	}
+}
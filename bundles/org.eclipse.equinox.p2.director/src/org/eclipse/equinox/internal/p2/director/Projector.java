@@ -23,6 +23,7 @@ package org.eclipse.equinox.internal.p2.director;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
@@ -33,9 +34,7 @@ import org.eclipse.equinox.p2.metadata.*;
 import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.query.*;
 import org.eclipse.osgi.util.NLS;
-import org.sat4j.minisat.restarts.LubyRestarts;
 import org.sat4j.pb.*;
-import org.sat4j.pb.core.PBSolverResolution;
 import org.sat4j.pb.tools.*;
 import org.sat4j.specs.*;
 
@@ -55,8 +54,11 @@ public class Projector {
 	 * The default SAT solver timeout (in number of conflicts). See bug 372529 for discussion.
 	 */
 	private static final int DEFAULT_SOLVER_TIMEOUT = 10000;
+	// how long a canceled explanation is given to stop before its result is abandoned
+	private static final long EXPLANATION_STOP_TIMEOUT = 1000;
 	static boolean DEBUG = Tracing.DEBUG_PLANNER_PROJECTOR;
 	private static boolean DEBUG_ENCODING = Tracing.DEBUG_PLANNER_PROJECTOR_ENCODING;
+	private static boolean DEBUG_TIMING = Tracing.DEBUG_PLANNER_TIMING;
 	private IQueryable<IInstallableUnit> picker;
 	private QueryableArray patches;
 
@@ -68,6 +70,7 @@ public class Projector {
 	private IInstallableUnit selectionContext;
 
 	DependencyHelper<Object, Explanation> dependencyHelper;
+	private ExplanationJob explanationJob;
 	private Collection<IInstallableUnit> solution;
 	private Collection<Object> assumptions;
 
@@ -82,11 +85,15 @@ public class Projector {
 
 	//Non greedy things
 	private Set<IInstallableUnit> nonGreedyIUs; //All the IUs that would satisfy non greedy dependencies
-	private Map<IInstallableUnit, AbstractVariable> nonGreedyVariables = new HashMap<>();
+	private InstallableUnitTable nonGreedyIds = new InstallableUnitTable();
+	private List<AbstractVariable> nonGreedyVariables = new ArrayList<>(); // The non greedy variable of each IU, by interned id
 	private Map<AbstractVariable, List<Object>> nonGreedyProvider = new HashMap<>(); //Keeps track of all the "object" that provide an IU that is non greedly requested
 
+	private Set<Explanation> missingExplanations = new LinkedHashSet<>(); //The missing IUs found while encoding, used as partial explanation
+
 	private boolean emptyBecauseFiltered;
 	private boolean userDefinedFunction;
+	private ISolverFactory solverFactory = DefaultSolverFactory.INSTANCE;
 
 	static class AbstractVariable {
 		//		private String name;
@@ -110,10 +117,19 @@ public class Projector {
 	 * Job for computing SAT failure explanation in the background.
 	 */
 	class ExplanationJob extends Job {
-		private Set<Explanation> explanation;
-
-		public ExplanationJob() {
+		private final DependencyHelper<Object, Explanation> helper = dependencyHelper;
+		private final Set<Explanation> reported;
+		private final Consumer<Explanation> listener;
+		private volatile Set<Explanation> explanation;
+
+		/**
+		 * @param reported the explanations already given to the listener
+		 * @param listener the listener given the other elements of the explanation, or <code>null</code>
+		 */
+		public ExplanationJob(Set<Explanation> reported, Consumer<Explanation> listener) {
 			super(Messages.Planner_NoSolution);
+			this.reported = reported;
+			this.listener = listener;
 			//explanations cannot be canceled directly, so don't show it to the user
 			setSystem(true);
 		}
@@ -126,7 +142,7 @@ public class Projector {
 		@Override
 		protected void canceling() {
 			super.canceling();
-			dependencyHelper.stopExplanation();
+			helper.stopExplanation();
 		}
 
 		public Set<Explanation> getExplanationResult() {
@@ -135,18 +151,21 @@ public class Projector {
 
 		@Override
 		protected IStatus run(IProgressMonitor monitor) {
-			long start = 0;
+			long start = System.currentTimeMillis();
 			if (DEBUG) {
-				start = System.currentTimeMillis();
 				Tracing.debug("Determining cause of failure: " + start); //$NON-NLS-1$
 			}
+			Set<Explanation> result = null;
 			try {
-				explanation = dependencyHelper.why();
+				result = helper.why();
+				if (DEBUG_TIMING) {
+					Tracing.debug("Projector explanation: " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
 				if (DEBUG) {
 					long stop = System.currentTimeMillis();
 					Tracing.debug("Explanation found: " + (stop - start)); //$NON-NLS-1$
 					Tracing.debug("Explanation:"); //$NON-NLS-1$
-					for (Explanation ex : explanation) {
+					for (Explanation ex : result) {
 						Tracing.debug(ex.toString());
 					}
 				}
@@ -154,12 +173,20 @@ public class Projector {
 				if (DEBUG)
 					Tracing.debug("Timeout while computing explanations"); //$NON-NLS-1$
 			} finally {
-				//must never have a null result, because caller is waiting on result to be non-null
-				if (explanation == null)
-					explanation = Collections.emptySet();
-			}
-			synchronized (this) {
-				ExplanationJob.this.notify();
+				// the caller only gives up on the job while holding its lock, so the listener
+				// is called while the caller waits for the job, or not at all
+				synchronized (this) {
+					//must never have a null result, because caller is waiting on result to be non-null
+					explanation = result == null ? Collections.emptySet() : result;
+					if (result != null && listener != null && !monitor.isCanceled()) {
+						for (Explanation ex : result) {
+							if (!reported.contains(ex)) {
+								listener.accept(ex);
+							}
+						}
+					}
+					ExplanationJob.this.notify();
+				}
 			}
 			return Status.OK_STATUS;
 		}
@@ -184,23 +211,15 @@ public class Projector {
 		lastState = installedIUs;
 		this.entryPoint = entryPointIU;
 		try {
-			long start = 0;
+			long start = System.currentTimeMillis();
 			if (DEBUG) {
-				start = System.currentTimeMillis();
 				Tracing.debug("Start projection: " + start); //$NON-NLS-1$
 			}
 			IPBSolver solver;
 			if (DEBUG_ENCODING) {
 				solver = new UserFriendlyPBStringSolver<>();
 			} else {
-				if (userDefinedFunction) {
-					PBSolverResolution mysolver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
-					mysolver.setSimplifier(mysolver.SIMPLE_SIMPLIFICATION);
-					mysolver.setRestartStrategy(new LubyRestarts(512));
-					solver = mysolver;
-				} else {
-					solver = SolverFactory.newEclipseP2();
-				}
+				solver = solverFactory.createSolver(userDefinedFunction);
 			}
 			int timeout = DEFAULT_SOLVER_TIMEOUT;
 			String timeoutString = null;
@@ -250,11 +269,16 @@ public class Projector {
 
 			createConstraintsForNonGreedy();
 
+			long encoded = System.currentTimeMillis();
 			createOptimizationFunction(entryPointIU, newRoots);
+			long stop = System.currentTimeMillis();
 			if (DEBUG) {
-				long stop = System.currentTimeMillis();
 				Tracing.debug("Projection complete: " + (stop - start)); //$NON-NLS-1$
 			}
+			if (DEBUG_TIMING) {
+				Tracing.debug("Projector encoding: " + (encoded - start) + " ms, optimization function: " //$NON-NLS-1$ //$NON-NLS-2$
+						+ (stop - encoded) + " ms"); //$NON-NLS-1$
+			}
 			if (DEBUG_ENCODING) {
 				System.out.println(solver.toString());
 			}
@@ -270,7 +294,9 @@ public class Projector {
 			AbstractVariable var = getNonGreedyVariable(iu);
 			List<Object> providers = nonGreedyProvider.get(var);
 			if (providers == null || providers.size() == 0) {
-				dependencyHelper.setFalse(var, new Explanation.MissingGreedyIU(iu));
+				Explanation.MissingGreedyIU explanation = new Explanation.MissingGreedyIU(iu);
+				missingExplanations.add(explanation);
+				dependencyHelper.setFalse(var, explanation);
 			} else {
 				createImplication(var, providers, Explanation.OPTIONAL_REQUIREMENT);//FIXME
 			}
@@ -329,7 +355,9 @@ public class Projector {
 		if (DEBUG) {
 			Tracing.debug(iu + "=0"); //$NON-NLS-1$
 		}
-		dependencyHelper.setFalse(iu, new Explanation.MissingIU(iu, req, iu == this.entryPoint));
+		Explanation.MissingIU explanation = new Explanation.MissingIU(iu, req, iu == this.entryPoint);
+		missingExplanations.add(explanation);
+		dependencyHelper.setFalse(iu, explanation);
 	}
 
 	// Check whether the requirement is applicable
@@ -949,11 +977,12 @@ public class Projector {
 	}
 
 	private AbstractVariable getNonGreedyVariable(IInstallableUnit iu) {
-		AbstractVariable v = nonGreedyVariables.get(iu);
-		if (v == null) {
-			v = DEBUG_ENCODING ? new AbstractVariable("NG_" + iu.toString()) : new AbstractVariable(); //$NON-NLS-1$
-			nonGreedyVariables.put(iu, v);
+		int id = nonGreedyIds.intern(iu);
+		if (id < nonGreedyVariables.size()) {
+			return nonGreedyVariables.get(id);
 		}
+		AbstractVariable v = DEBUG_ENCODING ? new AbstractVariable("NG_" + iu.toString()) : new AbstractVariable(); //$NON-NLS-1$
+		nonGreedyVariables.add(v);
 		return v;
 	}
 
@@ -975,12 +1004,16 @@ public class Projector {
 				long stop = System.currentTimeMillis();
 				if (DEBUG)
 					Tracing.debug("Solver solution found in: " + (stop - start) + " ms."); //$NON-NLS-1$ //$NON-NLS-2$
+				if (DEBUG_TIMING)
+					Tracing.debug("Projector solving and optimization: " + (stop - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
 			} else {
 				long stop = System.currentTimeMillis();
 				if (DEBUG) {
 					Tracing.debug("Unsatisfiable !"); //$NON-NLS-1$
 					Tracing.debug("Solver solution NOT found: " + (stop - start)); //$NON-NLS-1$
 				}
+				if (DEBUG_TIMING)
+					Tracing.debug("Projector solving (unsatisfiable): " + (stop - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
 				result = new MultiStatus(DirectorActivator.PI_DIRECTOR, SimplePlanner.UNSATISFIABLE, result.getChildren(), Messages.Planner_Unsatisfiable_problem, null);
 				result.merge(new Status(IStatus.ERROR, DirectorActivator.PI_DIRECTOR, SimplePlanner.UNSATISFIABLE, Messages.Planner_Unsatisfiable_problem, null));
 			}
@@ -1025,18 +1058,51 @@ public class Projector {
 	}
 
 	public Set<Explanation> getExplanation(IProgressMonitor monitor) {
-		ExplanationJob job = new ExplanationJob();
+		return getExplanation(monitor, 0, null);
+	}
+
+	/**
+	 * Computes the explanation of an unsatisfiable problem, giving up after the
+	 * given time budget.
+	 *
+	 * @param monitor the progress monitor
+	 * @param timeout the time budget in milliseconds, or 0 to wait until the
+	 *                explanation is complete
+	 * @param listener an optional listener given each element of the explanation
+	 *                as soon as it is known: first the missing IUs found while
+	 *                encoding the problem, then, when the explanation job ends, the
+	 *                other elements of the minimal explanation. It is only called
+	 *                before this method returns, by the calling thread or by the
+	 *                explanation job while the calling thread waits for it.
+	 * @return the minimal explanation, or the missing IUs found while encoding the
+	 *         problem when the time budget is exhausted
+	 */
+	public Set<Explanation> getExplanation(IProgressMonitor monitor, long timeout, Consumer<Explanation> listener) {
+		Set<Explanation> partial = new LinkedHashSet<>(missingExplanations);
+		if (listener != null) {
+			partial.forEach(listener);
+		}
+		ExplanationJob job = new ExplanationJob(partial, listener);
+		explanationJob = job;
 		job.schedule();
 		monitor.setTaskName(Messages.Planner_NoSolution);
 		IProgressMonitor pm = new InfiniteProgress(monitor);
 		pm.beginTask(Messages.Planner_NoSolution, 1000);
+		long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
 		try {
 			synchronized (job) {
 				while (job.getExplanationResult() == null && job.getState() != Job.NONE) {
 					if (monitor.isCanceled()) {
-						job.cancel();
+						stopExplanation(job);
 						throw new OperationCanceledException();
 					}
+					if (System.currentTimeMillis() >= deadline) {
+						stopExplanation(job);
+						if (DEBUG || DEBUG_TIMING) {
+							Tracing.debug("Explanation time budget of " + timeout + " ms exhausted"); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+						return partial;
+					}
 					pm.worked(1);
 					try {
 						job.wait(100);
@@ -1049,7 +1115,29 @@ public class Projector {
 		} finally {
 			monitor.done();
 		}
-		return job.getExplanationResult();
+		Set<Explanation> explanation = job.getExplanationResult();
+		return explanation == null ? partial : explanation;
+	}
+
+	/**
+	 * Cancels the given explanation job and waits a short while for the solver to
+	 * leave the explanation, so that the dependency helper is no longer in use
+	 * when this projector is closed. The caller must own the job's monitor.
+	 */
+	private void stopExplanation(ExplanationJob job) {
+		job.cancel();
+		long deadline = System.currentTimeMillis() + EXPLANATION_STOP_TIMEOUT;
+		try {
+			for (long remaining = EXPLANATION_STOP_TIMEOUT; job.getExplanationResult() == null
+					&& job.getState() != Job.NONE && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+				job.wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (job.getExplanationResult() == null && job.getState() != Job.NONE && DEBUG) {
+			Tracing.debug("Explanation still running after it has been canceled"); //$NON-NLS-1$
+		}
 	}
 
 	public Map<IInstallableUnitFragment, List<IInstallableUnit>> getFragmentAssociation() {
@@ -1083,7 +1171,21 @@ public class Projector {
 		userDefinedFunction = containsKey;
 	}
 
+	/**
+	 * Sets the factory creating the solver used by the next {@link #encode}. The
+	 * {@link DefaultSolverFactory} is used when none is set.
+	 */
+	public void setSolverFactory(ISolverFactory solverFactory) {
+		this.solverFactory = solverFactory == null ? DefaultSolverFactory.INSTANCE : solverFactory;
+	}
+
 	public void close() {
+		ExplanationJob job = explanationJob;
+		if (job != null && job.getExplanationResult() == null && job.getState() != Job.NONE) {
+			// the solver did not leave a canceled explanation in time, it must not be reset under its feet
+			dependencyHelper = null;
+			return;
+		}
 		if (dependencyHelper != null) {
 			dependencyHelper.reset();
 			dependencyHelper = null;
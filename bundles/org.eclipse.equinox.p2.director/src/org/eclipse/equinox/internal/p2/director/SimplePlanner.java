@@ -53,13 +53,22 @@ public class SimplePlanner implements IPlanner {
 	public static final String INCLUSION_RULES = "org.eclipse.equinox.p2.internal.inclusion.rules"; //$NON-NLS-1$
 	private static final String ID_IU_FOR_ACTIONS = "org.eclipse.equinox.p2.engine.actions.root"; //$NON-NLS-1$
 	private static final String EXPLANATION = "org.eclipse.equinox.p2.director.explain"; //$NON-NLS-1$
+	// the time budget in milliseconds of the explanation of an unsatisfiable request, unbounded by default
+	private static final String EXPLANATION_TIMEOUT = "org.eclipse.equinox.p2.director.explain.timeout"; //$NON-NLS-1$
 	private static final String CONSIDER_METAREQUIREMENTS = "org.eclipse.equinox.p2.planner.resolveMetaRequirements"; //$NON-NLS-1$
+	// when set to true on the provisioning context, slicing state is reused across requests of the same profile
+	private static final String INCREMENTAL = "org.eclipse.equinox.p2.planner.incremental"; //$NON-NLS-1$
+	// when set to true on the provisioning context, requirements are expanded concurrently while slicing
+	private static final String PARALLEL_SLICING = "org.eclipse.equinox.p2.planner.parallelSlicing"; //$NON-NLS-1$
+	// the number of differently configured solvers to race on the planning problem, 1 by default
+	private static final String SOLVER_PORTFOLIO = "org.eclipse.equinox.p2.planner.solverPortfolio"; //$NON-NLS-1$
 
 	static final int UNSATISFIABLE = 1; // status code indicating that the problem is not satisfiable
 
 	private final IProvisioningAgent agent;
 	private final IProfileRegistry profileRegistry;
 	private final IEngine engine;
+	private final PlanningCache planningCache = new PlanningCache();
 
 	private IProvisioningPlan generateProvisioningPlan(Collection<IInstallableUnit> fromState,
 			Collection<IInstallableUnit> toState, ProfileChangeRequest changeRequest, IProvisioningPlan installerPlan,
@@ -322,19 +331,17 @@ public class SimplePlanner implements IPlanner {
 
 	private Collection<IInstallableUnit> gatherAvailableInstallableUnits(List<IInstallableUnit> additionalSource,
 			ProvisioningContext context, IProgressMonitor monitor) {
-		Map<String, IInstallableUnit> resultsMap = new HashMap<>();
+		InstallableUnitTable results = new InstallableUnitTable();
 		if (additionalSource != null) {
 			for (IInstallableUnit element : additionalSource) {
-				String key = element.getId() + "_" + element.getVersion().toString(); //$NON-NLS-1$
-				resultsMap.put(key, element);
+				results.set(results.intern(element), element);
 			}
 		}
 		if (context == null) {
 			context = new ProvisioningContext(agent);
 		} else {
 			for (IInstallableUnit iu : context.getExtraInstallableUnits()) {
-				String key = iu.getId() + '_' + iu.getVersion().toString();
-				resultsMap.put(key, iu);
+				results.set(results.intern(iu), iu);
 			}
 		}
 		SubMonitor sub = SubMonitor.convert(monitor, 1000);
@@ -342,13 +349,40 @@ public class SimplePlanner implements IPlanner {
 		IQueryResult<IInstallableUnit> matches = queryable.query(QueryUtil.createIUQuery(null, VersionRange.emptyRange),
 				sub.newChild(500));
 		for (IInstallableUnit iu : matches) {
-			String key = iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
-			IInstallableUnit currentIU = resultsMap.get(key);
-			if (currentIU == null || hasHigherFidelity(iu, currentIU))
-				resultsMap.put(key, iu);
+			int id = results.intern(iu);
+			IInstallableUnit currentIU = results.get(id);
+			if (currentIU != iu && hasHigherFidelity(iu, currentIU))
+				results.set(id, iu);
 		}
 		sub.done();
-		return resultsMap.values();
+		return results.units();
+	}
+
+	private static ISolverFactory getSolverFactory(ProvisioningContext context) {
+		String portfolio = context == null ? null : context.getProperty(SOLVER_PORTFOLIO);
+		if (portfolio != null) {
+			try {
+				int size = Integer.parseInt(portfolio);
+				if (size > 1) {
+					return new PortfolioSolverFactory(size);
+				}
+			} catch (NumberFormatException e) {
+				LogHelper.log(Status.warning("Ignoring invalid solver portfolio size: " + portfolio)); //$NON-NLS-1$
+			}
+		}
+		return DefaultSolverFactory.INSTANCE;
+	}
+
+	private static long getExplanationTimeout(ProvisioningContext context) {
+		String timeout = context == null ? null : context.getProperty(EXPLANATION_TIMEOUT);
+		if (timeout != null) {
+			try {
+				return Math.max(0, Long.parseLong(timeout));
+			} catch (NumberFormatException e) {
+				LogHelper.log(Status.warning("Ignoring invalid explanation timeout: " + timeout)); //$NON-NLS-1$
+			}
+		}
+		return 0;
 	}
 
 	private static boolean hasHigherFidelity(IInstallableUnit iu, IInstallableUnit currentIU) {
@@ -407,8 +441,17 @@ public class SimplePlanner implements IPlanner {
 
 			Collection<IInstallableUnit> availableIUs = gatherAvailableInstallableUnits(extraIUs, context,
 					sub.newChild(ExpandWork / 4));
-			Slicer slicer = new Slicer(new QueryableArray(availableIUs), newSelectionContext,
-					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
+			boolean considerMetaRequirements = satisfyMetaRequirements(profileChangeRequest.getProfileProperties());
+			Slicer slicer;
+			if (context != null && Boolean.parseBoolean(context.getProperty(INCREMENTAL))) {
+				PlanningCache.Entry cached = planningCache.getEntry(profile.getProfileId(), availableIUs,
+						newSelectionContext, considerMetaRequirements);
+				slicer = new Slicer(cached.getAvailableUnits(), newSelectionContext, considerMetaRequirements);
+				slicer.setExpansionCache(cached.getExpansions());
+			} else {
+				slicer = new Slicer(new QueryableArray(availableIUs), newSelectionContext, considerMetaRequirements);
+			}
+			slicer.setParallel(context != null && Boolean.parseBoolean(context.getProperty(PARALLEL_SLICING)));
 			IQueryable<IInstallableUnit> slice = slicer.slice(List.of((IInstallableUnit) updatedPlan[0]),
 					sub.newChild(ExpandWork / 4));
 			if (slice == null) {
@@ -418,8 +461,9 @@ public class SimplePlanner implements IPlanner {
 			}
 			slice = new CompoundQueryable<>(List.of(slice, new QueryableArray(profileChangeRequest.getAdditions())));
 			Projector projector = new Projector(slice, newSelectionContext, slicer.getNonGreedyIUs(),
-					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
+					considerMetaRequirements);
 			projector.setUserDefined(profileChangeRequest.getPropertiesToAdd().containsKey("_internal_user_defined_")); //$NON-NLS-1$
+			projector.setSolverFactory(getSolverFactory(context));
 			projector.encode((IInstallableUnit) updatedPlan[0], (IInstallableUnit[]) updatedPlan[1], profile,
 					profileChangeRequest.getAdditions(), sub.newChild(ExpandWork / 4));
 
@@ -443,8 +487,15 @@ public class SimplePlanner implements IPlanner {
 					return plan;
 				}
 
-				// Extract the explanation
-				Set<Explanation> explanation = projector.getExplanation(sub.newChild(ExpandWork / 4));
+				// Extract the explanation, showing each part of it as soon as it is known
+				IProgressMonitor explanationMonitor = sub.newChild(ExpandWork / 4);
+				Set<Explanation> explanation = projector.getExplanation(explanationMonitor,
+						getExplanationTimeout(context), found -> {
+							explanationMonitor.subTask(found.toStatus().getMessage());
+							if (Tracing.DEBUG_PLANNER_PROJECTOR) {
+								Tracing.debug("Explanation found: " + found); //$NON-NLS-1$
+							}
+						});
 				IStatus explanationStatus = convertExplanationToStatus(explanation);
 
 				Map<IInstallableUnit, RequestStatus>[] changes = buildDetailedErrors(profileChangeRequest);
@@ -16,6 +16,7 @@
 package org.eclipse.equinox.internal.p2.director;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
@@ -31,13 +32,20 @@ public class Slicer {
 	private final IQueryable<IInstallableUnit> possibilites;
 	private final boolean considerMetaRequirements;
 	protected final IInstallableUnit selectionContext;
-	/** The IUs that have been considered to be part of the problem */
-	private final Map<String, Map<Version, IInstallableUnit>> slice = new HashMap<>();
 	private final MultiStatus result = new MultiStatus(Slicer.class, 0, Messages.Planner_Problems_resolving_plan);
 
 	private Queue<IInstallableUnit> toProcess;
-	private Set<IInstallableUnit> considered; // IUs to add to the slice
+	private InstallableUnitTable considered; // IUs to add to the slice, by interned id
 	private final Set<IInstallableUnit> nonGreedyIUs = new HashSet<>(); // IUs that are brought in by non greedy dependencies
+	private Map<IMatchExpression<IInstallableUnit>, Collection<IInstallableUnit>> expansionCache;
+	private boolean parallel;
+
+	/** The applicable matches of a greedy requirement of an IU */
+	private record Expansion(IInstallableUnit iu, IRequirement requirement, Collection<IInstallableUnit> matches) {
+	}
+
+	// while set, expandRequirement records the matches of the current worker instead of adding them to the slice
+	private final ThreadLocal<List<Expansion>> pendingExpansions = new ThreadLocal<>();
 
 	public Slicer(IQueryable<IInstallableUnit> input, Map<String, String> context, boolean considerMetaRequirements) {
 		this(input, InstallableUnit.contextIU(context), considerMetaRequirements);
@@ -50,6 +58,28 @@ public class Slicer {
 		this.considerMetaRequirements = considerMetaRequirements;
 	}
 
+	/**
+	 * Lets this slicer reuse (and record) the applicable matches of requirements
+	 * expanded by a previous slicer working on the same input and selection
+	 * context.
+	 */
+	void setExpansionCache(Map<IMatchExpression<IInstallableUnit>, Collection<IInstallableUnit>> expansionCache) {
+		this.expansionCache = expansionCache;
+	}
+
+	/**
+	 * Sets whether the requirements of the IUs discovered at the same depth of
+	 * the slice are expanded concurrently. The resulting slice and status are the
+	 * same as the ones of a sequential run; the possibilities given to this
+	 * slicer must support concurrent queries. Each IU is still expanded through
+	 * {@link #processIU(IInstallableUnit)}, so overrides of that method and of
+	 * the applicability and greediness checks are honored but must be safe to
+	 * call from several threads.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	public IQueryable<IInstallableUnit> slice(Collection<IInstallableUnit> ius, IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 		try {
@@ -59,14 +89,18 @@ public class Slicer {
 				System.out.println("Start slicing: " + start); //$NON-NLS-1$
 			}
 			validateInput(ius);
-			considered = new HashSet<>(ius);
-			toProcess = new LinkedList<>(considered);
-			while (!toProcess.isEmpty()) {
-				if (monitor.isCanceled()) {
-					result.merge(Status.CANCEL_STATUS);
-					throw new OperationCanceledException();
+			considered = new InstallableUnitTable(ius.size());
+			for (IInstallableUnit iu : ius) {
+				considered.intern(iu);
+			}
+			toProcess = new ArrayDeque<>(considered.units());
+			if (parallel) {
+				sliceByLevel(monitor);
+			} else {
+				while (!toProcess.isEmpty()) {
+					checkCanceled(monitor);
+					processIU(toProcess.remove());
 				}
-				processIU(toProcess.remove());
 			}
 			computeNonGreedyIUs();
 			if (DEBUG) {
@@ -82,26 +116,75 @@ public class Slicer {
 		if (result.getSeverity() == IStatus.ERROR) {
 			return null;
 		}
-		return new QueryableArray(considered);
+		return new QueryableArray(considered.units());
 	}
 
-	private void computeNonGreedyIUs() {
-		IQueryable<IInstallableUnit> queryable = new QueryableArray(considered);
-		for (IInstallableUnit iu : queryable.query(QueryUtil.ALL_UNITS, new NullProgressMonitor())) {
-			iu = iu.unresolved();
-			Collection<IRequirement> reqs = getRequirements(iu);
-			for (IRequirement req : reqs) {
-				if (!isApplicable(iu, req)) {
-					continue;
-				}
-				if (!isGreedy(iu, req)) {
-					nonGreedyIUs.addAll(
-							queryable.query(QueryUtil.createMatchQuery(req.getMatches()), null).toUnmodifiableSet());
+	private void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			result.merge(Status.CANCEL_STATUS);
+			throw new OperationCanceledException();
+		}
+	}
+
+	/**
+	 * Breadth-first variant of the slicing loop. The IUs of one level are
+	 * processed concurrently while their expansions are only recorded, the
+	 * expansions are then merged in queue order so that the slice, the next level
+	 * and the reported problems are exactly the ones of the sequential loop.
+	 */
+	private void sliceByLevel(IProgressMonitor monitor) {
+		while (!toProcess.isEmpty()) {
+			checkCanceled(monitor);
+			List<IInstallableUnit> level = new ArrayList<>(toProcess);
+			toProcess.clear();
+			List<List<Expansion>> expansions = level.parallelStream().map(this::collectExpansions).toList();
+			for (List<Expansion> levelExpansions : expansions) {
+				for (Expansion expansion : levelExpansions) {
+					consider(expansion.iu(), expansion.requirement(), expansion.matches());
 				}
 			}
 		}
 	}
 
+	private List<Expansion> collectExpansions(IInstallableUnit iu) {
+		List<Expansion> expansions = new ArrayList<>();
+		pendingExpansions.set(expansions);
+		try {
+			processIU(iu);
+		} finally {
+			pendingExpansions.remove();
+		}
+		return expansions;
+	}
+
+	private void computeNonGreedyIUs() {
+		IQueryable<IInstallableUnit> queryable = new QueryableArray(considered.units());
+		IQueryResult<IInstallableUnit> all = queryable.query(QueryUtil.ALL_UNITS, new NullProgressMonitor());
+		if (parallel) {
+			Set<IInstallableUnit> found = ConcurrentHashMap.newKeySet();
+			all.stream().parallel().forEach(iu -> collectNonGreedyIUs(queryable, iu, found));
+			nonGreedyIUs.addAll(found);
+		} else {
+			for (IInstallableUnit iu : all) {
+				collectNonGreedyIUs(queryable, iu, nonGreedyIUs);
+			}
+		}
+	}
+
+	private void collectNonGreedyIUs(IQueryable<IInstallableUnit> queryable, IInstallableUnit iu,
+			Set<IInstallableUnit> found) {
+		iu = iu.unresolved();
+		Collection<IRequirement> reqs = getRequirements(iu);
+		for (IRequirement req : reqs) {
+			if (!isApplicable(iu, req)) {
+				continue;
+			}
+			if (!isGreedy(iu, req)) {
+				found.addAll(queryable.query(QueryUtil.createMatchQuery(req.getMatches()), null).toUnmodifiableSet());
+			}
+		}
+	}
+
 	public MultiStatus getStatus() {
 		return result;
 	}
@@ -134,8 +217,6 @@ public class Slicer {
 
 	protected void processIU(IInstallableUnit iu) {
 		iu = iu.unresolved();
-		Map<Version, IInstallableUnit> iuSlice = slice.computeIfAbsent(iu.getId(), i -> new HashMap<>());
-		iuSlice.put(iu.getVersion(), iu);
 		if (!isApplicable(iu)) {
 			return;
 		}
@@ -183,23 +264,27 @@ public class Slicer {
 		return aggregatedRequirements;
 	}
 
-	private void expandRequirement(IInstallableUnit iu, IRequirement req) {
+	protected void expandRequirement(IInstallableUnit iu, IRequirement req) {
 		if (req.getMax() == 0) {
 			return;
 		}
-		IQueryResult<IInstallableUnit> matches = possibilites.query(QueryUtil.createMatchQuery(req.getMatches()), null);
-		int validMatches = 0;
+		Collection<IInstallableUnit> matches = getApplicableMatches(req);
+		List<Expansion> pending = pendingExpansions.get();
+		if (pending != null) {
+			pending.add(new Expansion(iu, req, matches));
+		} else {
+			consider(iu, req, matches);
+		}
+	}
+
+	private void consider(IInstallableUnit iu, IRequirement req, Collection<IInstallableUnit> matches) {
 		for (IInstallableUnit match : matches) {
-			if (!isApplicable(match)) {
-				continue;
-			}
-			validMatches++;
-			Map<Version, IInstallableUnit> iuSlice = slice.get(match.getId());
-			if ((iuSlice == null || !iuSlice.containsKey(match.getVersion())) && considered.add(match)) {
+			int size = considered.size();
+			if (considered.intern(match) == size) {
 				toProcess.add(match);
 			}
 		}
-		if (validMatches == 0) {
+		if (matches.isEmpty()) {
 			if (req.getMin() == 0) {
 				if (DEBUG) {
 					System.out.println("No IU found to satisfy optional dependency of " + iu + " on req " + req); //$NON-NLS-1$//$NON-NLS-2$
@@ -210,6 +295,31 @@ public class Slicer {
 		}
 	}
 
+	private Collection<IInstallableUnit> getApplicableMatches(IRequirement req) {
+		if (expansionCache == null) {
+			return findApplicableMatches(req);
+		}
+		Collection<IInstallableUnit> matches = expansionCache.get(req.getMatches());
+		if (matches == null) {
+			matches = findApplicableMatches(req);
+			Collection<IInstallableUnit> previous = expansionCache.putIfAbsent(req.getMatches(), matches);
+			if (previous != null) {
+				matches = previous;
+			}
+		}
+		return matches;
+	}
+
+	private Collection<IInstallableUnit> findApplicableMatches(IRequirement req) {
+		List<IInstallableUnit> applicable = new ArrayList<>();
+		for (IInstallableUnit match : possibilites.query(QueryUtil.createMatchQuery(req.getMatches()), null)) {
+			if (isApplicable(match)) {
+				applicable.add(match);
+			}
+		}
+		return applicable;
+	}
+
 	Set<IInstallableUnit> getNonGreedyIUs() {
 		return nonGreedyIUs;
 	}
@@ -14,8 +14,13 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.provisional.p2.directorywatcher;
 
+import static java.nio.file.StandardWatchEventKinds.*;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.BundleContext;
 
@@ -24,7 +29,7 @@ public class DirectoryWatcher {
 
 	public class WatcherThread extends Thread {
 
-		private final long pollFrequency;
+		final long pollFrequency;
 		private boolean done = false;
 
 		public WatcherThread(long pollFrequency) {
@@ -44,20 +49,89 @@ public class DirectoryWatcher {
 					// ignore
 				} catch (Throwable e) {
 					log(Messages.error_main_loop, e);
-					done = true;
+					done();
 				}
-			} while (!done);
+			} while (!isDone());
 		}
 
 		public synchronized void done() {
 			done = true;
 			notify();
 		}
+
+		synchronized boolean isDone() {
+			return done;
+		}
+	}
+
+	/**
+	 * A watcher thread that only polls the directories when the file system
+	 * reports a change in them. The changes reported within
+	 * {@link DirectoryWatcher#DEBOUNCE_DELAY} of each other lead to a single
+	 * poll. The directories are still polled every
+	 * {@link DirectoryWatcher#RESCAN_FACTOR} poll periods, for the changes
+	 * that are not reported, such as the ones inside a folder of a watched
+	 * directory, and at every poll period once a directory can no longer be
+	 * watched.
+	 */
+	public class EventWatcherThread extends WatcherThread {
+
+		private final WatchService watchService;
+		private boolean watching = true;
+
+		public EventWatcherThread(long pollFrequency, WatchService watchService) {
+			super(pollFrequency);
+			this.watchService = watchService;
+		}
+
+		@Override
+		public void run() {
+			try {
+				poll();
+				while (!isDone()) {
+					WatchKey key = watchService.poll(watching ? pollFrequency * RESCAN_FACTOR : pollFrequency, TimeUnit.MILLISECONDS);
+					// wait for the changes to settle, for at most a poll period
+					long deadline = System.currentTimeMillis() + pollFrequency;
+					while (key != null) {
+						key.pollEvents();
+						if (!key.reset())
+							watching = false;
+						long delay = Math.min(DEBOUNCE_DELAY, deadline - System.currentTimeMillis());
+						key = delay > 0 ? watchService.poll(delay, TimeUnit.MILLISECONDS) : null;
+					}
+					if (!isDone())
+						poll();
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// stopped
+			} catch (Throwable e) {
+				log(Messages.error_main_loop, e);
+			} finally {
+				done();
+			}
+		}
+
+		@Override
+		public synchronized void done() {
+			super.done();
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
 	}
 
 	public final static String POLL = "eclipse.p2.directory.watcher.poll"; //$NON-NLS-1$
 	public final static String DIR = "eclipse.p2.directory.watcher.dir"; //$NON-NLS-1$
+	/**
+	 * Whether the watcher thread polls the directories only when the file
+	 * system reports a change, rather than at every poll period.
+	 */
+	public final static String WATCH = "eclipse.p2.directory.watcher.watch"; //$NON-NLS-1$
 	private static final long DEFAULT_POLL_FREQUENCY = 2000;
+	private static final long DEBOUNCE_DELAY = 500;
+	private static final int RESCAN_FACTOR = 30;
 
 	public static void log(String string, Throwable e) {
 		System.err.println(string + ": " + e); //$NON-NLS-1$
@@ -66,6 +140,7 @@ public class DirectoryWatcher {
 	final File[] directories;
 
 	long poll = 2000;
+	private boolean watch = Boolean.getBoolean(WATCH);
 	private Set<DirectoryChangeListener> listeners = new HashSet<>();
 	private HashSet<File> scannedFiles = new HashSet<>();
 	private HashSet<File> removals;
@@ -80,6 +155,9 @@ public class DirectoryWatcher {
 		File targetDirectory = new File(dir);
 		targetDirectory.mkdirs();
 		directories = new File[] {targetDirectory};
+		String watchProperty = properties.get(WATCH);
+		if (watchProperty != null)
+			watch = Boolean.parseBoolean(watchProperty);
 	}
 
 	public DirectoryWatcher(File directory) {
@@ -117,10 +195,40 @@ public class DirectoryWatcher {
 		if (watcher != null)
 			throw new IllegalStateException(Messages.thread_started);
 
-		watcher = new WatcherThread(pollFrequency);
+		WatchService watchService = watch ? createWatchService() : null;
+		watcher = watchService != null ? new EventWatcherThread(pollFrequency, watchService) : new WatcherThread(pollFrequency);
 		watcher.start();
 	}
 
+	/**
+	 * Returns a service reporting the changes in the directories, or
+	 * <code>null</code> if they cannot be reported, in which case the directories
+	 * are polled.
+	 */
+	private WatchService createWatchService() {
+		WatchService result = null;
+		try {
+			result = FileSystems.getDefault().newWatchService();
+			// this service polls the directories itself, less often than we do
+			if (result.getClass().getName().endsWith(".PollingWatchService")) { //$NON-NLS-1$
+				result.close();
+				return null;
+			}
+			for (File directory : directories)
+				directory.toPath().register(result, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+			return result;
+		} catch (IOException | UnsupportedOperationException | InvalidPathException e) {
+			if (result != null) {
+				try {
+					result.close();
+				} catch (IOException e1) {
+					// ignore
+				}
+			}
+			return null;
+		}
+	}
+
 	public synchronized void stop() {
 		if (watcher == null)
 			throw new IllegalStateException(Messages.thread_not_started);
@@ -16,8 +16,11 @@ package org.eclipse.equinox.internal.p2.engine;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.engine.phases.Collect;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -30,6 +33,20 @@ import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
 import org.eclipse.osgi.util.NLS;
 
 public class DownloadManager {
+	/**
+	 * The provisioning context property giving the maximum number of batches of
+	 * requests fetched concurrently from the repositories of a same host.
+	 */
+	public static final String PROP_MAX_BATCHES_PER_HOST = "org.eclipse.equinox.p2.engine.download.maxPerHost"; //$NON-NLS-1$
+	private static final int DEFAULT_MAX_BATCHES_PER_HOST = 2;
+	/**
+	 * The number of requests handed at once to a repository when fetching from
+	 * several repositories, so that the requests missing from a repository are
+	 * sent to the next one without waiting for the whole download to complete.
+	 */
+	private static final int BATCH_SIZE = 16;
+	private static final String LOCAL_HOST = ""; //$NON-NLS-1$
+
 	private ProvisioningContext provContext = null;
 	ArrayList<IArtifactRequest> requestsToProcess = new ArrayList<>();
 	private IProvisioningAgent agent = null;
@@ -130,6 +147,10 @@ public class DownloadManager {
 	}
 
 	private void fetch(IArtifactRepository[] repositories, IProgressMonitor mon) {
+		if (repositories.length > 1) {
+			new ConcurrentFetch(repositories).run(mon);
+			return;
+		}
 		SubMonitor monitor = SubMonitor.convert(mon, requestsToProcess.size());
 		for (int i = 0; i < repositories.length && !requestsToProcess.isEmpty() && !monitor.isCanceled(); i++) {
 			IArtifactRequest[] requests = getRequestsForRepository(repositories[i]);
@@ -143,6 +164,173 @@ public class DownloadManager {
 		}
 	}
 
+	/**
+	 * Fetches the requests from several repositories at once. Each request is
+	 * sent to the first repository (in the order given) containing its artifact,
+	 * and as soon as the batch it belongs to is done, a failed request is sent to
+	 * the next repository containing it. The scheduling is done by the calling
+	 * thread, only the downloads themselves run in jobs.
+	 */
+	private class ConcurrentFetch {
+		private final IArtifactRepository[] repositories;
+		private final Map<IArtifactRequest, Integer> repositoryIndex = new IdentityHashMap<>();
+		private final List<Deque<IArtifactRequest>> pending = new ArrayList<>();
+		private final Map<String, Integer> batchesPerHost = new HashMap<>();
+		private final BlockingQueue<FetchJob> done = new LinkedBlockingQueue<>();
+		private final int maxBatchesPerHost;
+		private int running;
+		private boolean canceled;
+
+		ConcurrentFetch(IArtifactRepository[] repositories) {
+			this.repositories = repositories;
+			for (int i = 0; i < repositories.length; i++) {
+				pending.add(new ArrayDeque<>());
+			}
+			maxBatchesPerHost = getMaxBatchesPerHost();
+		}
+
+		void run(IProgressMonitor mon) {
+			SubMonitor monitor = SubMonitor.convert(mon, requestsToProcess.size());
+			for (IArtifactRequest request : requestsToProcess) {
+				route(request, 0);
+			}
+			schedule(monitor);
+			boolean interrupted = false;
+			while (running > 0) {
+				FetchJob job;
+				try {
+					job = done.take();
+				} catch (InterruptedException e) {
+					// stop scheduling but let the running downloads end
+					interrupted = true;
+					monitor.setCanceled(true);
+					continue;
+				}
+				running--;
+				release(job.repository);
+				publishDownloadEvent(new CollectEvent(CollectEvent.TYPE_REPOSITORY_END, job.repository, provContext, job.requests));
+				monitor.worked(job.requests.length);
+				if (job.status.getSeverity() == IStatus.CANCEL || monitor.isCanceled()) {
+					canceled = true;
+				} else {
+					for (IArtifactRequest request : job.requests) {
+						if (request.getResult() == null || !request.getResult().isOK()) {
+							route(request, repositoryIndex.get(request) + 1);
+						}
+					}
+				}
+				schedule(monitor);
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			filterUnfetched();
+		}
+
+		/**
+		 * Queues the request on the first repository from the given index on that
+		 * contains its artifact.
+		 */
+		private void route(IArtifactRequest request, int from) {
+			for (int i = from; i < repositories.length; i++) {
+				if (repositories[i].contains(request.getArtifactKey())) {
+					repositoryIndex.put(request, i);
+					pending.get(i).add(request);
+					return;
+				}
+			}
+		}
+
+		private void schedule(IProgressMonitor monitor) {
+			if (canceled) {
+				return;
+			}
+			for (int i = 0; i < repositories.length; i++) {
+				Deque<IArtifactRequest> queue = pending.get(i);
+				while (!queue.isEmpty() && acquire(repositories[i])) {
+					IArtifactRequest[] requests = new IArtifactRequest[Math.min(BATCH_SIZE, queue.size())];
+					for (int j = 0; j < requests.length; j++) {
+						requests[j] = queue.remove();
+					}
+					publishDownloadEvent(new CollectEvent(CollectEvent.TYPE_REPOSITORY_START, repositories[i], provContext, requests));
+					running++;
+					new FetchJob(repositories[i], requests, monitor, done).schedule();
+				}
+			}
+		}
+
+		private boolean acquire(IArtifactRepository repository) {
+			String host = getHost(repository);
+			int batches = batchesPerHost.getOrDefault(host, 0);
+			if (batches >= maxBatchesPerHost) {
+				return false;
+			}
+			batchesPerHost.put(host, batches + 1);
+			return true;
+		}
+
+		private void release(IArtifactRepository repository) {
+			batchesPerHost.merge(getHost(repository), -1, Integer::sum);
+		}
+
+		private String getHost(IArtifactRepository repository) {
+			URI location = repository.getLocation();
+			String host = location == null ? null : location.getHost();
+			return host == null ? LOCAL_HOST : host;
+		}
+	}
+
+	/**
+	 * Fetches one batch of requests from a repository.
+	 */
+	private static class FetchJob extends Job {
+		final IArtifactRepository repository;
+		final IArtifactRequest[] requests;
+		private final IProgressMonitor master;
+		private final BlockingQueue<FetchJob> done;
+		IStatus status = Status.OK_STATUS;
+
+		FetchJob(IArtifactRepository repository, IArtifactRequest[] requests, IProgressMonitor master,
+				BlockingQueue<FetchJob> done) {
+			super(Messages.download_artifact);
+			setSystem(true);
+			this.repository = repository;
+			this.requests = requests;
+			this.master = master;
+			this.done = done;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				// progress is reported by the scheduling thread, only forward cancellation
+				status = repository.getArtifacts(requests, new NullProgressMonitor() {
+					@Override
+					public boolean isCanceled() {
+						return master.isCanceled() || monitor.isCanceled();
+					}
+				});
+			} catch (RuntimeException e) {
+				status = Status.error(e.getMessage(), e);
+			} finally {
+				done.add(this);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	private int getMaxBatchesPerHost() {
+		String value = provContext.getProperty(PROP_MAX_BATCHES_PER_HOST);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_MAX_BATCHES_PER_HOST;
+	}
+
 	private void publishDownloadEvent(CollectEvent event) {
 		IProvisioningEventBus bus = agent.getService(IProvisioningEventBus.class);
 		if (bus != null)
@@ -52,6 +52,14 @@ public class EngineActivator implements BundleActivator {
 	 */
 	public static final String PROFILE_FORMAT_UNCOMPRESSED = "uncompressed"; //$NON-NLS-1$
 
+	/**
+	 * System property giving how many consecutive states of a profile are stored
+	 * from one full snapshot to the next. The states in between are stored as the
+	 * changes from their previous state. The default value of 1 stores every state
+	 * as a full snapshot.
+	 */
+	public static final String PROP_PROFILE_CHECKPOINT_INTERVAL = "eclipse.p2.profileCheckpointInterval"; //$NON-NLS-1$
+
 	/**
 	 * System property specifying how the engine should handle unsigned artifacts.
 	 * If this property is undefined, the default value is assumed to be "prompt".
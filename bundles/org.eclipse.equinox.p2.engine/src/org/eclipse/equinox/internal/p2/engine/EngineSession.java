@@ -336,7 +336,11 @@ public class EngineSession {
 		if (action == null)
 			throw new IllegalArgumentException(Messages.null_action);
 
-		currentRecord.actions.add(action);
+		recordActionExecute(currentRecord, action, parameters);
+	}
+
+	private void recordActionExecute(ActionsRecord record, ProvisioningAction action, Map<String, Object> parameters) {
+		record.actions.add(action);
 
 		Touchpoint touchpoint = action.getTouchpoint();
 		if (touchpoint != null)
@@ -346,6 +350,31 @@ public class EngineSession {
 			debugActionExecute(action, parameters);
 	}
 
+	/**
+	 * Records an operand that was performed on another thread, with the actions
+	 * that were executed for it and their parameters. An operand that did not
+	 * complete becomes the current one unless another one already is, so that
+	 * it is reported as where the phase failed.
+	 */
+	void recordOperand(Operand operand, List<ProvisioningAction> actions, List<Map<String, Object>> parameters, boolean complete) {
+		if (operand == null)
+			throw new IllegalArgumentException(Messages.null_operand);
+
+		ActionsRecord record = new ActionsRecord(operand);
+		currentActionRecords.add(record);
+		if (DebugHelper.DEBUG_ENGINE_SESSION)
+			debugOperandStart(operand);
+
+		for (int i = 0; i < actions.size(); i++)
+			recordActionExecute(record, actions.get(i), parameters.get(i));
+
+		if (!complete) {
+			if (currentRecord == null)
+				currentRecord = record;
+		} else if (DebugHelper.DEBUG_ENGINE_SESSION)
+			debugOperandEnd(operand);
+	}
+
 	public void recordActionUndo(ProvisioningAction action, Map<String, Object> parameters) {
 		if (DebugHelper.DEBUG_ENGINE_SESSION)
 			debugActionUndo(action, parameters);
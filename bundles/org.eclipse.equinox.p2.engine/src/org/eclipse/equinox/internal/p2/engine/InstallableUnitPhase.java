@@ -99,6 +99,21 @@ public abstract class InstallableUnitPhase extends Phase {
 		return true;
 	}
 
+	/**
+	 * Returns whether the given actions of a unit of the given touchpoint can be
+	 * executed while those of other units are. A unit with no actions can only
+	 * if it has no touchpoint, as its touchpoint did not declare anything safe.
+	 */
+	protected final boolean isParallelSafe(Touchpoint touchpoint, List<ProvisioningAction> unitActions) {
+		if (unitActions == null || unitActions.isEmpty())
+			return touchpoint == null;
+		for (ProvisioningAction action : unitActions) {
+			if (!isParallelSafe(action))
+				return false;
+		}
+		return true;
+	}
+
 	protected final List<ProvisioningAction> getActions(IInstallableUnit unit, String key) {
 		List<ITouchpointInstruction> instructions = getInstructions(unit, key);
 		int instrSize = instructions.size();
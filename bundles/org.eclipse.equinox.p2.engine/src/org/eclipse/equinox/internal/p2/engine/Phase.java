@@ -15,6 +15,9 @@
 package org.eclipse.equinox.internal.p2.engine;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
@@ -39,16 +42,52 @@ public abstract class Phase {
 	protected static final String LAST_RESULT_INTERNAL_NAME = "_p2_internal_last_result_variable_"; //$NON-NLS-1$ //
 	protected static final String LAST_RESULT_PUBLIC_NAME = "lastResult"; //$NON-NLS-1$
 
+	/**
+	 * The provisioning context property that, when set to "true", has the engine
+	 * perform concurrently the operands of a phase whose actions are all declared
+	 * safe by their touchpoints.
+	 *
+	 * @see Touchpoint#isParallelSafe(String, ProvisioningAction)
+	 */
+	public static final String PROP_PARALLEL_OPERANDS = "org.eclipse.equinox.p2.engine.parallelOperands"; //$NON-NLS-1$
+
+	/**
+	 * The parameters of an operand while it is performed or, if it failed, until
+	 * its actions are undone.
+	 */
+	private static class OperandState {
+		final Operand operand;
+		final List<ProvisioningAction> actions;
+		Map<String, Object> parameters;
+		final Map<Touchpoint, Map<String, Object>> touchpointParameters = new HashMap<>();
+		Object lastResult;
+		// the actions executed concurrently with those of other operands, the others are executed by the calling thread
+		int parallelFrom;
+		int parallelTo;
+		// the outcome of an operand performed concurrently, recorded once all the operands performed with it are done
+		final MultiStatus status = new MultiStatus(EngineActivator.ID, IStatus.OK, null, null);
+		final List<ProvisioningAction> executedActions = new ArrayList<>();
+		final List<Map<String, Object>> executedParameters = new ArrayList<>();
+		boolean started;
+		boolean complete;
+		Throwable failure;
+
+		OperandState(Operand operand, List<ProvisioningAction> actions) {
+			this.operand = operand;
+			this.actions = actions == null ? Collections.emptyList() : actions;
+		}
+	}
+
 	protected final String phaseId;
 	protected final int weight;
 	protected final boolean forced;
 	protected int prePerformWork = 1000;
 	protected int mainPerformWork = 10000;
 	protected int postPerformWork = 1000;
-	private Map<String, Object> operandParameters = null;
 	private Map<String, Object> phaseParameters = new HashMap<>();
 	private Map<Touchpoint, Map<String, Object>> touchpointToTouchpointPhaseParameters = new HashMap<>();
-	private Map<Touchpoint, Map<String, Object>> touchpointToTouchpointOperandParameters = new HashMap<>();
+	// the operands that failed, whose parameters are used to undo their actions
+	private Map<Operand, OperandState> unfinishedOperands = new IdentityHashMap<>();
 	ActionManager actionManager; // injected from phaseset
 	protected boolean isPaused = false;
 
@@ -123,10 +162,12 @@ public abstract class Phase {
 	}
 
 	private void mainPerform(MultiStatus status, EngineSession session, Operand[] operands, SubMonitor subMonitor) {
-		IProfile profile = session.getProfile();
+		boolean parallel = isParallel(session.getProvisioningContext());
+		// the operands that can be performed concurrently, up to the next one that cannot
+		List<OperandState> batch = new ArrayList<>();
 		subMonitor.beginTask(null, operands.length);
 		for (int i = 0; i < operands.length; i++) {
-			subMonitor.setWorkRemaining(operands.length - i);
+			subMonitor.setWorkRemaining(operands.length - i + batch.size());
 			if (subMonitor.isCanceled())
 				throw new OperationCanceledException();
 			while (isPaused) {
@@ -143,100 +184,317 @@ public abstract class Phase {
 			if (!isApplicable(operand))
 				continue;
 
-			session.recordOperandStart(operand);
-			List<ProvisioningAction> actions = getActions(operand);
-			operandParameters = new HashMap<>(phaseParameters);
-			operandParameters.put(PARM_OPERAND, operand);
-			mergeStatus(status, initializeOperand(profile, operand, operandParameters, subMonitor));
-			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-				operandParameters = null;
-				return;
+			OperandState state = new OperandState(operand, getActions(operand));
+			if (parallel && isParallelSafe(operand, state.actions) && splitActions(state)) {
+				batch.add(state);
+				continue;
 			}
+			if (!performBatch(status, session, batch, subMonitor) || !performOperand(status, session, state, subMonitor))
+				return;
+		}
+		performBatch(status, session, batch, subMonitor);
+	}
 
-			Touchpoint operandTouchpoint = (Touchpoint) operandParameters.get(PARM_TOUCHPOINT);
-			if (operandTouchpoint != null) {
-				mergeStatus(status, initializeTouchpointParameters(profile, operand, operandTouchpoint, subMonitor));
-				if (status.matches(IStatus.ERROR | IStatus.CANCEL))
-					return;
+	private boolean isParallel(ProvisioningContext context) {
+		return context != null && Boolean.parseBoolean(context.getProperty(PROP_PARALLEL_OPERANDS));
+	}
+
+	/**
+	 * Separates the leading and trailing actions of an operand that are executed
+	 * by the calling thread from those executed concurrently.
+	 *
+	 * @return whether the actions executed by the calling thread only lead or
+	 *         trail the others
+	 */
+	private boolean splitActions(OperandState state) {
+		List<ProvisioningAction> actions = state.actions;
+		int from = 0;
+		while (from < actions.size() && isSerialAction(actions.get(from)))
+			from++;
+		int to = actions.size();
+		while (to > from && isSerialAction(actions.get(to - 1)))
+			to--;
+		for (int i = from; i < to; i++) {
+			if (isSerialAction(actions.get(i)))
+				return false;
+		}
+		state.parallelFrom = from;
+		state.parallelTo = to;
+		return true;
+	}
+
+	/**
+	 * Performs the operands of the given batch and clears it.
+	 */
+	private boolean performBatch(MultiStatus status, EngineSession session, List<OperandState> batch, IProgressMonitor monitor) {
+		if (batch.isEmpty())
+			return true;
+		if (batch.size() == 1)
+			performOperand(status, session, batch.get(0), monitor);
+		else
+			performParallel(status, session, batch, monitor);
+		batch.clear();
+		return !status.matches(IStatus.ERROR | IStatus.CANCEL);
+	}
+
+	private boolean performOperand(MultiStatus status, EngineSession session, OperandState state, IProgressMonitor monitor) {
+		session.recordOperandStart(state.operand);
+		boolean complete = false;
+		try {
+			IProfile profile = session.getProfile();
+			complete = startOperand(status, profile, state, monitor) && executeActions(status, session, state, 0, state.actions.size(), false, monitor) && finishOperand(status, profile, state, monitor);
+		} finally {
+			if (!complete && state.parameters != null)
+				unfinishedOperands.put(state.operand, state);
+		}
+		if (!complete)
+			return false;
+		session.recordOperandEnd(state.operand);
+		monitor.worked(1);
+		return true;
+	}
 
-				operandParameters = touchpointToTouchpointOperandParameters.get(operandTouchpoint);
+	/**
+	 * Performs the given operands, executing concurrently the actions of each
+	 * operand that its touchpoint declared safe. Everything else is done on the
+	 * calling thread in the order of the operands: the operands are initialized
+	 * and their leading actions executed before any action is executed
+	 * concurrently, and their trailing actions are executed and the operands
+	 * completed once all the concurrent actions are done. Events about the
+	 * operands are therefore published, and the profile changed, by one thread.
+	 * <p>
+	 * Once all the operands are done, the ones that were started are recorded in
+	 * the session in their order, so that their actions are undone as if they
+	 * had been performed one after the other. Once an operand failed or the
+	 * operation is canceled, no operand or action is started anymore.
+	 */
+	private void performParallel(MultiStatus status, EngineSession session, List<OperandState> batch, IProgressMonitor monitor) {
+		IProfile profile = session.getProfile();
+		boolean stopped = false;
+		boolean canceled = false;
+		for (OperandState state : batch) {
+			if (monitor.isCanceled()) {
+				canceled = true;
+				break;
 			}
+			state.started = true;
+			if (!performStep(state, () -> startOperand(state.status, profile, state, monitor) && initializeTouchpoints(state.status, profile, state, monitor) && executeActions(state.status, session, state, 0, state.parallelFrom, true, monitor))) {
+				stopped = true;
+				break;
+			}
+		}
 
-			if (actions != null) {
-				Object lastResult = null;
-				for (ProvisioningAction action : actions) {
-					Map<String, Object> parameters = operandParameters;
-					Touchpoint touchpoint = action.getTouchpoint();
-					if (touchpoint != null) {
-						mergeStatus(status, initializeTouchpointParameters(profile, operand, touchpoint, subMonitor));
-						if (status.matches(IStatus.ERROR | IStatus.CANCEL))
+		if (!stopped && !canceled) {
+			AtomicBoolean stop = new AtomicBoolean();
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(batch.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
+				Thread thread = new Thread(runnable, "p2 Engine " + phaseId); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+				for (OperandState state : batch) {
+					tasks.add(CompletableFuture.runAsync(() -> {
+						if (stop.get() || performStep(state, () -> executeActions(state.status, session, state, state.parallelFrom, state.parallelTo, true, new NullProgressMonitor())))
 							return;
-
-						parameters = touchpointToTouchpointOperandParameters.get(touchpoint);
-					}
-					if (lastResult != null) {
-						parameters = new HashMap<>(parameters);
-						parameters.put(LAST_RESULT_INTERNAL_NAME, lastResult);
-					}
-					parameters = Collections.unmodifiableMap(parameters);
-
-					IStatus actionStatus = null;
-					try {
-						session.recordActionExecute(action, parameters);
-						actionStatus = action.execute(parameters);
-						lastResult = action.getResult();
-					} catch (RuntimeException e) {
-						if (!forced)
-							throw e;
-						// "action.execute" calls user code and might throw an unchecked exception
-						// we catch the error here to gather information on where the problem occurred.
-						actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
-					} catch (LinkageError e) {
-						if (!forced)
-							throw e;
-						// Catch linkage errors as these are generally recoverable but let other Errors propagate (see bug 222001)
-						actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
-					}
-					if (forced && actionStatus != null && actionStatus.matches(IStatus.ERROR)) {
-						MultiStatus result = new MultiStatus(EngineActivator.ID, IStatus.ERROR, getProblemMessage(), null);
-						result.add(new Status(IStatus.ERROR, EngineActivator.ID, session.getContextString(this, operand, action), null));
-						LogHelper.log(result);
-						actionStatus = Status.OK_STATUS;
+						stop.set(true);
+					}, executor));
+				}
+				for (CompletableFuture<Void> task : tasks) {
+					task.join();
+					if (!canceled && monitor.isCanceled()) {
+						canceled = true;
+						stop.set(true);
 					}
-					mergeStatus(status, actionStatus);
-					if (status.matches(IStatus.ERROR | IStatus.CANCEL))
-						return;
 				}
+				stopped = stop.get();
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		for (OperandState state : batch) {
+			if (stopped || canceled)
+				break;
+			if (monitor.isCanceled()) {
+				canceled = true;
+				break;
+			}
+			state.complete = performStep(state, () -> executeActions(state.status, session, state, state.parallelTo, state.actions.size(), true, monitor) && finishOperand(state.status, profile, state, monitor));
+			stopped = !state.complete;
+			monitor.worked(1);
+		}
+
+		Throwable failure = null;
+		for (OperandState state : batch) {
+			if (!state.started)
+				continue;
+			session.recordOperand(state.operand, state.executedActions, state.executedParameters, state.complete);
+			if (!state.complete && state.parameters != null)
+				unfinishedOperands.put(state.operand, state);
+			mergeStatus(status, state.status);
+			if (failure == null)
+				failure = state.failure;
+		}
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (canceled)
+			throw new OperationCanceledException();
+	}
+
+	/**
+	 * Performs a step of an operand performed with others, keeping what it throws
+	 * until all of them are recorded.
+	 *
+	 * @return whether the step succeeded
+	 */
+	private static boolean performStep(OperandState state, BooleanSupplier step) {
+		try {
+			return step.getAsBoolean();
+		} catch (RuntimeException | Error e) {
+			state.failure = e;
+			return false;
+		}
+	}
+
+	/**
+	 * Initializes the parameters of an operand and of the touchpoint of the operand.
+	 *
+	 * @return whether the operand can be performed
+	 */
+	private boolean startOperand(MultiStatus status, IProfile profile, OperandState state, IProgressMonitor monitor) {
+		Operand operand = state.operand;
+		state.parameters = new HashMap<>(phaseParameters);
+		state.parameters.put(PARM_OPERAND, operand);
+		mergeStatus(status, initializeOperand(profile, operand, state.parameters, monitor));
+		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+			state.parameters = null;
+			return false;
+		}
+
+		Touchpoint operandTouchpoint = (Touchpoint) state.parameters.get(PARM_TOUCHPOINT);
+		if (operandTouchpoint != null) {
+			mergeStatus(status, initializeTouchpointParameters(profile, state, operandTouchpoint, monitor));
+			if (status.matches(IStatus.ERROR | IStatus.CANCEL))
+				return false;
+
+			state.parameters = state.touchpointParameters.get(operandTouchpoint);
+		}
+		return true;
+	}
+
+	/**
+	 * Initializes the parameters of the touchpoints of all the actions of an
+	 * operand, so that the actions executed concurrently only read them.
+	 */
+	private boolean initializeTouchpoints(MultiStatus status, IProfile profile, OperandState state, IProgressMonitor monitor) {
+		for (ProvisioningAction action : state.actions) {
+			Touchpoint touchpoint = action.getTouchpoint();
+			if (touchpoint != null) {
+				mergeStatus(status, initializeTouchpointParameters(profile, state, touchpoint, monitor));
+				if (status.matches(IStatus.ERROR | IStatus.CANCEL))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Executes the actions of an operand between the given indexes, recording
+	 * them in the session or, when the operand is performed with others, in its
+	 * state.
+	 *
+	 * @return whether all the actions succeeded
+	 */
+	private boolean executeActions(MultiStatus status, EngineSession session, OperandState state, int from, int to, boolean concurrent, IProgressMonitor monitor) {
+		IProfile profile = session.getProfile();
+		for (int i = from; i < to; i++) {
+			ProvisioningAction action = state.actions.get(i);
+			Map<String, Object> parameters = state.parameters;
+			Touchpoint touchpoint = action.getTouchpoint();
+			if (touchpoint != null) {
+				mergeStatus(status, initializeTouchpointParameters(profile, state, touchpoint, monitor));
+				if (status.matches(IStatus.ERROR | IStatus.CANCEL))
+					return false;
+
+				parameters = state.touchpointParameters.get(touchpoint);
+			}
+			if (state.lastResult != null) {
+				parameters = new HashMap<>(parameters);
+				parameters.put(LAST_RESULT_INTERNAL_NAME, state.lastResult);
+			}
+			parameters = Collections.unmodifiableMap(parameters);
+
+			IStatus actionStatus = null;
+			try {
+				if (concurrent) {
+					state.executedActions.add(action);
+					state.executedParameters.add(parameters);
+				} else {
+					session.recordActionExecute(action, parameters);
+				}
+				actionStatus = action.execute(parameters);
+				state.lastResult = action.getResult();
+			} catch (RuntimeException e) {
+				if (!forced)
+					throw e;
+				// "action.execute" calls user code and might throw an unchecked exception
+				// we catch the error here to gather information on where the problem occurred.
+				actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
+			} catch (LinkageError e) {
+				if (!forced)
+					throw e;
+				// Catch linkage errors as these are generally recoverable but let other Errors propagate (see bug 222001)
+				actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
 			}
-			mergeStatus(status, touchpointCompleteOperand(profile, operand, operandParameters, subMonitor));
-			mergeStatus(status, completeOperand(profile, operand, operandParameters, subMonitor));
+			if (forced && actionStatus != null && actionStatus.matches(IStatus.ERROR)) {
+				MultiStatus result = new MultiStatus(EngineActivator.ID, IStatus.ERROR, getProblemMessage(), null);
+				result.add(new Status(IStatus.ERROR, EngineActivator.ID, session.getContextString(this, state.operand, action), null));
+				LogHelper.log(result);
+				actionStatus = Status.OK_STATUS;
+			}
+			mergeStatus(status, actionStatus);
 			if (status.matches(IStatus.ERROR | IStatus.CANCEL))
-				return;
-			operandParameters = null;
-			session.recordOperandEnd(operand);
-			subMonitor.worked(1);
+				return false;
 		}
+		return true;
 	}
 
-	private IStatus initializeTouchpointParameters(IProfile profile, Operand operand, Touchpoint touchpoint, IProgressMonitor monitor) {
-		if (touchpointToTouchpointOperandParameters.containsKey(touchpoint))
+	/**
+	 * Completes an operand whose actions all succeeded.
+	 *
+	 * @return whether the operand completed
+	 */
+	private boolean finishOperand(MultiStatus status, IProfile profile, OperandState state, IProgressMonitor monitor) {
+		mergeStatus(status, touchpointCompleteOperand(profile, state.operand, state, monitor));
+		mergeStatus(status, completeOperand(profile, state.operand, state.parameters, monitor));
+		return !status.matches(IStatus.ERROR | IStatus.CANCEL);
+	}
+
+	private IStatus initializeTouchpointParameters(IProfile profile, OperandState state, Touchpoint touchpoint, IProgressMonitor monitor) {
+		if (state.touchpointParameters.containsKey(touchpoint))
 			return Status.OK_STATUS;
 
-		Map<String, Object> touchpointPhaseParameters = touchpointToTouchpointPhaseParameters.get(touchpoint);
-		if (touchpointPhaseParameters == null) {
-			touchpointPhaseParameters = new HashMap<>(phaseParameters);
-			IStatus status = touchpoint.initializePhase(monitor, profile, phaseId, touchpointPhaseParameters);
-			if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL))
-				return status;
-			touchpointToTouchpointPhaseParameters.put(touchpoint, touchpointPhaseParameters);
+		Map<String, Object> touchpointPhaseParameters;
+		synchronized (touchpointToTouchpointPhaseParameters) {
+			touchpointPhaseParameters = touchpointToTouchpointPhaseParameters.get(touchpoint);
+			if (touchpointPhaseParameters == null) {
+				touchpointPhaseParameters = new HashMap<>(phaseParameters);
+				IStatus status = touchpoint.initializePhase(monitor, profile, phaseId, touchpointPhaseParameters);
+				if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL))
+					return status;
+				touchpointToTouchpointPhaseParameters.put(touchpoint, touchpointPhaseParameters);
+			}
 		}
 
 		Map<String, Object> touchpointOperandParameters = new HashMap<>(touchpointPhaseParameters);
-		touchpointOperandParameters.putAll(operandParameters);
+		touchpointOperandParameters.putAll(state.parameters);
 		IStatus status = touchpoint.initializeOperand(profile, touchpointOperandParameters);
 		if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL))
 			return status;
-		touchpointToTouchpointOperandParameters.put(touchpoint, touchpointOperandParameters);
+		state.touchpointParameters.put(touchpoint, touchpointOperandParameters);
 		return Status.OK_STATUS;
 	}
 
@@ -255,29 +513,31 @@ public abstract class Phase {
 	}
 
 	void undo(MultiStatus status, EngineSession session, IProfile profile, Operand operand, ProvisioningAction[] actions, ProvisioningContext context) {
-		if (operandParameters == null) {
-			operandParameters = new HashMap<>(phaseParameters);
-			operandParameters.put(PARM_OPERAND, operand);
-			mergeStatus(status, initializeOperand(profile, operand, operandParameters, new NullProgressMonitor()));
-			Touchpoint operandTouchpoint = (Touchpoint) operandParameters.get(PARM_TOUCHPOINT);
+		OperandState state = unfinishedOperands.remove(operand);
+		if (state == null) {
+			state = new OperandState(operand, null);
+			state.parameters = new HashMap<>(phaseParameters);
+			state.parameters.put(PARM_OPERAND, operand);
+			mergeStatus(status, initializeOperand(profile, operand, state.parameters, new NullProgressMonitor()));
+			Touchpoint operandTouchpoint = (Touchpoint) state.parameters.get(PARM_TOUCHPOINT);
 			if (operandTouchpoint != null) {
-				mergeStatus(status, initializeTouchpointParameters(profile, operand, operandTouchpoint, new NullProgressMonitor()));
+				mergeStatus(status, initializeTouchpointParameters(profile, state, operandTouchpoint, new NullProgressMonitor()));
 				if (status.matches(IStatus.ERROR | IStatus.CANCEL))
 					return;
 
-				operandParameters = touchpointToTouchpointOperandParameters.get(operandTouchpoint);
+				state.parameters = state.touchpointParameters.get(operandTouchpoint);
 			}
-			operandParameters = Collections.unmodifiableMap(operandParameters);
+			state.parameters = Collections.unmodifiableMap(state.parameters);
 		}
 		for (ProvisioningAction action : actions) {
-			Map<String, Object> parameters = operandParameters;
+			Map<String, Object> parameters = state.parameters;
 			Touchpoint touchpoint = action.getTouchpoint();
 			if (touchpoint != null) {
-				mergeStatus(status, initializeTouchpointParameters(profile, operand, touchpoint, new NullProgressMonitor()));
+				mergeStatus(status, initializeTouchpointParameters(profile, state, touchpoint, new NullProgressMonitor()));
 				if (status.matches(IStatus.ERROR))
 					return;
 
-				parameters = touchpointToTouchpointOperandParameters.get(touchpoint);
+				parameters = state.touchpointParameters.get(touchpoint);
 			}
 			IStatus actionStatus = null;
 			try {
@@ -297,9 +557,8 @@ public abstract class Phase {
 				result.merge(actionStatus);
 			}
 		}
-		mergeStatus(status, touchpointCompleteOperand(profile, operand, operandParameters, new NullProgressMonitor()));
-		mergeStatus(status, completeOperand(profile, operand, operandParameters, new NullProgressMonitor()));
-		operandParameters = null;
+		mergeStatus(status, touchpointCompleteOperand(profile, operand, state, new NullProgressMonitor()));
+		mergeStatus(status, completeOperand(profile, operand, state.parameters, new NullProgressMonitor()));
 	}
 
 	public boolean isApplicable(Operand operand) {
@@ -332,17 +591,17 @@ public abstract class Phase {
 		return Status.OK_STATUS;
 	}
 
-	IStatus touchpointCompleteOperand(IProfile profile, Operand operand, Map<String, Object> parameters, IProgressMonitor monitor) {
-		if (touchpointToTouchpointOperandParameters.isEmpty())
+	private IStatus touchpointCompleteOperand(IProfile profile, Operand operand, OperandState state, IProgressMonitor monitor) {
+		if (state.touchpointParameters.isEmpty())
 			return Status.OK_STATUS;
 
 		MultiStatus status = new MultiStatus(EngineActivator.ID, IStatus.OK, null, null);
-		for (Map.Entry<Touchpoint, Map<String, Object>> entry : touchpointToTouchpointOperandParameters.entrySet()) {
+		for (Map.Entry<Touchpoint, Map<String, Object>> entry : state.touchpointParameters.entrySet()) {
 			Touchpoint touchpoint = entry.getKey();
 			Map<String, Object> touchpointParameters = entry.getValue();
 			mergeStatus(status, touchpoint.completeOperand(profile, touchpointParameters));
 		}
-		touchpointToTouchpointOperandParameters.clear();
+		state.touchpointParameters.clear();
 		return status;
 	}
 
@@ -352,6 +611,39 @@ public abstract class Phase {
 
 	protected abstract List<ProvisioningAction> getActions(Operand operand);
 
+	/**
+	 * Returns whether the given operand can be performed while other operands of
+	 * this phase are, when the provisioning context asks for it with
+	 * {@link #PROP_PARALLEL_OPERANDS}. The operand is still initialized and
+	 * completed on the thread performing the phase, only its actions other than
+	 * those given by {@link #isSerialAction(ProvisioningAction)} are executed
+	 * concurrently. Phases do not allow it by default.
+	 */
+	protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+		return false;
+	}
+
+	/**
+	 * Returns whether the given action, leading or trailing the actions of an
+	 * operand performed concurrently with others, is executed on the thread
+	 * performing the phase in the order of the operands instead. This is meant
+	 * for actions publishing events or changing the profile. None is by default.
+	 */
+	protected boolean isSerialAction(ProvisioningAction action) {
+		return false;
+	}
+
+	/**
+	 * Returns whether the touchpoint of the given action declares it safe to be
+	 * executed in this phase while the actions of other operands are.
+	 */
+	protected boolean isParallelSafe(ProvisioningAction action) {
+		Touchpoint touchpoint = action.getTouchpoint();
+		if (action instanceof ParameterizedProvisioningAction)
+			action = ((ParameterizedProvisioningAction) action).getAction();
+		return touchpoint != null && touchpoint.isParallelSafe(phaseId, action);
+	}
+
 	/**
 	 * Returns a human-readable message to be displayed in case of an error performing
 	 * this phase. Subclasses should override.
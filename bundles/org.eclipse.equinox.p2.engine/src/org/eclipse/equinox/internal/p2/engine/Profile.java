@@ -23,6 +23,8 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.equinox.internal.p2.metadata.index.*;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
+import org.eclipse.equinox.p2.core.IPool;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -72,6 +74,8 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	private IUMap ius = new IUMap();
 	final Map<IInstallableUnit, OrderedProperties> iuProperties = new HashMap<>();
+	// the units whose property map is an unmodifiable one shared through a metadata pool, copied before it is changed
+	private final Set<IInstallableUnit> sharedProperties = new HashSet<>();
 	private boolean changed = false;
 
 	private long timestamp;
@@ -242,6 +246,9 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 		if (properties == null) {
 			properties = new OrderedProperties();
 			iuProperties.put(iu, properties);
+		} else if (sharedProperties.remove(iu)) {
+			properties = new OrderedProperties(properties);
+			iuProperties.put(iu, properties);
 		}
 
 		changed = true;
@@ -253,6 +260,10 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 		OrderedProperties properties = iuProperties.get(iu);
 		if (properties == null)
 			return null;
+		if (sharedProperties.remove(iu)) {
+			properties = new OrderedProperties(properties);
+			iuProperties.put(iu, properties);
+		}
 
 		String oldValue = properties.remove(key);
 		if (properties.isEmpty())
@@ -334,6 +345,7 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	public void clearInstallableUnits() {
 		ius.clear();
 		iuProperties.clear();
+		sharedProperties.clear();
 		changed = true;
 	}
 
@@ -372,9 +384,26 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	public void clearInstallableUnitProperties(IInstallableUnit iu) {
 		iuProperties.remove(iu);
+		sharedProperties.remove(iu);
 		changed = true;
 	}
 
+	/**
+	 * Replaces the installable units of this profile and the maps of their
+	 * properties with the equal ones shared through the given pool.
+	 */
+	public void compress(MetadataPool pool) {
+		IPool<IInstallableUnit> units = pool.getUnits();
+		ius.compress(units);
+		Map<IInstallableUnit, OrderedProperties> shared = new HashMap<>(iuProperties.size());
+		for (Entry<IInstallableUnit, OrderedProperties> entry : iuProperties.entrySet())
+			shared.put(units.add(entry.getKey()), pool.shareProperties(entry.getValue()));
+		iuProperties.clear();
+		iuProperties.putAll(shared);
+		sharedProperties.clear();
+		sharedProperties.addAll(shared.keySet());
+	}
+
 	public void clearOrphanedInstallableUnitProperties() {
 		Set<IInstallableUnit> keys = iuProperties.keySet();
 		//		Set orphans = new HashSet();
@@ -386,6 +415,7 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 		for (IInstallableUnit iu : toRemove) {
 			iuProperties.remove(iu);
+			sharedProperties.remove(iu);
 		}
 		//		List iuKeys = new ArrayList();
 		//		for (Iterator it = ius.iterator(); it.hasNext();)
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.util.*;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * The changes between two consecutive states of a profile. The profile
+ * registry persists them in between full snapshots of the profile, and
+ * applies them to the previous state to reconstruct the next one.
+ */
+class ProfileDelta {
+	final String profileId;
+	final long baseTimestamp;
+	final long timestamp;
+	final Map<String, String> setProperties;
+	final Collection<String> removedProperties;
+	final Collection<IInstallableUnit> addedUnits;
+	final Collection<IVersionedId> removedUnits;
+	/** The new properties of the units whose properties changed, empty when they were all removed */
+	final Map<IVersionedId, Map<String, String>> unitProperties;
+
+	ProfileDelta(String profileId, long baseTimestamp, long timestamp, Map<String, String> setProperties, Collection<String> removedProperties, Collection<IInstallableUnit> addedUnits, Collection<IVersionedId> removedUnits, Map<IVersionedId, Map<String, String>> unitProperties) {
+		this.profileId = profileId;
+		this.baseTimestamp = baseTimestamp;
+		this.timestamp = timestamp;
+		this.setProperties = setProperties;
+		this.removedProperties = removedProperties;
+		this.addedUnits = addedUnits;
+		this.removedUnits = removedUnits;
+		this.unitProperties = unitProperties;
+	}
+
+	/**
+	 * The content of a persisted state of a profile, to compute the delta to
+	 * its next state.
+	 */
+	static class State {
+		final long timestamp;
+		final String parentId;
+		/** The number of deltas persisted since the last full snapshot */
+		final int deltas;
+		final Map<String, String> properties;
+		final Map<IInstallableUnit, Map<String, String>> units;
+
+		State(Profile profile, int deltas) {
+			this.timestamp = profile.getTimestamp();
+			this.parentId = parentId(profile);
+			this.deltas = deltas;
+			this.properties = new HashMap<>(profile.getProperties());
+			Set<IInstallableUnit> ius = profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+			this.units = new HashMap<>(ius.size());
+			for (IInstallableUnit iu : ius) {
+				Map<String, String> iuProperties = profile.getInstallableUnitProperties(iu);
+				units.put(iu, iuProperties.isEmpty() ? Collections.emptyMap() : new HashMap<>(iuProperties));
+			}
+		}
+	}
+
+	private static String parentId(Profile profile) {
+		IProfile parent = profile.getParentProfile();
+		return parent == null ? null : parent.getProfileId();
+	}
+
+	/**
+	 * Returns whether a delta can describe the change from the given state to
+	 * the given profile, that is whether the profile still has the same parent.
+	 */
+	static boolean canDescribe(State base, Profile profile) {
+		return Objects.equals(base.parentId, parentId(profile));
+	}
+
+	/**
+	 * Computes the changes from the given persisted state to the current state
+	 * of the given profile.
+	 */
+	static ProfileDelta compute(State base, Profile profile, long timestamp) {
+		Map<String, String> properties = profile.getProperties();
+		Map<String, String> setProperties = new LinkedHashMap<>();
+		for (Map.Entry<String, String> entry : properties.entrySet()) {
+			if (!entry.getValue().equals(base.properties.get(entry.getKey())))
+				setProperties.put(entry.getKey(), entry.getValue());
+		}
+		List<String> removedProperties = new ArrayList<>();
+		for (String key : base.properties.keySet()) {
+			if (!properties.containsKey(key))
+				removedProperties.add(key);
+		}
+
+		Set<IInstallableUnit> ius = profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		List<IInstallableUnit> addedUnits = new ArrayList<>();
+		Map<IVersionedId, Map<String, String>> unitProperties = new LinkedHashMap<>();
+		for (IInstallableUnit iu : ius) {
+			Map<String, String> iuProperties = profile.getInstallableUnitProperties(iu);
+			Map<String, String> baseProperties = base.units.get(iu);
+			if (baseProperties == null) {
+				addedUnits.add(iu);
+				if (!iuProperties.isEmpty())
+					unitProperties.put(new VersionedId(iu.getId(), iu.getVersion()), iuProperties);
+			} else if (!baseProperties.equals(iuProperties)) {
+				unitProperties.put(new VersionedId(iu.getId(), iu.getVersion()), iuProperties);
+			}
+		}
+		List<IVersionedId> removedUnits = new ArrayList<>();
+		for (IInstallableUnit iu : base.units.keySet()) {
+			if (!ius.contains(iu))
+				removedUnits.add(new VersionedId(iu.getId(), iu.getVersion()));
+		}
+		return new ProfileDelta(profile.getProfileId(), base.timestamp, timestamp, setProperties, removedProperties, addedUnits, removedUnits, unitProperties);
+	}
+
+	/**
+	 * Applies these changes to the given profile, which must be in the state
+	 * these changes are based on.
+	 */
+	void applyTo(Profile profile) {
+		for (String key : removedProperties)
+			profile.removeProperty(key);
+		profile.addProperties(setProperties);
+
+		Map<IVersionedId, IInstallableUnit> ius = new HashMap<>();
+		if (!removedUnits.isEmpty() || !unitProperties.isEmpty()) {
+			for (IInstallableUnit iu : profile.query(QueryUtil.createIUAnyQuery(), null))
+				ius.put(new VersionedId(iu.getId(), iu.getVersion()), iu);
+		}
+		for (IVersionedId removed : removedUnits) {
+			IInstallableUnit iu = ius.remove(removed);
+			if (iu != null) {
+				profile.removeInstallableUnit(iu);
+				profile.clearInstallableUnitProperties(iu);
+			}
+		}
+		for (IInstallableUnit iu : addedUnits) {
+			profile.addInstallableUnit(iu);
+			ius.put(new VersionedId(iu.getId(), iu.getVersion()), iu);
+		}
+		for (Map.Entry<IVersionedId, Map<String, String>> entry : unitProperties.entrySet()) {
+			IInstallableUnit iu = ius.get(entry.getKey());
+			if (iu != null) {
+				profile.clearInstallableUnitProperties(iu);
+				profile.addInstallableUnitProperties(iu, entry.getValue());
+			}
+		}
+		profile.setTimestamp(timestamp);
+	}
+}
@@ -14,12 +14,10 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.engine;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
-import org.eclipse.equinox.p2.metadata.IInstallableUnit;
-import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.*;
 import org.xml.sax.Attributes;
 
 /**
@@ -131,6 +129,156 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		}
 	}
 
+	/**
+	 * Handler for the changes from a state of a profile to the next one, as
+	 * written by {@link ProfileWriter#writeProfileDelta(ProfileDelta)}.
+	 */
+	protected class ProfileDeltaHandler extends RootHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, BASE_TIMESTAMP_ATTRIBUTE, TIMESTAMP_ATTRIBUTE};
+
+		private String profileId;
+		private long baseTimestamp;
+		private long timestamp;
+		private PropertiesHandler propertiesHandler;
+		private PropertiesHandler removedPropertiesHandler;
+		private InstallableUnitsHandler unitsHandler;
+		private final List<IVersionedId> removedUnits = new ArrayList<>();
+		private final Map<IVersionedId, Map<String, String>> unitProperties = new LinkedHashMap<>();
+
+		@Override
+		protected void handleRootAttributes(Attributes attributes) {
+			String[] values = parseRequiredAttributes(attributes, required);
+			profileId = values[0];
+			try {
+				baseTimestamp = Long.parseLong(values[1]);
+				timestamp = Long.parseLong(values[2]);
+			} catch (NumberFormatException e) {
+				invalidAttributeValue(PROFILE_DELTA_ELEMENT, TIMESTAMP_ATTRIBUTE, values[2]);
+			}
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (PROPERTIES_ELEMENT.equals(name) && propertiesHandler == null) {
+				propertiesHandler = new PropertiesHandler(this, attributes);
+			} else if (REMOVED_PROPERTIES_ELEMENT.equals(name) && removedPropertiesHandler == null) {
+				removedPropertiesHandler = new PropertiesHandler(this, attributes);
+			} else if (INSTALLABLE_UNITS_ELEMENT.equals(name) && unitsHandler == null) {
+				unitsHandler = new InstallableUnitsHandler(this, attributes);
+			} else if (REMOVED_UNITS_ELEMENT.equals(name)) {
+				new UnitIdsHandler(this, REMOVED_UNITS_ELEMENT, removedUnits);
+			} else if (IUS_PROPERTIES_ELEMENT.equals(name)) {
+				new UnitsPropertiesHandler(this, unitProperties);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+
+		public ProfileDelta getDelta() {
+			Map<String, String> setProperties = propertiesHandler == null ? Collections.emptyMap() : propertiesHandler.getProperties();
+			Collection<String> removedProperties = removedPropertiesHandler == null ? Collections.emptyList() : removedPropertiesHandler.getProperties().keySet();
+			List<IInstallableUnit> addedUnits = unitsHandler == null ? Collections.emptyList() : Arrays.asList(unitsHandler.getUnits());
+			return new ProfileDelta(profileId, baseTimestamp, timestamp, setProperties, removedProperties, addedUnits, removedUnits, unitProperties);
+		}
+	}
+
+	/**
+	 * Handler for a collection of units, identified by their id and version.
+	 */
+	protected class UnitIdsHandler extends AbstractHandler {
+
+		private final List<IVersionedId> units;
+
+		public UnitIdsHandler(AbstractHandler parentHandler, String elementHandled, List<IVersionedId> units) {
+			super(parentHandler, elementHandled);
+			this.units = units;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (INSTALLABLE_UNIT_ELEMENT.equals(name)) {
+				new UnitIdHandler(this, attributes, units);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	protected class UnitIdHandler extends AbstractHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
+
+		public UnitIdHandler(AbstractHandler parentHandler, Attributes attributes, List<IVersionedId> units) {
+			super(parentHandler, INSTALLABLE_UNIT_ELEMENT);
+			String[] values = parseRequiredAttributes(attributes, required);
+			Version version = checkVersion(INSTALLABLE_UNIT_ELEMENT, VERSION_ATTRIBUTE, values[1]);
+			if (values[0] != null)
+				units.add(new VersionedId(values[0], version));
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			noSubElements(name, attributes);
+		}
+	}
+
+	/**
+	 * Handler for the new properties of the units of a profile delta, keyed by
+	 * unit rather than by an <code>id_version</code> string.
+	 */
+	protected class UnitsPropertiesHandler extends AbstractHandler {
+
+		private final Map<IVersionedId, Map<String, String>> unitProperties;
+
+		public UnitsPropertiesHandler(AbstractHandler parentHandler, Map<IVersionedId, Map<String, String>> unitProperties) {
+			super(parentHandler, IUS_PROPERTIES_ELEMENT);
+			this.unitProperties = unitProperties;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (IU_PROPERTIES_ELEMENT.equals(name)) {
+				new UnitPropertiesHandler(this, attributes, unitProperties);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	protected class UnitPropertiesHandler extends AbstractHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
+
+		private final Map<IVersionedId, Map<String, String>> unitProperties;
+		private IVersionedId unit;
+		private PropertiesHandler propertiesHandler;
+
+		public UnitPropertiesHandler(AbstractHandler parentHandler, Attributes attributes, Map<IVersionedId, Map<String, String>> unitProperties) {
+			super(parentHandler, IU_PROPERTIES_ELEMENT);
+			this.unitProperties = unitProperties;
+			String[] values = parseRequiredAttributes(attributes, required);
+			Version version = checkVersion(IU_PROPERTIES_ELEMENT, VERSION_ATTRIBUTE, values[1]);
+			if (values[0] != null)
+				unit = new VersionedId(values[0], version);
+		}
+
+		@Override
+		protected void finished() {
+			if (isValidXML() && unit != null)
+				unitProperties.put(unit, propertiesHandler == null ? Collections.emptyMap() : propertiesHandler.getProperties());
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(PROPERTIES_ELEMENT)) {
+				propertiesHandler = new PropertiesHandler(this, attributes);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
 	protected class IUPropertiesHandler extends AbstractHandler {
 
 		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
@@ -18,6 +18,7 @@ import java.util.*;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IVersionedId;
 import org.eclipse.equinox.p2.query.QueryUtil;
 
 public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants {
@@ -45,6 +46,58 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 		flush();
 	}
 
+	/**
+	 * Writes the changes from a state of a profile to the next one.
+	 */
+	void writeProfileDelta(ProfileDelta delta) {
+		start(PROFILE_DELTA_ELEMENT);
+		attribute(ID_ATTRIBUTE, delta.profileId);
+		attribute(BASE_TIMESTAMP_ATTRIBUTE, Long.toString(delta.baseTimestamp));
+		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(delta.timestamp));
+		writeProperties(delta.setProperties);
+		if (!delta.removedProperties.isEmpty()) {
+			start(REMOVED_PROPERTIES_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, delta.removedProperties.size());
+			for (String key : delta.removedProperties) {
+				start(PROPERTY_ELEMENT);
+				attribute(PROPERTY_NAME_ATTRIBUTE, key);
+				attribute(PROPERTY_VALUE_ATTRIBUTE, ""); //$NON-NLS-1$
+				end(PROPERTY_ELEMENT);
+			}
+			end(REMOVED_PROPERTIES_ELEMENT);
+		}
+		writeInstallableUnits(delta.addedUnits.iterator(), delta.addedUnits.size());
+		if (!delta.removedUnits.isEmpty()) {
+			start(REMOVED_UNITS_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, delta.removedUnits.size());
+			for (IVersionedId unit : delta.removedUnits) {
+				start(INSTALLABLE_UNIT_ELEMENT);
+				attribute(ID_ATTRIBUTE, unit.getId());
+				attribute(VERSION_ATTRIBUTE, unit.getVersion().toString());
+				end(INSTALLABLE_UNIT_ELEMENT);
+			}
+			end(REMOVED_UNITS_ELEMENT);
+		}
+		if (!delta.unitProperties.isEmpty()) {
+			start(IUS_PROPERTIES_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, delta.unitProperties.size());
+			delta.unitProperties.forEach((unit, properties) -> {
+				start(IU_PROPERTIES_ELEMENT);
+				attribute(ID_ATTRIBUTE, unit.getId());
+				attribute(VERSION_ATTRIBUTE, unit.getVersion().toString());
+				// an empty element tells that all the properties were removed
+				start(PROPERTIES_ELEMENT);
+				attribute(COLLECTION_SIZE_ATTRIBUTE, properties.size());
+				properties.forEach(this::writeProperty);
+				end(PROPERTIES_ELEMENT);
+				end(IU_PROPERTIES_ELEMENT);
+			});
+			end(IUS_PROPERTIES_ELEMENT);
+		}
+		end(PROFILE_DELTA_ELEMENT);
+		flush();
+	}
+
 	private void writeInstallableUnitsProperties(Iterator<IInstallableUnit> it, int size, IProfile profile) {
 		if (size == 0)
 			return;
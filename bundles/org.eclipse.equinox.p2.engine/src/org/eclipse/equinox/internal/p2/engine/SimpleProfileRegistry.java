@@ -29,6 +29,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
 import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.core.spi.IAgentService;
@@ -50,6 +51,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 	private static final String PROFILE_EXT = ".profile"; //$NON-NLS-1$
 	private static final String PROFILE_GZ_EXT = ".profile.gz"; //$NON-NLS-1$
+	private static final String PROFILE_DELTA_EXT = ".profile.delta.gz"; //$NON-NLS-1$
 	public static final String DEFAULT_STORAGE_DIR = "profileRegistry"; //$NON-NLS-1$
 	private static final String DATA_EXT = ".data"; //$NON-NLS-1$
 
@@ -65,6 +67,11 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 */
 	private SoftReference<Map<String, Profile>> profiles;
 	private Map<String, ProfileLock> profileLocks = new HashMap<>();
+	/**
+	 * The last persisted state of each profile, the next state being written as
+	 * the changes from it when profile states are not all stored as full snapshots.
+	 */
+	private final Map<String, ProfileDelta.State> persistedStates = new HashMap<>();
 
 	private String self;
 
@@ -210,19 +217,12 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory())
 			return null;
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists())
-				return null;
-		}
+		List<File> profileFiles = findProfileFiles(listProfileFiles(profileDirectory), timestamp);
+		if (profileFiles.isEmpty())
+			return null;
 
 		Parser parser = new Parser(EngineActivator.ID);
-		try {
-			parser.parse(profileFile);
-		} catch (IOException e) {
-			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
-		}
+		parser.parse(profileFiles);
 		return parser.getProfileMap().get(id);
 	}
 
@@ -238,7 +238,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory())
 			return new long[0];
 
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> isProfileFile(pathname.getName()) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
 
 		long[] timestamps = new long[profileFiles.length];
 		for (int i = 0; i < profileFiles.length; i++) {
@@ -477,6 +477,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 		profileMap.remove(profileId);
 		profileLocks.remove(profileId);
+		persistedStates.remove(profileId);
 		// deleting the profile removes the folder and subsequently all
 		// the profile state properties as well since they are stored in a file in the folder.
 		deleteProfile(profileId);
@@ -499,11 +500,16 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory())
 			return;
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists())
-				return;
+		NavigableMap<Long, File> profileFiles = listProfileFiles(profileDirectory);
+		File profileFile = profileFiles.get(timestamp);
+		if (profileFile == null)
+			return;
+		// the next state may be stored as the changes to this one, store it in full
+		Entry<Long, File> next = profileFiles.higherEntry(timestamp);
+		if (next != null && next.getValue().getName().endsWith(PROFILE_DELTA_EXT)) {
+			IProfile nextProfile = getProfile(id, next.getKey());
+			if (nextProfile != null && writeProfileFile(nextProfile, new File(profileDirectory, next.getKey() + PROFILE_GZ_EXT), true, true))
+				next.getValue().delete();
 		}
 		FileUtils.deleteAll(profileFile);
 		// Ignore the return value here. If there was a problem removing the profile state
@@ -544,14 +550,9 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			boolean locked = false;
 			if (lock.processHoldsLock() || (locked = lock.lock())) {
 				try {
-					File profileFile = findLatestProfileFile(profileDirectorie);
-					if (profileFile != null) {
-						try {
-							parser.parse(profileFile);
-						} catch (IOException e) {
-							LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
-						}
-					}
+					NavigableMap<Long, File> profileFiles = listProfileFiles(profileDirectorie);
+					if (!profileFiles.isEmpty())
+						parser.parse(findProfileFiles(profileFiles, profileFiles.lastKey()));
 				} finally {
 					if (locked)
 						lock.unlock();
@@ -561,29 +562,59 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				parser.addProfilePlaceHolder(profileId);
 			}
 		}
-		return parser.getProfileMap();
+		Map<String, Profile> profileMap = parser.getProfileMap();
+		persistedStates.clear();
+		if (getCheckpointInterval() > 1) {
+			for (Profile profile : profileMap.values())
+				persistedStates.put(profile.getProfileId(), new ProfileDelta.State(profile, parser.getDeltaCount(profile.getProfileId())));
+		}
+		return profileMap;
+	}
+
+	private static boolean isProfileFile(String fileName) {
+		return fileName.endsWith(PROFILE_GZ_EXT) || fileName.endsWith(PROFILE_EXT) || fileName.endsWith(PROFILE_DELTA_EXT);
 	}
 
-	private File findLatestProfileFile(File profileDirectory) {
-		File latest = null;
-		long latestTimestamp = 0;
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_EXT)) && !pathname.isDirectory());
+	/**
+	 * Returns the files storing the states of a profile, by timestamp.
+	 */
+	private NavigableMap<Long, File> listProfileFiles(File profileDirectory) {
+		NavigableMap<Long, File> result = new TreeMap<>();
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> isProfileFile(pathname.getName()) && !pathname.isDirectory());
 		// protect against NPE
 		if (profileFiles == null)
-			return null;
+			return result;
 		for (File profileFile : profileFiles) {
 			String fileName = profileFile.getName();
 			try {
 				long timestamp = Long.parseLong(fileName.substring(0, fileName.indexOf(PROFILE_EXT)));
-				if (timestamp > latestTimestamp) {
-					latestTimestamp = timestamp;
-					latest = profileFile;
-				}
+				// prefer the gzipped snapshot to the raw XML one
+				result.merge(timestamp, profileFile, (file1, file2) -> file1.getName().endsWith(PROFILE_EXT) ? file2 : file1);
 			} catch (NumberFormatException e) {
 				// ignore
 			}
 		}
-		return latest;
+		return result;
+	}
+
+	/**
+	 * Returns the files to read to get the state of a profile with the given
+	 * timestamp: the full snapshot of that state or of the closest earlier one,
+	 * followed by the changes stored for the next states. Returns an empty list if
+	 * there is no such state.
+	 */
+	private List<File> findProfileFiles(NavigableMap<Long, File> profileFiles, long timestamp) {
+		if (!profileFiles.containsKey(timestamp))
+			return Collections.emptyList();
+		LinkedList<File> result = new LinkedList<>();
+		for (File profileFile : profileFiles.headMap(timestamp, true).descendingMap().values()) {
+			result.addFirst(profileFile);
+			if (!profileFile.getName().endsWith(PROFILE_DELTA_EXT))
+				return result;
+		}
+		// no full snapshot to start from
+		LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, result.getLast())));
+		return Collections.emptyList();
 	}
 
 	private void saveProfile(Profile profile) {
@@ -596,7 +627,12 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			currentTimestamp = currentTimeInMillis(previousTimestamp);
 		}
 		boolean shouldGzipFile = shouldGzipFile(profile);
-		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
+		int checkpointInterval = shouldGzipFile ? getCheckpointInterval() : 1;
+		// only store the changes to the last persisted state, and up to the checkpoint interval
+		ProfileDelta.State base = checkpointInterval > 1 ? persistedStates.get(profile.getProfileId()) : null;
+		boolean writeDelta = base != null && base.timestamp == previousTimestamp && base.deltas + 1 < checkpointInterval && ProfileDelta.canDescribe(base, profile);
+		ProfileDelta delta = writeDelta ? ProfileDelta.compute(base, profile, currentTimestamp) : null;
+		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (writeDelta ? PROFILE_DELTA_EXT : shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
 
 		// Log a stack trace to see who is writing the profile.
 		if (DebugHelper.DEBUG_PROFILE_REGISTRY)
@@ -604,16 +640,52 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 		profile.setTimestamp(currentTimestamp);
 		profile.setChanged(false);
-		try (OutputStream os = shouldGzipFile
-				? new GZIPOutputStream(new FileOutputStream(profileFile))
-				: new FileOutputStream(profileFile)) {
+		boolean saved = writeDelta ? writeProfileFile(delta, profileFile) : writeProfileFile(profile, profileFile, shouldGzipFile, false);
+		if (!saved) {
+			profile.setTimestamp(previousTimestamp);
+			return;
+		}
+		if (checkpointInterval > 1)
+			persistedStates.put(profile.getProfileId(), new ProfileDelta.State(profile, writeDelta ? base.deltas + 1 : 0));
+		else
+			persistedStates.remove(profile.getProfileId());
+	}
+
+	/**
+	 * Writes a full snapshot of the given profile into the given file.
+	 *
+	 * @param replace whether the file may already exist and must only be replaced once fully written
+	 * @return whether the profile was written
+	 */
+	private boolean writeProfileFile(IProfile profile, File profileFile, boolean gzip, boolean replace) {
+		File target = replace ? new File(profileFile.getParentFile(), profileFile.getName() + ".tmp") : profileFile; //$NON-NLS-1$
+		try (OutputStream os = gzip ? new GZIPOutputStream(new FileOutputStream(target)) : new FileOutputStream(target)) {
 			Writer writer = new Writer(os);
 			writer.writeProfile(profile);
 		} catch (IOException e) {
-			profile.setTimestamp(previousTimestamp);
-			profileFile.delete();
+			target.delete();
 			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, profile.getProfileId()), e));
+			return false;
 		}
+		return target == profileFile || target.renameTo(profileFile);
+	}
+
+	/**
+	 * Writes the given changes to the last persisted state of a profile into the
+	 * given file.
+	 *
+	 * @return whether the changes were written
+	 */
+	private boolean writeProfileFile(ProfileDelta delta, File profileFile) {
+		try (OutputStream os = new GZIPOutputStream(new FileOutputStream(profileFile))) {
+			Writer writer = new Writer(os);
+			writer.writeProfileDelta(delta);
+		} catch (IOException e) {
+			profileFile.delete();
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, delta.profileId), e));
+			return false;
+		}
+		return true;
 	}
 
 	/**
@@ -643,6 +715,22 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		return profile.available(QueryUtil.createIUQuery("org.eclipse.equinox.p2.engine", VersionRange.create("[0.0.0, 1.0.101)")), null).isEmpty(); //$NON-NLS-1$//$NON-NLS-2$
 	}
 
+	/**
+	 * Returns how many consecutive states of a profile are stored from one full
+	 * snapshot to the next.
+	 */
+	private int getCheckpointInterval() {
+		String value = EngineActivator.getProperty(EngineActivator.PROP_PROFILE_CHECKPOINT_INTERVAL, agent);
+		if (value == null)
+			return 1;
+		try {
+			return Math.max(1, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+			LogHelper.log(new Status(IStatus.WARNING, EngineActivator.ID, "Invalid profile checkpoint interval: " + value)); //$NON-NLS-1$
+			return 1;
+		}
+	}
+
 	private void deleteProfile(String profileId) {
 		File profileDirectory = getProfileFolder(profileId);
 		FileUtils.deleteAll(profileDirectory);
@@ -709,6 +797,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 */
 	class Parser extends ProfileParser {
 		private final Map<String, ProfileHandler> profileHandlers = new HashMap<>();
+		private final Map<String, List<ProfileDelta>> profileDeltas = new HashMap<>();
 
 		public Map<String, ProfileHandler> getProfileHandlers() {
 			return Collections.unmodifiableMap(profileHandlers);
@@ -716,12 +805,46 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 		public Parser(String bundleId) {
 			super(bundleId);
+			setPool(MetadataPool.getPool(agent));
 		}
 
 		public void addProfilePlaceHolder(String profileId) {
 			profileHandlers.put(profileId, new ProfileHandler(profileId));
 		}
 
+		/**
+		 * Parses the given profile files: a full snapshot of a profile followed by
+		 * the changes stored for its next states.
+		 */
+		public void parse(List<File> files) {
+			for (File file : files) {
+				try {
+					if (file.getName().endsWith(PROFILE_DELTA_EXT))
+						parseDelta(file);
+					else
+						parse(file);
+				} catch (IOException e) {
+					LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, file), e));
+					return;
+				}
+			}
+		}
+
+		public void parseDelta(File file) throws IOException {
+			ProfileDeltaHandler deltaHandler = new ProfileDeltaHandler();
+			parse(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))), PROFILE_DELTA_ELEMENT, deltaHandler);
+			ProfileDelta delta = deltaHandler.getDelta();
+			profileDeltas.computeIfAbsent(delta.profileId, id -> new ArrayList<>()).add(delta);
+		}
+
+		/**
+		 * Returns the number of deltas parsed after the full snapshot of the given profile.
+		 */
+		public int getDeltaCount(String profileId) {
+			List<ProfileDelta> deltas = profileDeltas.get(profileId);
+			return deltas == null ? 0 : deltas.size();
+		}
+
 		public void parse(File file) throws IOException {
 			InputStream is;
 			if (file.getName().endsWith(PROFILE_GZ_EXT)) {
@@ -733,15 +856,19 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 
 		public synchronized void parse(InputStream stream) throws IOException {
+			ProfileHandler profileHandler = new ProfileHandler();
+			parse(stream, PROFILE_ELEMENT, profileHandler);
+			profileHandlers.put(profileHandler.getProfileId(), profileHandler);
+		}
+
+		private synchronized void parse(InputStream stream, String rootName, RootHandler rootHandler) throws IOException {
 			this.status = null;
 			try {
 				// TODO: currently not caching the parser since we make no assumptions
 				//		 or restrictions on concurrent parsing
 				XMLReader reader = getParser().getXMLReader();
-				ProfileHandler profileHandler = new ProfileHandler();
-				reader.setContentHandler(new ProfileDocHandler(PROFILE_ELEMENT, profileHandler));
+				reader.setContentHandler(new ProfileDocHandler(rootName, rootHandler));
 				reader.parse(new InputSource(stream));
-				profileHandlers.put(profileHandler.getProfileId(), profileHandler);
 			} catch (SAXException e) {
 				IOException ioException = new IOException(e.getMessage());
 				ioException.initCause(e);
@@ -799,6 +926,18 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 					}
 				}
 			}
+			List<ProfileDelta> deltas = profileDeltas.get(profileId);
+			if (deltas != null) {
+				for (ProfileDelta delta : deltas) {
+					if (delta.baseTimestamp != profile.getTimestamp()) {
+						LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.SimpleProfileRegistry_Delta_Not_Applicable, new Object[] {delta.timestamp, profileId, delta.baseTimestamp})));
+						break;
+					}
+					delta.applyTo(profile);
+				}
+			}
+			if (pool != null)
+				profile.compress(pool);
 			profile.setChanged(false);
 			profileMap.put(profileId, profile);
 		}
@@ -929,6 +1068,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 	public synchronized void resetProfiles() {
 		profiles = null;
+		persistedStates.clear();
 	}
 
 	public synchronized void unlockProfile(IProfile profile) {
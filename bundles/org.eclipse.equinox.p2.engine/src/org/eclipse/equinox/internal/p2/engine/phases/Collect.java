@@ -69,6 +69,12 @@ public class Collect extends InstallableUnitPhase {
 		return Collections.singletonList(action);
 	}
 
+	@Override
+	protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+		IInstallableUnit unit = ((InstallableUnitOperand) operand).second();
+		return isParallelSafe(getActionManager().getTouchpointPoint(unit.getTouchpointType()), actions);
+	}
+
 	@Override
 	protected String getProblemMessage() {
 		return Messages.Phase_Collect_Error;
@@ -135,8 +141,9 @@ public class Collect extends InstallableUnitPhase {
 
 	@Override
 	protected IStatus initializePhase(IProgressMonitor monitor, IProfile profile, Map<String, Object> parameters) {
-		parameters.put(PARM_ARTIFACT_REQUESTS, new ArrayList<>());
-		parameters.put(PARM_IUS, new HashSet<>());
+		// operands may be performed concurrently
+		parameters.put(PARM_ARTIFACT_REQUESTS, Collections.synchronizedList(new ArrayList<>()));
+		parameters.put(PARM_IUS, Collections.synchronizedSet(new HashSet<>()));
 		return null;
 	}
 
@@ -119,6 +119,18 @@ public class Install extends InstallableUnitPhase {
 		return actions;
 	}
 
+	@Override
+	protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+		// the events around the actions of the unit are published on the calling thread
+		Touchpoint touchpoint = actions.get(0).getTouchpoint();
+		return isParallelSafe(touchpoint, actions.subList(1, actions.size() - 1));
+	}
+
+	@Override
+	protected boolean isSerialAction(ProvisioningAction action) {
+		return action instanceof BeforeInstallEventAction || action instanceof AfterInstallEventAction;
+	}
+
 	@Override
 	protected String getProblemMessage() {
 		return Messages.Phase_Install_Error;
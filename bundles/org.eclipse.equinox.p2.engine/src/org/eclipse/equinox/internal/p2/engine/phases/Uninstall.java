@@ -120,6 +120,18 @@ public class Uninstall extends InstallableUnitPhase {
 		return actions;
 	}
 
+	@Override
+	protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+		// the events around the actions of the unit are published on the calling thread
+		Touchpoint touchpoint = actions.get(0).getTouchpoint();
+		return isParallelSafe(touchpoint, actions.subList(1, actions.size() - 1));
+	}
+
+	@Override
+	protected boolean isSerialAction(ProvisioningAction action) {
+		return action instanceof BeforeUninstallEventAction || action instanceof AfterUninstallEventAction;
+	}
+
 	@Override
 	protected String getProblemMessage() {
 		return Messages.Phase_Uninstall_Error;
@@ -37,6 +37,26 @@ public abstract class Touchpoint {
 		return actionId;
 	}
 
+	/**
+	 * Returns whether the given action of this touchpoint can be executed in the
+	 * given phase while the actions of other operands of the phase are. When the
+	 * engine performs the operands of a phase concurrently, it does so only for
+	 * the operands whose actions are all declared safe. Only the actions are
+	 * executed concurrently: {@link #initializePhase}, {@link #initializeOperand}
+	 * and {@link #completeOperand} are still called on the thread performing the
+	 * phase, in the order of the operands.
+	 * <p>
+	 * The default implementation returns <code>false</code>.
+	 * </p>
+	 * @param phaseId the id of the phase
+	 * @param action the action, as contributed by this touchpoint
+	 * @return whether the action can be executed concurrently with others
+	 * @since 2.11
+	 */
+	public boolean isParallelSafe(String phaseId, ProvisioningAction action) {
+		return false;
+	}
+
 	/**
 	 * This method is called at the beginning of execution of an engine phase. This
 	 * is an opportunity for the touchpoint to initialize any phase-specific structures.
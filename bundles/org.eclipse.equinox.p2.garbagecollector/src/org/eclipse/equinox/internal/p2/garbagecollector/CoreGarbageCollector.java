@@ -13,12 +13,15 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.garbagecollector;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
-import org.eclipse.equinox.p2.query.*;
-import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
+import org.eclipse.equinox.p2.repository.artifact.*;
 
 /**
  * Given a MarkSet, the CoreGarbageCollector removes any IArtifactDescriptors which
@@ -28,24 +31,99 @@ public class CoreGarbageCollector {
 	/**
 	 * When set to true, information will be logged every time an artifact is removed
 	 */
-	private static boolean DEBUG = "true".equalsIgnoreCase(GarbageCollectorHelper.ID + "/debug"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static boolean DEBUG = GarbageCollectorHelper.getDebugOption("/debug"); //$NON-NLS-1$
+
+	private int removedCount;
+	private long reclaimedBytes;
+	private long duration;
 
 	/**
 	 * Given a list of IArtifactKeys and an IArtifactRepository, removes all artifacts
 	 * in aRepository that are not mapped to by an IArtifactKey in markSet
 	 */
 	public synchronized void clean(IArtifactKey[] markSet, final IArtifactRepository aRepository) {
+		long start = System.currentTimeMillis();
 		Set<IArtifactKey> set = new HashSet<>(Arrays.asList(markSet));
-		//this query will match all artifact keys that are not in the given set
-		IQuery<IArtifactKey> query = QueryUtil.createQuery(IArtifactKey.class, "unique($0)", set); //$NON-NLS-1$
-		aRepository.executeBatch(monitor -> {
-			for (IArtifactKey key : aRepository.query(query, null)) {
-				aRepository.removeDescriptor(key, new NullProgressMonitor());
-				if (DEBUG) {
+		List<IArtifactKey> unreferenced = new ArrayList<>();
+		for (IArtifactKey key : aRepository.query(ArtifactKeyQuery.ALL_KEYS, null)) {
+			if (!set.contains(key))
+				unreferenced.add(key);
+		}
+		removedCount = unreferenced.size();
+		reclaimedBytes = 0;
+		if (!unreferenced.isEmpty()) {
+			reclaimedBytes = getSize(unreferenced, aRepository);
+			// remove all the keys at once, so that the repository is only written once
+			aRepository.removeDescriptors(unreferenced.toArray(new IArtifactKey[unreferenced.size()]), new NullProgressMonitor());
+			if (DEBUG) {
+				for (IArtifactKey key : unreferenced)
 					Tracing.debug("Key removed:" + key); //$NON-NLS-1$
+			}
+		}
+		duration = System.currentTimeMillis() - start;
+		if (DEBUG)
+			Tracing.debug("Removed " + removedCount + " artifacts, " + reclaimedBytes + " bytes, from " + aRepository.getLocation() + " in " + duration + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	/**
+	 * Returns the number of artifacts removed by the last clean.
+	 */
+	public synchronized int getRemovedCount() {
+		return removedCount;
+	}
+
+	/**
+	 * Returns the number of bytes held by the artifacts removed by the last
+	 * clean. For repositories that are not on the local file system, this is
+	 * the size their descriptors give.
+	 */
+	public synchronized long getReclaimedBytes() {
+		return reclaimedBytes;
+	}
+
+	/**
+	 * Returns how long the last clean took, in milliseconds.
+	 */
+	public synchronized long getDuration() {
+		return duration;
+	}
+
+	private static long getSize(Collection<IArtifactKey> keys, IArtifactRepository repository) {
+		long result = 0;
+		for (IArtifactKey key : keys) {
+			for (IArtifactDescriptor descriptor : repository.getArtifactDescriptors(key)) {
+				File file = repository instanceof IFileArtifactRepository ? ((IFileArtifactRepository) repository).getArtifactFile(descriptor) : null;
+				if (file != null) {
+					result += getSize(file);
+				} else {
+					try {
+						String size = descriptor.getProperty(IArtifactDescriptor.ARTIFACT_SIZE);
+						if (size != null)
+							result += Long.parseLong(size);
+					} catch (NumberFormatException e) {
+						// the size is unknown
+					}
 				}
 			}
-		}, new NullProgressMonitor());
+		}
+		return result;
 	}
 
+	private static long getSize(File file) {
+		if (!file.isDirectory())
+			return file.length();
+		long[] result = new long[1];
+		try {
+			Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+					result[0] += attributes.size();
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			// count what could be read
+		}
+		return result[0];
+	}
 }
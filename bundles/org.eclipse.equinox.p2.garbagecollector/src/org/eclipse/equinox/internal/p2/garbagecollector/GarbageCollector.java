@@ -13,17 +13,18 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.garbagecollector;
 
+import java.net.URI;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.internal.p2.engine.*;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.SynchronousProvisioningListener;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.spi.IAgentService;
-import org.eclipse.equinox.p2.engine.IProfile;
-import org.eclipse.equinox.p2.engine.IProfileRegistry;
+import org.eclipse.equinox.p2.engine.*;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.osgi.service.prefs.Preferences;
@@ -38,6 +39,10 @@ import org.osgi.service.prefs.Preferences;
  * Then, the MarkSets are obtained for every other registered Profile in a similar fashion.  Each MarkSet is
  * checked to see if its artifact repository is already a key in markSet.  If so, that MarkSet's artifact keys
  * are added to the list that is mapped to by the artifact repository.
+ *
+ * The keys marked by each profile are kept from one run to the next, and are only obtained again once the
+ * profile has changed, so that a run only asks the MarkSetProviders about the profiles changed since the
+ * previous one.
  */
 public class GarbageCollector implements SynchronousProvisioningListener, IAgentService {
 	/**
@@ -75,8 +80,22 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 		}
 	}
 
+	/**
+	 * The keys marked by a profile, by the location of their repository.
+	 */
+	private static class ProfileMarks {
+		final long timestamp;
+		final Map<URI, List<IArtifactKey[]>> keys = new HashMap<>();
+
+		ProfileMarks(long timestamp) {
+			this.timestamp = timestamp;
+		}
+	}
+
 	private static final String ATTRIBUTE_CLASS = "class"; //$NON-NLS-1$
 
+	private static boolean DEBUG = GarbageCollectorHelper.getDebugOption("/debug"); //$NON-NLS-1$
+
 	private static final String PT_MARKSET = GarbageCollectorHelper.ID + ".marksetproviders"; //$NON-NLS-1$
 	final IProvisioningAgent agent;
 
@@ -84,9 +103,15 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 	String uninstallEventProfileId = null;
 
 	/**
-	 * Maps IArtifactRepository objects to their respective "marked set" of IArtifactKeys
+	 * Maps the locations of the IArtifactRepository objects to their respective "marked set" of IArtifactKeys
+	 */
+	private Map<URI, Collection<IArtifactKey>> markSet;
+	private Map<URI, IArtifactRepository> repositories;
+
+	/**
+	 * The keys marked by each profile, by profile id, as of the last time the profile was traversed.
 	 */
-	private Map<IArtifactRepository, Collection<IArtifactKey>> markSet;
+	private final Map<String, ProfileMarks> profileMarks = new HashMap<>();
 
 	public GarbageCollector(IProvisioningAgent agent) {
 		this.agent = agent;
@@ -97,10 +122,8 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 			keyList.add(element);
 	}
 
-	private void contributeMarkSets(IConfigurationElement runAttribute, IProfile profile, boolean addRepositories) {
-		ParameterizedSafeRunnable providerExecutor = new ParameterizedSafeRunnable(runAttribute, profile);
-		SafeRunner.run(providerExecutor);
-		MarkSet[] aProfileMarkSets = providerExecutor.getResult();
+	private void contributeMarkSets(IConfigurationElement runAttribute, IProfile profile, ProfileMarks marks, boolean addRepositories) {
+		MarkSet[] aProfileMarkSets = getMarkSets(runAttribute, profile);
 		if (aProfileMarkSets == null || aProfileMarkSets.length == 0 || aProfileMarkSets[0] == null)
 			return;
 
@@ -108,17 +131,66 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 			if (aProfileMarkSet == null) {
 				continue;
 			}
-			Collection<IArtifactKey> keys = markSet.get(aProfileMarkSet.getRepo());
+			URI location = aProfileMarkSet.getRepo().getLocation();
+			marks.keys.computeIfAbsent(location, l -> new ArrayList<>()).add(aProfileMarkSet.getKeys());
+			if (addRepositories)
+				repositories.putIfAbsent(location, aProfileMarkSet.getRepo());
+		}
+	}
+
+	/**
+	 * Adds the keys marked by the given profile to the marked sets, adding the
+	 * repositories of the profile to the ones to clean if addRepositories is true.
+	 */
+	private void contributeMarks(ProfileMarks marks, boolean addRepositories) {
+		for (Map.Entry<URI, List<IArtifactKey[]>> entry : marks.keys.entrySet()) {
+			Collection<IArtifactKey> keys = markSet.get(entry.getKey());
 			if (keys == null) {
-				if (addRepositories) {
-					keys = new HashSet<>();
-					markSet.put(aProfileMarkSet.getRepo(), keys);
-					addKeys(keys, aProfileMarkSet.getKeys());
-				}
-			} else {
-				addKeys(keys, aProfileMarkSet.getKeys());
+				if (!addRepositories)
+					continue;
+				keys = new HashSet<>();
+				markSet.put(entry.getKey(), keys);
+			}
+			for (IArtifactKey[] keyArray : entry.getValue())
+				addKeys(keys, keyArray);
+		}
+	}
+
+	/**
+	 * Returns the keys marked by the given profile, asking the MarkSetProviders
+	 * only if the profile changed since it was last traversed.
+	 */
+	private ProfileMarks getProfileMarks(IProfile profile, IConfigurationElement[] configElts, boolean addRepositories) {
+		ProfileMarks marks = profileMarks.get(profile.getProfileId());
+		if (marks != null && marks.timestamp == profile.getTimestamp() && !addRepositories)
+			return marks;
+		marks = new ProfileMarks(profile.getTimestamp());
+		for (IConfigurationElement configElt : configElts) {
+			if (configElt == null || !(configElt.getName().equals("run"))) { //$NON-NLS-1$
+				continue;
 			}
+			contributeMarkSets(configElt, profile, marks, addRepositories);
 		}
+		profileMarks.put(profile.getProfileId(), marks);
+		return marks;
+	}
+
+	/**
+	 * Returns the MarkSets the given MarkSetProvider gives for the given profile.
+	 * This method is only protected for testing purposes.
+	 */
+	protected MarkSet[] getMarkSets(IConfigurationElement runAttribute, IProfile profile) {
+		ParameterizedSafeRunnable providerExecutor = new ParameterizedSafeRunnable(runAttribute, profile);
+		SafeRunner.run(providerExecutor);
+		return providerExecutor.getResult();
+	}
+
+	/**
+	 * Returns whether the keys marked by the given profile are kept for the next run.
+	 * This method is only protected for testing purposes.
+	 */
+	protected synchronized boolean hasProfileMarks(String profileId) {
+		return profileMarks.containsKey(profileId);
 	}
 
 	protected boolean getBooleanPreference(String key, boolean defaultValue) {
@@ -133,15 +205,20 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 	}
 
 	private void invokeCoreGC() {
-		for (IArtifactRepository nextRepo : markSet.keySet()) {
-			IArtifactKey[] keys = markSet.get(nextRepo).toArray(new IArtifactKey[0]);
-			MarkSet aMarkSet = new MarkSet(keys, nextRepo);
-			new CoreGarbageCollector().clean(aMarkSet.getKeys(), aMarkSet.getRepo());
+		for (Map.Entry<URI, Collection<IArtifactKey>> entry : markSet.entrySet()) {
+			IArtifactKey[] keys = entry.getValue().toArray(new IArtifactKey[0]);
+			MarkSet aMarkSet = new MarkSet(keys, repositories.get(entry.getKey()));
+			CoreGarbageCollector collector = new CoreGarbageCollector();
+			collector.clean(aMarkSet.getKeys(), aMarkSet.getRepo());
+			if (DEBUG)
+				Tracing.debug("Garbage collection of " + entry.getKey() + " reclaimed " + collector.getReclaimedBytes() + " bytes from " + collector.getRemovedCount() + " artifacts in " + collector.getDuration() + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
 		}
 	}
 
 	@Override
 	public void notify(EventObject o) {
+		if (o instanceof IProfileEvent)
+			forgetProfileMarks(((IProfileEvent) o).getProfileId());
 		if (o instanceof InstallableUnitEvent) {
 			InstallableUnitEvent event = (InstallableUnitEvent) o;
 			if (event.isUninstall() && event.isPost()) {
@@ -160,16 +237,29 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 		}
 	}
 
-	public void runGC(IProfile profile) {
+	public synchronized void runGC(IProfile profile) {
+		long start = System.currentTimeMillis();
 		markSet = new HashMap<>();
-		if (!traverseMainProfile(profile))
-			return;
+		repositories = new HashMap<>();
+		try {
+			if (!traverseMainProfile(profile))
+				return;
 
-		//Complete each MarkSet with the MarkSets provided by all of the other registered Profiles
-		traverseRegisteredProfiles();
+			//Complete each MarkSet with the MarkSets provided by all of the other registered Profiles
+			traverseRegisteredProfiles(profile);
 
-		//Run the GC on each MarkSet
-		invokeCoreGC();
+			//Run the GC on each MarkSet
+			invokeCoreGC();
+		} finally {
+			markSet = null;
+			repositories = null;
+		}
+		if (DEBUG)
+			Tracing.debug("Garbage collection of " + profile.getProfileId() + " took " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private synchronized void forgetProfileMarks(String profileId) {
+		profileMarks.remove(profileId);
 	}
 
 	@Override
@@ -192,29 +282,25 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 		IConfigurationElement[] configElts = registry.getConfigurationElementsFor(PT_MARKSET);
 
 		//First we collect all repos and keys for the profile being GC'ed
-		for (IConfigurationElement configElt : configElts) {
-			if (configElt == null || !(configElt.getName().equals("run"))) { //$NON-NLS-1$
-				continue;
-			}
-			contributeMarkSets(configElt, profile, true);
-		}
+		contributeMarks(getProfileMarks(profile, configElts, true), true);
 		return true;
 	}
 
-	private void traverseRegisteredProfiles() {
+	private void traverseRegisteredProfiles(IProfile mainProfile) {
 		IExtensionRegistry registry = RegistryFactory.getRegistry();
 		IConfigurationElement[] configElts = registry.getConfigurationElementsFor(PT_MARKSET);
-		for (IConfigurationElement configElt : configElts) {
-			if (configElt == null || !(configElt.getName().equals("run"))) { //$NON-NLS-1$
-				continue;
-			}
-			IProfileRegistry profileRegistry = agent.getService(IProfileRegistry.class);
-			if (profileRegistry == null)
-				return;
-			IProfile[] registeredProfiles = profileRegistry.getProfiles();
-			for (IProfile registeredProfile : registeredProfiles) {
-				contributeMarkSets(configElt, registeredProfile, false);
-			}
+		IProfileRegistry profileRegistry = agent.getService(IProfileRegistry.class);
+		if (profileRegistry == null)
+			return;
+		IProfile[] registeredProfiles = profileRegistry.getProfiles();
+		Set<String> registeredIds = new HashSet<>();
+		for (IProfile registeredProfile : registeredProfiles) {
+			registeredIds.add(registeredProfile.getProfileId());
+			contributeMarks(getProfileMarks(registeredProfile, configElts, false), false);
 		}
+		// forget the profiles that were removed
+		profileMarks.keySet().retainAll(registeredIds);
+		if (!registeredIds.contains(mainProfile.getProfileId()))
+			profileMarks.remove(mainProfile.getProfileId());
 	}
 }
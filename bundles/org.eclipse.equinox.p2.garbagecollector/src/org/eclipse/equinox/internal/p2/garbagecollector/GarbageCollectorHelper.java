@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.garbagecollector;
 
+import org.eclipse.osgi.service.debug.DebugOptions;
 import org.osgi.framework.*;
 
 public class GarbageCollectorHelper {
@@ -31,6 +32,18 @@ public class GarbageCollectorHelper {
 		return result;
 	}
 
+	/**
+	 * Returns the value of the given debug option of this bundle, or
+	 * <code>false</code> if it is not set or the bundle is not running.
+	 */
+	static boolean getDebugOption(String option) {
+		Bundle bundle = FrameworkUtil.getBundle(GarbageCollectorHelper.class);
+		if (bundle == null || bundle.getBundleContext() == null)
+			return false;
+		DebugOptions options = getService(DebugOptions.class);
+		return options != null && options.getBooleanOption(ID + option, false);
+	}
+
 
 
 }
@@ -23,6 +23,9 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader.Result;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -56,7 +59,8 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	// keep a list of the repositories that we have successfully loaded
 	private List<IMetadataRepository> loadedRepos = new ArrayList<>();
 	private IMetadataRepositoryManager manager;
-	private IPool<IInstallableUnit> iuPool = new WeakPool<>();
+	// shares the IUs with the other repositories and profiles of the agent when it has a pool
+	private IPool<IInstallableUnit> iuPool = createUnitPool();
 
 	/**
 	 * Create a Composite repository in memory.
@@ -80,6 +84,11 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		return isLocal();
 	}
 
+	private IPool<IInstallableUnit> createUnitPool() {
+		MetadataPool pool = MetadataPool.getPool(getProvisioningAgent());
+		return pool != null ? pool.getUnits() : new WeakPool<>();
+	}
+
 	/*
 	 * This is only called by the parser when loading a repository.
 	 */
@@ -89,9 +98,26 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
 		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
 		boolean failOnChildFailure = shouldFailOnChildFailure(state);
-		for (URI child : state.getChildren())
-			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
-
+		List<URI> children = new ArrayList<>();
+		for (URI child : state.getChildren()) {
+			if (registerChild(child))
+				children.add(URIUtil.makeAbsolute(child, getLocation()));
+		}
+		// remember which children the manager already knew before they get loaded concurrently
+		List<Boolean> wereLoaded = new ArrayList<>(children.size());
+		for (URI child : children)
+			wereLoaded.add(getManager().contains(child));
+		List<Result<IMetadataRepository>> results = ChildRepositoryLoader.loadAll(getProvisioningAgent(), getLocation(), children, this::load, failOnChildFailure, sub);
+		// add the children in the order of the composite so that queries are deterministic
+		for (int i = 0; i < children.size(); i++) {
+			IMetadataRepository repository = results.get(i).repository();
+			if (repository != null)
+				childLoaded(children.get(i), repository, wereLoaded.get(i), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		}
+		for (Result<IMetadataRepository> result : results) {
+			if (result.failure() != null)
+				childFailed(result.failure(), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		}
 	}
 
 	CompositeMetadataRepository(IMetadataRepositoryManager manager, URI location, String name, Map<String, String> properties) {
@@ -147,38 +173,62 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	private void addChild(URI childURI, boolean save, IProgressMonitor monitor, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) throws ProvisionException {
 		SubMonitor sub = SubMonitor.convert(monitor);
 		URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
-		if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute)) {
+		if (!registerChild(childURI)) {
 			sub.done();
 			return;
 
 		}
-		// always add the URI to the list of child URIs (even if we can't load it later)
-		childrenURIs.add(childURI);
 		if (save)
 			save();
 		try {
 			boolean currentLoaded = getManager().contains(absolute);
-			IMetadataRepository currentRepo = getManager().loadRepository(absolute, sub);
-			if (!currentLoaded) {
-				//set enabled to false so repositories do not polled twice
-				getManager().setEnabled(absolute, false);
-				//set repository to system to hide from users
-				getManager().setRepositoryProperty(absolute, IRepository.PROP_SYSTEM, String.valueOf(true));
-				if (propagateException)
-					repositoriesToBeRemovedOnFailure.add(absolute);
-			}
-			currentRepo.compress(iuPool); // Share IUs across this CompositeMetadataRepository
-			// we successfully loaded the repo so remember it
-			loadedRepos.add(currentRepo);
-
+			childLoaded(absolute, load(absolute, sub), currentLoaded, propagateException, repositoriesToBeRemovedOnFailure);
 		} catch (ProvisionException e) {
-			//repository failed to load. fall through
-			LogHelper.log(e);
-			if (propagateException) {
-				removeFromRepoManager(repositoriesToBeRemovedOnFailure);
-				String msg = NLS.bind(Messages.io_failedRead, getLocation());
-				throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, e));
-			}
+			childFailed(e, propagateException, repositoriesToBeRemovedOnFailure);
+		}
+	}
+
+	/**
+	 * Adds the given URI to the list of child URIs, even if the child cannot be
+	 * loaded later.
+	 *
+	 * @return <code>false</code> if the child was already in the list
+	 */
+	private boolean registerChild(URI childURI) {
+		URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+		if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute))
+			return false;
+		childrenURIs.add(childURI);
+		return true;
+	}
+
+	private IMetadataRepository load(URI absolute, IProgressMonitor monitor) throws ProvisionException {
+		boolean currentLoaded = getManager().contains(absolute);
+		IMetadataRepository currentRepo = getManager().loadRepository(absolute, monitor);
+		if (!currentLoaded) {
+			//set enabled to false so repositories do not polled twice
+			getManager().setEnabled(absolute, false);
+			//set repository to system to hide from users
+			getManager().setRepositoryProperty(absolute, IRepository.PROP_SYSTEM, String.valueOf(true));
+		}
+		return currentRepo;
+	}
+
+	private void childLoaded(URI absolute, IMetadataRepository currentRepo, boolean currentLoaded, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) {
+		if (!currentLoaded && propagateException)
+			repositoriesToBeRemovedOnFailure.add(absolute);
+		currentRepo.compress(iuPool); // Share IUs across this CompositeMetadataRepository and the agent
+		// we successfully loaded the repo so remember it
+		loadedRepos.add(currentRepo);
+	}
+
+	private void childFailed(ProvisionException e, boolean propagateException, List<URI> repositoriesToBeRemovedOnFailure) throws ProvisionException {
+		//repository failed to load. fall through
+		LogHelper.log(e);
+		if (propagateException) {
+			removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+			String msg = NLS.bind(Messages.io_failedRead, getLocation());
+			throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, e));
 		}
 	}
 
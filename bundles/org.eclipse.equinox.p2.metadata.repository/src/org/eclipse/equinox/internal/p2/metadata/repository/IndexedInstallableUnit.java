@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.metadata.expression.IMemberProvider;
+
+/**
+ * A unit loaded from a {@link MappedMetadataIndex}. Its id, version and
+ * provided capabilities are read from the table of the index. Each other
+ * section of the unit, such as its requirements, properties or touchpoint
+ * data, is parsed from the index the first time it is needed and kept from
+ * then on, so that the units of a large repository only hold the sections
+ * that were used.
+ */
+final class IndexedInstallableUnit implements IInstallableUnit, IMemberProvider {
+	/** Stands for the sections a unit does not have */
+	private static final IInstallableUnit EMPTY = new InstallableUnit();
+
+	private final MappedMetadataIndex index;
+	private final String id;
+	private final Version version;
+	/** The position of the record of this unit in the table of the index */
+	private final int record;
+	private final byte flags;
+	private IProvidedCapability[] capabilities;
+	/** The sections parsed so far by kind, each as a unit holding only that section */
+	private IInstallableUnit[] sections;
+
+	IndexedInstallableUnit(MappedMetadataIndex index, String id, Version version, int record, byte flags) {
+		this.index = index;
+		this.id = id;
+		this.version = version;
+		this.record = record;
+		this.flags = flags;
+	}
+
+	/**
+	 * Returns the XML of each section of this unit, by kind.
+	 */
+	byte[][] getSections() {
+		return index.getSections(record);
+	}
+
+	private synchronized IInstallableUnit section(byte kind) {
+		if (sections == null)
+			sections = new IInstallableUnit[MappedMetadataIndex.SECTION_COUNT];
+		IInstallableUnit result = sections[kind];
+		if (result == null) {
+			result = index.getSection(record, kind);
+			if (result == null)
+				result = EMPTY;
+			sections[kind] = result;
+		}
+		return result;
+	}
+
+	private Object sectionMember(byte kind, String memberName) {
+		return ((IMemberProvider) section(kind)).getMember(memberName);
+	}
+
+	private synchronized IProvidedCapability[] capabilities() {
+		if (capabilities == null) {
+			if ((flags & MappedMetadataIndex.FLAG_UNINDEXED_CAPABILITIES) != 0)
+				capabilities = (IProvidedCapability[]) sectionMember(MappedMetadataIndex.SECTION_CAPABILITIES, InstallableUnit.MEMBER_PROVIDED_CAPABILITIES);
+			else
+				capabilities = index.getCapabilities(record);
+		}
+		return capabilities;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public Version getVersion() {
+		return version;
+	}
+
+	@Override
+	public Collection<IProvidedCapability> getProvidedCapabilities() {
+		return CollectionUtils.unmodifiableList(capabilities());
+	}
+
+	@Override
+	public Collection<IArtifactKey> getArtifacts() {
+		return section(MappedMetadataIndex.SECTION_ARTIFACTS).getArtifacts();
+	}
+
+	@Override
+	public IMatchExpression<IInstallableUnit> getFilter() {
+		return section(MappedMetadataIndex.SECTION_ARTIFACTS).getFilter();
+	}
+
+	@Override
+	public Collection<IInstallableUnitFragment> getFragments() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Map<String, String> getProperties() {
+		return section(MappedMetadataIndex.SECTION_PROPERTIES).getProperties();
+	}
+
+	@Override
+	public String getProperty(String key) {
+		return section(MappedMetadataIndex.SECTION_PROPERTIES).getProperty(key);
+	}
+
+	@Override
+	public String getProperty(String key, String locale) {
+		return TranslationSupport.getInstance().getIUProperty(this, key, locale);
+	}
+
+	@Override
+	public Collection<IRequirement> getRequirements() {
+		return section(MappedMetadataIndex.SECTION_REQUIREMENTS).getRequirements();
+	}
+
+	@Override
+	public Collection<IRequirement> getMetaRequirements() {
+		return section(MappedMetadataIndex.SECTION_REQUIREMENTS).getMetaRequirements();
+	}
+
+	@Override
+	public Collection<ITouchpointData> getTouchpointData() {
+		return section(MappedMetadataIndex.SECTION_TOUCHPOINT).getTouchpointData();
+	}
+
+	@Override
+	public ITouchpointType getTouchpointType() {
+		return section(MappedMetadataIndex.SECTION_TOUCHPOINT).getTouchpointType();
+	}
+
+	@Override
+	public boolean isResolved() {
+		return false;
+	}
+
+	@Override
+	public boolean isSingleton() {
+		return (flags & MappedMetadataIndex.FLAG_SINGLETON) != 0;
+	}
+
+	@Override
+	public boolean satisfies(IRequirement candidate) {
+		return candidate.isMatch(this);
+	}
+
+	@Override
+	public IInstallableUnit unresolved() {
+		return this;
+	}
+
+	@Override
+	public IUpdateDescriptor getUpdateDescriptor() {
+		return section(MappedMetadataIndex.SECTION_UPDATE).getUpdateDescriptor();
+	}
+
+	@Override
+	public Collection<ILicense> getLicenses() {
+		return section(MappedMetadataIndex.SECTION_LICENSES).getLicenses();
+	}
+
+	@Override
+	public Collection<ILicense> getLicenses(String locale) {
+		return CollectionUtils.unmodifiableList(TranslationSupport.getInstance().getLicenses(this, locale));
+	}
+
+	@Override
+	public ICopyright getCopyright() {
+		return section(MappedMetadataIndex.SECTION_COPYRIGHT).getCopyright();
+	}
+
+	@Override
+	public ICopyright getCopyright(String locale) {
+		return TranslationSupport.getInstance().getCopyright(this, locale);
+	}
+
+	@Override
+	public Object getMember(String memberName) {
+		return switch (memberName) {
+		case InstallableUnit.MEMBER_ID -> id;
+		case InstallableUnit.MEMBER_VERSION -> version;
+		case InstallableUnit.MEMBER_PROVIDED_CAPABILITIES -> capabilities();
+		case InstallableUnit.MEMBER_SINGLETON -> isSingleton();
+		case InstallableUnit.MEMBER_REQUIREMENTS -> sectionMember(MappedMetadataIndex.SECTION_REQUIREMENTS, memberName);
+		case InstallableUnit.MEMBER_PROPERTIES -> sectionMember(MappedMetadataIndex.SECTION_PROPERTIES, memberName);
+		case InstallableUnit.MEMBER_FILTER, InstallableUnit.MEMBER_ARTIFACTS -> sectionMember(MappedMetadataIndex.SECTION_ARTIFACTS, memberName);
+		case InstallableUnit.MEMBER_TOUCHPOINT_TYPE, InstallableUnit.MEMBER_TOUCHPOINT_DATA -> sectionMember(MappedMetadataIndex.SECTION_TOUCHPOINT, memberName);
+		case InstallableUnit.MEMBER_LICENSES -> sectionMember(MappedMetadataIndex.SECTION_LICENSES, memberName);
+		case InstallableUnit.MEMBER_COPYRIGHT -> sectionMember(MappedMetadataIndex.SECTION_COPYRIGHT, memberName);
+		case InstallableUnit.MEMBER_UPDATE_DESCRIPTOR -> sectionMember(MappedMetadataIndex.SECTION_UPDATE, memberName);
+		default -> throw new IllegalArgumentException("No such member: " + memberName); //$NON-NLS-1$
+		};
+	}
+
+	@Override
+	public int compareTo(IInstallableUnit other) {
+		int result = id.compareTo(other.getId());
+		return result != 0 ? result : version.compareTo(other.getVersion());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		return obj instanceof IInstallableUnit other //
+				&& id.equals(other.getId()) //
+				&& version.equals(other.getVersion());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, version);
+	}
+
+	@Override
+	public String toString() {
+		return id + ' ' + version;
+	}
+}
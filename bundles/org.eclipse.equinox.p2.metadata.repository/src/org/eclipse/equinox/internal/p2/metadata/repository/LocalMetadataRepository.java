@@ -16,14 +16,16 @@
 package org.eclipse.equinox.internal.p2.metadata.repository;
 
 import java.io.*;
-import java.net.URI;
+import java.net.*;
 import java.util.*;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.equinox.internal.p2.metadata.index.*;
+import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryJournal;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.*;
@@ -31,11 +33,12 @@ import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.KeyWithLocale;
 import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
-import org.eclipse.equinox.p2.query.IQuery;
-import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.query.*;
 import org.eclipse.equinox.p2.repository.*;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * A metadata repository that resides in the local file system.  If the repository
@@ -57,6 +60,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	private TranslationSupport translationSupport;
 	private boolean snapshotNeeded = false;
 	private boolean disableSave = false;
+	private RepositoryJournal journal;
 
 	private static File getActualLocation(URI location, String extension) {
 		File spec = URIUtil.toFile(location);
@@ -108,13 +112,14 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		}
 		units.addAll(installableUnits);
 		capabilityIndex = null; // Generated, not backed by units
-		save();
+		save(RepositoryJournal.ADDED, installableUnits);
 	}
 
 	@Override
 	public void addReferences(Collection<? extends IRepositoryReference> references) {
 		assertModifiable();
 		if (repositories.addAll(references)) {
+			// references are not journaled, they are rarely changed
 			save(); // only write out the repository if we made changes
 		}
 	}
@@ -257,7 +262,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			capabilityIndex = null; // Generated, not backed by units.
 		}
 		if (changed)
-			save();
+			save(RepositoryJournal.REMOVED, installableUnits);
 		return changed;
 	}
 
@@ -300,11 +305,118 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			super.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()), new NullProgressMonitor());
 			new MetadataRepositoryIO(getProvisioningAgent()).write(this, output);
+			// the index now holds the changes recorded in the journal
+			getJournal().delete();
+			saveMappedIndex(compress ? jarFile : file);
 		} catch (IOException e) {
 			LogHelper.log(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error saving metadata repository: " + getLocation(), e)); //$NON-NLS-1$
 		}
 	}
 
+	// caller should be synchronized
+	/**
+	 * Writes the binary index of the given XML file just saved, if the
+	 * {@link MappedMetadataIndex#PROP_INDEX} property asks for it.
+	 */
+	private void saveMappedIndex(File content) {
+		if (!"true".equalsIgnoreCase(getProperty(MappedMetadataIndex.PROP_INDEX))) { //$NON-NLS-1$
+			MappedMetadataIndex.delete(content, null);
+			return;
+		}
+		try {
+			MappedMetadataIndex.write(this, content, new MetadataRepositoryIO(getProvisioningAgent()));
+		} catch (IOException e) {
+			// the previous index no longer matches the XML and is ignored, loading reads the XML instead
+			LogHelper.log(new Status(IStatus.WARNING, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error writing the index of metadata repository: " + getLocation(), e)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Adds the units loaded from the binary index of this repository.
+	 */
+	synchronized void addIndexedUnits(IInstallableUnit[] indexed) {
+		units.addAll(indexed);
+	}
+
+	// caller should be synchronized
+	/**
+	 * Saves the given change to the repository. A repository with the
+	 * {@link RepositoryJournal#PROP_JOURNAL} property appends the change to its
+	 * journal, and writes the whole repository again in the background once the
+	 * journal grows as large as the index.
+	 */
+	private void save(byte kind, Collection<IInstallableUnit> changed) {
+		if (disableSave)
+			return;
+		if (!"true".equalsIgnoreCase(getProperty(RepositoryJournal.PROP_JOURNAL))) { //$NON-NLS-1$
+			save();
+			return;
+		}
+		RepositoryJournal currentJournal = getJournal();
+		try {
+			super.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()), new NullProgressMonitor());
+			ByteArrayOutputStream entry = new ByteArrayOutputStream();
+			new MetadataRepositoryIO(getProvisioningAgent()).writeJournalEntry(this, changed, entry);
+			currentJournal.append(kind, entry.toByteArray());
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error journaling metadata repository: " + getLocation(), e)); //$NON-NLS-1$
+			save();
+			return;
+		}
+		boolean compress = "true".equalsIgnoreCase(getProperty(PROP_COMPRESSED)); //$NON-NLS-1$
+		File index = compress ? getActualLocation(getLocation(), JAR_EXTENSION) : getActualLocation(getLocation());
+		if (currentJournal.shouldCompact(index.length()))
+			currentJournal.scheduleCompaction(this::compact);
+	}
+
+	/**
+	 * Writes the whole repository again, so that its journal is no longer needed.
+	 */
+	private synchronized void compact() {
+		if (getJournal().exists())
+			save();
+	}
+
+	private synchronized RepositoryJournal getJournal() {
+		File file = new File(getActualLocation(getLocation()).getParentFile(), CONTENT_FILENAME + RepositoryJournal.JOURNAL_EXTENSION);
+		if (journal == null || !journal.getFile().equals(file))
+			journal = new RepositoryJournal(file);
+		return journal;
+	}
+
+	/**
+	 * Applies the changes recorded in the journal to the index this repository
+	 * was just read from.
+	 */
+	synchronized void replayJournal(MetadataRepositoryIO io, IProgressMonitor monitor) throws ProvisionException {
+		RepositoryJournal currentJournal = getJournal();
+		List<RepositoryJournal.Entry> entries;
+		try {
+			entries = currentJournal.read();
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, getLocation()), e));
+		}
+		if (entries.isEmpty())
+			return;
+		URL location;
+		try {
+			location = currentJournal.getFile().toURI().toURL();
+		} catch (MalformedURLException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, getLocation()), e));
+		}
+		for (RepositoryJournal.Entry entry : entries) {
+			IMetadataRepository change = io.read(location, new ByteArrayInputStream(entry.content()), monitor);
+			Set<IInstallableUnit> changed = change.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+			if (entry.kind() == RepositoryJournal.REMOVED)
+				units.removeAll(changed);
+			else
+				units.addAll(changed);
+			setProperties(new OrderedProperties(change.getProperties()));
+		}
+		idIndex = null;
+		capabilityIndex = null;
+	}
+
 	@Override
 	public String setProperty(String key, String newValue, IProgressMonitor monitor) {
 		try {
@@ -313,7 +425,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 				oldValue = super.setProperty(key, newValue, monitor);
 				if (oldValue == newValue || (oldValue != null && oldValue.equals(newValue)))
 					return oldValue;
-				save();
+				save(RepositoryJournal.ADDED, Collections.emptySet());
 			}
 			IMetadataRepositoryManager manager = getProvisioningAgent()
 					.getService(IMetadataRepositoryManager.class);
@@ -0,0 +1,471 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.io.IUDeserializer;
+import org.eclipse.equinox.p2.metadata.io.IUSerializer;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A binary index of a local metadata repository, written beside its
+ * <code>content.xml</code> or <code>content.jar</code> so that the repository
+ * can be loaded again without parsing the XML.
+ * <p>
+ * The index holds the id, version and provided capabilities of each unit, with
+ * all their strings interned in a string table, and the rest of each unit in
+ * sections such as its requirements, properties or touchpoint data. Each
+ * section is stored in the XML form of {@link IUSerializer}, as a unit holding
+ * only that section. The index is read through a memory-mapped file, and a
+ * section of a unit is only parsed the first time it is needed, see
+ * {@link IndexedInstallableUnit}. The index records the length and
+ * modification time of the XML it was written with and is ignored once the XML
+ * changed, so the XML remains the format other readers and writers rely on.
+ * <p>
+ * Units loaded from an index keep reading the file they mapped, which cannot be
+ * replaced while it is mapped on some platforms. Each index is therefore
+ * written to a file of a new generation, such as <code>content.3.index</code>,
+ * and the files of the older generations are deleted once they can be.
+ * <p>
+ * The file is laid out as follows, with all numbers big-endian:
+ *
+ * <pre>
+ * header      magic, format version, XML length, XML modification time
+ * repository  length, the repository without its units as XML
+ * sections    the XML of each section of each unit
+ * strings     count, then the length and UTF-8 bytes of each string
+ * table       count, then for each unit its id, version, flags, the kind,
+ *             position and length of each of its sections, and its
+ *             capabilities as namespace, name and version
+ * trailer     position of the strings, magic
+ * </pre>
+ */
+public class MappedMetadataIndex {
+
+	/**
+	 * The repository property that makes a local repository write the index when
+	 * set to <code>true</code>.
+	 */
+	public static final String PROP_INDEX = "p2.mappedIndex"; //$NON-NLS-1$
+
+	public static final String INDEX_EXTENSION = ".index"; //$NON-NLS-1$
+	private static final String INDEX_PREFIX = URLMetadataRepository.CONTENT_FILENAME + '.';
+
+	private static final int MAGIC = 0x7032696E; // p2in
+	private static final int FORMAT_VERSION = 2;
+	private static final int HEADER_LENGTH = 24;
+	private static final int TRAILER_LENGTH = 8;
+
+	/** The unit is a fragment or a patch, which is parsed when it is loaded */
+	private static final byte FLAG_EAGER = 1;
+	/** The capabilities of the unit have more than a name and version */
+	static final byte FLAG_UNINDEXED_CAPABILITIES = 2;
+	static final byte FLAG_SINGLETON = 4;
+
+	/** The offsets of the flags and sections in the record of a unit */
+	private static final int RECORD_FLAGS = 8;
+	private static final int RECORD_SECTIONS = 10;
+	private static final int SECTION_ENTRY_LENGTH = 9;
+
+	/** A whole fragment or patch */
+	static final byte SECTION_UNIT = 0;
+	/** Capabilities that have more than a name and version */
+	static final byte SECTION_CAPABILITIES = 1;
+	/** Requirements and meta requirements */
+	static final byte SECTION_REQUIREMENTS = 2;
+	static final byte SECTION_PROPERTIES = 3;
+	/** The filter and artifacts */
+	static final byte SECTION_ARTIFACTS = 4;
+	/** Touchpoint type and data */
+	static final byte SECTION_TOUCHPOINT = 5;
+	static final byte SECTION_LICENSES = 6;
+	static final byte SECTION_COPYRIGHT = 7;
+	static final byte SECTION_UPDATE = 8;
+	static final int SECTION_COUNT = 9;
+
+	/** The strings of a capability in the string table */
+	private record CapabilityKey(int namespace, int name, int version) {
+	}
+
+	private final File file;
+	private final ByteBuffer buffer;
+	private String[] strings;
+	private Version[] versions;
+	/** The capabilities read so far, which many units provide alike */
+	private final Map<CapabilityKey, IProvidedCapability> capabilities = new HashMap<>();
+	private IUDeserializer deserializer;
+	// shares the versions and capabilities with the other repositories of the agent, or null
+	private MetadataPool pool;
+
+	private MappedMetadataIndex(File file, ByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Returns the index of the repository stored in the given XML file, the file
+	 * of the latest generation, or <code>null</code> if there is none.
+	 */
+	public static File getIndexFile(File content) {
+		File[] indexes = getIndexFiles(content);
+		return indexes.length == 0 ? null : indexes[0];
+	}
+
+	/**
+	 * Returns the index files beside the given XML file, latest generation first.
+	 */
+	private static File[] getIndexFiles(File content) {
+		File[] files = content.getParentFile().listFiles((dir, name) -> getGeneration(name) >= 0);
+		if (files == null)
+			return new File[0];
+		Arrays.sort(files, Comparator.comparingLong((File file) -> getGeneration(file.getName())).reversed());
+		return files;
+	}
+
+	/**
+	 * Returns the generation of the index file with the given name, or -1 if the
+	 * name is not the one of an index file.
+	 */
+	private static long getGeneration(String name) {
+		if (!name.startsWith(INDEX_PREFIX) || !name.endsWith(INDEX_EXTENSION))
+			return -1;
+		String generation = name.substring(INDEX_PREFIX.length(), name.length() - INDEX_EXTENSION.length());
+		try {
+			return Math.max(-1, Long.parseLong(generation));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Deletes the index files beside the given XML file, except the given one.
+	 * Files still mapped on platforms that do not allow their deletion are left
+	 * for a later call, they no longer match the XML and are ignored meanwhile.
+	 */
+	static void delete(File content, File keep) {
+		for (File index : getIndexFiles(content)) {
+			if (!index.equals(keep))
+				index.delete();
+		}
+	}
+
+	/**
+	 * Writes the index of the given repository, just saved to the given XML file,
+	 * to the file of a new generation. The files of the older generations are
+	 * left as they are if the index cannot be written.
+	 */
+	static void write(LocalMetadataRepository repository, File content, MetadataRepositoryIO io) throws IOException {
+		File[] previous = getIndexFiles(content);
+		long generation = previous.length == 0 ? 0 : getGeneration(previous[0].getName()) + 1;
+		File temp = new File(content.getParentFile(), INDEX_PREFIX + generation + INDEX_EXTENSION + ".tmp"); //$NON-NLS-1$
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		Collection<IInstallableUnit> units = repository.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		DataOutputStream tableOut = new DataOutputStream(table);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(content.length());
+			out.writeLong(content.lastModified());
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			io.writeWithoutUnits(repository, header);
+			out.writeInt(header.size());
+			header.writeTo(out);
+
+			tableOut.writeInt(units.size());
+			for (IInstallableUnit unit : units) {
+				Collection<IProvidedCapability> capabilities = unit.getProvidedCapabilities();
+				boolean indexed = capabilities.stream().allMatch(capability -> capability.getProperties().size() == 2);
+				byte flags = 0;
+				if (unit instanceof IInstallableUnitFragment || unit instanceof IInstallableUnitPatch)
+					flags |= FLAG_EAGER;
+				if (!indexed)
+					flags |= FLAG_UNINDEXED_CAPABILITIES;
+				if (unit.isSingleton())
+					flags |= FLAG_SINGLETON;
+				// sections read from the previous index are copied as they are
+				byte[][] sections = unit instanceof IndexedInstallableUnit ? ((IndexedInstallableUnit) unit).getSections() : toSections(unit, indexed);
+				tableOut.writeInt(intern(strings, unit.getId()));
+				tableOut.writeInt(intern(strings, unit.getVersion().toString()));
+				tableOut.writeByte(flags);
+				tableOut.writeByte((int) Arrays.stream(sections).filter(Objects::nonNull).count());
+				for (byte kind = 0; kind < SECTION_COUNT; kind++) {
+					if (sections[kind] == null)
+						continue;
+					tableOut.writeByte(kind);
+					tableOut.writeInt(out.size());
+					tableOut.writeInt(sections[kind].length);
+					out.write(sections[kind]);
+					// the index is mapped as a whole, which limits its size
+					if (out.size() == Integer.MAX_VALUE)
+						throw new IOException(NLS.bind(Messages.io_failedWrite, temp));
+				}
+				if (!indexed)
+					continue;
+				tableOut.writeInt(capabilities.size());
+				for (IProvidedCapability capability : capabilities) {
+					tableOut.writeInt(intern(strings, capability.getNamespace()));
+					tableOut.writeInt(intern(strings, capability.getName()));
+					tableOut.writeInt(intern(strings, capability.getVersion().toString()));
+				}
+			}
+
+			int stringsPosition = out.size();
+			out.writeInt(strings.size());
+			for (String string : strings.keySet()) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			table.writeTo(out);
+			out.writeInt(stringsPosition);
+			out.writeInt(MAGIC);
+			if (out.size() == Integer.MAX_VALUE)
+				throw new IOException(NLS.bind(Messages.io_failedWrite, temp));
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+		// units loaded from the previous index keep reading the file they mapped, which is never replaced
+		File index;
+		while (true) {
+			index = new File(content.getParentFile(), INDEX_PREFIX + generation + INDEX_EXTENSION);
+			try {
+				Files.move(temp.toPath(), index.toPath());
+				break;
+			} catch (FileAlreadyExistsException e) {
+				// written by another process meanwhile
+				generation++;
+			} catch (IOException e) {
+				temp.delete();
+				throw e;
+			}
+		}
+		delete(content, index);
+	}
+
+	private static int intern(Map<String, Integer> strings, String string) {
+		return strings.computeIfAbsent(string, s -> strings.size());
+	}
+
+	/**
+	 * Returns the XML of each section the given unit has, by kind.
+	 */
+	private static byte[][] toSections(IInstallableUnit unit, boolean indexedCapabilities) throws IOException {
+		byte[][] sections = new byte[SECTION_COUNT][];
+		if (unit instanceof IInstallableUnitFragment || unit instanceof IInstallableUnitPatch) {
+			sections[SECTION_UNIT] = toXML(unit);
+			return sections;
+		}
+		if (!indexedCapabilities)
+			sections[SECTION_CAPABILITIES] = toXML(unit, section -> section.setCapabilities(unit.getProvidedCapabilities().toArray(new IProvidedCapability[0])));
+		if (!unit.getRequirements().isEmpty() || !unit.getMetaRequirements().isEmpty())
+			sections[SECTION_REQUIREMENTS] = toXML(unit, section -> {
+				section.setRequirements(unit.getRequirements().toArray(new IRequirement[0]));
+				section.setMetaRequirements(unit.getMetaRequirements().toArray(new IRequirement[0]));
+			});
+		if (!unit.getProperties().isEmpty())
+			sections[SECTION_PROPERTIES] = toXML(unit, section -> unit.getProperties().forEach(section::setProperty));
+		if (unit.getFilter() != null || !unit.getArtifacts().isEmpty())
+			sections[SECTION_ARTIFACTS] = toXML(unit, section -> {
+				section.setFilter(unit.getFilter());
+				section.setArtifacts(unit.getArtifacts().toArray(new IArtifactKey[0]));
+			});
+		if (!ITouchpointType.NONE.equals(unit.getTouchpointType()) || !unit.getTouchpointData().isEmpty())
+			sections[SECTION_TOUCHPOINT] = toXML(unit, section -> {
+				section.setTouchpointType(unit.getTouchpointType());
+				unit.getTouchpointData().forEach(section::addTouchpointData);
+			});
+		if (!unit.getLicenses().isEmpty())
+			sections[SECTION_LICENSES] = toXML(unit, section -> section.setLicenses(unit.getLicenses().toArray(new ILicense[0])));
+		if (unit.getCopyright() != null)
+			sections[SECTION_COPYRIGHT] = toXML(unit, section -> section.setCopyright(unit.getCopyright()));
+		if (unit.getUpdateDescriptor() != null)
+			sections[SECTION_UPDATE] = toXML(unit, section -> section.setUpdateDescriptor(unit.getUpdateDescriptor()));
+		return sections;
+	}
+
+	/**
+	 * Returns the XML of a unit with the id and version of the given unit, and
+	 * only the section set by the given initializer.
+	 */
+	private static byte[] toXML(IInstallableUnit unit, Consumer<InstallableUnitDescription> initializer) throws IOException {
+		InstallableUnitDescription section = new InstallableUnitDescription();
+		section.setId(unit.getId());
+		section.setVersion(unit.getVersion());
+		initializer.accept(section);
+		return toXML(MetadataFactory.createInstallableUnit(section));
+	}
+
+	private static byte[] toXML(IInstallableUnit unit) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		new IUSerializer(result).write(Collections.singletonList(unit));
+		return result.toByteArray();
+	}
+
+	/**
+	 * Loads the repository stored in the given XML file from its index. Returns
+	 * <code>null</code> if there is no index, or if it does not match the XML
+	 * file, in which case the XML file must be read instead.
+	 */
+	static LocalMetadataRepository read(File content, MetadataRepositoryIO io, IProgressMonitor monitor) {
+		File index = getIndexFile(content);
+		if (index == null || !index.isFile())
+			return null;
+		try {
+			ByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(index.toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size < HEADER_LENGTH + TRAILER_LENGTH || size >= Integer.MAX_VALUE)
+					return null;
+				// the mapping remains valid once the channel is closed
+				buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			}
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(buffer.limit() - 4) != MAGIC)
+				return null;
+			if (buffer.getLong(8) != content.length() || buffer.getLong(16) != content.lastModified())
+				return null;
+			return new MappedMetadataIndex(index, buffer).load(io, monitor);
+		} catch (IOException | ProvisionException | RuntimeException e) {
+			// the XML holds the same content
+			return null;
+		}
+	}
+
+	private LocalMetadataRepository load(MetadataRepositoryIO io, IProgressMonitor monitor) throws IOException, ProvisionException {
+		pool = MetadataPool.getPool(io.agent);
+		int headerLength = buffer.getInt(HEADER_LENGTH);
+		byte[] header = getBytes(HEADER_LENGTH + 4, headerLength);
+		IMetadataRepository repository = io.read(file.toURI().toURL(), new ByteArrayInputStream(header), monitor);
+		if (!(repository instanceof LocalMetadataRepository))
+			return null;
+
+		int position = buffer.getInt(buffer.limit() - TRAILER_LENGTH);
+		strings = new String[buffer.getInt(position)];
+		position += 4;
+		for (int i = 0; i < strings.length; i++) {
+			int length = buffer.getInt(position);
+			strings[i] = new String(getBytes(position + 4, length), StandardCharsets.UTF_8);
+			position += 4 + length;
+		}
+		versions = new Version[strings.length];
+
+		IInstallableUnit[] units = new IInstallableUnit[buffer.getInt(position)];
+		position += 4;
+		for (int i = 0; i < units.length; i++) {
+			int record = position;
+			String id = strings[buffer.getInt(record)];
+			Version version = getVersion(buffer.getInt(record + 4));
+			byte flags = buffer.get(record + RECORD_FLAGS);
+			position = getCapabilitiesPosition(record);
+			if ((flags & FLAG_UNINDEXED_CAPABILITIES) == 0)
+				position += 4 + 12 * buffer.getInt(position);
+			if ((flags & FLAG_EAGER) != 0)
+				units[i] = getSection(record, SECTION_UNIT);
+			else
+				units[i] = new IndexedInstallableUnit(this, id, version, record, flags);
+		}
+		((LocalMetadataRepository) repository).addIndexedUnits(units);
+		return (LocalMetadataRepository) repository;
+	}
+
+	private synchronized Version getVersion(int string) {
+		Version version = versions[string];
+		if (version == null) {
+			version = Version.create(strings[string]);
+			if (pool != null)
+				version = pool.shareVersion(version);
+			versions[string] = version;
+		}
+		return version;
+	}
+
+	private byte[] getBytes(int position, int length) {
+		byte[] result = new byte[length];
+		buffer.get(position, result);
+		return result;
+	}
+
+	private int getCapabilitiesPosition(int record) {
+		return record + RECORD_SECTIONS + SECTION_ENTRY_LENGTH * (buffer.get(record + RECORD_SECTIONS - 1) & 0xFF);
+	}
+
+	/**
+	 * Returns the XML of each section of the unit with the given record, by kind.
+	 */
+	byte[][] getSections(int record) {
+		byte[][] sections = new byte[SECTION_COUNT][];
+		int end = getCapabilitiesPosition(record);
+		for (int entry = record + RECORD_SECTIONS; entry < end; entry += SECTION_ENTRY_LENGTH)
+			sections[buffer.get(entry)] = getBytes(buffer.getInt(entry + 1), buffer.getInt(entry + 5));
+		return sections;
+	}
+
+	/**
+	 * Parses the given section of the unit with the given record. Returns a unit
+	 * holding only that section, or <code>null</code> if the unit does not have
+	 * the section.
+	 */
+	IInstallableUnit getSection(int record, byte kind) {
+		int end = getCapabilitiesPosition(record);
+		for (int entry = record + RECORD_SECTIONS; entry < end; entry += SECTION_ENTRY_LENGTH) {
+			if (buffer.get(entry) == kind)
+				return parse(buffer.getInt(entry + 1), buffer.getInt(entry + 5));
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the capabilities of the unit with the given record.
+	 */
+	synchronized IProvidedCapability[] getCapabilities(int record) {
+		int position = getCapabilitiesPosition(record);
+		IProvidedCapability[] result = new IProvidedCapability[buffer.getInt(position)];
+		for (int i = 0; i < result.length; i++) {
+			int capability = position + 4 + 12 * i;
+			CapabilityKey key = new CapabilityKey(buffer.getInt(capability), buffer.getInt(capability + 4), buffer.getInt(capability + 8));
+			result[i] = capabilities.computeIfAbsent(key, this::createCapability);
+		}
+		return result;
+	}
+
+	private IProvidedCapability createCapability(CapabilityKey key) {
+		IProvidedCapability capability = MetadataFactory.createProvidedCapability(strings[key.namespace()], strings[key.name()], getVersion(key.version()));
+		return pool != null ? pool.shareCapability(capability) : capability;
+	}
+
+	private synchronized IInstallableUnit parse(int position, int length) {
+		if (deserializer == null)
+			deserializer = new IUDeserializer();
+		try {
+			Collection<IInstallableUnit> units = deserializer.read(new ByteArrayInputStream(getBytes(position, length)));
+			if (units != null && units.size() == 1)
+				return units.iterator().next();
+			throw new IllegalStateException(NLS.bind(Messages.io_failedRead, file));
+		} catch (IOException e) {
+			throw new IllegalStateException(NLS.bind(Messages.io_failedRead, file), e);
+		}
+	}
+}
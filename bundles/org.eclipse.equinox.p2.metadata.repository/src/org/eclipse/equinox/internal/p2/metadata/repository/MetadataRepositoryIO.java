@@ -19,8 +19,7 @@ import java.io.*;
 import java.lang.reflect.Constructor;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
@@ -28,6 +27,7 @@ import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
 import org.eclipse.equinox.internal.p2.persistence.XMLWriter;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.*;
@@ -62,6 +62,7 @@ public class MetadataRepositoryIO {
 				bufferedInput = new BufferedInputStream(input);
 
 				Parser repositoryParser = new Parser(Constants.ID);
+				repositoryParser.setPool(MetadataPool.getPool(agent));
 				repositoryParser.setErrorContext(location.toExternalForm());
 				repositoryParser.parse(input, monitor);
 				IStatus result = repositoryParser.getStatus();
@@ -92,6 +93,29 @@ public class MetadataRepositoryIO {
 		}
 	}
 
+	/**
+	 * Writes the given units, with the properties of the given repository, as an
+	 * entry of the repository's journal. The entry is read back like a repository
+	 * holding only these units and no references.
+	 */
+	public void writeJournalEntry(IMetadataRepository repository, Collection<IInstallableUnit> units, OutputStream output) throws IOException {
+		try (OutputStream bufferedOutput = new BufferedOutputStream(output)) {
+			Writer repositoryWriter = new Writer(bufferedOutput, repository.getClass());
+			repositoryWriter.write(repository, units, false);
+		}
+	}
+
+	/**
+	 * Writes the given repository with its properties and references but without
+	 * its units, which are written elsewhere.
+	 */
+	public void writeWithoutUnits(IMetadataRepository repository, OutputStream output) throws IOException {
+		try (OutputStream bufferedOutput = new BufferedOutputStream(output)) {
+			Writer repositoryWriter = new Writer(bufferedOutput, repository.getClass());
+			repositoryWriter.write(repository, Collections.emptySet(), true);
+		}
+	}
+
 	private interface XMLConstants extends org.eclipse.equinox.internal.p2.metadata.repository.io.XMLConstants {
 
 		// Constants defining the structure of the XML for a MetadataRepository
@@ -125,6 +149,12 @@ public class MetadataRepositoryIO {
 		 * Write the given metadata repository to the output stream.
 		 */
 		public void write(IMetadataRepository repository) {
+			// The size attribute is a problematic since it forces the use of a collection.
+			Set<IInstallableUnit> units = repository.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+			write(repository, units, true);
+		}
+
+		void write(IMetadataRepository repository, Collection<IInstallableUnit> units, boolean writeReferences) {
 			start(REPOSITORY_ELEMENT);
 			attribute(NAME_ATTRIBUTE, repository.getName());
 			attribute(TYPE_ATTRIBUTE, repository.getType());
@@ -133,12 +163,10 @@ public class MetadataRepositoryIO {
 			attributeOptional(DESCRIPTION_ATTRIBUTE, repository.getDescription()); // TODO: could be cdata?
 
 			writeProperties(repository.getProperties());
-			if (repository instanceof LocalMetadataRepository) {
+			if (writeReferences && repository instanceof LocalMetadataRepository) {
 				Set<IRepositoryReference> references = ((LocalMetadataRepository) repository).repositories;
 				writeRepositoryReferences(references.iterator(), references.size());
 			}
-			// The size attribute is a problematic since it forces the use of a collection.
-			Set<IInstallableUnit> units = repository.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
 			writeInstallableUnits(units.iterator(), units.size());
 
 			end(REPOSITORY_ELEMENT);
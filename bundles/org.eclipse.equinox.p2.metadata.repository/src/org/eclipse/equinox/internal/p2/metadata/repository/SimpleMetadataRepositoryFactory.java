@@ -22,6 +22,7 @@ import java.util.jar.JarInputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.repository.IRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
@@ -87,6 +88,19 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 		SubMonitor sub = SubMonitor.convert(monitor, 400);
 		try {
 			File localFile = getLocalFile(location, sub.newChild(300));
+			if (PROTOCOL_FILE.equals(location.getScheme())) {
+				LocalMetadataRepository indexed = MappedMetadataIndex.read(localFile, new MetadataRepositoryIO(getAgent()), sub.newChild(100));
+				if (indexed != null) {
+					indexed.initializeAfterLoad(location);
+					indexed.replayJournal(new MetadataRepositoryIO(getAgent()), new NullProgressMonitor());
+					if (Tracing.DEBUG_METADATA_PARSING) {
+						time += System.currentTimeMillis();
+						Tracing.debug(debugMsg + "time (ms) using the index: " + time); //$NON-NLS-1$
+						traceMetadataPool();
+					}
+					return indexed;
+				}
+			}
 			InputStream inStream = new BufferedInputStream(new FileInputStream(localFile));
 			JarInputStream jarStream = null;
 			try {
@@ -108,13 +122,17 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 				IMetadataRepository result = new MetadataRepositoryIO(getAgent()).read(localFile.toURL(), descriptorStream, sub.newChild(100));
 				if (result != null && (flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0 && !result.isModifiable())
 					return null;
-				if (result instanceof LocalMetadataRepository)
+				if (result instanceof LocalMetadataRepository) {
 					((LocalMetadataRepository) result).initializeAfterLoad(location);
+					if (PROTOCOL_FILE.equals(location.getScheme()))
+						((LocalMetadataRepository) result).replayJournal(new MetadataRepositoryIO(getAgent()), new NullProgressMonitor());
+				}
 				if (result instanceof URLMetadataRepository)
 					((URLMetadataRepository) result).initializeAfterLoad(location);
 				if (Tracing.DEBUG_METADATA_PARSING) {
 					time += System.currentTimeMillis();
 					Tracing.debug(debugMsg + "time (ms): " + time); //$NON-NLS-1$
+					traceMetadataPool();
 				}
 				return result;
 			} finally {
@@ -133,6 +151,15 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 		}
 	}
 
+	/**
+	 * Traces the hit rates of the metadata pool shared by the repositories of the agent.
+	 */
+	private void traceMetadataPool() {
+		MetadataPool pool = MetadataPool.getPool(getAgent());
+		if (pool != null)
+			Tracing.debug(pool.toString());
+	}
+
 	/**
 	 * Check if given stream is a jar ...
 	 *
@@ -553,7 +553,7 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 			properties.put(namespace, name);
 			properties.put(IProvidedCapability.PROPERTY_VERSION, version);
 			IProvidedCapability cap = MetadataFactory.createProvidedCapability(namespace, properties);
-			capabilities.add(cap);
+			capabilities.add(pool != null ? pool.shareCapability(cap) : cap);
 		}
 	}
 
@@ -647,7 +647,8 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 				return Boolean.parseBoolean(value);
 			}
 			if (PROPERTY_TYPE_VERSION.equals(type)) {
-				return Version.create(value);
+				Version version = Version.create(value);
+				return pool != null ? pool.shareVersion(version) : version;
 			}
 
 			// String is the default
@@ -812,7 +813,7 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 			} else {
 				requirement = MetadataFactory.createRequirement(namespace, name, range, filter, min, max, greedy, description);
 			}
-			capabilities.add(requirement);
+			capabilities.add(pool != null ? pool.shareRequirement(requirement) : requirement);
 		}
 
 		private String removeWhiteSpace(String s) {
@@ -889,7 +890,7 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 
 			IFilterExpression attrMatch = ExpressionUtil.parseLDAP(match);
 			IRequirement requirement = MetadataFactory.createRequirement(namespace, attrMatch, filter, min, max, greedy, description);
-			requirements.add(requirement);
+			requirements.add(pool != null ? pool.shareRequirement(requirement) : requirement);
 		}
 
 		private String removeWhiteSpace(String s) {
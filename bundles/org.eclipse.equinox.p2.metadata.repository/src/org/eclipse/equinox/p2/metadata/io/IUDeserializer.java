@@ -55,6 +55,8 @@ public class IUDeserializer {
 
 	private class IUDeserializerParser extends MetadataParser {
 		private IUOnlyHandler iusHandler;
+		// reused by the units read one after the other
+		private SAXParser parser;
 
 		public IUDeserializerParser(SAXParserFactory factory) {
 			super(factory, null);
@@ -83,6 +85,10 @@ public class IUDeserializer {
 
 		@Override
 		protected SAXParser getParser() throws ParserConfigurationException, SAXException {
+			if (parser != null) {
+				xmlReader = parser.getXMLReader();
+				return parser;
+			}
 			if (parserFactory == null) {
 				throw new SAXException(Messages.XMLParser_No_SAX_Parser);
 			}
@@ -98,6 +104,7 @@ public class IUDeserializer {
 				throw new SAXException(Messages.XMLParser_No_SAX_Parser);
 			}
 			xmlReader = theParser.getXMLReader();
+			parser = theParser;
 			return theParser;
 		}
 
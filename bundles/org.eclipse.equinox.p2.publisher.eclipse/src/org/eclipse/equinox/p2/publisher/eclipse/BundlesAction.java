@@ -25,6 +25,7 @@ import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.jar.JarFile;
+import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import org.eclipse.core.runtime.*;
@@ -138,6 +139,15 @@ public class BundlesAction extends AbstractPublisherAction {
 	private File[] locations;
 	private BundleDescription[] bundles;
 	protected MultiStatus finalStatus;
+	private boolean parallel;
+
+	/** The outcome of reading the manifest of a bundle location */
+	private record ParsedBundle(BundleDescription description, Exception failure) {
+	}
+
+	/** The IU and artifact descriptor of a bundle, created ahead of publishing it */
+	private record BundleAnalysis(IInstallableUnit iu, IArtifactDescriptor descriptor) {
+	}
 
 	public static IArtifactKey createBundleArtifactKey(String bsn, String version) {
 		return new ArtifactKey(OSGI_BUNDLE_CLASSIFIER, bsn, Version.parseVersion(version));
@@ -926,6 +936,20 @@ public class BundlesAction extends AbstractPublisherAction {
 		this.bundles = bundles;
 	}
 
+	/**
+	 * Sets whether the bundles are analyzed concurrently. The manifests are read,
+	 * and the IUs and the checksums of the artifacts are computed, in parallel.
+	 * The IUs and the artifacts are still published one bundle after the other, in
+	 * the order of the bundles, so the publisher result and the repositories are
+	 * the same as with a sequential run.
+	 *
+	 * @param parallel whether to analyze the bundles concurrently
+	 * @since 1.7.0
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	@Override
 	public IStatus perform(IPublisherInfo publisherInfo, IPublisherResult results, IProgressMonitor monitor) {
 		if (bundles == null && locations == null)
@@ -1028,10 +1052,13 @@ public class BundlesAction extends AbstractPublisherAction {
 	 */
 	protected void generateBundleIUs(BundleDescription[] bundleDescriptions, IPublisherInfo publisherInfo,
 			IPublisherResult result, IProgressMonitor monitor) {
+		BundleAnalysis[] analyses = parallel ? analyzeBundles(bundleDescriptions, publisherInfo, result, monitor)
+				: null;
 		// This assumes that hosts are processed before fragments because for each
 		// fragment the host
 		// is queried for the strings that should be translated.
-		for (BundleDescription bd : bundleDescriptions) {
+		for (int i = 0; i < bundleDescriptions.length; i++) {
+			BundleDescription bd = bundleDescriptions[i];
 			if (monitor.isCanceled()) {
 				throw new OperationCanceledException();
 			}
@@ -1044,14 +1071,20 @@ public class BundlesAction extends AbstractPublisherAction {
 			IInstallableUnit bundleIU = queryForIU(result, bd.getSymbolicName(),
 					PublisherHelper.fromOSGiVersion(bd.getVersion()));
 			IArtifactKey bundleArtKey = createBundleArtifactKey(bd.getSymbolicName(), bd.getVersion().toString());
+			BundleAnalysis analysis = analyses != null ? analyses[i] : null;
 			if (bundleIU == null) {
-				createAdviceFileAdvice(bd, publisherInfo);
-				// Create the bundle IU according to any shape advice we have
-				bundleIU = doCreateBundleIU(bd, bundleArtKey, publisherInfo);
+				if (analysis != null && analysis.iu() != null) {
+					bundleIU = analysis.iu();
+				} else {
+					createAdviceFileAdvice(bd, publisherInfo);
+					// Create the bundle IU according to any shape advice we have
+					bundleIU = doCreateBundleIU(bd, bundleArtKey, publisherInfo);
+				}
 			}
 
 			File bundleLocation = new File(bd.getLocation());
-			IArtifactDescriptor ad = PublisherHelper.createArtifactDescriptor(publisherInfo, bundleArtKey, bundleLocation);
+			IArtifactDescriptor ad = analysis != null ? analysis.descriptor()
+					: PublisherHelper.createArtifactDescriptor(publisherInfo, bundleArtKey, bundleLocation);
 			processArtifactPropertiesAdvice(bundleIU, ad, publisherInfo);
 
 			// Publish according to the shape on disk
@@ -1090,6 +1123,51 @@ public class BundlesAction extends AbstractPublisherAction {
 		}
 	}
 
+	/**
+	 * Creates concurrently the IUs of the given bundles that are not published
+	 * yet, and the artifact descriptors of all of them, which is where the
+	 * manifest localizations are read and the checksums computed. The advice files
+	 * are added first, in the order of the bundles, and only the first of several
+	 * bundles with the same id and version gets an IU, as when publishing the
+	 * bundles one after the other.
+	 *
+	 * @return the analysis of each bundle, <code>null</code> for the bundles that
+	 *         are not published
+	 */
+	private BundleAnalysis[] analyzeBundles(BundleDescription[] bundleDescriptions, IPublisherInfo publisherInfo,
+			IPublisherResult result, IProgressMonitor monitor) {
+		boolean[] create = new boolean[bundleDescriptions.length];
+		Set<IArtifactKey> seen = new HashSet<>();
+		for (int i = 0; i < bundleDescriptions.length; i++) {
+			BundleDescription bd = bundleDescriptions[i];
+			if (bd == null || bd.getSymbolicName() == null || bd.getVersion() == null) {
+				continue;
+			}
+			IArtifactKey key = createBundleArtifactKey(bd.getSymbolicName(), bd.getVersion().toString());
+			create[i] = seen.add(key) && queryForIU(result, bd.getSymbolicName(),
+					PublisherHelper.fromOSGiVersion(bd.getVersion())) == null;
+			if (create[i]) {
+				createAdviceFileAdvice(bd, publisherInfo);
+			}
+		}
+
+		BundleAnalysis[] analyses = new BundleAnalysis[bundleDescriptions.length];
+		IntStream.range(0, bundleDescriptions.length).parallel().forEach(i -> {
+			BundleDescription bd = bundleDescriptions[i];
+			if (bd == null || bd.getSymbolicName() == null || bd.getVersion() == null || monitor.isCanceled()) {
+				return;
+			}
+			IArtifactKey key = createBundleArtifactKey(bd.getSymbolicName(), bd.getVersion().toString());
+			IInstallableUnit iu = create[i] ? doCreateBundleIU(bd, key, publisherInfo) : null;
+			analyses[i] = new BundleAnalysis(iu,
+					PublisherHelper.createArtifactDescriptor(publisherInfo, key, new File(bd.getLocation())));
+		});
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		return analyses;
+	}
+
 	/**
 	 * Adds advice for any p2.inf file found in this bundle.
 	 */
@@ -1132,6 +1210,21 @@ public class BundlesAction extends AbstractPublisherAction {
 		if (bundleLocations == null)
 			return new BundleDescription[0];
 		List<BundleDescription> result = new ArrayList<>(bundleLocations.length);
+		if (parallel) {
+			// read the manifests concurrently, then report them in the order of the locations
+			List<ParsedBundle> parsed = Arrays.stream(bundleLocations).parallel()
+					.map(location -> monitor.isCanceled() ? null : parseBundle(location)).toList();
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			for (int i = 0; i < bundleLocations.length; i++) {
+				ParsedBundle bundle = parsed.get(i);
+				if (bundle.failure() != null)
+					addPublishingErrorToFinalStatus(bundle.failure(), bundleLocations[i]);
+				else if (bundle.description() != null)
+					result.add(bundle.description());
+			}
+			return result.toArray(new BundleDescription[0]);
+		}
 		for (File bundleLocation : bundleLocations) {
 			if (monitor.isCanceled())
 				throw new OperationCanceledException();
@@ -1150,6 +1243,14 @@ public class BundlesAction extends AbstractPublisherAction {
 		return result.toArray(new BundleDescription[0]);
 	}
 
+	private static ParsedBundle parseBundle(File bundleLocation) {
+		try {
+			return new ParsedBundle(createBundleDescription(bundleLocation), null);
+		} catch (IOException | BundleException e) {
+			return new ParsedBundle(null, e);
+		}
+	}
+
 	private void addPublishingErrorToFinalStatus(Throwable t, File bundleLocation) {
 		finalStatus.add(new Status(IStatus.ERROR, Activator.ID,
 				NLS.bind(Messages.exception_errorPublishingBundle, bundleLocation, t.getMessage()), t));
@@ -35,6 +35,10 @@ import org.eclipse.equinox.p2.publisher.actions.RootIUResultFilterAdvice;
  * {@code -bundles <csv} of file locations> arguments can be specified. If
  * given, these override the defaults derived from a supplied -source parameter.
  * </p>
+ * <p>
+ * The {@code -parallel} flag analyzes the bundles concurrently, see
+ * {@link BundlesAction#setParallel(boolean)}.
+ * </p>
  */
 public class FeaturesAndBundlesPublisherApplication extends AbstractPublisherApplication {
 
@@ -44,6 +48,8 @@ public class FeaturesAndBundlesPublisherApplication extends AbstractPublisherApp
 	protected String rootIU = null;
 	protected String rootVersion = null;
 
+	private boolean parallel = false;
+
 	public FeaturesAndBundlesPublisherApplication() {
 		super();
 	}
@@ -52,6 +58,14 @@ public class FeaturesAndBundlesPublisherApplication extends AbstractPublisherApp
 		super(agent);
 	}
 
+	@Override
+	protected void processFlag(String arg, PublisherInfo pinfo) {
+		super.processFlag(arg, pinfo);
+
+		if (arg.equalsIgnoreCase("-parallel")) //$NON-NLS-1$
+			parallel = true;
+	}
+
 	@Override
 	protected void processParameter(String arg, String parameter, PublisherInfo pinfo) throws URISyntaxException {
 		super.processParameter(arg, parameter, pinfo);
@@ -85,7 +99,9 @@ public class FeaturesAndBundlesPublisherApplication extends AbstractPublisherApp
 		result.add(new FeaturesAction(features));
 		if (bundles == null)
 			bundles = new File[] {new File(source, "plugins")}; //$NON-NLS-1$
-		result.add(new BundlesAction(bundles));
+		BundlesAction bundlesAction = new BundlesAction(bundles);
+		bundlesAction.setParallel(parallel);
+		result.add(bundlesAction);
 
 		if (rootIU != null) {
 			result.add(new RootIUAction(rootIU, Version.parseVersion(rootVersion), rootIU));
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.internal.repository.mirroring;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+
+/**
+ * Remembers what earlier runs mirrored to a destination, so that a run
+ * interrupted or repeated later only processes the new or changed artifacts.
+ * <p>
+ * The journal records each descriptor mirrored with the checksums its source
+ * published, and the timestamp of each source repository that was mirrored
+ * completely. It is a text file, appended to as descriptors are mirrored, in
+ * which a later line replaces an earlier line for the same descriptor or
+ * repository:
+ *
+ * <pre>
+ * a	&lt;classifier,id,version,format&gt;	&lt;checksums&gt;
+ * r	&lt;repository location&gt;	&lt;p2.timestamp&gt;
+ * </pre>
+ */
+public class MirrorJournal implements Closeable {
+	private static final String ARTIFACT = "a"; //$NON-NLS-1$
+	private static final String REPOSITORY = "r"; //$NON-NLS-1$
+	private static final char SEPARATOR = '\t';
+
+	private final Map<String, String> artifacts = new HashMap<>();
+	private final Map<String, String> repositories = new HashMap<>();
+	private final Writer out;
+
+	/**
+	 * Opens the journal at the given location, creating it if needed.
+	 */
+	public MirrorJournal(File location) throws IOException {
+		if (location.exists())
+			read(location);
+		else if (location.getParentFile() != null)
+			location.getParentFile().mkdirs();
+		out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(location, true), StandardCharsets.UTF_8));
+	}
+
+	private void read(File location) throws IOException {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(location), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split(String.valueOf(SEPARATOR));
+				// the last line may have been cut short by an interruption
+				if (fields.length != 3)
+					continue;
+				if (fields[0].equals(ARTIFACT))
+					artifacts.put(fields[1], fields[2]);
+				else if (fields[0].equals(REPOSITORY))
+					repositories.put(fields[1], fields[2]);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given descriptor was mirrored with the checksums it
+	 * has now.
+	 */
+	public boolean contains(IArtifactDescriptor descriptor) {
+		String checksums = getChecksums(descriptor);
+		return checksums != null && checksums.equals(artifacts.get(getId(descriptor)));
+	}
+
+	/**
+	 * Returns whether a descriptor with the same key and format but different
+	 * checksums was mirrored, that is whether the artifact changed since.
+	 */
+	public boolean isChanged(IArtifactDescriptor descriptor) {
+		String mirrored = artifacts.get(getId(descriptor));
+		return mirrored != null && !mirrored.equals(getChecksums(descriptor));
+	}
+
+	/**
+	 * Records that the given descriptor was mirrored. Descriptors without
+	 * checksums are not recorded since their changes could not be noticed.
+	 */
+	public void add(IArtifactDescriptor descriptor) throws IOException {
+		String checksums = getChecksums(descriptor);
+		if (checksums == null)
+			return;
+		String id = getId(descriptor);
+		if (!checksums.equals(artifacts.put(id, checksums)))
+			write(ARTIFACT, id, checksums);
+	}
+
+	/**
+	 * Returns the timestamp the given repository had when it was last mirrored
+	 * completely, or <code>null</code>.
+	 */
+	public String getTimestamp(URI repository) {
+		return repositories.get(repository.toString());
+	}
+
+	/**
+	 * Records that the given repository was mirrored completely while it had
+	 * the given timestamp.
+	 */
+	public void setTimestamp(URI repository, String timestamp) throws IOException {
+		if (!timestamp.equals(repositories.put(repository.toString(), timestamp)))
+			write(REPOSITORY, repository.toString(), timestamp);
+	}
+
+	private void write(String kind, String id, String value) throws IOException {
+		out.write(kind + SEPARATOR + id + SEPARATOR + value + '\n');
+		// keep what was mirrored so far should the run be interrupted
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private static String getId(IArtifactDescriptor descriptor) {
+		String format = descriptor.getProperty(IArtifactDescriptor.FORMAT);
+		return descriptor.getArtifactKey().toExternalForm() + ',' + (format == null ? "" : format); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the checksums of the given descriptor in a canonical form, or
+	 * <code>null</code> if it has none.
+	 */
+	@SuppressWarnings("deprecation")
+	private static String getChecksums(IArtifactDescriptor descriptor) {
+		SortedMap<String, String> checksums = new TreeMap<>();
+		for (Map.Entry<String, String> property : descriptor.getProperties().entrySet()) {
+			String key = property.getKey();
+			if (key.startsWith(IArtifactDescriptor.DOWNLOAD_CHECKSUM) || key.equals(IArtifactDescriptor.DOWNLOAD_MD5))
+				checksums.put(key, property.getValue());
+		}
+		if (checksums.isEmpty())
+			return null;
+		String size = descriptor.getProperty(IArtifactDescriptor.DOWNLOAD_SIZE);
+		if (size != null)
+			checksums.put(IArtifactDescriptor.DOWNLOAD_SIZE, size);
+		StringBuilder result = new StringBuilder();
+		for (Map.Entry<String, String> checksum : checksums.entrySet()) {
+			if (result.length() > 0)
+				result.append(';');
+			result.append(checksum.getKey()).append('=').append(checksum.getValue());
+		}
+		return result.toString();
+	}
+}
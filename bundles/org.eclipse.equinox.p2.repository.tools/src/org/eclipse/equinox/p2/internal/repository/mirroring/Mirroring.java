@@ -15,17 +15,25 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.internal.repository.mirroring;
 
+import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.artifact.repository.CompositeArtifactRepository;
 import org.eclipse.equinox.internal.p2.artifact.repository.RawMirrorRequest;
+import org.eclipse.equinox.internal.p2.core.helpers.FileUtils;
 import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.ProcessingStepHandler;
+import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.internal.repository.tools.Activator;
 import org.eclipse.equinox.p2.internal.repository.tools.Messages;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.artifact.*;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.tools.comparator.ArtifactComparatorFactory;
@@ -42,7 +50,8 @@ public class Mirroring {
 	private boolean raw;
 	private boolean compare = false;
 	private boolean validate = false;
-	private IArtifactComparator comparator;
+	// read by the mirror workers
+	private volatile IArtifactComparator comparator;
 	private IQuery<IArtifactDescriptor> compareExclusionQuery = null;
 	private Set<IArtifactDescriptor> compareExclusions = Collections.emptySet();
 	private String comparatorID;
@@ -50,11 +59,21 @@ public class Mirroring {
 	private IArtifactMirrorLog comparatorLog;
 	private Transport transport;
 	private boolean mirrorProperties = false;
+	private int threads = 1;
+	private MirrorJournal journal;
+	/** The source repositories not modified since the journal recorded them as mirrored */
+	private Set<IArtifactRepository> unchangedRepositories = Collections.emptySet();
 
 	private IArtifactComparator getComparator() {
-		if (comparator == null)
-			comparator = ArtifactComparatorFactory.getArtifactComparator(comparatorID);
-		return comparator;
+		IArtifactComparator result = comparator;
+		if (result == null) {
+			synchronized (this) {
+				result = comparator;
+				if (result == null)
+					comparator = result = ArtifactComparatorFactory.getArtifactComparator(comparatorID);
+			}
+		}
+		return result;
 	}
 
 	public Mirroring(IArtifactRepository source, IArtifactRepository destination, boolean raw) {
@@ -87,6 +106,22 @@ public class Mirroring {
 		this.mirrorProperties = properties;
 	}
 
+	/**
+	 * Sets the number of artifacts fetched at the same time, 1 mirroring the
+	 * artifacts one after the other.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the journal recording what was mirrored, so that only the new and
+	 * changed artifacts are mirrored again.
+	 */
+	public void setJournal(MirrorJournal journal) {
+		this.journal = journal;
+	}
+
 	public MultiStatus run(boolean failOnError, boolean verbose) {
 		if (!destination.isModifiable())
 			throw new IllegalStateException(
@@ -107,21 +142,13 @@ public class Mirroring {
 					null);
 			compareExclusions = exclusions.toUnmodifiableSet();
 		}
+		if (journal != null)
+			unchangedRepositories = getUnchangedRepositories();
 		MultiStatus multiStatus = new MultiStatus(Activator.ID, IStatus.OK, Messages.message_mirroringStatus, null);
 		IStatus batchStatus = destination.executeBatch(monitor -> {
-			while (keys.hasNext()) {
-				IArtifactKey key = keys.next();
-				IArtifactDescriptor[] descriptors = source.getArtifactDescriptors(key);
-				for (IArtifactDescriptor descriptor : descriptors) {
-					IStatus result = mirror(descriptor, verbose);
-					// Only log INFO and WARNING if we want verbose logging. Always log ERRORs
-					if (!result.isOK() && (verbose || result.getSeverity() == IStatus.ERROR))
-						multiStatus.add(result);
-					// stop mirroring as soon as we have an error
-					if (failOnError && multiStatus.getSeverity() == IStatus.ERROR)
-						return;
-				}
-			}
+			boolean completed = threads > 1 ? mirrorConcurrently(keys, multiStatus, failOnError, verbose) : mirror(keys, multiStatus, failOnError, verbose);
+			if (!completed)
+				return;
 			// mirror the source repository's properties unless they are already set up
 			// in the destination repository
 			if (mirrorProperties) {
@@ -139,6 +166,9 @@ public class Mirroring {
 			}
 		}, new NullProgressMonitor());
 		multiStatus.add(batchStatus);
+		// only a run over all the keys mirrors the source repositories completely
+		if (journal != null && keysToMirror == null && multiStatus.getSeverity() < IStatus.ERROR)
+			recordTimestamps(multiStatus);
 
 		if (validate) {
 			// Simple validation of the mirror
@@ -149,6 +179,114 @@ public class Mirroring {
 		return multiStatus;
 	}
 
+	/**
+	 * Mirrors the descriptors of the given keys one after the other.
+	 *
+	 * @return <code>false</code> if mirroring stopped on an error
+	 */
+	private boolean mirror(Iterator<IArtifactKey> keys, MultiStatus multiStatus, boolean failOnError, boolean verbose) {
+		while (keys.hasNext()) {
+			IArtifactKey key = keys.next();
+			IArtifactDescriptor[] descriptors = source.getArtifactDescriptors(key);
+			for (IArtifactDescriptor descriptor : descriptors) {
+				if (isMirrored(descriptor))
+					continue;
+				IStatus result = mirror(descriptor, verbose);
+				if (!addResult(descriptor, multiStatus, result, failOnError, verbose))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the result of mirroring one descriptor to the overall status, and
+	 * records the descriptor in the journal if it was mirrored.
+	 *
+	 * @return <code>false</code> if mirroring must stop on this result
+	 */
+	private boolean addResult(IArtifactDescriptor descriptor, MultiStatus multiStatus, IStatus result, boolean failOnError, boolean verbose) {
+		if (journal != null && result.getSeverity() < IStatus.ERROR) {
+			try {
+				journal.add(descriptor);
+			} catch (IOException e) {
+				journalFailed(multiStatus, e);
+			}
+		}
+		// Only log INFO and WARNING if we want verbose logging. Always log ERRORs
+		if (!result.isOK() && (verbose || result.getSeverity() == IStatus.ERROR))
+			multiStatus.add(result);
+		// stop mirroring as soon as we have an error
+		return !(failOnError && multiStatus.getSeverity() == IStatus.ERROR);
+	}
+
+	/**
+	 * Returns whether the journal shows that the given descriptor is mirrored
+	 * already. An artifact that changed since it was mirrored is removed from
+	 * the destination to be mirrored again.
+	 */
+	private boolean isMirrored(IArtifactDescriptor descriptor) {
+		if (journal == null)
+			return false;
+		IArtifactDescriptor baselineDescriptor = getBaselineDescriptor(descriptor);
+		IArtifactDescriptor targetDescriptor = baselineDescriptor != null ? baselineDescriptor
+				: raw ? descriptor : new ArtifactDescriptor(descriptor);
+		if (!destination.contains(targetDescriptor))
+			return false;
+		if (unchangedRepositories.contains(descriptor.getRepository()) || journal.contains(descriptor))
+			return true;
+		if (baselineDescriptor == null && journal.isChanged(descriptor))
+			destination.removeDescriptor(targetDescriptor);
+		return false;
+	}
+
+	/**
+	 * Returns the source repositories holding artifacts, the children of
+	 * composite repositories rather than the composites themselves.
+	 */
+	private List<IArtifactRepository> getSourceRepositories() {
+		List<IArtifactRepository> repositories = new ArrayList<>();
+		Deque<IArtifactRepository> pending = new ArrayDeque<>(List.of(source));
+		while (!pending.isEmpty()) {
+			IArtifactRepository repository = pending.remove();
+			if (repository instanceof CompositeArtifactRepository composite)
+				pending.addAll(composite.getLoadedChildren());
+			else
+				repositories.add(repository);
+		}
+		return repositories;
+	}
+
+	private Set<IArtifactRepository> getUnchangedRepositories() {
+		Set<IArtifactRepository> unchanged = new HashSet<>();
+		for (IArtifactRepository repository : getSourceRepositories()) {
+			String timestamp = repository.getProperty(IRepository.PROP_TIMESTAMP);
+			if (timestamp != null && timestamp.equals(journal.getTimestamp(repository.getLocation())))
+				unchanged.add(repository);
+		}
+		return unchanged;
+	}
+
+	private void recordTimestamps(MultiStatus multiStatus) {
+		try {
+			for (IArtifactRepository repository : getSourceRepositories()) {
+				String timestamp = repository.getProperty(IRepository.PROP_TIMESTAMP);
+				if (timestamp != null)
+					journal.setTimestamp(repository.getLocation(), timestamp);
+			}
+		} catch (IOException e) {
+			journalFailed(multiStatus, e);
+		}
+	}
+
+	/**
+	 * Reports that the journal could not be written, and stops recording to it.
+	 */
+	private void journalFailed(MultiStatus multiStatus, IOException e) {
+		multiStatus.add(new Status(IStatus.WARNING, Activator.ID, Messages.Mirroring_journalFailed, e));
+		journal = null;
+	}
+
 	private IStatus mirror(IArtifactDescriptor sourceDescriptor, boolean verbose) {
 		IArtifactDescriptor targetDescriptor = raw ? sourceDescriptor : new ArtifactDescriptor(sourceDescriptor);
 		IArtifactDescriptor baselineDescriptor = getBaselineDescriptor(sourceDescriptor);
@@ -182,10 +320,8 @@ public class Mirroring {
 		if (!destination.contains(targetDescriptor))
 			// actual download
 			status = downloadArtifact(sourceRepository, targetDescriptor, sourceDescriptor);
-		else {
-			String message = NLS.bind(Messages.mirror_alreadyExists, sourceDescriptor, destination);
-			status = new Status(IStatus.INFO, Activator.ID, ProvisionException.ARTIFACT_EXISTS, message, null);
-		}
+		else
+			status = getAlreadyExistsStatus(sourceDescriptor);
 
 		if (comparing) {
 			compareStatus.add(status);
@@ -194,6 +330,11 @@ public class Mirroring {
 		return status;
 	}
 
+	private IStatus getAlreadyExistsStatus(IArtifactDescriptor descriptor) {
+		String message = NLS.bind(Messages.mirror_alreadyExists, descriptor, destination);
+		return new Status(IStatus.INFO, Activator.ID, ProvisionException.ARTIFACT_EXISTS, message, null);
+	}
+
 	/**
 	 * Takes an IArtifactDescriptor descriptor and the ProvisionException that was
 	 * thrown when destination.getOutputStream(descriptor) and compares descriptor
@@ -221,8 +362,12 @@ public class Mirroring {
 			IArtifactRepository destRepository, IArtifactDescriptor destDescriptor) {
 		IStatus comparison = getComparator().compare(sourceRepository, sourceDescriptor, destRepository,
 				destDescriptor);
+		return logComparison(sourceDescriptor, comparison);
+	}
+
+	private IStatus logComparison(IArtifactDescriptor descriptor, IStatus comparison) {
 		if (comparatorLog != null && !comparison.isOK())
-			comparatorLog.log(sourceDescriptor, comparison);
+			comparatorLog.log(descriptor, comparison);
 		return comparison;
 	}
 
@@ -237,6 +382,229 @@ public class Mirroring {
 		return request.getResult();
 	}
 
+	/**
+	 * Mirrors the descriptors of the given keys with several threads. Each
+	 * descriptor goes through three stages:
+	 * <ol>
+	 * <li>the calling thread checks what the destination already has,</li>
+	 * <li>a worker fetches and verifies the artifact into a temporary file unless
+	 * the destination has it, and compares the source with the baseline,</li>
+	 * <li>the calling thread writes the artifact to the destination and compares
+	 * it with the destination.</li>
+	 * </ol>
+	 * The destination is only used by the calling thread, which holds it during
+	 * the batch, and the results are reported in the order of the descriptors.
+	 * At most twice as many artifacts as threads are fetched ahead of the one
+	 * being written.
+	 *
+	 * @return <code>false</code> if mirroring stopped on an error
+	 */
+	private boolean mirrorConcurrently(Iterator<IArtifactKey> keys, MultiStatus multiStatus, boolean failOnError, boolean verbose) {
+		File spool;
+		try {
+			spool = Files.createTempDirectory("p2.mirror").toFile(); //$NON-NLS-1$
+		} catch (IOException e) {
+			multiStatus.add(new Status(IStatus.ERROR, Activator.ID, Messages.Mirroring_spoolFailed, e));
+			return false;
+		}
+		StagingArtifactRepository staging = new StagingArtifactRepository(destination, spool);
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "p2 Mirror Worker-" + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		Deque<Transfer> pending = new ArrayDeque<>();
+		try {
+			while (keys.hasNext()) {
+				for (IArtifactDescriptor descriptor : source.getArtifactDescriptors(keys.next())) {
+					if (isMirrored(descriptor))
+						continue;
+					Transfer transfer = new Transfer(descriptor, verbose);
+					transfer.future = pool.submit(() -> transfer.fetch(staging));
+					pending.add(transfer);
+					if (pending.size() > 2 * threads && !pending.remove().complete(staging, multiStatus, failOnError, verbose))
+						return false;
+				}
+			}
+			while (!pending.isEmpty()) {
+				if (!pending.remove().complete(staging, multiStatus, failOnError, verbose))
+					return false;
+			}
+			return true;
+		} finally {
+			// drop the fetches not started yet and let the running ones finish before cleaning up
+			for (Transfer transfer : pending)
+				transfer.future.cancel(false);
+			pool.shutdown();
+			boolean interrupted = false;
+			while (!pool.isTerminated()) {
+				try {
+					pool.awaitTermination(1, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			FileUtils.deleteAll(spool);
+		}
+	}
+
+	/**
+	 * The mirroring of one descriptor by {@link #mirrorConcurrently}, following
+	 * the same steps as {@link #mirror(IArtifactDescriptor, boolean)}.
+	 */
+	private class Transfer {
+		private final IArtifactDescriptor sourceDescriptor;
+		private final IArtifactDescriptor baselineDescriptor;
+		private final boolean comparing;
+		/** The descriptor to compare with the destination instead of mirroring it */
+		private IArtifactDescriptor existingDescriptor;
+		private IArtifactRepository fetchRepository;
+		private IArtifactDescriptor fetchDescriptor;
+		private IArtifactDescriptor targetDescriptor;
+		private IStatus baselineComparison;
+		private IStatus fetchStatus;
+		/** The result of a transfer skipped because the destination has the artifact */
+		private IStatus existsStatus;
+		Future<?> future;
+
+		Transfer(IArtifactDescriptor sourceDescriptor, boolean verbose) {
+			this.sourceDescriptor = sourceDescriptor;
+			IArtifactDescriptor target = raw ? sourceDescriptor : new ArtifactDescriptor(sourceDescriptor);
+			baselineDescriptor = getBaselineDescriptor(sourceDescriptor);
+
+			if (verbose)
+				System.out.println(
+						"Mirroring: " + sourceDescriptor.getArtifactKey() + " (Descriptor: " + sourceDescriptor + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+			comparing = compare && !compareExclusions.contains(sourceDescriptor);
+			if (comparing) {
+				if (baselineDescriptor != null) {
+					if (destination.contains(baselineDescriptor)) {
+						existingDescriptor = baselineDescriptor;
+						return;
+					}
+				} else if (destination.contains(target)) {
+					existingDescriptor = sourceDescriptor;
+					return;
+				}
+			}
+			fetchRepository = baselineDescriptor != null ? baseline : source;
+			fetchDescriptor = baselineDescriptor != null ? baselineDescriptor : sourceDescriptor;
+			targetDescriptor = baselineDescriptor != null ? baselineDescriptor : target;
+			if (destination.contains(targetDescriptor))
+				existsStatus = getAlreadyExistsStatus(fetchDescriptor);
+		}
+
+		/**
+		 * Runs on a worker: compares the source with the baseline, and fetches the
+		 * artifact unless the destination already has it.
+		 */
+		void fetch(StagingArtifactRepository staging) {
+			if (comparing && baselineDescriptor != null)
+				baselineComparison = getComparator().compare(baseline, baselineDescriptor, source, sourceDescriptor);
+			if (targetDescriptor != null && existsStatus == null && !staging.contains(targetDescriptor)) {
+				RawMirrorRequest request = new RawMirrorRequest(fetchDescriptor, targetDescriptor, staging, transport);
+				request.perform(fetchRepository, new NullProgressMonitor());
+				fetchStatus = request.getResult();
+			}
+		}
+
+		/**
+		 * Runs on the calling thread once the artifact is fetched: writes it to the
+		 * destination and adds the result to the overall status.
+		 *
+		 * @return <code>false</code> if mirroring must stop on this result
+		 */
+		boolean complete(StagingArtifactRepository staging, MultiStatus multiStatus, boolean failOnError, boolean verbose) {
+			return addResult(sourceDescriptor, multiStatus, write(staging), failOnError, verbose);
+		}
+
+		private IStatus write(StagingArtifactRepository staging) {
+			awaitFetch();
+			MultiStatus compareStatus = new MultiStatus(Activator.ID, IStatus.OK, null, null);
+			if (baselineComparison != null)
+				compareStatus.add(logComparison(baselineDescriptor, baselineComparison));
+			if (existingDescriptor != null) {
+				compareStatus.add(compareToDestination(existingDescriptor));
+				return compareStatus;
+			}
+
+			IStatus status;
+			if (existsStatus != null)
+				status = existsStatus;
+			else if (destination.contains(targetDescriptor))
+				// written for an earlier descriptor of the batch
+				status = getAlreadyExistsStatus(fetchDescriptor);
+			else {
+				if (fetchStatus == null)
+					// the same artifact was fetched for an earlier descriptor but could not be written
+					fetch(staging);
+				status = fetchStatus.isOK() ? copy(staging.getFile(targetDescriptor)) : fetchStatus;
+			}
+			staging.removeDescriptor(targetDescriptor, null);
+
+			if (comparing) {
+				compareStatus.add(status);
+				return compareStatus;
+			}
+			return status;
+		}
+
+		private void awaitFetch() {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtime)
+					throw runtime;
+				if (e.getCause() instanceof Error error)
+					throw error;
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+		private IStatus copy(File file) {
+			// nothing was fetched, as when transferring to the destination directly
+			if (file == null)
+				return fetchStatus;
+			OutputStream output;
+			try {
+				output = destination.getOutputStream(targetDescriptor);
+			} catch (ProvisionException e) {
+				return e.getStatus();
+			}
+			IStatus status;
+			try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+				try {
+					FileUtils.copyStream(input, false, output, false);
+				} finally {
+					output.close();
+				}
+				status = ProcessingStepHandler.checkStatus(output);
+			} catch (IOException e) {
+				status = new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.Mirroring_writeFailed, targetDescriptor, destination), e);
+				if (output instanceof IStateful stateful)
+					stateful.setStatus(status);
+				try {
+					output.close();
+				} catch (IOException closeFailure) {
+					// already reported
+				}
+			}
+			if (status.isOK())
+				return fetchStatus;
+			// first remove possibly erroneously added descriptor
+			if (destination.contains(targetDescriptor))
+				destination.removeDescriptor(targetDescriptor);
+			return status;
+		}
+	}
+
 	public void setArtifactKeys(IArtifactKey[] keys) {
 		this.keysToMirror = Arrays.asList(keys);
 	}
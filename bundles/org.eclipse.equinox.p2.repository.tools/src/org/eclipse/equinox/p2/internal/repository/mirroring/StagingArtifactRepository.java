@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.internal.repository.mirroring;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.ProcessingStepHandler;
+import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
+import org.eclipse.equinox.p2.internal.repository.tools.Activator;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.query.*;
+import org.eclipse.equinox.p2.repository.artifact.*;
+import org.eclipse.equinox.p2.repository.artifact.spi.AbstractArtifactRepository;
+
+/**
+ * A repository holding the artifacts fetched for a destination repository in
+ * temporary files, until they are written to the destination. It stands for
+ * the destination, with its agent and location, so that artifacts are fetched
+ * and verified as they would be when transferred to the destination directly.
+ * Reading an artifact that is not staged reads it from the destination.
+ */
+class StagingArtifactRepository extends AbstractArtifactRepository {
+	private static final String STAGING_TYPE = StagingArtifactRepository.class.getName();
+
+	private final IArtifactRepository target;
+	private final File directory;
+	private final Map<IArtifactDescriptor, File> staged = new ConcurrentHashMap<>();
+
+	StagingArtifactRepository(IArtifactRepository destination, File directory) {
+		super(destination.getProvisioningAgent(), destination.getName(), STAGING_TYPE, "1", destination.getLocation(), null, null, null); //$NON-NLS-1$
+		this.target = destination;
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the file holding the given artifact, or <code>null</code> if it was
+	 * not fetched successfully.
+	 */
+	File getFile(IArtifactDescriptor descriptor) {
+		return staged.get(descriptor);
+	}
+
+	@Override
+	public boolean isModifiable() {
+		return true;
+	}
+
+	@Override
+	public boolean contains(IArtifactDescriptor descriptor) {
+		return staged.containsKey(descriptor);
+	}
+
+	@Override
+	public boolean contains(IArtifactKey key) {
+		for (IArtifactDescriptor descriptor : staged.keySet()) {
+			if (descriptor.getArtifactKey().equals(key))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public OutputStream getOutputStream(IArtifactDescriptor descriptor) {
+		File file = null;
+		try {
+			file = File.createTempFile("artifact", ".tmp", directory); //$NON-NLS-1$ //$NON-NLS-2$
+			return new StagedOutputStream(descriptor, file, new BufferedOutputStream(new FileOutputStream(file)));
+		} catch (IOException e) {
+			if (file != null)
+				file.delete();
+			// report the failure through the status of the transfer
+			return new StagedOutputStream(descriptor, null, null);
+		}
+	}
+
+	@Override
+	public void removeDescriptor(IArtifactDescriptor descriptor, IProgressMonitor monitor) {
+		File file = staged.remove(descriptor);
+		if (file != null)
+			file.delete();
+	}
+
+	@Override
+	public void removeAll(IProgressMonitor monitor) {
+		for (IArtifactDescriptor descriptor : staged.keySet())
+			removeDescriptor(descriptor, monitor);
+	}
+
+	@Override
+	public IStatus getArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
+		File file = staged.get(descriptor);
+		if (file == null)
+			return target.getArtifact(descriptor, destination, monitor);
+		OutputStream output = new ProcessingStepHandler().createAndLink(getProvisioningAgent(), descriptor.getProcessingSteps(), descriptor, destination, monitor);
+		IStatus status = ProcessingStepHandler.checkStatus(output);
+		if (!status.isOK() && status.getSeverity() != IStatus.INFO)
+			return status;
+		status = copy(file, output);
+		if (output == destination)
+			return status;
+		// flush the data through the processing steps
+		try {
+			output.close();
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
+		}
+		return status.isOK() ? ProcessingStepHandler.getErrorStatus(output) : status;
+	}
+
+	@Override
+	public IStatus getRawArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
+		File file = staged.get(descriptor);
+		if (file == null)
+			return target.getRawArtifact(descriptor, destination, monitor);
+		return copy(file, destination);
+	}
+
+	private static IStatus copy(File file, OutputStream destination) {
+		try {
+			Files.copy(file.toPath(), destination);
+			return Status.OK_STATUS;
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public IArtifactDescriptor[] getArtifactDescriptors(IArtifactKey key) {
+		return staged.keySet().stream().filter(descriptor -> descriptor.getArtifactKey().equals(key)).toArray(IArtifactDescriptor[]::new);
+	}
+
+	@Override
+	public IStatus getArtifacts(IArtifactRequest[] requests, IProgressMonitor monitor) {
+		SubMonitor sub = SubMonitor.convert(monitor, requests.length);
+		MultiStatus result = new MultiStatus(Activator.ID, IStatus.OK, null, null);
+		for (IArtifactRequest request : requests) {
+			if (sub.isCanceled())
+				return Status.CANCEL_STATUS;
+			request.perform(this, sub.newChild(1));
+			if (request.getResult() != null)
+				result.add(request.getResult());
+		}
+		return result.isOK() ? Status.OK_STATUS : result;
+	}
+
+	@Override
+	public IQueryResult<IArtifactKey> query(IQuery<IArtifactKey> query, IProgressMonitor monitor) {
+		return query.perform(staged.keySet().stream().map(IArtifactDescriptor::getArtifactKey).distinct().iterator());
+	}
+
+	@Override
+	public IQueryable<IArtifactDescriptor> descriptorQueryable() {
+		return (query, monitor) -> query.perform(staged.keySet().iterator());
+	}
+
+	/**
+	 * Keeps the fetched artifact when it is closed, unless the transfer failed.
+	 */
+	private class StagedOutputStream extends OutputStream implements IStateful {
+		private final IArtifactDescriptor descriptor;
+		private final File file;
+		private final OutputStream destination;
+		private IStatus status = Status.OK_STATUS;
+		private long count;
+		private boolean closed;
+
+		StagedOutputStream(IArtifactDescriptor descriptor, File file, OutputStream destination) {
+			this.descriptor = descriptor;
+			this.file = file;
+			this.destination = destination;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			checkOpen();
+			destination.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			checkOpen();
+			destination.write(b, off, len);
+			count += len;
+		}
+
+		private void checkOpen() throws IOException {
+			if (destination == null)
+				throw new IOException("Could not create a temporary file in " + directory); //$NON-NLS-1$
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			if (destination == null)
+				return;
+			try {
+				destination.close();
+			} catch (IOException e) {
+				file.delete();
+				if (status.isOK())
+					throw e;
+				return;
+			}
+			if (status.isOK() && count > 0)
+				staged.put(descriptor, file);
+			else
+				file.delete();
+		}
+
+		@Override
+		public IStatus getStatus() {
+			return status;
+		}
+
+		@Override
+		public void setStatus(IStatus status) {
+			this.status = status == null ? Status.OK_STATUS : status;
+		}
+	}
+}
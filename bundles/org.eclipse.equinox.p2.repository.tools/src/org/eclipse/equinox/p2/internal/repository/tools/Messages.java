@@ -43,6 +43,8 @@ public class Messages extends NLS {
 	public static String unknown_repository_type;
 
 	public static String MirrorApplication_artifactDestinationNoSource;
+	public static String MirrorApplication_invalidThreads;
+	public static String MirrorApplication_journalFailed;
 	public static String MirrorApplication_metadataDestinationNoSource;
 	public static String MirrorApplication_no_IUs;
 	public static String MirrorApplication_set_source_repositories;
@@ -64,6 +66,9 @@ public class Messages extends NLS {
 	public static String Mirroring_ValidationError;
 	public static String Mirroring_missingDescriptor;
 	public static String Mirroring_differentDescriptorProperty;
+	public static String Mirroring_journalFailed;
+	public static String Mirroring_spoolFailed;
+	public static String Mirroring_writeFailed;
 
 	public static String invalidComparatorId;
 
@@ -14,6 +14,7 @@
 package org.eclipse.equinox.p2.internal.repository.tools;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -58,11 +59,14 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 	private String metadataOrArtifacts = null;
 	private String[] rootIUs = null;
 	private boolean mirrorProperties = false;
+	private int threads = 1;
 
 	private File mirrorLogFile; // file to log mirror output to (optional)
 	private File comparatorLogFile; // file to comparator output to (optional)
 	private IArtifactMirrorLog mirrorLog;
 	private IArtifactMirrorLog comparatorLog;
+	private File journalFile; // file to record mirrored artifacts to (optional)
+	private MirrorJournal journal;
 
 	public MirrorApplication() {
 		super();
@@ -174,6 +178,10 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 				rootIUs = getArrayArgsFromString(arg, ","); //$NON-NLS-1$
 			} else if (args[i - 1].equalsIgnoreCase("-references")) {//$NON-NLS-1$
 				mirrorReferences = Boolean.parseBoolean(args[i]);
+			} else if (args[i - 1].equalsIgnoreCase("-journal")) { //$NON-NLS-1$
+				journalFile = new File(arg);
+			} else if (args[i - 1].equalsIgnoreCase("-threads")) { //$NON-NLS-1$
+				threads = parseThreads(arg);
 			} else {
 				try {
 					if (args[i - 1].equalsIgnoreCase("-source")) { //$NON-NLS-1$
@@ -199,12 +207,24 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 			comparatorLog = getLog(comparatorLogLocation, comparatorID);
 	}
 
+	private static int parseThreads(String arg) {
+		try {
+			int value = Integer.parseInt(arg);
+			if (value > 0)
+				return value;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException(NLS.bind(Messages.MirrorApplication_invalidThreads, arg));
+	}
+
 	@Override
 	public IStatus run(IProgressMonitor monitor) throws ProvisionException {
 		IStatus mirrorStatus = Status.OK_STATUS;
 		try {
 			initializeRepos(new NullProgressMonitor());
 			initializeLogs();
+			initializeJournal();
 			validate();
 			initializeIUs();
 			IQueryable<IInstallableUnit> slice = slice(new NullProgressMonitor());
@@ -218,6 +238,7 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 		} finally {
 			finalizeRepositories();
 			finalizeLogs();
+			finalizeJournal();
 		}
 		if (mirrorStatus.isOK())
 			return Status.OK_STATUS;
@@ -253,6 +274,8 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 		mirror.setCompareExclusions(compareExclusions);
 		mirror.setTransport((Transport) agent.getService(Transport.SERVICE_NAME));
 		mirror.setMirrorProperties(mirrorProperties);
+		mirror.setThreads(threads);
+		mirror.setJournal(journal);
 
 		// If IUs have been specified then only they should be mirrored, otherwise
 		// mirror everything.
@@ -346,6 +369,35 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 			mirrorLog.close();
 	}
 
+	/*
+	 * Open the journal, if applicable
+	 */
+	private void initializeJournal() throws ProvisionException {
+		if (journalFile == null)
+			return;
+		try {
+			journal = new MirrorJournal(journalFile);
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID,
+					NLS.bind(Messages.MirrorApplication_journalFailed, journalFile), e));
+		}
+	}
+
+	/*
+	 * Close the journal, if applicable
+	 */
+	private void finalizeJournal() {
+		if (journal == null)
+			return;
+		try {
+			journal.close();
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID,
+					NLS.bind(Messages.MirrorApplication_journalFailed, journalFile), e));
+		}
+		journal = null;
+	}
+
 	/*
 	 * Get the log for a location
 	 */
@@ -468,6 +520,13 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 		this.mirrorLogFile = mirrorLog;
 	}
 
+	/*
+	 * Set the location of the journal recording the mirrored artifacts
+	 */
+	public void setJournal(File journal) {
+		this.journalFile = journal;
+	}
+
 	/*
 	 * Set the ArtifactMirror log
 	 */
@@ -496,4 +555,11 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 	public void setMirrorProperties(boolean mirrorProperties) {
 		this.mirrorProperties = mirrorProperties;
 	}
+
+	/*
+	 * Set the number of artifacts mirrored at the same time
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
 }
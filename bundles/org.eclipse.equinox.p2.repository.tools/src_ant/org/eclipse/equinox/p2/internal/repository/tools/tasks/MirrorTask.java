@@ -113,6 +113,13 @@ public class MirrorTask extends AbstractRepositoryTask {
 		mirrorLog = new File(value);
 	}
 
+	/*
+	 * Set the location of the journal recording the mirrored artifacts
+	 */
+	public void setJournal(String value) {
+		((MirrorApplication) application).setJournal(new File(value));
+	}
+
 	/*
 	 * Set whether or not we should ignore errors when running the mirror application.
 	 */
@@ -146,4 +153,8 @@ public class MirrorTask extends AbstractRepositoryTask {
 	public void setMirrorProperties(boolean value) {
 		((MirrorApplication) application).setMirrorProperties(value);
 	}
+
+	public void setThreads(int value) {
+		((MirrorApplication) application).setThreads(value);
+	}
 }
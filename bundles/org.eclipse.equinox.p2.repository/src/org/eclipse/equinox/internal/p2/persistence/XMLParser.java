@@ -21,6 +21,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.Activator;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
 import org.eclipse.equinox.p2.metadata.Version;
 import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.osgi.util.NLS;
@@ -51,6 +52,9 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 
 	protected SAXParserFactory parserFactory;
 
+	// The pool sharing the metadata read with other parsers, or null
+	protected MetadataPool pool;
+
 	public XMLParser(String pluginId) {
 		this(org.eclipse.equinox.internal.p2.repository.Activator.getParserFactory(), pluginId);
 	}
@@ -67,6 +71,14 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 		return (status != null ? status : Status.OK_STATUS);
 	}
 
+	/**
+	 * Sets the pool through which the metadata read by this parser is shared
+	 * with the other parsers and repositories of an agent.
+	 */
+	public void setPool(MetadataPool pool) {
+		this.pool = pool;
+	}
+
 	public boolean isValidXML() {
 		return (status == null || !status.matches(IStatus.ERROR | IStatus.CANCEL));
 	}
@@ -680,7 +692,8 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 	 */
 	public Version checkVersion(String element, String attribute, String value) {
 		try {
-			return Version.parseVersion(value);
+			Version version = Version.parseVersion(value);
+			return pool != null ? pool.shareVersion(version) : version;
 		} catch (IllegalArgumentException iae) {
 			invalidAttributeValue(element, attribute, value);
 		} catch (NullPointerException npe) {
@@ -691,8 +704,10 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 
 	public VersionRange checkVersionRange(String element, String attribute, String value) {
 		try {
-			if (value != null)
-				return VersionRange.create(value);
+			if (value != null) {
+				VersionRange range = VersionRange.create(value);
+				return pool != null ? pool.shareVersionRange(range) : range;
+			}
 		} catch (IllegalArgumentException iae) {
 			invalidAttributeValue(element, attribute, value);
 		} catch (NullPointerException npe) {
@@ -18,6 +18,7 @@ package org.eclipse.equinox.internal.p2.repository;
 import java.io.*;
 import java.net.*;
 import java.util.HashSet;
+import java.util.Properties;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
@@ -81,6 +82,9 @@ public class CacheManager {
 	private static final String DOWNLOADING = "downloading"; //$NON-NLS-1$
 	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+	private static final String VALIDATORS_EXTENSION = ".validators"; //$NON-NLS-1$
+	private static final String ETAG = "etag"; //$NON-NLS-1$
+	private static final String LAST_MODIFIED = "lastModified"; //$NON-NLS-1$
 
 	private final HashSet<String> knownPrefixes = new HashSet<>(5);
 
@@ -164,128 +168,203 @@ public class CacheManager {
 		if (!isURL(repositoryLocation)) {
 			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, NLS.bind(Messages.CacheManager_CannotLoadNonUrlLocation, repositoryLocation), null));
 		}
-		SubMonitor submonitor = SubMonitor.convert(monitor, 1000);
+		SubMonitor submonitor = SubMonitor.convert(monitor, 2);
 		try {
 			knownPrefixes.add(prefix);
 			File cacheFile = getCache(repositoryLocation, prefix);
+			File[] cacheFiles = getCacheFiles(repositoryLocation, prefix);
 			URI jarLocation = URIUtil.append(repositoryLocation, prefix + JAR_EXTENSION);
 			URI xmlLocation = URIUtil.append(repositoryLocation, prefix + XML_EXTENSION);
-			int hashCode = computeHash(repositoryLocation);
 
-			// Knowing if cache is stale is complicated by the fact that a jar could have been
-			// produced after an xml index (and vice versa), and by the need to capture any
-			// errors, as these needs to be reported to the user as something meaningful - instead of
-			// just a general "can't read repository".
-			// (Previous impl of stale checking ignored errors, and caused multiple round-trips)
-			boolean stale = true;
-			long lastModified = 0L;
-			String name = null;
-			String useExtension = JAR_EXTENSION;
-			URI remoteFile = jarLocation;
-
-			if (cacheFile != null) {
-				lastModified = cacheFile.lastModified();
-				name = cacheFile.getName();
+			// A single conditional request on the jar tells whether a jar based cache is
+			// current and brings the new content when it is not, so the xml index is only
+			// requested when there is no usable jar. Errors still need to be reported to the
+			// user as something meaningful - instead of just a general "can't read repository".
+			// a cache of the other index is stale
+			File jarCache = hasExtension(cacheFile, JAR_EXTENSION) ? cacheFile : null;
+			IStatus result = refreshCache(jarCache, cacheFiles[0], jarLocation, submonitor.split(1));
+			if (result.isOK()) {
+				deleteCacheFile(cacheFiles[1]);
+				return isNotModified(result) ? jarCache : cacheFiles[0];
 			}
-			// get last modified on jar
-			long lastModifiedRemote = 0L;
-			// bug 269588 - server may return 0 when file exists, so extra flag is needed
-			boolean useJar = true;
-			try {
-				lastModifiedRemote = getLastModified(jarLocation, submonitor.newChild(1));
-				if (lastModifiedRemote <= 0)
-					LogHelper.log(new Status(IStatus.WARNING, Activator.ID, "Server returned lastModified <= 0 for " + jarLocation)); //$NON-NLS-1$
-			} catch (AuthenticationFailedException e) {
+			if (result.getCode() == ProvisionException.REPOSITORY_FAILED_AUTHENTICATION) {
 				// it is not meaningful to continue - the credentials are for the server
 				// do not pass the exception - it gives no additional meaningful user information
 				throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, NLS.bind(Messages.CacheManager_AuthenticationFaileFor_0, repositoryLocation), null));
-			} catch (CoreException e) {
-				useJar = false;
-				// give up on a timeout - if we did not get a 404 on the jar, we will just prolong the pain
-				// by (almost certainly) also timing out on the xml.
-				if (e.getStatus() != null && e.getStatus().getException() != null) {
-					Throwable ex = e.getStatus().getException();
-					if (ex.getClass() == java.net.SocketTimeoutException.class)
-						throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.CacheManager_FailedCommunicationWithRepo_0, repositoryLocation), ex));
-				}
-			} catch (OperationCanceledException e) {
-				// must pass this on
-				throw e;
-			} catch (Exception e) {
-				// not ideal, just skip the jar on error, and try the xml instead - report errors for
-				// the xml.
-				useJar = false;
 			}
-			if (submonitor.isCanceled())
-				throw new OperationCanceledException();
+			// give up on a timeout - if we did not get a 404 on the jar, we will just prolong the pain
+			// by (almost certainly) also timing out on the xml.
+			Throwable ex = result.getException();
+			if (ex != null && ex.getClass() == java.net.SocketTimeoutException.class)
+				throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.CacheManager_FailedCommunicationWithRepo_0, repositoryLocation), ex));
+
+			// not ideal, just skip the jar on error, and try the xml instead - report errors for
+			// the xml.
+			File xmlCache = hasExtension(cacheFile, XML_EXTENSION) ? cacheFile : null;
+			result = refreshCache(xmlCache, cacheFiles[1], xmlLocation, submonitor.split(1));
+			if (result.isOK()) {
+				deleteCacheFile(cacheFiles[0]);
+				return isNotModified(result) ? xmlCache : cacheFiles[1];
+			}
+			if (result.getCode() == ProvisionException.ARTIFACT_NOT_FOUND)
+				throw new FileNotFoundException(NLS.bind(Messages.CacheManager_Neither_0_nor_1_found, jarLocation, xmlLocation));
+			if (result.getCode() == ProvisionException.REPOSITORY_FAILED_AUTHENTICATION)
+				// do not pass the exception, it provides no additional meaningful user information
+				throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, NLS.bind(Messages.CacheManager_AuthenticationFaileFor_0, repositoryLocation), null));
+			if (result.getException() instanceof FileNotFoundException)
+				throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, result.getMessage(), result.getException()));
+			throw new ProvisionException(result);
+		} finally {
+			submonitor.done();
+		}
+	}
 
-			if (useJar) {
-				// There is a jar, and it should be used - cache is stale if it is xml based or
-				// if older (irrespective of jar or xml).
-				// Bug 269588 - also stale if remote reports 0
-				stale = lastModifiedRemote != lastModified || (name != null && name.endsWith(XML_EXTENSION) || lastModifiedRemote <= 0);
-			} else {
-				// Also need to check remote XML file, and handle cancel, and errors
-				// (Status is reported based on finding the XML file as giving up on certain errors
-				// when checking for the jar may not be correct).
-				try {
-					lastModifiedRemote = getLastModified(xmlLocation, submonitor.newChild(1));
-					// if lastModifiedRemote is 0 - something is wrong in the communication stack, as
-					// a FileNotFound exception should have been thrown.
-					// bug 269588 - server may return 0 when file exists - site is not correctly configured
-					if (lastModifiedRemote <= 0)
-						LogHelper.log(new Status(IStatus.WARNING, Activator.ID, "Server returned lastModified <= 0 for " + xmlLocation)); //$NON-NLS-1$
-
-				} catch (FileNotFoundException e) {
-					throw new FileNotFoundException(NLS.bind(Messages.CacheManager_Neither_0_nor_1_found, jarLocation, xmlLocation));
-				} catch (AuthenticationFailedException e) {
-					// do not pass the exception, it provides no additional meaningful user information
-					throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, NLS.bind(Messages.CacheManager_AuthenticationFaileFor_0, repositoryLocation), null));
-				} catch (CoreException e) {
-					IStatus status = e.getStatus();
-					if (status == null)
-						throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, NLS.bind(Messages.CacheManager_FailedCommunicationWithRepo_0, repositoryLocation), e));
-					else if (status.getException() instanceof FileNotFoundException)
-						throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, status.getMessage(), status.getException()));
-					throw new ProvisionException(status);
+	private static boolean hasExtension(File cacheFile, String extension) {
+		return cacheFile != null && cacheFile.getName().endsWith(extension);
+	}
 
-				}
-				// There is an xml, and it should be used - cache is stale if it is jar based or
-				// if older (irrespective of jar or xml).
-				// bug 269588 - server may return 0 when file exists - assume it is stale
-				stale = lastModifiedRemote != lastModified || (name != null && name.endsWith(JAR_EXTENSION) || lastModifiedRemote <= 0);
-				useExtension = XML_EXTENSION;
-				remoteFile = xmlLocation;
+	private static boolean isNotModified(IStatus result) {
+		return result instanceof DownloadStatus && ((DownloadStatus) result).isNotModified();
+	}
+
+	/**
+	 * Brings the cache of the given remote file up to date, with a single
+	 * conditional download based on the validators remembered for the current
+	 * cache file.
+	 *
+	 * @param currentFile the current cache file, or <code>null</code> if there is none
+	 * @param cacheFile the file to download a modified remote file to
+	 * @return an OK status if the cache is up to date, telling whether the current
+	 *         cache file was kept, or the status of the failed download
+	 * @throws OperationCanceledException if the download was canceled
+	 */
+	private IStatus refreshCache(File currentFile, File cacheFile, URI remoteFile, SubMonitor submonitor) throws IOException, ProvisionException {
+		String eTag = null;
+		long lastModified = 0L;
+		if (currentFile != null) {
+			Properties validators = readValidators(currentFile);
+			if (validators != null) {
+				eTag = validators.getProperty(ETAG);
+				lastModified = parseLong(validators.getProperty(LAST_MODIFIED));
+			} else {
+				// cache written before validators were remembered, it carries the remote last modified date
+				lastModified = currentFile.lastModified();
 			}
+		}
 
-			if (!stale)
-				return cacheFile;
+		cacheFile.getParentFile().mkdirs();
+		File downloadDir = new File(cacheFile.getParentFile(), DOWNLOADING);
+		if (!downloadDir.exists())
+			downloadDir.mkdir();
+		File tempFile = new File(downloadDir, cacheFile.getName());
+		// Ensure that the file from a previous download attempt is removed
+		if (tempFile.exists())
+			safeDelete(tempFile);
 
-			// The cache is stale or missing, so we need to update it from the remote location
-			cacheFile = new File(getCacheDirectory(), prefix + hashCode + useExtension);
-			updateCache(cacheFile, remoteFile, lastModifiedRemote, submonitor);
-			return cacheFile;
+		StatefulStream stream = null;
+		try {
+			stream = new StatefulStream(new FileOutputStream(tempFile));
+		} catch (Exception e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e));
+		}
+		IStatus result = null;
+		try {
+			submonitor.setWorkRemaining(1000);
+			result = transport.downloadIfModified(remoteFile, stream, eTag, lastModified, submonitor.newChild(1000));
+			while (result.getCode() == IArtifactRepository.CODE_RETRY) {
+				result = transport.downloadIfModified(remoteFile, stream, eTag, lastModified, submonitor.newChild(1000));
+			}
+		} catch (OperationCanceledException e) {
+			// need to pick up the status - a new operation canceled exception is thrown at the end
+			// as status will be CANCEL.
+			result = stream.getStatus();
 		} finally {
-			submonitor.done();
+			stream.close();
+		}
+		if (result != null && result.isOK() && isNotModified(result)) {
+			safeDelete(tempFile);
+			return result;
+		}
+		if (result == null || !result.isOK()) {
+			// If there was any problem fetching the file, delete the temp file
+			safeDelete(tempFile);
+			if (result == null || result.getSeverity() == IStatus.CANCEL || submonitor.isCanceled())
+				throw new OperationCanceledException();
+			return result;
+		}
+		if (cacheFile.exists())
+			safeDelete(cacheFile);
+		if (!tempFile.renameTo(cacheFile))
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.CacheManage_ErrorRenamingCache, new Object[] {remoteFile.toString(), tempFile.getAbsolutePath(), cacheFile.getAbsolutePath()})));
+		long lastModifiedRemote = 0L;
+		eTag = null;
+		if (result instanceof DownloadStatus) {
+			lastModifiedRemote = ((DownloadStatus) result).getLastModified();
+			eTag = ((DownloadStatus) result).getETag();
+		}
+		if (lastModifiedRemote > 0) {
+			//local cache file should have the same lastModified as the server's file. bug 324200
+			cacheFile.setLastModified(lastModifiedRemote);
+		} else {
+			// bug 269588 - server may return 0 when file exists - site is not correctly configured
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID, "Server returned lastModified <= 0 for " + remoteFile)); //$NON-NLS-1$
 		}
+		writeValidators(cacheFile, eTag, lastModifiedRemote);
+		return result;
 	}
 
-	private long getLastModified(URI location, IProgressMonitor monitor) throws AuthenticationFailedException, FileNotFoundException, CoreException {
-		CoreException exception = null;
-		long lastModifiedRemote = -1L;
-		do {
-			try {
-				lastModifiedRemote = transport.getLastModified(location, monitor);
-			} catch (CoreException e) {
-				if (e.getStatus() == null) {
-					throw e;
-				}
-				exception = e;
-			}
-		} while (exception != null && exception.getStatus() != null && exception.getStatus().getCode() == IArtifactRepository.CODE_RETRY);
-		if (exception != null)
-			throw exception;
-		return lastModifiedRemote;
+	/**
+	 * Returns the file remembering the validators of the given cache file, that is
+	 * the entity tag and last modified date the server sent along with it.
+	 */
+	private static File getValidatorsFile(File cacheFile) {
+		return new File(cacheFile.getParentFile(), cacheFile.getName() + VALIDATORS_EXTENSION);
+	}
+
+	private static Properties readValidators(File cacheFile) {
+		File validatorsFile = getValidatorsFile(cacheFile);
+		if (!validatorsFile.exists())
+			return null;
+		Properties validators = new Properties();
+		try (InputStream in = new FileInputStream(validatorsFile)) {
+			validators.load(in);
+		} catch (IOException | IllegalArgumentException e) {
+			// the cache file will be downloaded again
+			return new Properties();
+		}
+		return validators;
+	}
+
+	private static void writeValidators(File cacheFile, String eTag, long lastModified) {
+		Properties validators = new Properties();
+		if (eTag != null)
+			validators.setProperty(ETAG, eTag);
+		if (lastModified > 0)
+			validators.setProperty(LAST_MODIFIED, Long.toString(lastModified));
+		try (OutputStream out = new FileOutputStream(getValidatorsFile(cacheFile))) {
+			validators.store(out, null);
+		} catch (IOException e) {
+			// not fatal, the cache file will be downloaded again on the next refresh
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID, e.getMessage(), e));
+		}
+	}
+
+	private static long parseLong(String value) {
+		if (value == null)
+			return 0L;
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+	/**
+	 * Deletes the given cache file along with its validators.
+	 */
+	private void deleteCacheFile(File cacheFile) {
+		safeDelete(cacheFile);
+		safeDelete(getValidatorsFile(cacheFile));
 	}
 
 	/**
@@ -295,8 +374,8 @@ public class CacheManager {
 		for (String prefix : knownPrefixes) {
 			File[] cacheFiles = getCacheFiles(repositoryLocation, prefix);
 			for (File cacheFile : cacheFiles) {
-				// delete the cache file if it exists
-				safeDelete(cacheFile);
+				// delete the cache file and its validators if they exist
+				deleteCacheFile(cacheFile);
 				// delete a resumable download if it exists
 				safeDelete(new File(new File(cacheFile.getParentFile(), DOWNLOADING), cacheFile.getName()));
 			}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.spi.IAgentService;
+
+/**
+ * The download threads shared by all the artifact repositories of an agent.
+ * <p>
+ * Each call to {@link #invokeAll} submits one batch of tasks. The threads pick
+ * the tasks of the pending batches in turn, so that a large download does not
+ * hold back the ones started after it by other provisioning operations.
+ */
+public class DownloadExecutor implements IAgentService {
+	/**
+	 * Service name for the download executor service.
+	 */
+	public static final String SERVICE_NAME = DownloadExecutor.class.getName();
+
+	/**
+	 * The agent property giving the maximum number of download threads.
+	 */
+	public static final String PROP_MAX_THREADS = "eclipse.p2.max.threads"; //$NON-NLS-1$
+	public static final int DEFAULT_MAX_THREADS = 4;
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static DownloadExecutor defaultExecutor;
+
+	private final int maxThreads;
+	private final ThreadPoolExecutor pool;
+	/** The batches having tasks left to start, in turn order */
+	private final Deque<Batch> batches = new ArrayDeque<>();
+	private int queued;
+	private int active;
+	private long completed;
+	private long busyNanos;
+	private final long startNanos = System.nanoTime();
+
+	private static final class Batch {
+		final Deque<Runnable> tasks;
+		final int maxConcurrency;
+		final CountDownLatch remaining;
+		int running;
+
+		Batch(Collection<? extends Runnable> tasks, int maxConcurrency) {
+			this.tasks = new ArrayDeque<>(tasks);
+			this.maxConcurrency = maxConcurrency;
+			this.remaining = new CountDownLatch(tasks.size());
+		}
+	}
+
+	private record Work(Batch batch, Runnable task) {
+	}
+
+	public DownloadExecutor(int maxThreads) {
+		this.maxThreads = Math.max(1, maxThreads);
+		AtomicInteger count = new AtomicInteger();
+		pool = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "p2 Download Worker-" + count.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the download executor of the given agent, or an executor shared
+	 * by the whole VM when the agent does not provide one.
+	 */
+	public static DownloadExecutor getExecutor(IProvisioningAgent agent) {
+		DownloadExecutor executor = agent == null ? null : (DownloadExecutor) agent.getService(SERVICE_NAME);
+		if (executor != null) {
+			return executor;
+		}
+		synchronized (DownloadExecutor.class) {
+			if (defaultExecutor == null) {
+				defaultExecutor = new DownloadExecutor(DEFAULT_MAX_THREADS);
+			}
+			return defaultExecutor;
+		}
+	}
+
+	/**
+	 * Runs the given tasks on the download threads, at most
+	 * <code>maxConcurrency</code> of them at the same time, and waits for all
+	 * of them to be done. When the monitor is canceled the tasks that have not
+	 * started yet are dropped, and this method returns once the running ones
+	 * are done.
+	 *
+	 * @return <code>false</code> if some tasks were dropped because of a
+	 *         cancellation, <code>true</code> otherwise
+	 */
+	public boolean invokeAll(Collection<? extends Runnable> tasks, int maxConcurrency, IProgressMonitor monitor) {
+		if (tasks.isEmpty()) {
+			return true;
+		}
+		Batch batch = new Batch(tasks, Math.max(1, maxConcurrency));
+		synchronized (this) {
+			batches.add(batch);
+			queued += tasks.size();
+		}
+		for (int i = Math.min(batch.maxConcurrency, tasks.size()); i > 0; i--) {
+			pool.execute(this::drain);
+		}
+		boolean interrupted = false;
+		boolean dropped = false;
+		try {
+			while (true) {
+				try {
+					if (batch.remaining.await(100, TimeUnit.MILLISECONDS)) {
+						return !dropped;
+					}
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+				if (!dropped && (interrupted || monitor.isCanceled())) {
+					dropped = true;
+					drop(batch);
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private synchronized void drop(Batch batch) {
+		batches.remove(batch);
+		queued -= batch.tasks.size();
+		while (!batch.tasks.isEmpty()) {
+			batch.tasks.remove();
+			batch.remaining.countDown();
+		}
+	}
+
+	/**
+	 * Runs the next tasks of the pending batches until there is none this
+	 * thread may start.
+	 */
+	private void drain() {
+		Work work;
+		while ((work = next()) != null) {
+			long start = System.nanoTime();
+			try {
+				work.task().run();
+			} catch (RuntimeException | LinkageError e) {
+				LogHelper.log(Status.error(e.getMessage(), e));
+			} finally {
+				finished(work.batch(), System.nanoTime() - start);
+				work.batch().remaining.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Takes the next task of the first pending batch below its concurrency
+	 * limit and moves that batch at the end of the turn.
+	 */
+	private synchronized Work next() {
+		for (Iterator<Batch> iterator = batches.iterator(); iterator.hasNext();) {
+			Batch batch = iterator.next();
+			if (batch.running < batch.maxConcurrency) {
+				iterator.remove();
+				Runnable task = batch.tasks.remove();
+				if (!batch.tasks.isEmpty()) {
+					batches.add(batch);
+				}
+				batch.running++;
+				queued--;
+				active++;
+				return new Work(batch, task);
+			}
+		}
+		return null;
+	}
+
+	private synchronized void finished(Batch batch, long nanos) {
+		batch.running--;
+		active--;
+		completed++;
+		busyNanos += nanos;
+	}
+
+	/**
+	 * Returns the number of tasks waiting for a download thread.
+	 */
+	public synchronized int getQueueDepth() {
+		return queued;
+	}
+
+	/**
+	 * Returns the number of tasks currently running.
+	 */
+	public synchronized int getActiveCount() {
+		return active;
+	}
+
+	/**
+	 * Returns the number of tasks run since this executor was created.
+	 */
+	public synchronized long getCompletedCount() {
+		return completed;
+	}
+
+	/**
+	 * Returns the number of tasks run per second since this executor was
+	 * created.
+	 */
+	public synchronized double getThroughput() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds > 0 ? completed / seconds : 0;
+	}
+
+	/**
+	 * Returns the average running time of a task, in milliseconds.
+	 */
+	public synchronized double getAverageTaskTime() {
+		return completed > 0 ? busyNanos / 1e6 / completed : 0;
+	}
+
+	public int getMaximumThreads() {
+		return maxThreads;
+	}
+
+	@Override
+	public void start() {
+		// threads are started on demand
+	}
+
+	@Override
+	public void stop() {
+		if (Tracing.DEBUG) {
+			Tracing.debug("Download executor: " + getCompletedCount() + " tasks, " + getAverageTaskTime() //$NON-NLS-1$ //$NON-NLS-2$
+					+ " ms average, " + getThroughput() + " tasks/s"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		pool.shutdown();
+	}
+}
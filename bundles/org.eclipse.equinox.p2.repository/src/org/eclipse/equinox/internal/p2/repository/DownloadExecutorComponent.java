@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.spi.IAgentServiceFactory;
+
+public class DownloadExecutorComponent implements IAgentServiceFactory {
+
+	@Override
+	public Object createService(IProvisioningAgent agent) {
+		int maxThreads = DownloadExecutor.DEFAULT_MAX_THREADS;
+		String value = agent.getProperty(DownloadExecutor.PROP_MAX_THREADS);
+		if (value != null) {
+			try {
+				maxThreads = Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default number of threads
+			}
+		}
+		return new DownloadExecutor(maxThreads);
+	}
+
+}
@@ -26,6 +26,8 @@ public class DownloadStatus extends Status {
 	private long speed = UNKNOWN_RATE;
 	private long fileSize = UNKNOWN_SIZE;
 	private long lastModified = 0;
+	private String eTag;
+	private boolean notModified;
 
 	/**
 	 * Constructs a new DownloadStatus with the given attributes.
@@ -79,6 +81,39 @@ public class DownloadStatus extends Status {
 		return lastModified;
 	}
 
+	/**
+	 * Sets the entity tag the server sent with the downloaded content.
+	 */
+	public void setETag(String eTag) {
+		this.eTag = eTag;
+	}
+
+	/**
+	 * Returns the entity tag the server sent with the downloaded content, or
+	 * <code>null</code> if there was none or the transport does not report it.
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Marks the result of a conditional download as telling that the cached
+	 * copy is still current, in which case nothing was downloaded.
+	 */
+	public void setNotModified(boolean notModified) {
+		this.notModified = notModified;
+	}
+
+	/**
+	 * Returns whether this is the result of a conditional download for which
+	 * the cached copy is still current.
+	 *
+	 * @see Transport#downloadIfModified(java.net.URI, java.io.OutputStream, String, long, org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	public boolean isNotModified() {
+		return notModified;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder(super.toString());
@@ -33,6 +33,7 @@ public class Messages extends NLS {
 	public static String io_failedRead;
 	public static String ecf_configuration_error;
 	public static String repoMan_internalError;
+	public static String repoMan_cyclicComposite;
 	public static String repo_loading;
 
 	public static String exception_malformedRepoURI;
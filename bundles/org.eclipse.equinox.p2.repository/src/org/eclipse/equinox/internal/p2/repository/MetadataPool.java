@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import java.util.List;
+import java.util.Map;
+import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.p2.core.*;
+import org.eclipse.equinox.p2.metadata.*;
+
+/**
+ * The canonical instances of the metadata read by the parsers, repositories
+ * and profiles of an agent. Equal units, capabilities, requirements, versions,
+ * version ranges and property maps read from different repositories or
+ * profiles are replaced by the one instance kept here, so that each is held
+ * in memory only once. The instances are held weakly and are dropped once
+ * nothing else refers to them.
+ */
+public class MetadataPool {
+	/**
+	 * Service name for the metadata pool service.
+	 */
+	public static final String SERVICE_NAME = MetadataPool.class.getName();
+
+	/**
+	 * A {@link WeakPool} that can be used from several threads and counts its
+	 * hits, that is the objects it replaced by an equal one it already held.
+	 */
+	public static final class Pool<T> implements IPool<T> {
+		private final String name;
+		private final IPool<T> pool = new WeakPool<>();
+		private long hits;
+		private long misses;
+
+		Pool(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public synchronized T add(T newObject) {
+			if (newObject == null)
+				return null;
+			T result = pool.add(newObject);
+			if (result == newObject)
+				misses++;
+			else
+				hits++;
+			return result;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public synchronized long getHits() {
+			return hits;
+		}
+
+		public synchronized long getMisses() {
+			return misses;
+		}
+
+		/**
+		 * Returns the share of the added objects that were replaced by an equal
+		 * one, between 0 and 1.
+		 */
+		public synchronized double getHitRate() {
+			long total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return name + ": " + hits + " hits, " + misses + " misses (" + Math.round(getHitRate() * 100) + "%)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+
+	private final Pool<IInstallableUnit> units = new Pool<>("units"); //$NON-NLS-1$
+	private final Pool<IProvidedCapability> capabilities = new Pool<>("capabilities"); //$NON-NLS-1$
+	private final Pool<IRequirement> requirements = new Pool<>("requirements"); //$NON-NLS-1$
+	private final Pool<Version> versions = new Pool<>("versions"); //$NON-NLS-1$
+	private final Pool<VersionRange> versionRanges = new Pool<>("version ranges"); //$NON-NLS-1$
+	private final Pool<OrderedProperties> properties = new Pool<>("properties"); //$NON-NLS-1$
+
+	/**
+	 * Returns the metadata pool of the given agent, or <code>null</code> if the
+	 * agent does not provide one.
+	 */
+	public static MetadataPool getPool(IProvisioningAgent agent) {
+		return agent == null ? null : (MetadataPool) agent.getService(SERVICE_NAME);
+	}
+
+	/**
+	 * Returns the pool of the units, as given to
+	 * {@link org.eclipse.equinox.p2.repository.metadata.IMetadataRepository#compress(IPool)}.
+	 */
+	public IPool<IInstallableUnit> getUnits() {
+		return units;
+	}
+
+	public IProvidedCapability shareCapability(IProvidedCapability capability) {
+		return capabilities.add(capability);
+	}
+
+	public IRequirement shareRequirement(IRequirement requirement) {
+		return requirements.add(requirement);
+	}
+
+	public Version shareVersion(Version version) {
+		return versions.add(version);
+	}
+
+	public VersionRange shareVersionRange(VersionRange range) {
+		return versionRanges.add(range);
+	}
+
+	/**
+	 * Returns an unmodifiable map equal to the given one. Callers that change
+	 * the properties afterwards must do so on a copy.
+	 */
+	public OrderedProperties shareProperties(Map<String, String> map) {
+		if (map == null)
+			return null;
+		return properties.add(OrderedProperties.unmodifiableProperties(map));
+	}
+
+	/**
+	 * Returns the pools of each kind of metadata, giving their hit rates.
+	 */
+	public List<Pool<?>> getPools() {
+		return List.of(units, capabilities, requirements, versions, versionRanges, properties);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("Metadata pool"); //$NON-NLS-1$
+		for (Pool<?> pool : getPools())
+			result.append("; ").append(pool); //$NON-NLS-1$
+		return result.toString();
+	}
+}
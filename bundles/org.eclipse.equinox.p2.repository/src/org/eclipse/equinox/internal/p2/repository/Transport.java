@@ -180,6 +180,77 @@ public abstract class Transport {
 	public abstract long getLastModified(URI toDownload, IProgressMonitor monitor)
 			throws CoreException, FileNotFoundException, AuthenticationFailedException;
 
+	/**
+	 * Performs a conditional download: the content of the given URI is written
+	 * into the target only if it differs from the copy described by the given
+	 * validators. If the <code>target</code> is an instance of {@link IStateful}
+	 * the resulting status is also set on the target.
+	 * <p>
+	 * When the copy is still current the returned status is OK,
+	 * {@link DownloadStatus#isNotModified() not modified}, and nothing is written
+	 * into the target. Otherwise the result is the one of a plain
+	 * {@link #download(URI, OutputStream, IProgressMonitor) download}, reporting
+	 * the validators of the new content when they are known.
+	 * </p>
+	 * <p>
+	 * The default implementation ignores the entity tag, asks for the last
+	 * modified date first and then downloads, which takes two round trips when
+	 * the copy is stale. Subclasses
+	 * able to send a conditional request should override it to take a single
+	 * one.
+	 * </p>
+	 *
+	 * @return IStatus, that is a {@link DownloadStatus} on success.
+	 * @param toDownload   URI of file to download
+	 * @param target       OutputStream where result is written
+	 * @param eTag         the entity tag of the cached copy, or <code>null</code>
+	 * @param lastModified the last modified date of the cached copy, or 0 if
+	 *                     there is no cached copy
+	 * @param monitor      where progress should be reported
+	 * @throws OperationCanceledException if the operation was canceled.
+	 */
+	public IStatus downloadIfModified(URI toDownload, OutputStream target, String eTag, long lastModified,
+			IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
+		long lastModifiedRemote = 0L;
+		if (lastModified > 0) {
+			try {
+				lastModifiedRemote = getLastModified(toDownload, subMonitor.split(1));
+			} catch (FileNotFoundException e) {
+				return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+						ProvisionException.ARTIFACT_NOT_FOUND, e.getMessage(), e));
+			} catch (AuthenticationFailedException e) {
+				return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+						ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, e.getMessage(), e));
+			} catch (CoreException e) {
+				IStatus status = e.getStatus();
+				if (status == null)
+					status = new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ,
+							e.getMessage(), e);
+				if (target instanceof IStateful)
+					((IStateful) target).setStatus(status);
+				return status;
+			}
+			// bug 269588 - server may return 0 when file exists - assume the copy is stale
+			if (lastModifiedRemote > 0 && lastModifiedRemote == lastModified) {
+				DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+				status.setLastModified(lastModifiedRemote);
+				status.setNotModified(true);
+				return statusOn(target, status);
+			}
+		}
+		IStatus result = download(toDownload, target, subMonitor.split(1));
+		if (lastModifiedRemote > 0 && result instanceof DownloadStatus && ((DownloadStatus) result).getLastModified() <= 0)
+			((DownloadStatus) result).setLastModified(lastModifiedRemote);
+		return result;
+	}
+
+	private static IStatus statusOn(OutputStream target, DownloadStatus status) {
+		if (target instanceof IStateful)
+			((IStateful) target).setStatus(status);
+		return status;
+	}
+
 	/**
 	 * Returns the corresponding secure location given an arbitrary location.
 	 * Subclasses are encouraged to use this method, to ensure that only secure
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository.helpers;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.repository.*;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Loads the children of a composite repository concurrently.
+ * <p>
+ * The children of top level composites are loaded by threads shared by the
+ * whole VM. A composite loaded by one of these threads loads its own children
+ * on that same thread, so that a nested load never waits for a thread its
+ * parent holds and the number of threads does not grow with the nesting depth.
+ * A child that is one of the composites it is being loaded for is reported as
+ * a failure instead of being loaded, since its load would wait for itself.
+ */
+public final class ChildRepositoryLoader {
+
+	private static final long POLL_MILLIS = 100;
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static final int RUNNING = 0;
+	/** No new load is started after a failure */
+	private static final int STOPPED = 1;
+	private static final int CANCELED = 2;
+
+	/** The composites being loaded by the current thread, outermost first */
+	private static final ThreadLocal<Set<String>> LOADING = new ThreadLocal<>();
+
+	private static ThreadPoolExecutor executor;
+
+	/**
+	 * Loads one child repository.
+	 */
+	@FunctionalInterface
+	public interface Loader<R> {
+		R load(URI location, IProgressMonitor monitor) throws ProvisionException;
+	}
+
+	/**
+	 * The outcome of loading one child: either the repository or the failure,
+	 * or neither when the child was not loaded because an earlier one failed.
+	 */
+	public record Result<R>(R repository, ProvisionException failure) {
+	}
+
+	private ChildRepositoryLoader() {
+		// static helpers only
+	}
+
+	/**
+	 * Loads the given children of a composite, at most
+	 * {@link DownloadExecutor#PROP_MAX_THREADS} of them at the same time, and
+	 * returns the results in the order of the children.
+	 *
+	 * @param parent        the location of the composite
+	 * @param stopOnFailure whether to stop starting new loads once one failed
+	 * @param monitor       a monitor receiving 100 units of work per child
+	 * @throws OperationCanceledException if the monitor was canceled
+	 */
+	public static <R> List<Result<R>> loadAll(IProvisioningAgent agent, URI parent, List<URI> children, Loader<R> loader, boolean stopOnFailure, IProgressMonitor monitor) {
+		SubMonitor sub = SubMonitor.convert(monitor, 100 * children.size());
+		Set<String> outer = LOADING.get();
+		Set<String> loading = outer == null ? new LinkedHashSet<>() : new LinkedHashSet<>(outer);
+		if (parent != null)
+			loading.add(getKey(parent));
+		int threads = Math.min(children.size(), getMaxThreads(agent));
+		if (outer != null || threads <= 1) {
+			LOADING.set(loading);
+			try {
+				List<Result<R>> results = new ArrayList<>(children.size());
+				boolean failed = false;
+				for (URI child : children) {
+					if (failed) {
+						results.add(new Result<>(null, null));
+						continue;
+					}
+					Result<R> result = load(loader, child, loading, sub.newChild(100));
+					failed = stopOnFailure && result.failure() != null;
+					results.add(result);
+				}
+				return results;
+			} finally {
+				if (outer == null)
+					LOADING.remove();
+				else
+					LOADING.set(outer);
+			}
+		}
+
+		// the workers only look at this flag, the progress monitor is left to the calling thread
+		AtomicInteger state = new AtomicInteger(RUNNING);
+		IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return state.get() != RUNNING;
+			}
+		};
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger done = new AtomicInteger();
+		AtomicReferenceArray<Result<R>> results = new AtomicReferenceArray<>(children.size());
+		Callable<Void> worker = () -> {
+			LOADING.set(loading);
+			try {
+				for (int i; (i = next.getAndIncrement()) < children.size(); done.incrementAndGet()) {
+					if (state.get() != RUNNING) {
+						results.set(i, new Result<>(null, null));
+						continue;
+					}
+					try {
+						Result<R> result = load(loader, children.get(i), loading, workerMonitor);
+						if (stopOnFailure && result.failure() != null)
+							state.compareAndSet(RUNNING, STOPPED);
+						results.set(i, result);
+					} catch (OperationCanceledException e) {
+						// a load interrupted after a failure of another child is not a cancellation
+						state.compareAndSet(RUNNING, CANCELED);
+						results.set(i, new Result<>(null, null));
+					}
+				}
+				return null;
+			} finally {
+				LOADING.remove();
+			}
+		};
+		ExecutorService pool = getExecutor(threads);
+		List<Future<Void>> workers = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++)
+			workers.add(pool.submit(worker));
+		int reported = 0;
+		for (Future<Void> future : workers) {
+			while (!await(future, state)) {
+				reported = reportProgress(sub, done.get(), reported);
+				if (sub.isCanceled())
+					state.set(CANCELED);
+			}
+		}
+		reportProgress(sub, done.get(), reported);
+		if (state.get() == CANCELED)
+			throw new OperationCanceledException();
+		List<Result<R>> list = new ArrayList<>(children.size());
+		for (int i = 0; i < children.size(); i++)
+			list.add(results.get(i));
+		return list;
+	}
+
+	private static <R> Result<R> load(Loader<R> loader, URI child, Set<String> loading, IProgressMonitor monitor) {
+		if (loading.contains(getKey(child))) {
+			String msg = NLS.bind(Messages.repoMan_cyclicComposite, child);
+			return new Result<>(null, new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, null)));
+		}
+		try {
+			return new Result<>(loader.load(child, monitor), null);
+		} catch (ProvisionException e) {
+			return new Result<>(null, e);
+		}
+	}
+
+	private static int reportProgress(SubMonitor monitor, int done, int reported) {
+		if (done > reported)
+			monitor.worked(100 * (done - reported));
+		return Math.max(done, reported);
+	}
+
+	/**
+	 * Waits a short while for the given worker to finish.
+	 *
+	 * @return whether the worker is done
+	 */
+	private static boolean await(Future<Void> future, AtomicInteger state) {
+		try {
+			future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			state.set(CANCELED);
+			return false;
+		} catch (ExecutionException e) {
+			state.set(CANCELED);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtime)
+				throw runtime;
+			if (cause instanceof Error error)
+				throw error;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Returns the threads shared by all the composite loads, growing them to at
+	 * least the given number.
+	 */
+	private static synchronized ExecutorService getExecutor(int threads) {
+		if (executor == null) {
+			AtomicInteger count = new AtomicInteger();
+			executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread thread = new Thread(r, "p2 Composite Loader-" + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.allowCoreThreadTimeOut(true);
+		} else if (threads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(threads);
+			executor.setCorePoolSize(threads);
+		}
+		return executor;
+	}
+
+	private static String getKey(URI location) {
+		String key = location.toString();
+		return key.endsWith("/") ? key.substring(0, key.length() - 1) : key; //$NON-NLS-1$
+	}
+
+	private static int getMaxThreads(IProvisioningAgent agent) {
+		String value = agent == null ? null : agent.getProperty(DownloadExecutor.PROP_MAX_THREADS);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// fall back to the default
+			}
+		}
+		return DownloadExecutor.DEFAULT_MAX_THREADS;
+	}
+}
@@ -40,4 +40,5 @@ class Messages extends NLS {
 	public static String schemeNotSupported;
 	public static String schemeNotProvided;
 	public static String noSuchProvider;
+	public static String repoJournal_compacting;
 }
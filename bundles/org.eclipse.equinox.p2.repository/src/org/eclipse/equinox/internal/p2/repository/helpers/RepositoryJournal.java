@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository.helpers;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.repository.Activator;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The changes made to a local repository since its index was last written.
+ * <p>
+ * A repository with the {@link #PROP_JOURNAL} property appends each change
+ * made outside a batch to a journal file beside its index, instead of writing
+ * the whole index again. Loading the repository replays the journal onto the
+ * index, and writing the index, at the end of a batch or when the journal grows
+ * as large as the index, empties the journal. Only the repository knows what an
+ * entry holds; the journal frames them so that an entry cut short by an
+ * interruption is ignored.
+ * <p>
+ * Readers that do not know about the journal, such as older versions or remote
+ * clients, only see the changes once the index is written again.
+ */
+public class RepositoryJournal {
+
+	/**
+	 * The repository property that enables the journal when set to
+	 * <code>true</code>.
+	 */
+	public static final String PROP_JOURNAL = "p2.journal"; //$NON-NLS-1$
+
+	public static final String JOURNAL_EXTENSION = ".journal"; //$NON-NLS-1$
+
+	/**
+	 * The family of the jobs writing journaled repositories again.
+	 */
+	public static final Object COMPACTION_FAMILY = new Object();
+
+	/** An entry holding elements added to the repository */
+	public static final byte ADDED = '+';
+	/** An entry holding elements removed from the repository */
+	public static final byte REMOVED = '-';
+
+	private static final int HEADER_LENGTH = 5;
+
+	/**
+	 * The journal is not compacted before it reaches this size, however small the
+	 * index is.
+	 */
+	private static final long MIN_COMPACTION_LENGTH = 64 * 1024;
+
+	private static final long COMPACTION_DELAY = 1000;
+
+	/**
+	 * One change recorded in the journal, in the format of the repository.
+	 */
+	public record Entry(byte kind, byte[] content) {
+	}
+
+	private class CompactionJob extends Job {
+		private final Runnable compaction;
+
+		CompactionJob(Runnable compaction) {
+			super(NLS.bind(Messages.repoJournal_compacting, file.getParent()));
+			setSystem(true);
+			this.compaction = compaction;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == COMPACTION_FAMILY;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				compaction.run();
+			} catch (RuntimeException e) {
+				// the journal is kept and replayed until the index is written
+				LogHelper.log(new Status(IStatus.WARNING, Activator.ID, NLS.bind(Messages.repoJournal_compacting, file.getParent()), e));
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	private final File file;
+	/** The end of the last complete entry, as far as this instance knows */
+	private long end;
+	private CompactionJob compactionJob;
+
+	public RepositoryJournal(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public boolean exists() {
+		return file.exists();
+	}
+
+	/**
+	 * Returns the time the journal was last changed, or <code>0</code> if there
+	 * is no journal.
+	 */
+	public long lastModified() {
+		return file.lastModified();
+	}
+
+	/**
+	 * Returns the complete entries of the journal, in the order they were
+	 * appended.
+	 */
+	public synchronized List<Entry> read() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		if (!file.exists())
+			return entries;
+		long length = file.length();
+		long position = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (position + HEADER_LENGTH <= length) {
+				byte kind = in.readByte();
+				int contentLength = in.readInt();
+				if (!isValid(kind, contentLength, position, length))
+					break;
+				byte[] content = new byte[contentLength];
+				in.readFully(content);
+				entries.add(new Entry(kind, content));
+				position += HEADER_LENGTH + contentLength;
+			}
+		}
+		end = position;
+		return entries;
+	}
+
+	/**
+	 * Appends an entry to the journal, dropping first what remains of an entry
+	 * cut short by an interruption.
+	 */
+	public synchronized void append(byte kind, byte[] content) throws IOException {
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) { //$NON-NLS-1$
+			long length = out.length();
+			// another instance may have changed the journal since
+			if (length != end)
+				end = findEnd(out, length);
+			if (end < length)
+				out.setLength(end);
+			byte[] entry = new byte[HEADER_LENGTH + content.length];
+			entry[0] = kind;
+			entry[1] = (byte) (content.length >>> 24);
+			entry[2] = (byte) (content.length >>> 16);
+			entry[3] = (byte) (content.length >>> 8);
+			entry[4] = (byte) content.length;
+			System.arraycopy(content, 0, entry, HEADER_LENGTH, content.length);
+			out.seek(end);
+			out.write(entry);
+			end += entry.length;
+		}
+	}
+
+	private static long findEnd(RandomAccessFile in, long length) throws IOException {
+		long position = 0;
+		while (position + HEADER_LENGTH <= length) {
+			in.seek(position);
+			byte kind = in.readByte();
+			int contentLength = in.readInt();
+			if (!isValid(kind, contentLength, position, length))
+				break;
+			position += HEADER_LENGTH + contentLength;
+		}
+		return position;
+	}
+
+	private static boolean isValid(byte kind, int contentLength, long position, long length) {
+		return (kind == ADDED || kind == REMOVED) && contentLength >= 0 && position + HEADER_LENGTH + contentLength <= length;
+	}
+
+	/**
+	 * Deletes the journal, once the index holds all its changes.
+	 */
+	public synchronized void delete() {
+		file.delete();
+		end = 0;
+	}
+
+	/**
+	 * Returns whether the journal grew large enough, compared to an index of the
+	 * given length, that writing the index again is worth it.
+	 */
+	public boolean shouldCompact(long indexLength) {
+		return file.length() >= Math.max(MIN_COMPACTION_LENGTH, indexLength);
+	}
+
+	/**
+	 * Runs the given compaction shortly in the background, unless it is already
+	 * scheduled. The compaction writes the index again and deletes the journal.
+	 */
+	public synchronized void scheduleCompaction(Runnable compaction) {
+		if (compactionJob == null)
+			compactionJob = new CompactionJob(compaction);
+		if (compactionJob.getState() == Job.NONE)
+			compactionJob.schedule(COMPACTION_DELAY);
+	}
+}
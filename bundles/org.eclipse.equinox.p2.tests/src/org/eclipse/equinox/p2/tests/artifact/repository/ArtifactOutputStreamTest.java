@@ -14,9 +14,19 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.artifact.repository;
 
+import static org.junit.Assert.assertArrayEquals;
+
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository;
 import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository.ArtifactOutputStream;
@@ -140,6 +150,92 @@ public class ArtifactOutputStreamTest extends AbstractProvisioningTest {
 		assertEquals(22, Destination.baos.toByteArray()[0]);
 	}
 
+	public void testPartialTransfers() throws Exception {
+		byte[] content = createContent(100_000);
+		File source = createSourceFile(content);
+		IArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "transferred", Version.create("1.0")));
+		ArtifactOutputStream stream = (ArtifactOutputStream) sar.getOutputStream(descriptor);
+		assertTrue(stream.canTransfer());
+		try (FileInputStream in = new FileInputStream(source)) {
+			FileChannel channel = in.getChannel();
+			// buffered bytes must be flushed before the transferred region
+			stream.write(content, 0, 10);
+			long written = 10;
+			while (written < 60_000) {
+				written += stream.transferFrom(channel, written, 60_000 - written);
+			}
+			stream.write(content, 60_000, 20_000);
+			written += 20_000;
+			while (written < content.length) {
+				written += stream.transferFrom(channel, written, content.length - written);
+			}
+		}
+		stream.close();
+
+		IArtifactDescriptor[] descriptors = sar.getArtifactDescriptors(descriptor.getArtifactKey());
+		assertEquals(1, descriptors.length);
+		assertEquals(Integer.toString(content.length), descriptors[0].getProperty(IArtifactDescriptor.DOWNLOAD_SIZE));
+		assertArrayEquals(content, Files.readAllBytes(sar.getArtifactFile(descriptors[0]).toPath()));
+	}
+
+	public void testTransferAfterClose() throws Exception {
+		File source = createSourceFile(createContent(1000));
+		IArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "closed", Version.create("1.0")));
+		ArtifactOutputStream stream = (ArtifactOutputStream) sar.getOutputStream(descriptor);
+		try (FileInputStream in = new FileInputStream(source)) {
+			assertEquals(1000, stream.transferFrom(in.getChannel(), 0, 1000));
+			stream.close();
+			try {
+				stream.transferFrom(in.getChannel(), 0, 1000);
+				fail("Transferring to a closed stream should fail");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+		IArtifactDescriptor[] descriptors = sar.getArtifactDescriptors(descriptor.getArtifactKey());
+		assertEquals(1, descriptors.length);
+		assertEquals("1000", descriptors[0].getProperty(IArtifactDescriptor.DOWNLOAD_SIZE));
+		assertEquals(1000, sar.getArtifactFile(descriptors[0]).length());
+	}
+
+	public void testTransferredDescriptor() throws Exception {
+		byte[] content = createContent(50_000);
+		String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		ArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "copied", Version.create("1.0")));
+		descriptor.setProperty(IArtifactDescriptor.DOWNLOAD_CHECKSUM + ".sha-256", sha256);
+		try (OutputStream out = sar.getOutputStream(descriptor)) {
+			out.write(content);
+		}
+		IArtifactDescriptor sourceDescriptor = sar.getArtifactDescriptors(descriptor.getArtifactKey())[0];
+
+		File destinationLocation = getTempFolder();
+		SimpleArtifactRepository destinationRepository = new SimpleArtifactRepository(getAgent(), "destination", destinationLocation.toURI(), null);
+		OutputStream out = destinationRepository.getOutputStream(new ArtifactDescriptor(sourceDescriptor));
+		assertTrue(((ArtifactOutputStream) out).canTransfer());
+		IStatus status = sar.getRawArtifact(sourceDescriptor, out, null);
+		out.close();
+		assertOK("copy", status);
+
+		IArtifactDescriptor[] copied = destinationRepository.getArtifactDescriptors(descriptor.getArtifactKey());
+		assertEquals(1, copied.length);
+		assertEquals(Integer.toString(content.length), copied[0].getProperty(IArtifactDescriptor.DOWNLOAD_SIZE));
+		assertEquals(sha256, copied[0].getProperty(IArtifactDescriptor.DOWNLOAD_CHECKSUM + ".sha-256"));
+		byte[] copiedContent = Files.readAllBytes(destinationRepository.getArtifactFile(copied[0]).toPath());
+		assertEquals(sha256, HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(copiedContent)));
+	}
+
+	private static byte[] createContent(int size) {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		return content;
+	}
+
+	private File createSourceFile(byte[] content) throws IOException {
+		File source = new File(getTempFolder(), "source.jar");
+		Files.write(source.toPath(), content);
+		return source;
+	}
+
 	static class Destination extends ProcessingStep {
 
 		static IOException ioe = null;
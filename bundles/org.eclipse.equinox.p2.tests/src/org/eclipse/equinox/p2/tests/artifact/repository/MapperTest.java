@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.artifact.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.URI;
+import java.util.Map;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.Mapper;
+import org.eclipse.equinox.p2.tests.TestActivator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MapperTest {
+	private static final String[][] RULES = { //
+			{"(& (classifier=osgi.bundle) (format=packed))", "${repoUrl}/plugins/${id}_${version}.jar.pack.gz"}, //
+			{"(& (classifier=osgi.bundle))", "${repoUrl}/plugins/${id}_${version}.jar"}, //
+			{"(classifier=binary)", "${repoUrl}/binary/${id}_${version}"}, //
+			{"(&(Classifier=org.eclipse.update.feature))", "${repoUrl}/features/${ID}_${Version}.jar"}, //
+			{"(classifier=x*)", "${repoUrl}/x/${custom}/${missing}${id}"}, //
+			{"(id=unterminated)", "${repoUrl}/${id}/${unterminated"}};
+
+	private Mapper mapper;
+
+	@Before
+	public void setUp() {
+		mapper = new Mapper();
+		mapper.initialize(TestActivator.getContext(), RULES);
+	}
+
+	private URI map(String location, String classifier, String id, String format) throws Exception {
+		return mapper.map(new URI(location), classifier, id, "1.0.0", format, Map.of("custom", "value"));
+	}
+
+	@Test
+	public void testClassifierRules() throws Exception {
+		assertEquals(new URI("file:/repo/plugins/a_1.0.0.jar"), map("file:/repo", "osgi.bundle", "a", null));
+		assertEquals(new URI("file:/repo/binary/a_1.0.0"), map("file:/repo/", "binary", "a", null));
+		assertEquals(new URI("file:/repo/features/a_1.0.0.jar"), map("file:/repo", "org.eclipse.update.feature", "a", null));
+		// classifiers are compared as the OSGi filters compare them
+		assertNull(map("file:/repo", "OSGI.BUNDLE", "a", null));
+		assertNull(map("file:/repo", null, "a", null));
+	}
+
+	@Test
+	public void testFilterRules() throws Exception {
+		assertEquals(new URI("file:/repo/plugins/a_1.0.0.jar.pack.gz"), map("file:/repo", "osgi.bundle", "a", "packed"));
+		assertEquals(new URI("file:/repo/x/value/a"), map("file:/repo", "xyz", "a", null));
+		assertEquals(new URI("$%7BrepoUrl%7D/$%7Bid%7D/$%7Bunterminated"), map("file:/repo", "other", "unterminated", null));
+		assertNull(map("file:/repo", "other", "a", null));
+	}
+
+	@Test
+	public void testSerialize() {
+		String[][] rules = mapper.serialize();
+		Mapper copy = new Mapper();
+		copy.initialize(TestActivator.getContext(), rules);
+		assertArrayEquals(rules, copy.serialize());
+		assertEquals(RULES.length, rules.length);
+	}
+}
@@ -25,9 +25,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -35,6 +38,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository;
 import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepositoryFactory;
 import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryJournal;
 import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.ProcessingStep;
 import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.ProcessingStepHandler;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -46,6 +50,7 @@ import org.eclipse.equinox.p2.query.IQueryable;
 import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.IRepositoryManager;
 import org.eclipse.equinox.p2.repository.artifact.ArtifactDescriptorQuery;
+import org.eclipse.equinox.p2.repository.artifact.ArtifactKeyQuery;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepositoryManager;
@@ -159,6 +164,47 @@ public class SimpleArtifactRepositoryTest extends AbstractProvisioningTest {
 			fail("Repository should create artifact.xml");
 	}
 
+	public void testJournaledRepository() throws Exception {
+		IArtifactRepositoryManager artifactRepositoryManager = getArtifactRepositoryManager();
+		String tempDir = System.getProperty("java.io.tmpdir");
+		repositoryFile = new File(tempDir, "SimpleArtifactRepositoryTest");
+		delete(repositoryFile);
+		repositoryURI = repositoryFile.toURI();
+		Map<String, String> properties = new HashMap<>();
+		properties.put(IRepository.PROP_COMPRESSED, "false");
+		properties.put(RepositoryJournal.PROP_JOURNAL, "true");
+		IArtifactRepository repo = artifactRepositoryManager.createRepository(repositoryURI, "artifact name", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, properties);
+		File artifacts = new File(repositoryFile, "artifacts.xml");
+		File journal = new File(repositoryFile, "artifacts" + RepositoryJournal.JOURNAL_EXTENSION);
+		byte[] index = Files.readAllBytes(artifacts.toPath());
+
+		IArtifactDescriptor descriptor1 = PublisherHelper.createArtifactDescriptor(PublisherHelper.createBinaryArtifactKey("testKeyId", Version.create("1.2.3")), null);
+		IArtifactDescriptor descriptor2 = PublisherHelper.createArtifactDescriptor(PublisherHelper.createBinaryArtifactKey("testKeyId", Version.create("1.2.4")), null);
+		repo.addDescriptors(new IArtifactDescriptor[] {descriptor1, descriptor2}, new NullProgressMonitor());
+		repo.removeDescriptor(descriptor1.getArtifactKey(), new NullProgressMonitor());
+		repo.setProperty("TestKey", "TestValue");
+		// the changes are only appended to the journal
+		assertTrue("1.0", journal.exists());
+		assertTrue("1.1", Arrays.equals(index, Files.readAllBytes(artifacts.toPath())));
+
+		artifactRepositoryManager.removeRepository(repositoryURI);
+		repo = artifactRepositoryManager.loadRepository(repositoryURI, null);
+		assertFalse("2.0", repo.contains(descriptor1));
+		assertTrue("2.1", repo.contains(descriptor2));
+		assertEquals("2.2", "TestValue", repo.getProperty("TestKey"));
+
+		// writing the whole repository empties the journal
+		repo.executeBatch(monitor -> {
+			// nothing to change
+		}, null);
+		assertFalse("3.0", journal.exists());
+		artifactRepositoryManager.removeRepository(repositoryURI);
+		repo = artifactRepositoryManager.loadRepository(repositoryURI, null);
+		assertFalse("3.1", repo.contains(descriptor1));
+		assertTrue("3.2", repo.contains(descriptor2));
+		assertEquals("3.3", "TestValue", repo.getProperty("TestKey"));
+	}
+
 	public void testLoadInvalidLocation() {
 		try {
 			getArtifactRepositoryManager().loadRepository(new URI("file:d:/foo"), getMonitor());
@@ -414,6 +460,45 @@ public class SimpleArtifactRepositoryTest extends AbstractProvisioningTest {
 		assertEquals(d3.getArtifactKey(), resultDescriptor.getArtifactKey());
 	}
 
+	public void testReadWhileWriting() throws Exception {
+		File folder = getTestFolder("ArtifactRepository_testReadWhileWriting");
+		repositoryURI = folder.toURI();
+
+		IArtifactRepository repo = getArtifactRepositoryManager().createRepository(repositoryURI, "test", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		IProgressMonitor monitor = new NullProgressMonitor();
+		ArtifactDescriptor first = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "a0", Version.create("1.0.0")));
+		repo.addDescriptor(first, monitor);
+		// a query keeps the descriptors it started with
+		Iterator<IArtifactKey> keys = repo.query(ArtifactKeyQuery.ALL_KEYS, monitor).iterator();
+
+		int count = 100;
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				for (int i = 0; i < count; i++) {
+					assertTrue(repo.contains(first.getArtifactKey()));
+					assertEquals(1, repo.getArtifactDescriptors(first.getArtifactKey()).length);
+					queryResultSize(repo.descriptorQueryable().query(new ArtifactDescriptorQuery("a" + i, null, null), null));
+				}
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		for (int i = 1; i < count; i++)
+			repo.addDescriptor(new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "a" + i, Version.create("1.0.0"))), monitor);
+		reader.join();
+		if (failure.get() != null)
+			fail("1.0", failure.get());
+
+		assertEquals("2.0", first.getArtifactKey(), keys.next());
+		assertFalse("2.1", keys.hasNext());
+		assertEquals("2.2", count, queryResultSize(repo.query(ArtifactKeyQuery.ALL_KEYS, monitor)));
+		repo.removeDescriptor(first.getArtifactKey(), monitor);
+		assertFalse("2.3", repo.contains(first.getArtifactKey()));
+		assertEquals("2.4", count - 1, queryResultSize(repo.descriptorQueryable().query(ArtifactDescriptorQuery.ALL_DESCRIPTORS, null)));
+	}
+
 	/*
 	 * Tests the number of threads allowed
 	 */
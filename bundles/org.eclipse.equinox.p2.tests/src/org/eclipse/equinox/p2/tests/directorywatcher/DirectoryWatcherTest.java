@@ -19,8 +19,11 @@ import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.equinox.internal.provisional.p2.directorywatcher.DirectoryChangeListener;
@@ -105,4 +108,56 @@ public class DirectoryWatcherTest extends AbstractProvisioningTest {
 		watcher.poll();
 		assertEquals(2, list.size());
 	}
+
+	public void testDirectoryWatcherEvents() throws Exception {
+		File folder = getTempFolder();
+		Hashtable<String, String> props = new Hashtable<>();
+		props.put(DirectoryWatcher.DIR, folder.getAbsolutePath());
+		props.put(DirectoryWatcher.WATCH, "true");
+
+		DirectoryWatcher watcher = new DirectoryWatcher(props, TestActivator.getContext());
+		final Set<File> files = Collections.synchronizedSet(new HashSet<>());
+		watcher.addListener(new DirectoryChangeListener() {
+			@Override
+			public boolean added(File file) {
+				return files.add(file);
+			}
+
+			@Override
+			public boolean removed(File file) {
+				return files.remove(file);
+			}
+
+			@Override
+			public boolean isInterested(File file) {
+				return true;
+			}
+
+			@Override
+			public Long getSeenFile(File file) {
+				return files.contains(file) ? file.lastModified() : null;
+			}
+		});
+		watcher.start(100);
+		try {
+			File bundle = new File(folder, "bundle.jar");
+			assertTrue(bundle.createNewFile());
+			waitFor(() -> files.contains(bundle));
+			// a deletion marker removes the file
+			assertTrue(new File(folder, "bundle.jar.del").createNewFile());
+			waitFor(() -> !files.contains(bundle));
+			waitFor(() -> !bundle.exists());
+		} finally {
+			watcher.stop();
+		}
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long end = System.currentTimeMillis() + 10000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > end)
+				fail("The watcher did not notice the change");
+			Thread.sleep(50);
+		}
+	}
 }
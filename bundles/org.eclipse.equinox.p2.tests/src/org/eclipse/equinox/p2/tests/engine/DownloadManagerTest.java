@@ -15,6 +15,7 @@ package org.eclipse.equinox.p2.tests.engine;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -22,11 +23,16 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.equinox.internal.p2.engine.DownloadManager;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.query.CollectionResult;
+import org.eclipse.equinox.p2.query.IQueryable;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.TestArtifactRepository;
 
 /**
  * Simple tests of {@link DownloadManager} API.
@@ -236,6 +242,113 @@ public class DownloadManagerTest extends AbstractProvisioningTest {
 
 	}
 
+	public void testFallbackToNextRepository() throws URISyntaxException {
+		IArtifactKey shared = new ArtifactKey("osgi.bundle", "shared", Version.create("1.0.0"));
+		IArtifactKey broken = new ArtifactKey("osgi.bundle", "broken", Version.create("1.0.0"));
+		IArtifactKey remote = new ArtifactKey("osgi.bundle", "remote", Version.create("1.0.0"));
+		FakeRepository first = new FakeRepository(new URI("http://first.example.org/repo"), Set.of(shared, broken), Set.of(broken));
+		FakeRepository second = new FakeRepository(new URI("http://second.example.org/repo"), Set.of(shared, broken, remote), Set.of());
+		ProvisioningContext context = new ProvisioningContext(getAgent()) {
+			@Override
+			public IQueryable<IArtifactRepository> getArtifactRepositories(IProgressMonitor monitor) {
+				return new CollectionResult<>(List.of(first, second));
+			}
+		};
+		context.setProperty(DownloadManager.PROP_MAX_BATCHES_PER_HOST, "1");
+		DownloadManager manager = createDownloadManager(context);
+		List<RecordingRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			requests.add(new RecordingRequest(i % 3 == 0 ? shared : i % 3 == 1 ? broken : remote));
+		}
+		manager.add(requests.toArray(new IArtifactRequest[requests.size()]));
+		IStatus result = manager.start(null);
+		assertTrue(result.getMessage(), result.isOK());
+		for (RecordingRequest request : requests) {
+			assertTrue(request.getResult().isOK());
+			if (request.getArtifactKey() == shared) {
+				assertEquals(List.of(first), request.repositories);
+			} else if (request.getArtifactKey() == broken) {
+				assertEquals(List.of(first, second), request.repositories);
+			} else {
+				assertEquals(List.of(second), request.repositories);
+			}
+		}
+	}
+
+	public void testMissingFromAllRepositories() throws URISyntaxException {
+		IArtifactKey missing = new ArtifactKey("osgi.bundle", "missing", Version.create("1.0.0"));
+		FakeRepository first = new FakeRepository(new URI("http://first.example.org/repo"), Set.of(missing), Set.of(missing));
+		FakeRepository second = new FakeRepository(new URI("http://second.example.org/repo"), Set.of(), Set.of());
+		ProvisioningContext context = new ProvisioningContext(getAgent()) {
+			@Override
+			public IQueryable<IArtifactRepository> getArtifactRepositories(IProgressMonitor monitor) {
+				return new CollectionResult<>(List.of(first, second));
+			}
+		};
+		DownloadManager manager = createDownloadManager(context);
+		RecordingRequest request = new RecordingRequest(missing);
+		manager.add(request);
+		IStatus result = manager.start(null);
+		assertEquals(IStatus.ERROR, result.getSeverity());
+		assertEquals(List.of(first), request.repositories);
+	}
+
+	/**
+	 * A request remembering the repositories it was performed against.
+	 */
+	static class RecordingRequest implements IArtifactRequest {
+		final List<IArtifactRepository> repositories = Collections.synchronizedList(new ArrayList<>());
+		private final IArtifactKey key;
+		private IStatus result;
+
+		RecordingRequest(IArtifactKey key) {
+			this.key = key;
+		}
+
+		@Override
+		public IArtifactKey getArtifactKey() {
+			return key;
+		}
+
+		@Override
+		public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+			repositories.add(sourceRepository);
+			result = ((FakeRepository) sourceRepository).failing.contains(key) ? Status.error("Cannot fetch " + key) : Status.OK_STATUS;
+		}
+
+		@Override
+		public IStatus getResult() {
+			return result;
+		}
+	}
+
+	/**
+	 * A repository containing the given keys, failing to provide some of them.
+	 */
+	class FakeRepository extends TestArtifactRepository {
+		private final Set<IArtifactKey> keys;
+		final Set<IArtifactKey> failing;
+
+		FakeRepository(URI location, Set<IArtifactKey> keys, Set<IArtifactKey> failing) {
+			super(getAgent(), location);
+			this.keys = keys;
+			this.failing = failing;
+		}
+
+		@Override
+		public boolean contains(IArtifactKey key) {
+			return keys.contains(key);
+		}
+
+		@Override
+		public IStatus getArtifacts(IArtifactRequest[] requests, IProgressMonitor monitor) {
+			for (IArtifactRequest request : requests) {
+				request.perform(this, monitor);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	private DownloadManager createDownloadManager(ProvisioningContext context) {
 		return new DownloadManager(context, getAgent());
 	}
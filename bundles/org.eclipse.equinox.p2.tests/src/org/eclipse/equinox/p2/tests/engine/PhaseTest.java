@@ -21,14 +21,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.engine.CollectEvent;
+import org.eclipse.equinox.internal.p2.engine.InstallableUnitEvent;
 import org.eclipse.equinox.internal.p2.engine.InstallableUnitOperand;
 import org.eclipse.equinox.internal.p2.engine.InstallableUnitPhase;
 import org.eclipse.equinox.internal.p2.engine.Operand;
@@ -36,10 +40,14 @@ import org.eclipse.equinox.internal.p2.engine.ParameterizedProvisioningAction;
 import org.eclipse.equinox.internal.p2.engine.Phase;
 import org.eclipse.equinox.internal.p2.engine.PhaseSet;
 import org.eclipse.equinox.internal.p2.engine.phases.Collect;
+import org.eclipse.equinox.internal.p2.engine.phases.Install;
+import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.ProvisioningListener;
+import org.eclipse.equinox.internal.provisional.p2.core.eventbus.SynchronousProvisioningListener;
 import org.eclipse.equinox.p2.engine.IEngine;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProvisioningPlan;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
@@ -397,4 +405,148 @@ public class PhaseTest extends AbstractProvisioningTest {
 			getEventBus().removeListener(listener);
 		}
 	}
+
+	/**
+	 * A phase performing all its operands concurrently, whose action fails for the
+	 * unit named "fail".
+	 */
+	static class ParallelPhase extends InstallableUnitPhase {
+		final Set<String> executed = ConcurrentHashMap.newKeySet();
+		final Set<String> undone = ConcurrentHashMap.newKeySet();
+		final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+		ParallelPhase() {
+			super("parallel", 1);
+		}
+
+		@Override
+		protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+			return true;
+		}
+
+		@Override
+		protected IStatus completeOperand(IProfile profile, InstallableUnitOperand operand, Map<String, Object> parameters, IProgressMonitor monitor) {
+			completed.add(operand.second().getId());
+			return super.completeOperand(profile, operand, parameters, monitor);
+		}
+
+		@Override
+		protected List<ProvisioningAction> getActions(InstallableUnitOperand operand) {
+			String id = operand.second().getId();
+			return Collections.singletonList(new ProvisioningAction() {
+				@Override
+				public IStatus execute(Map<String, Object> parameters) {
+					assertEquals(operand, parameters.get("operand"));
+					executed.add(id);
+					return id.equals("fail") ? new Status(IStatus.ERROR, "test", id) : null;
+				}
+
+				@Override
+				public IStatus undo(Map<String, Object> parameters) {
+					assertEquals(operand, parameters.get("operand"));
+					undone.add(id);
+					return null;
+				}
+			});
+		}
+	}
+
+	private IProvisioningPlan createParallelPlan(String profileId, String... ids) {
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setProperty(Phase.PROP_PARALLEL_OPERANDS, "true");
+		IProvisioningPlan plan = engine.createPlan(createProfile(profileId), context);
+		for (String id : ids)
+			plan.addInstallableUnit(createIU(id));
+		return plan;
+	}
+
+	public void testParallelOperands() {
+		String[] ids = new String[50];
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = "unit" + i;
+		ParallelPhase phase = new ParallelPhase();
+		IStatus status = engine.perform(createParallelPlan("PhaseTest", ids), new TestPhaseSet(phase), new NullProgressMonitor());
+		assertOK(status);
+		assertEquals(Set.of(ids), phase.executed);
+		assertEquals(Set.of(ids), phase.completed);
+		assertTrue(phase.undone.isEmpty());
+	}
+
+	public void testParallelOperandsRollback() {
+		String[] ids = new String[50];
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = i == 25 ? "fail" : "unit" + i;
+		ParallelPhase phase = new ParallelPhase();
+		IStatus status = engine.perform(createParallelPlan("PhaseTest", ids), new TestPhaseSet(phase), new NullProgressMonitor());
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertTrue(phase.executed.contains("fail"));
+		// every action executed, including the failed one, is undone
+		assertEquals(phase.executed, phase.undone);
+	}
+
+	public void testParallelOperandsEventsOnCallingThread() {
+		String[] ids = new String[50];
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = "unit" + i;
+		Set<String> executed = ConcurrentHashMap.newKeySet();
+		Install install = new Install(1) {
+			@Override
+			protected boolean isParallelSafe(Operand operand, List<ProvisioningAction> actions) {
+				return true;
+			}
+
+			@Override
+			protected List<ProvisioningAction> getActions(InstallableUnitOperand operand) {
+				// an action of the unit, executed between its events
+				List<ProvisioningAction> actions = super.getActions(operand);
+				actions.add(1, new ProvisioningAction() {
+					@Override
+					public IStatus execute(Map<String, Object> parameters) {
+						executed.add(operand.second().getId());
+						return null;
+					}
+
+					@Override
+					public IStatus undo(Map<String, Object> parameters) {
+						return null;
+					}
+				});
+				return actions;
+			}
+		};
+
+		Thread caller = Thread.currentThread();
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		List<String> preEvents = Collections.synchronizedList(new ArrayList<>());
+		List<String> postEvents = Collections.synchronizedList(new ArrayList<>());
+		SynchronousProvisioningListener listener = o -> {
+			if (!(o instanceof InstallableUnitEvent))
+				return;
+			InstallableUnitEvent event = (InstallableUnitEvent) o;
+			threads.add(Thread.currentThread());
+			if (event.isPre())
+				preEvents.add(event.getInstallableUnit().getId());
+			else
+				postEvents.add(event.getInstallableUnit().getId());
+		};
+		IProvisioningEventBus eventBus = getEventBus();
+		eventBus.addListener(listener);
+		try {
+			IStatus status = engine.perform(createParallelPlan("PhaseTest.events", ids), new TestPhaseSet(install), new NullProgressMonitor());
+			assertOK(status);
+		} finally {
+			eventBus.removeListener(listener);
+		}
+		assertEquals(Set.of(ids), executed);
+		assertEquals(2 * ids.length, threads.size());
+		for (Thread thread : threads)
+			assertSame(caller, thread);
+		// the units are announced and installed in the same order
+		assertEquals(Set.of(ids), Set.copyOf(preEvents));
+		assertEquals(preEvents, postEvents);
+		Set<String> installed = new HashSet<>();
+		for (IInstallableUnit unit : getProfile("PhaseTest.events").query(QueryUtil.createIUAnyQuery(), null))
+			installed.add(unit.getId());
+		assertEquals(Set.of(ids), installed);
+	}
 }
@@ -639,6 +639,56 @@ public class ProfileRegistryTest extends AbstractProvisioningTest {
 		assertEquals(1, filesFound.length);
 	}
 
+	/**
+	 * Asserts that profile states in between checkpoints are persisted as deltas
+	 * and reconstructed from the previous checkpoint.
+	 */
+	public void testPersistenceDeltas() throws Exception {
+		System.getProperties().put(EngineActivator.PROP_PROFILE_CHECKPOINT_INTERVAL, "3");
+		try {
+			File folder = getTempFolder();
+			folder.mkdirs();
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			Method saveMethod = SimpleProfileRegistry.class.getDeclaredMethod("saveProfile", Profile.class);
+			saveMethod.setAccessible(true);
+			Profile profile = new Profile(getAgent(), getName(), null, null);
+			profile.addInstallableUnit(createEclipseIU("org.eclipse.equinox.p2.engine", Version.create("55.2")));
+			IInstallableUnit[] ius = new IInstallableUnit[4];
+			long[] timestamps = new long[ius.length];
+			for (int i = 0; i < ius.length; i++) {
+				ius[i] = createIU("iu" + i);
+				profile.addInstallableUnit(ius[i]);
+				profile.setInstallableUnitProperty(ius[i], "key", "value" + i);
+				profile.setProperty("state", Integer.toString(i));
+				if (i > 0)
+					profile.removeInstallableUnit(ius[i - 1]);
+				saveMethod.invoke(profileRegistry, profile);
+				timestamps[i] = profile.getTimestamp();
+			}
+			File profileFolder = new File(folder, getName() + ".profile");
+			assertEquals(2, profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile.gz")).length);
+			assertEquals(2, profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile.delta.gz")).length);
+
+			for (int i = 0; i < ius.length; i++) {
+				IProfile state = profileRegistry.getProfile(getName(), timestamps[i]);
+				assertEquals(timestamps[i], state.getTimestamp());
+				assertEquals(Integer.toString(i), state.getProperty("state"));
+				assertEquals(2, queryResultSize(state.query(QueryUtil.createIUAnyQuery(), null)));
+				assertEquals("value" + i, state.getInstallableUnitProperty(ius[i], "key"));
+				if (i > 0)
+					assertTrue(state.query(QueryUtil.createIUQuery(ius[i - 1]), null).isEmpty());
+			}
+
+			// removing a state the next delta is based on keeps that next state readable
+			profileRegistry.removeProfile(getName(), timestamps[0]);
+			IProfile state = profileRegistry.getProfile(getName(), timestamps[1]);
+			assertEquals("value1", state.getInstallableUnitProperty(ius[1], "key"));
+			assertEquals(1, profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile.delta.gz")).length);
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_PROFILE_CHECKPOINT_INTERVAL);
+		}
+	}
+
 	public void testRemoveProfileTimestamps() throws ProvisionException {
 		assertNull(registry.getProfile(PROFILE_NAME));
 		Map<String, String> properties = new HashMap<>();
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertThrows;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -30,6 +31,7 @@ import org.eclipse.equinox.internal.p2.engine.ISurrogateProfileHandler;
 import org.eclipse.equinox.internal.p2.engine.Profile;
 import org.eclipse.equinox.internal.p2.engine.ProfileParser;
 import org.eclipse.equinox.internal.p2.engine.ProfileWriter;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
@@ -131,6 +133,57 @@ public class ProfileTest extends AbstractProvisioningTest {
 		assertNull(registry.getProfile(PROFILE_NAME));
 	}
 
+	public void testCompress() throws ProvisionException {
+		IProfileRegistry registry = getProfileRegistry();
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		Profile other = (Profile) registry.addProfile(PROFILE_NAME + "2");
+		IInstallableUnit iu = createIU("test");
+		IInstallableUnit otherIU = createIU("test");
+		profile.addInstallableUnit(iu);
+		profile.setInstallableUnitProperty(iu, "test", "test");
+		other.addInstallableUnit(otherIU);
+		other.setInstallableUnitProperty(otherIU, "test", "test");
+
+		MetadataPool pool = new MetadataPool();
+		profile.compress(pool);
+		other.compress(pool);
+		assertSame(iu, other.query(QueryUtil.createIUAnyQuery(), null).iterator().next());
+		assertEquals(1, getPool(pool, "properties").getHits());
+
+		// the properties shared by both profiles are copied before they are changed
+		other.setInstallableUnitProperty(iu, "test", "changed");
+		assertEquals("test", profile.getInstallableUnitProperty(iu, "test"));
+		assertEquals("changed", other.getInstallableUnitProperty(iu, "test"));
+		profile.removeInstallableUnitProperty(iu, "test");
+		assertNull(profile.getInstallableUnitProperty(iu, "test"));
+		assertEquals("changed", other.getInstallableUnitProperty(iu, "test"));
+		registry.removeProfile(PROFILE_NAME);
+		registry.removeProfile(PROFILE_NAME + "2");
+	}
+
+	public void testCompressReleasesChangedProperties() throws ProvisionException {
+		IProfileRegistry registry = getProfileRegistry();
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		IInstallableUnit iu = createIU("test");
+		profile.addInstallableUnit(iu);
+		profile.setInstallableUnitProperty(iu, "test", "test");
+		MetadataPool pool = new MetadataPool();
+		profile.compress(pool);
+		WeakReference<Map<String, String>> shared = new WeakReference<>(pool.shareProperties(Map.of("test", "test")));
+
+		// once the unit no longer uses the shared map, the profile does not hold it either
+		profile.setInstallableUnitProperty(iu, "test", "changed");
+		for (int i = 0; i < 10 && shared.get() != null; i++)
+			System.gc();
+		assertNull(shared.get());
+		assertEquals("changed", profile.getInstallableUnitProperty(iu, "test"));
+		registry.removeProfile(PROFILE_NAME);
+	}
+
+	private static MetadataPool.Pool<?> getPool(MetadataPool pool, String name) {
+		return pool.getPools().stream().filter(p -> p.getName().equals(name)).findFirst().orElseThrow();
+	}
+
 	public void testAvailable() throws ProvisionException {
 		IProfileRegistry registry = getProfileRegistry();
 		assertNull(registry.getProfile(PROFILE_NAME));
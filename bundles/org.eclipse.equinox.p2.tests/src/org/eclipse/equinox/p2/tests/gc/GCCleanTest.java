@@ -14,7 +14,9 @@
 package org.eclipse.equinox.p2.tests.gc;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -63,4 +65,21 @@ public class GCCleanTest extends AbstractProvisioningTest {
 		assertEquals("1.0", 0, repository.query(ArtifactKeyQuery.ALL_KEYS, null).toSet().size());
 
 	}
+
+	public void testRemoveUnmarked() throws Exception {
+		File folder = getTestFolder("GCCleanTest.testRemoveUnmarked");
+		IArtifactRepository repository = createRepository(folder);
+		IArtifactKey kept = new ArtifactKey("osgi.bundle", "a", Version.create("1.0.0"));
+		IArtifactKey removed = new ArtifactKey("osgi.bundle", "b", Version.create("1.0.0"));
+		try (OutputStream stream = repository.getOutputStream(new ArtifactDescriptor(removed))) {
+			stream.write(new byte[10]);
+		}
+
+		CoreGarbageCollector gc = new CoreGarbageCollector();
+		gc.clean(new IArtifactKey[] {kept}, repository);
+
+		assertEquals("1.0", Collections.singleton(kept), repository.query(ArtifactKeyQuery.ALL_KEYS, null).toSet());
+		assertEquals("1.1", 2, gc.getRemovedCount());
+		assertEquals("1.2", 10, gc.getReclaimedBytes());
+	}
 }
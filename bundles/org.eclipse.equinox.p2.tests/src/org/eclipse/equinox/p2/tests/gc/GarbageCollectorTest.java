@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.gc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.engine.ProfileEvent;
+import org.eclipse.equinox.internal.p2.garbagecollector.GarbageCollector;
+import org.eclipse.equinox.internal.p2.garbagecollector.MarkSet;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.IProfileEvent;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.ArtifactKeyQuery;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRepositoryManager;
+import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for the keys marked by each profile, kept by the garbage collector from
+ * one run to the next
+ */
+public class GarbageCollectorTest extends AbstractProvisioningTest {
+	private static final String MAIN = "GarbageCollectorTest.main";
+	private static final String OTHER = "GarbageCollectorTest.other";
+
+	/**
+	 * Marks one key per profile, counting how often the profiles are traversed.
+	 */
+	class CountingGarbageCollector extends GarbageCollector {
+		final Map<String, Integer> traversals = new HashMap<>();
+
+		CountingGarbageCollector() {
+			super(getAgent());
+		}
+
+		@Override
+		protected MarkSet[] getMarkSets(IConfigurationElement runAttribute, IProfile profile) {
+			traversals.merge(profile.getProfileId(), 1, Integer::sum);
+			IArtifactKey key = marks.get(profile.getProfileId());
+			return key == null ? null : new MarkSet[] {new MarkSet(new IArtifactKey[] {key}, repository)};
+		}
+
+		int getTraversals(String profileId) {
+			return traversals.getOrDefault(profileId, 0);
+		}
+	}
+
+	IArtifactRepository repository;
+	final Map<String, IArtifactKey> marks = new HashMap<>();
+	private final IArtifactKey unmarked = new ArtifactKey("osgi.bundle", "unmarked", Version.create("1.0.0"));
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		repository = getArtifactRepositoryManager().createRepository(getTestFolder("GarbageCollectorTest").toURI(), "test", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		marks.put(MAIN, new ArtifactKey("osgi.bundle", "main", Version.create("1.0.0")));
+		marks.put(OTHER, new ArtifactKey("osgi.bundle", "other", Version.create("1.0.0")));
+		for (IArtifactKey key : marks.values())
+			repository.addDescriptor(new ArtifactDescriptor(key), new NullProgressMonitor());
+		createProfile(MAIN);
+		createProfile(OTHER);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getArtifactRepositoryManager().removeRepository(repository.getLocation());
+		super.tearDown();
+	}
+
+	private void addUnmarked() {
+		repository.addDescriptor(new ArtifactDescriptor(unmarked), new NullProgressMonitor());
+	}
+
+	private Set<IArtifactKey> getKeys() {
+		return repository.query(ArtifactKeyQuery.ALL_KEYS, null).toUnmodifiableSet();
+	}
+
+	public void testMarksReusedWhileProfileUnchanged() {
+		CountingGarbageCollector gc = new CountingGarbageCollector();
+		addUnmarked();
+		gc.runGC(getProfile(MAIN));
+		int providers = gc.getTraversals(OTHER);
+		assertTrue("1.0", providers > 0);
+		assertEquals("1.1", Set.of(marks.get(MAIN), marks.get(OTHER)), getKeys());
+		assertTrue("1.2", gc.hasProfileMarks(OTHER));
+
+		// the profile being collected is traversed again, the other one is not
+		addUnmarked();
+		gc.runGC(getProfile(MAIN));
+		assertEquals("2.0", 2 * gc.getTraversals(OTHER), gc.getTraversals(MAIN));
+		assertEquals("2.1", providers, gc.getTraversals(OTHER));
+		// the kept keys still protect the artifacts of the other profile
+		assertEquals("2.2", Set.of(marks.get(MAIN), marks.get(OTHER)), getKeys());
+	}
+
+	public void testMarksDroppedOnProfileEvent() {
+		CountingGarbageCollector gc = new CountingGarbageCollector();
+		gc.runGC(getProfile(MAIN));
+		int providers = gc.getTraversals(OTHER);
+		assertTrue("1.0", gc.hasProfileMarks(OTHER));
+
+		gc.notify(new ProfileEvent(OTHER, IProfileEvent.CHANGED));
+		assertFalse("2.0", gc.hasProfileMarks(OTHER));
+		assertTrue("2.1", gc.hasProfileMarks(MAIN));
+
+		gc.runGC(getProfile(MAIN));
+		assertEquals("3.0", 2 * providers, gc.getTraversals(OTHER));
+		assertTrue("3.1", gc.hasProfileMarks(OTHER));
+	}
+
+	public void testMarksPrunedWhenProfileRemoved() {
+		CountingGarbageCollector gc = new CountingGarbageCollector();
+		gc.runGC(getProfile(MAIN));
+		assertTrue("1.0", gc.hasProfileMarks(OTHER));
+
+		// the collector is not listening, so it only notices the removal on its next run
+		getProfileRegistry().removeProfile(OTHER);
+		assertTrue("2.0", gc.hasProfileMarks(OTHER));
+		gc.runGC(getProfile(MAIN));
+		assertFalse("2.1", gc.hasProfileMarks(OTHER));
+		assertEquals("2.2", Set.of(marks.get(MAIN)), getKeys());
+	}
+}
@@ -24,6 +24,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.URIUtil;
@@ -466,6 +470,43 @@ public class CompositeMetadataRepositoryTest extends AbstractProvisioningTest {
 		assertTrue("Ensuring not previously loaded repo is system", repo2System != null ? repo2System.equals(Boolean.toString(true)) : false);
 	}
 
+	public void testLoadNestedAndCyclicComposites() throws Exception {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		URI outerLocation = getTestFolder(getUniqueString()).toURI();
+		URI innerLocation = getTestFolder(getUniqueString()).toURI();
+		URI simple1Location = getTestFolder(getUniqueString()).toURI();
+		URI simple2Location = getTestFolder(getUniqueString()).toURI();
+		IInstallableUnit iu1 = createIU("one", Version.create("1.0.0"));
+		IInstallableUnit iu2 = createIU("two", Version.create("1.0.0"));
+		manager.createRepository(simple1Location, "Simple 1", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null).addInstallableUnits(List.of(iu1));
+		manager.createRepository(simple2Location, "Simple 2", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null).addInstallableUnits(List.of(iu2));
+		CompositeMetadataRepository outer = (CompositeMetadataRepository) manager.createRepository(outerLocation, "Outer", IMetadataRepositoryManager.TYPE_COMPOSITE_REPOSITORY, null);
+		CompositeMetadataRepository inner = (CompositeMetadataRepository) manager.createRepository(innerLocation, "Inner", IMetadataRepositoryManager.TYPE_COMPOSITE_REPOSITORY, null);
+		outer.addChild(simple1Location);
+		outer.addChild(innerLocation);
+		inner.addChild(simple2Location);
+		// the inner composite refers back to the outer one
+		inner.addChild(outerLocation);
+		for (URI location : List.of(outerLocation, innerLocation, simple1Location, simple2Location))
+			manager.removeRepository(location);
+
+		try {
+			IMetadataRepository loaded = CompletableFuture.supplyAsync(() -> {
+				try {
+					return manager.loadRepository(outerLocation, getMonitor());
+				} catch (ProvisionException e) {
+					throw new CompletionException(e);
+				}
+			}).get(30, TimeUnit.SECONDS);
+			assertEquals(Set.of(iu1, iu2), loaded.query(QueryUtil.createIUAnyQuery(), getMonitor()).toUnmodifiableSet());
+		} catch (TimeoutException e) {
+			fail("Loading a cyclic composite should not hang", e);
+		} finally {
+			for (URI location : List.of(outerLocation, innerLocation, simple1Location, simple2Location))
+				manager.removeRepository(location);
+		}
+	}
+
 	public void testGetLatestIU() {
 		CompoundQueryTestProgressMonitor monitor = new CompoundQueryTestProgressMonitor();
 		URI location1;
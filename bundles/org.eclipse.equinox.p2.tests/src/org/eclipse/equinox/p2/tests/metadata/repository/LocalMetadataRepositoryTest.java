@@ -18,12 +18,16 @@ import static org.junit.Assert.assertThrows;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.equinox.internal.p2.metadata.repository.MappedMetadataIndex;
+import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryJournal;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.SynchronousProvisioningListener;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
@@ -177,6 +181,88 @@ public class LocalMetadataRepositoryTest extends AbstractProvisioningTest {
 		}
 	}
 
+	public void testJournaledRepository() throws Exception {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(IRepository.PROP_COMPRESSED, "false", RepositoryJournal.PROP_JOURNAL, "true"));
+		File content = new File(repoLocation, "content.xml");
+		File journal = new File(repoLocation, "content" + RepositoryJournal.JOURNAL_EXTENSION);
+		byte[] index = Files.readAllBytes(content.toPath());
+
+		IInstallableUnit iu = createIU("foo");
+		IInstallableUnit iu2 = createIU("bar");
+		repo.addInstallableUnits(Arrays.asList(iu, iu2));
+		repo.removeInstallableUnits(Arrays.asList(iu));
+		repo.setProperty(TEST_KEY, TEST_VALUE);
+		// the changes are only appended to the journal
+		assertTrue("1.0", journal.exists());
+		assertTrue("1.1", Arrays.equals(index, Files.readAllBytes(content.toPath())));
+
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals("2.0", Set.of(iu2), repo.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+		assertEquals("2.1", TEST_VALUE, repo.getProperty(TEST_KEY));
+
+		// writing the whole repository empties the journal
+		repo.executeBatch(monitor -> {
+			// nothing to change
+		}, null);
+		assertFalse("3.0", journal.exists());
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals("3.1", Set.of(iu2), repo.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+		assertEquals("3.2", TEST_VALUE, repo.getProperty(TEST_KEY));
+	}
+
+	public void testMappedIndex() throws Exception {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(IRepository.PROP_COMPRESSED, "false", MappedMetadataIndex.PROP_INDEX, "true"));
+		File content = new File(repoLocation, "content.xml");
+		IInstallableUnit iu = createIU("foo", createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "bar"));
+		IInstallableUnit iu2 = createIU("bar", Version.create("2.0.0"));
+		repo.addInstallableUnits(Arrays.asList(iu, iu2));
+		File index = MappedMetadataIndex.getIndexFile(content);
+		assertNotNull("1.0", index);
+		assertTrue("1.1", index.exists());
+
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals("2.0", Set.of(iu, iu2), repo.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+		IInstallableUnit loaded = repo.query(QueryUtil.createIUQuery("foo"), null).iterator().next();
+		assertEquals("2.1", iu.getProvidedCapabilities(), loaded.getProvidedCapabilities());
+		assertEquals("2.2", iu.getRequirements(), loaded.getRequirements());
+		assertEquals("2.3", iu.getProperties(), loaded.getProperties());
+		assertEquals("2.4", iu.getTouchpointType(), loaded.getTouchpointType());
+		assertEquals("2.5", iu.isSingleton(), loaded.isSingleton());
+		assertEquals("2.6", iu.getLicenses(), loaded.getLicenses());
+		assertNull("2.7", loaded.getUpdateDescriptor());
+		assertEquals("2.8", Set.of(iu2), repo.query(QueryUtil.createMatchQuery(iu.getRequirements().iterator().next().getMatches()), null).toUnmodifiableSet());
+
+		// saving writes a new file, the units loaded from the index keep reading the one they mapped
+		IInstallableUnit iu3 = createIU("baz", Version.create("3.0.0"));
+		repo.addInstallableUnits(Arrays.asList(iu3));
+		File next = MappedMetadataIndex.getIndexFile(content);
+		assertNotNull("2.9", next);
+		assertFalse("2.10", next.equals(index));
+		// sections not parsed so far
+		assertEquals("2.11", iu.getArtifacts(), loaded.getArtifacts());
+		assertEquals("2.12", iu.getCopyright(), loaded.getCopyright());
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals("2.13", Set.of(iu, iu2, iu3), repo.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+
+		// an index older than the XML is ignored
+		repo.setProperty(MappedMetadataIndex.PROP_INDEX, "false");
+		assertNull("3.0", MappedMetadataIndex.getIndexFile(content));
+		repo.setProperty(MappedMetadataIndex.PROP_INDEX, "true");
+		index = MappedMetadataIndex.getIndexFile(content);
+		Files.copy(index.toPath(), new File(repoLocation, "stale.index").toPath());
+		repo.removeInstallableUnits(Arrays.asList(iu, iu3));
+		Files.copy(new File(repoLocation, "stale.index").toPath(), MappedMetadataIndex.getIndexFile(content).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals("3.1", Set.of(iu2), repo.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+	}
+
 	/**
 	 * Tests loading a repository that has a reference to itself as a disabled repository.
 	 */
@@ -23,7 +23,8 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 		ArtifactMirrorApplicationTest.class, MetadataMirrorApplicationTest.class, ArtifactRepositoryCleanupTest.class,
 		MetadataRepositoryCleanupTest.class, NewMirrorApplicationArtifactTest.class,
-		NewMirrorApplicationMetadataTest.class, MirrorApplicationTest.class
+		NewMirrorApplicationMetadataTest.class, MirrorApplicationTest.class,
+		ConcurrentMirroringTest.class
 })
 public class AllTests {
 // test suite
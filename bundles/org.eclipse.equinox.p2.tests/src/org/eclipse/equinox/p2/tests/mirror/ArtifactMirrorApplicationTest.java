@@ -22,8 +22,10 @@ import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -842,6 +844,89 @@ public class ArtifactMirrorApplicationTest extends AbstractProvisioningTest {
 						null));
 	}
 
+	/**
+	 * Verifies that mirroring with several threads copies the same files as mirroring with one
+	 */
+	public void testArtifactFileCopyingConcurrently() throws Exception {
+		File packedRepoLocation = getTestData("0", "/testData/mirror/mirrorRepo");
+
+		String[] args = { "-source", packedRepoLocation.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-writeMode", "clean", "-threads", "4" };
+		runMirrorApplication("1", args);
+
+		assertContentEquals("2", getArtifactRepositoryManager().loadRepository(packedRepoLocation.toURI(), null),
+				getArtifactRepositoryManager().loadRepository(destRepoLocation.toURI(), null));
+		assertEqualArtifacts("3",
+				(SimpleArtifactRepository) getArtifactRepositoryManager().loadRepository(packedRepoLocation.toURI(),
+						null),
+				(SimpleArtifactRepository) getArtifactRepositoryManager().loadRepository(destRepoLocation.toURI(),
+						null));
+	}
+
+	/**
+	 * Tests how mirror application handles an invalid number of threads
+	 */
+	public void testArtifactMirrorInvalidThreads() throws Exception {
+		for (String threads : new String[] {"four", "0"}) {
+			String[] args = {"-source", sourceRepoLocation.toURL().toExternalForm(), "-destination",
+					destRepoLocation.toURL().toExternalForm(), "-threads", threads};
+			try {
+				runMirrorApplication("1", args);
+				fail("IllegalArgumentException not thrown for " + threads);
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(threads));
+			}
+		}
+	}
+
+	/**
+	 * Verifies that a journaled mirror run records the mirrored artifacts and that
+	 * repeating it leaves the destination as it was
+	 */
+	public void testArtifactMirrorWithJournal() throws Exception {
+		File packedRepoLocation = getTestData("0", "/testData/mirror/mirrorRepo");
+		File journal = new File(getTempFolder(), "mirror.journal");
+
+		String[] args = { "-source", packedRepoLocation.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-journal", journal.getAbsolutePath(), "-verbose" };
+		StringBuilder output = runMirrorApplication("1", args);
+		assertTrue("2", journal.length() > 0);
+		assertTrue(output.toString(), output.indexOf("Mirroring: ") >= 0);
+		long recorded = journal.length();
+
+		// backdate the mirrored artifacts so that a rewrite within the same second is noticed,
+		// the repository index at the top level is saved again by every run
+		Map<File, Long> modified = new HashMap<>();
+		long past = System.currentTimeMillis() - 3600000;
+		for (File file : listFiles(destRepoLocation)) {
+			if (file.getParentFile().equals(destRepoLocation))
+				continue;
+			assertTrue(file.setLastModified(past));
+			modified.put(file, file.lastModified());
+		}
+
+		// every descriptor is skipped before it is fetched or compared, which is when its key is printed
+		output = runMirrorApplication("3", args);
+		assertEquals("4", recorded, journal.length());
+		assertTrue(output.toString(), output.indexOf("Mirroring: ") < 0);
+		assertFalse(modified.isEmpty());
+		for (Map.Entry<File, Long> entry : modified.entrySet())
+			assertEquals(entry.getKey().toString(), entry.getValue().longValue(), entry.getKey().lastModified());
+		assertContentEquals("5", getArtifactRepositoryManager().loadRepository(packedRepoLocation.toURI(), null),
+				getArtifactRepositoryManager().loadRepository(destRepoLocation.toURI(), null));
+	}
+
+	private static List<File> listFiles(File folder) {
+		List<File> files = new ArrayList<>();
+		for (File file : folder.listFiles()) {
+			if (file.isDirectory())
+				files.addAll(listFiles(file));
+			else
+				files.add(file);
+		}
+		return files;
+	}
+
 	//for Bug 235683
 	public void testMirrorCompressedSource() throws MalformedURLException, Exception {
 		File compressedSource = getTestData("0", "/testData/mirror/mirrorCompressedRepo");
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.mirror;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.internal.repository.comparator.ArtifactChecksumComparator;
+import org.eclipse.equinox.p2.internal.repository.mirroring.Mirroring;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.ArtifactDescriptorQuery;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.spi.p2.publisher.PublisherHelper;
+
+/**
+ * Tests mirroring with several threads into a destination that already holds
+ * some of the artifacts, and against a baseline holding some of them.
+ */
+public class ConcurrentMirroringTest extends AbstractProvisioningTest {
+	private static final String COMPARATOR = ArtifactChecksumComparator.COMPARATOR_ID + ".sha-256";
+	private static final int ARTIFACTS = 8;
+	private static final int THREADS = 4;
+
+	/**
+	 * Records the artifacts read from it.
+	 */
+	class CountingArtifactRepository extends SimpleArtifactRepository {
+		final List<IArtifactKey> fetched = Collections.synchronizedList(new ArrayList<>());
+
+		CountingArtifactRepository(String name) {
+			super(getAgent(), name, getTestFolder(getName() + '.' + name).toURI(), null);
+		}
+
+		@Override
+		public IStatus getRawArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
+			fetched.add(descriptor.getArtifactKey());
+			return super.getRawArtifact(descriptor, destination, monitor);
+		}
+
+		@Override
+		public IStatus getArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
+			fetched.add(descriptor.getArtifactKey());
+			return super.getArtifact(descriptor, destination, monitor);
+		}
+
+		Set<IArtifactKey> getFetched() {
+			synchronized (fetched) {
+				return new HashSet<>(fetched);
+			}
+		}
+	}
+
+	private final IArtifactKey[] keys = new IArtifactKey[ARTIFACTS];
+	private final IArtifactDescriptor[] descriptors = new IArtifactDescriptor[ARTIFACTS];
+	private final File[] files = new File[ARTIFACTS];
+	private CountingArtifactRepository source;
+	private CountingArtifactRepository destination;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File folder = getTempFolder();
+		for (int i = 0; i < ARTIFACTS; i++) {
+			keys[i] = PublisherHelper.createBinaryArtifactKey("artifact" + i, Version.create("1.0.0"));
+			files[i] = new File(folder, "artifact" + i);
+			Files.writeString(files[i].toPath(), "content of artifact " + i, StandardCharsets.UTF_8);
+			descriptors[i] = PublisherHelper.createArtifactDescriptor(keys[i], files[i]);
+		}
+		source = new CountingArtifactRepository("source");
+		add(source, 0, ARTIFACTS);
+		destination = new CountingArtifactRepository("destination");
+	}
+
+	/**
+	 * Writes the artifacts from the first to the last, excluded, to the given repository.
+	 */
+	private void add(SimpleArtifactRepository repository, int first, int last) throws IOException, ProvisionException {
+		for (int i = first; i < last; i++) {
+			try (OutputStream output = repository.getOutputStream(descriptors[i])) {
+				Files.copy(files[i].toPath(), output);
+			}
+		}
+	}
+
+	private Set<IArtifactKey> keys(int first, int last) {
+		return new HashSet<>(Arrays.asList(keys).subList(first, last));
+	}
+
+	private IStatus mirror(Mirroring mirroring) {
+		mirroring.setTransport(getTransport());
+		mirroring.setThreads(THREADS);
+		IStatus status = mirroring.run(true, true);
+		assertTrue(status.toString(), status.getSeverity() < IStatus.WARNING);
+		return status;
+	}
+
+	/**
+	 * Returns the artifacts reported as already in the destination.
+	 */
+	private int countExisting(IStatus status) {
+		if (status.isMultiStatus()) {
+			int count = 0;
+			for (IStatus child : status.getChildren())
+				count += countExisting(child);
+			return count;
+		}
+		return status.getCode() == ProvisionException.ARTIFACT_EXISTS ? 1 : 0;
+	}
+
+	private void assertMirrored() {
+		for (IArtifactDescriptor descriptor : descriptors)
+			assertTrue(descriptor.toString(), destination.contains(descriptor));
+		assertEquals(ARTIFACTS, destination.getDescriptors().size());
+	}
+
+	public void testMirrorToPopulatedDestination() throws Exception {
+		add(destination, 0, ARTIFACTS);
+
+		IStatus status = mirror(new Mirroring(source, destination, false));
+		// every artifact is skipped before it is fetched
+		assertEquals(Set.of(), source.getFetched());
+		assertEquals(ARTIFACTS, countExisting(status));
+		assertMirrored();
+	}
+
+	public void testMirrorToPartiallyPopulatedDestination() throws Exception {
+		add(destination, 0, ARTIFACTS / 2);
+
+		IStatus status = mirror(new Mirroring(source, destination, false));
+		assertEquals(keys(ARTIFACTS / 2, ARTIFACTS), source.getFetched());
+		assertEquals(ARTIFACTS / 2, source.fetched.size());
+		assertEquals(ARTIFACTS / 2, countExisting(status));
+		assertMirrored();
+	}
+
+	public void testCompareWithPartialBaseline() throws Exception {
+		// the destination has the first two artifacts, the baseline the next three
+		add(destination, 0, 2);
+		CountingArtifactRepository baseline = new CountingArtifactRepository("baseline");
+		add(baseline, 2, 5);
+
+		Mirroring mirroring = new Mirroring(source, destination, false);
+		mirroring.setCompare(true);
+		mirroring.setComparatorId(COMPARATOR);
+		mirroring.setBaseline(baseline);
+		// the second artifact is not compared, so it is reported as already there
+		mirroring.setCompareExclusions(new ArtifactDescriptorQuery(keys[1]));
+		IStatus status = mirror(mirroring);
+
+		assertEquals(keys(2, 5), baseline.getFetched());
+		assertEquals(3, baseline.fetched.size());
+		assertEquals(keys(5, ARTIFACTS), source.getFetched());
+		assertEquals(ARTIFACTS - 5, source.fetched.size());
+		// the first artifact matches the destination and the others were transferred
+		assertEquals(1, countExisting(status));
+		assertMirrored();
+	}
+}
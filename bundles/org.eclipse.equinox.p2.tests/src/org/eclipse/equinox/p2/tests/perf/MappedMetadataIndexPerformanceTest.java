@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.perf;
+
+import java.io.File;
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.metadata.repository.MappedMetadataIndex;
+import org.eclipse.equinox.internal.p2.metadata.repository.SimpleMetadataRepositoryFactory;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+
+/**
+ * Performance tests comparing loading a large local metadata repository from
+ * its mapped index with parsing its XML.
+ */
+public class MappedMetadataIndexPerformanceTest extends ProvisioningPerformanceTest {
+	private static final int REPEATS = 5;
+	private static final int IU_COUNT = 10000;
+	private static final int REQUIREMENTS_PER_IU = 6;
+
+	private File indexedLocation;
+	private File xmlLocation;
+	private SimpleMetadataRepositoryFactory factory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		String tempDir = System.getProperty("java.io.tmpdir");
+		indexedLocation = new File(tempDir, "MappedMetadataIndexPerformanceTest");
+		xmlLocation = new File(tempDir, "MappedMetadataIndexPerformanceTest.xml");
+		delete(indexedLocation);
+		delete(xmlLocation);
+		indexedLocation.mkdir();
+		xmlLocation.mkdir();
+
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repository = manager.createRepository(indexedLocation.toURI(), "TestRepo", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, Map.of(IRepository.PROP_COMPRESSED, "false", MappedMetadataIndex.PROP_INDEX, "true"));
+		List<IInstallableUnit> ius = new ArrayList<>(IU_COUNT);
+		for (int i = 0; i < IU_COUNT; i++)
+			ius.add(generateLargeIU(i));
+		repository.addInstallableUnits(ius);
+		manager.removeRepository(indexedLocation.toURI());
+
+		// the same repository without its index
+		File content = new File(indexedLocation, "content.xml");
+		assertNotNull(MappedMetadataIndex.getIndexFile(content));
+		copy(getName(), content, new File(xmlLocation, content.getName()));
+
+		factory = new SimpleMetadataRepositoryFactory();
+		factory.setAgent(getAgent());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(indexedLocation);
+		delete(xmlLocation);
+		super.tearDown();
+	}
+
+	/**
+	 * Returns a unit with all the sections of the units of a real repository.
+	 */
+	private IInstallableUnit generateLargeIU(int i) {
+		MetadataFactory.InstallableUnitDescription desc = new MetadataFactory.InstallableUnitDescription();
+		String id = "org.eclipse.someiu" + i;
+		Version version = Version.createOSGi(1, 1, i);
+		desc.setId(id);
+		desc.setVersion(version);
+		desc.setSingleton(true);
+		desc.addProvidedCapabilities(List.of(MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, id, version), //
+				MetadataFactory.createProvidedCapability("osgi.bundle", id, version), //
+				MetadataFactory.createProvidedCapability("java.package", id + ".api", version), //
+				MetadataFactory.createProvidedCapability("org.eclipse.equinox.p2.eclipse.type", "bundle", Version.createOSGi(1, 0, 0))));
+		IRequirement[] requirements = new IRequirement[REQUIREMENTS_PER_IU];
+		for (int j = 0; j < REQUIREMENTS_PER_IU; j++)
+			requirements[j] = MetadataFactory.createRequirement("java.package", "org.eclipse.someiu" + (i + j + 1) % IU_COUNT + ".api", new VersionRange("[1.0.0,2.0.0)"), null, j % 2 == 0, false, true);
+		desc.setRequirements(requirements);
+		desc.setProperty(IInstallableUnit.PROP_NAME, "Some unit " + i);
+		desc.setProperty(IInstallableUnit.PROP_PROVIDER, "Eclipse.org");
+		desc.setArtifacts(new IArtifactKey[] {new ArtifactKey("osgi.bundle", id, version)});
+		desc.setTouchpointType(MetadataFactory.createTouchpointType("org.eclipse.equinox.p2.osgi", Version.createOSGi(1, 0, 0)));
+		desc.addTouchpointData(MetadataFactory.createTouchpointData(Map.of("manifest", "Bundle-SymbolicName: " + id + ";singleton:=true\nBundle-Version: " + version + "\nExport-Package: " + id + ".api\n")));
+		desc.setLicenses(new ILicense[] {MetadataFactory.createLicense(URI.create("https://www.eclipse.org/legal/epl-2.0/"), "Eclipse Public License 2.0")});
+		desc.setCopyright(MetadataFactory.createCopyright(null, "Copyright (c) Eclipse contributors and others."));
+		desc.setUpdateDescriptor(MetadataFactory.createUpdateDescriptor(id, new VersionRange(Version.emptyVersion, true, version, false), IUpdateDescriptor.NORMAL, null));
+		return MetadataFactory.createInstallableUnit(desc);
+	}
+
+	private IMetadataRepository load(File location) {
+		try {
+			return factory.load(location.toURI(), 0, null);
+		} catch (ProvisionException e) {
+			fail("Loading " + location, e);
+			return null;
+		}
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Loads the repository at the given location, and returns the time the load
+	 * took and the heap the repository retains.
+	 */
+	private long[] measureLoad(File location) {
+		long before = getUsedHeap();
+		long start = System.nanoTime();
+		IMetadataRepository repository = load(location);
+		long time = System.nanoTime() - start;
+		long retained = getUsedHeap() - before;
+		// the repository must still be reachable when the heap is measured
+		assertEquals(IU_COUNT, repository.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet().size());
+		return new long[] {time / 1000000, retained / 1024};
+	}
+
+	public void testRetainedHeap() {
+		// the index is loaded first, so that it does not benefit from what the XML load left in the metadata pool
+		long[] indexed = measureLoad(indexedLocation);
+		long[] xml = measureLoad(xmlLocation);
+		System.out.println("Loading " + IU_COUNT + " ius from XML: " + xml[0] + " ms, " + xml[1] + " KB retained");
+		System.out.println("Loading " + IU_COUNT + " ius from the mapped index: " + indexed[0] + " ms, " + indexed[1] + " KB retained");
+		assertTrue("The units loaded from the index should retain less than the parsed ones", indexed[1] < xml[1]);
+	}
+
+	public void testLoadFromXML() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				load(xmlLocation);
+			}
+		}.run(this, "Test loading " + IU_COUNT + " ius from XML", REPEATS, 1);
+	}
+
+	public void testLoadFromIndex() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				load(indexedLocation);
+			}
+		}.run(this, "Test loading " + IU_COUNT + " ius from the mapped index", REPEATS, 1);
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.perf;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.Mapper;
+import org.eclipse.equinox.p2.tests.TestActivator;
+
+/**
+ * Performance tests mapping artifact descriptors to locations through the
+ * compiled rules of a simple artifact repository.
+ */
+public class MapperPerformanceTest extends ProvisioningPerformanceTest {
+	private static final int REPEATS = 5;
+	private static final int DESCRIPTOR_COUNT = 100000;
+	/** The default rules of simple artifact repositories, and a rule needing an OSGi filter */
+	private static final String[][] RULES = { //
+			{"(& (classifier=osgi.bundle) (format=packed))", "${repoUrl}/plugins/${id}_${version}.jar.pack.gz"}, //
+			{"(& (classifier=osgi.bundle))", "${repoUrl}/plugins/${id}_${version}.jar"}, //
+			{"(& (classifier=binary))", "${repoUrl}/binary/${id}_${version}"}, //
+			{"(& (classifier=org.eclipse.update.feature))", "${repoUrl}/features/${id}_${version}.jar"}};
+	private static final String[] CLASSIFIERS = {"osgi.bundle", "binary", "org.eclipse.update.feature"};
+
+	private Mapper mapper;
+	private URI location;
+	private String[] ids;
+	private String[] versions;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		mapper = new Mapper();
+		mapper.initialize(TestActivator.getContext(), RULES);
+		location = new URI("file:/repository/");
+		ids = new String[DESCRIPTOR_COUNT];
+		versions = new String[DESCRIPTOR_COUNT];
+		for (int i = 0; i < DESCRIPTOR_COUNT; i++) {
+			ids[i] = "org.eclipse.someartifact" + i;
+			versions[i] = "1.0." + i;
+		}
+	}
+
+	private URI map(int i) {
+		Map<String, String> properties = Collections.emptyMap();
+		// one descriptor in ten is packed, so that its rule is matched by the OSGi filter
+		String format = i % 10 == 0 ? "packed" : null;
+		return mapper.map(location, CLASSIFIERS[i % CLASSIFIERS.length], ids[i], versions[i], format, properties);
+	}
+
+	public void testMappedLocations() throws Exception {
+		assertEquals(new URI("file:/repository/plugins/org.eclipse.someartifact0_1.0.0.jar.pack.gz"), map(0));
+		assertEquals(new URI("file:/repository/binary/org.eclipse.someartifact1_1.0.1"), map(1));
+		assertEquals(new URI("file:/repository/features/org.eclipse.someartifact2_1.0.2.jar"), map(2));
+		assertEquals(new URI("file:/repository/plugins/org.eclipse.someartifact3_1.0.3.jar"), map(3));
+	}
+
+	public void testMap() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				for (int i = 0; i < DESCRIPTOR_COUNT; i++) {
+					if (map(i) == null)
+						fail("No location for descriptor " + i);
+				}
+			}
+		}.run(this, "Test mapping " + DESCRIPTOR_COUNT + " artifact descriptors", REPEATS, 1);
+	}
+}
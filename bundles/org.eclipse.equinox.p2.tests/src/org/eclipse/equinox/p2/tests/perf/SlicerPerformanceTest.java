@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.perf;
+
+import java.util.*;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.equinox.internal.p2.director.QueryableArray;
+import org.eclipse.equinox.internal.p2.director.Slicer;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * Performance tests comparing the sequential and the parallel slicer on a
+ * synthetic repository.
+ */
+public class SlicerPerformanceTest extends ProvisioningPerformanceTest {
+	private static final int REPEATS = 5;
+	private static final int IU_COUNT = 20000;
+	private static final int REQUIREMENTS_PER_IU = 4;
+
+	private List<IInstallableUnit> ius;
+	private QueryableArray possibilities;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Random random = new Random(IU_COUNT);
+		ius = new ArrayList<>(IU_COUNT);
+		for (int i = 0; i < IU_COUNT; i++) {
+			MetadataFactory.InstallableUnitDescription desc = new MetadataFactory.InstallableUnitDescription();
+			desc.setId("org.eclipse.someiu" + i);
+			desc.setVersion(Version.createOSGi(1, 0, 0));
+			desc.addProvidedCapabilities(List.of(MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, desc.getId(), desc.getVersion())));
+			List<IRequirement> requirements = new ArrayList<>();
+			for (int j = 0; j < REQUIREMENTS_PER_IU && i > 0; j++) {
+				requirements.add(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "org.eclipse.someiu" + random.nextInt(i), VersionRange.emptyRange, null, false, false, true));
+			}
+			desc.setRequirements(requirements.toArray(IRequirement[]::new));
+			ius.add(MetadataFactory.createInstallableUnit(desc));
+		}
+		possibilities = new QueryableArray(ius);
+	}
+
+	private IQueryable<IInstallableUnit> slice(boolean parallel) {
+		Slicer slicer = new Slicer(possibilities, Collections.emptyMap(), true);
+		slicer.setParallel(parallel);
+		return slicer.slice(ius.subList(IU_COUNT - 10, IU_COUNT), null);
+	}
+
+	public void testParallelSliceIsIdentical() {
+		Set<IInstallableUnit> sequential = slice(false).query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet();
+		Set<IInstallableUnit> parallel = slice(true).query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet();
+		assertEquals(sequential, parallel);
+	}
+
+	public void testSequentialSlice() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				slice(false);
+			}
+		}.run(this, "Test sequential slicing of " + IU_COUNT + " ius", REPEATS, 1);
+	}
+
+	public void testParallelSlice() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				slice(true);
+			}
+		}.run(this, "Test parallel slicing of " + IU_COUNT + " ius", REPEATS, 1);
+	}
+}
@@ -23,7 +23,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ AbsolutePlanTest.class, ActualChangeRequestTest.class, ActualChangeRequestTest2.class,
 		AdditionalConstraints.class, AddIUProperty.class, AgentPlanTestInRunningInstance.class,
 		AgentPlanTestInExternalInstance.class, AgentPlanTestInExternalInstanceForCohostedMode.class, AllOptional.class,
-		AllOrbit.class, AllRequestFlexerTests.class, AnotherSingleton.class, Bug207319.class, Bug249605.class,
+		AllOrbit.class, AllRequestFlexerTests.class, AnotherSingleton.class, BoundedExplanation.class, Bug207319.class, Bug249605.class,
 		Bug252638.class, Bug254481dataSet1.class, Bug254481dataSet2.class, Bug255984.class, Bug259537.class,
 		Bug262580.class, Bug270656.class, Bug270668.class, Bug270683.class, Bug271067.class, Bug271954.class,
 		Bug278668.class, Bug300572.class, Bug300572Small2.class, Bug300572Small3.class, Bug300572Small4.class,
@@ -33,7 +33,7 @@ import org.junit.runners.Suite;
 		ExplanationDeepConflict.class, ExplanationForOptionalDependencies.class,
 		ExplanationForPartialInstallation.class, ExplanationLargeConflict.class,
 		ExplanationSeveralConflictingRoots.class, FindRootsAfterUpdate.class, FromStrictToOptional.class,
-		GreedyRequirement.class, InclusionRuleTest.class, InclusionRuleTest2.class, IUProperties.class,
+		GreedyRequirement.class, IncrementalPlanningTest.class, InclusionRuleTest.class, InclusionRuleTest2.class, InstallableUnitTableTest.class, IUProperties.class,
 		IUPropertyRemoval.class, IUWithFilter.class, IUWithFilter2.class, MinimalInstall.class, MinimalInstall2.class,
 		MissingDependency.class, MissingDependency2.class, MissingDependency3.class, MissingNonGreedyRequirement.class,
 		MissingNonGreedyRequirement2.class, MissingOptional.class, MissingOptionalNonGreedyRequirement.class,
@@ -51,7 +51,7 @@ import org.junit.runners.Suite;
 		SeveralOptionalDependencies3.class, SeveralOptionalDependencies4.class, SeveralOptionalDependencies5.class,
 		SimpleOptionalTest.class, SimpleOptionalTest2.class, SimpleOptionalTest3.class, SimpleOptionalTest4.class,
 		SimpleOptionalTest5.class, SimpleSingleton.class, SimulatedSharedInstallTest.class,
-		SingletonOptionallyInstalled.class, SingletonOptionallyInstalled2.class, SWTFragment.class,
+		SingletonOptionallyInstalled.class, SingletonOptionallyInstalled2.class, SolverPortfolioTest.class, SWTFragment.class,
 		SynchronizeOperationTest.class, TestNoopChangeRequest.class, TestFilteringOnAbsentProperty.class,
 		TopLevelFilterTest.class, TwoVersionsOfWSDL.class, TychoUsage.class, UninstallEverything.class,
 		UpdateForTwoIUs.class, UpdateQueryTest.class, })
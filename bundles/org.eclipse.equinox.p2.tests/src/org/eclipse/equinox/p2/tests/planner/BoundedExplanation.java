@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.*;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.equinox.internal.p2.director.*;
+import org.eclipse.equinox.internal.p2.engine.ProvisioningPlan;
+import org.eclipse.equinox.internal.provisional.p2.director.PlannerStatus;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.planner.IPlanner;
+import org.eclipse.equinox.p2.query.Collector;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class BoundedExplanation extends AbstractProvisioningTest {
+	IInstallableUnit a1;
+	IInstallableUnit b1;
+	private IProfile profile;
+	private IPlanner planner;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), true);
+
+		//Missing non optional dependency
+		IRequirement[] req = new IRequirement[1];
+		req[0] = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "C", VersionRange.emptyRange, null, false, false, true);
+		b1 = createIU("B", Version.create("1.0.0"), req);
+
+		createTestMetdataRepository(new IInstallableUnit[] {a1, b1});
+
+		profile = createProfile("TestProfile." + getName());
+		planner = createPlanner();
+	}
+
+	/**
+	 * Returns a projector that failed to install A and B.
+	 */
+	private Projector createUnsatisfiableProjector() {
+		IRequirement[] req = new IRequirement[2];
+		req[0] = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "A", new VersionRange("[1.0.0,1.0.0]"), null, false, false, true);
+		req[1] = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.0.0,1.0.0]"), null, false, false, true);
+		IInstallableUnit entryPoint = createIU("EntryPoint", Version.create("1.0.0"), req);
+		Map<String, String> context = new HashMap<>();
+		Slicer slicer = new Slicer(new QueryableArray(List.of(entryPoint, a1, b1)), context, false);
+		IQueryable<IInstallableUnit> slice = slicer.slice(List.of(entryPoint), new NullProgressMonitor());
+		Projector projector = new Projector(slice, context, new HashSet<>(), false);
+		projector.encode(entryPoint, new IInstallableUnit[0], new Collector<>(), List.of(a1, b1), new NullProgressMonitor());
+		assertEquals(IStatus.ERROR, projector.invokeSolver(new NullProgressMonitor()).getSeverity());
+		return projector;
+	}
+
+	private Set<Explanation> getMissingExplanations(Collection<Explanation> explanations) {
+		Set<Explanation> missing = new HashSet<>();
+		for (Explanation explanation : explanations) {
+			if (explanation instanceof Explanation.MissingIU) {
+				missing.add(explanation);
+			}
+		}
+		return missing;
+	}
+
+	public void testExplanationStreamed() {
+		Projector projector = createUnsatisfiableProjector();
+		List<Explanation> found = new ArrayList<>();
+		try {
+			Set<Explanation> explanation = projector.getExplanation(new NullProgressMonitor(), 0, found::add);
+			// the missing dependency is known from the encoding, so it is given first
+			assertTrue(found.get(0) instanceof Explanation.MissingIU);
+			assertEquals(((Explanation.MissingIU) found.get(0)).iu, b1);
+			// every element of the explanation is given once
+			assertEquals(explanation.size(), found.size());
+			assertEquals(explanation, new HashSet<>(found));
+			assertTrue(explanation.size() > getMissingExplanations(explanation).size());
+		} finally {
+			projector.close();
+		}
+	}
+
+	public void testPartialExplanationWhenTimedOut() {
+		Set<Explanation> complete;
+		Projector projector = createUnsatisfiableProjector();
+		try {
+			complete = projector.getExplanation(new NullProgressMonitor());
+		} finally {
+			projector.close();
+		}
+
+		projector = createUnsatisfiableProjector();
+		List<Explanation> found = new ArrayList<>();
+		// the explanation job cannot run, so the time budget is exhausted
+		Job.getJobManager().suspend();
+		try {
+			Set<Explanation> explanation = projector.getExplanation(new NullProgressMonitor(), 100, found::add);
+			// only the missing IUs found while encoding are known
+			assertEquals(getMissingExplanations(explanation), explanation);
+			assertEquals(getMissingExplanations(complete).size(), explanation.size());
+			assertTrue(complete.size() > explanation.size());
+			assertEquals(((Explanation.MissingIU) explanation.iterator().next()).iu, b1);
+			assertEquals(explanation, new HashSet<>(found));
+			assertEquals(explanation.size(), found.size());
+		} finally {
+			Job.getJobManager().resume();
+			projector.close();
+		}
+	}
+
+	public void testExplanationWithTimeout() {
+		ProfileChangeRequest req = new ProfileChangeRequest(profile);
+		req.addInstallableUnits(new IInstallableUnit[] {a1, b1});
+		ProvisioningContext ctx = new ProvisioningContext(getAgent());
+		ctx.setProperty("org.eclipse.equinox.p2.director.explain.timeout", "1");
+		ProvisioningPlan plan;
+		// the explanation job cannot run, so the planner returns the partial explanation
+		Job.getJobManager().suspend();
+		try {
+			plan = (ProvisioningPlan) planner.getProvisioningPlan(req, ctx, null);
+		} finally {
+			Job.getJobManager().resume();
+		}
+		assertEquals(IStatus.ERROR, plan.getStatus().getSeverity());
+		assertTrue(plan.getStatus() instanceof PlannerStatus);
+		Set<Explanation> explanations = ((PlannerStatus) plan.getStatus()).getRequestStatus().getExplanations();
+		boolean missingFound = false;
+		for (Explanation explanation : explanations) {
+			if (explanation instanceof Explanation.MissingIU missing && missing.iu.equals(b1)) {
+				missingFound = true;
+			}
+		}
+		assertTrue("The missing dependency of B should be explained", missingFound);
+		// only the missing IUs found while encoding are known
+		assertEquals(getMissingExplanations(explanations), explanations);
+	}
+
+	public void testInvalidTimeoutIsIgnored() {
+		ProfileChangeRequest req = new ProfileChangeRequest(profile);
+		req.addInstallableUnits(new IInstallableUnit[] {a1, b1});
+		ProvisioningContext ctx = new ProvisioningContext(getAgent());
+		ctx.setProperty("org.eclipse.equinox.p2.director.explain.timeout", "soon");
+		ProvisioningPlan plan = (ProvisioningPlan) planner.getProvisioningPlan(req, ctx, null);
+		assertEquals(IStatus.ERROR, plan.getStatus().getSeverity());
+		assertTrue(plan.getStatus() instanceof PlannerStatus);
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.Set;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
+import org.eclipse.equinox.p2.engine.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.planner.IPlanner;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class IncrementalPlanningTest extends AbstractProvisioningTest {
+	IInstallableUnit a1;
+	IInstallableUnit b1;
+	IInstallableUnit c1;
+	IInstallableUnit d1;
+
+	IPlanner planner;
+	IProfile profile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "C", new VersionRange("[1.0.0, 2.0.0)")));
+		b1 = createIU("B", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "C", new VersionRange("[1.0.0, 2.0.0)")));
+		c1 = createIU("C", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "D", new VersionRange("[1.0.0, 2.0.0)")));
+		d1 = createIU("D", Version.create("1.0.0"), true);
+
+		createTestMetdataRepository(new IInstallableUnit[] {a1, b1, c1, d1});
+
+		profile = createProfile("TestProfile." + getName());
+		planner = createPlanner();
+	}
+
+	private ProvisioningContext createIncrementalContext() {
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setProperty("org.eclipse.equinox.p2.planner.incremental", "true");
+		return context;
+	}
+
+	public void testSuccessiveRequests() {
+		ProfileChangeRequest req1 = new ProfileChangeRequest(profile);
+		req1.addInstallableUnits(new IInstallableUnit[] {a1});
+		IProvisioningPlan plan1 = planner.getProvisioningPlan(req1, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan1.getStatus().getSeverity());
+		assertEquals(3, queryResultSize(plan1.getAdditions().query(QueryUtil.createIUAnyQuery(), null)));
+
+		ProfileChangeRequest req2 = new ProfileChangeRequest(profile);
+		req2.addInstallableUnits(new IInstallableUnit[] {a1, b1});
+		IProvisioningPlan plan2 = planner.getProvisioningPlan(req2, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan2.getStatus().getSeverity());
+		assertEquals(4, queryResultSize(plan2.getAdditions().query(QueryUtil.createIUAnyQuery(), null)));
+
+		IProvisioningPlan reference = planner.getProvisioningPlan(req2, new ProvisioningContext(getAgent()), null);
+		assertSamePlan(reference, plan2);
+		assertEquals(Set.of(a1, b1, c1, d1), getUnits(plan2.getAdditions()));
+	}
+
+	public void testPlanFollowsProfileChanges() {
+		ProfileChangeRequest req1 = new ProfileChangeRequest(profile);
+		req1.addInstallableUnits(new IInstallableUnit[] {a1});
+		IProvisioningPlan plan1 = planner.getProvisioningPlan(req1, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan1.getStatus().getSeverity());
+		assertEquals(Set.of(a1, c1, d1), getUnits(plan1.getAdditions()));
+		assertOK("install A", createEngine().perform(plan1, null));
+		profile = getProfile(profile.getProfileId());
+
+		// C and D are now installed, so adding B must only bring in B
+		ProfileChangeRequest req2 = new ProfileChangeRequest(profile);
+		req2.addInstallableUnits(new IInstallableUnit[] {b1});
+		IProvisioningPlan plan2 = planner.getProvisioningPlan(req2, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan2.getStatus().getSeverity());
+		assertEquals(Set.of(b1), getUnits(plan2.getAdditions()));
+		assertEquals(Set.of(), getUnits(plan2.getRemovals()));
+		assertSamePlan(planner.getProvisioningPlan(req2, new ProvisioningContext(getAgent()), null), plan2);
+
+		// removing A without adding B must take C and D out again
+		ProfileChangeRequest req3 = new ProfileChangeRequest(profile);
+		req3.removeInstallableUnits(new IInstallableUnit[] {a1});
+		IProvisioningPlan plan3 = planner.getProvisioningPlan(req3, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan3.getStatus().getSeverity());
+		assertEquals(Set.of(), getUnits(plan3.getAdditions()));
+		assertEquals(Set.of(a1, c1, d1), getUnits(plan3.getRemovals()));
+		assertSamePlan(planner.getProvisioningPlan(req3, new ProvisioningContext(getAgent()), null), plan3);
+	}
+
+	public void testRepositoryChangeInvalidatesCache() {
+		ProfileChangeRequest req1 = new ProfileChangeRequest(profile);
+		req1.addInstallableUnits(new IInstallableUnit[] {b1});
+		assertEquals(IStatus.OK, planner.getProvisioningPlan(req1, createIncrementalContext(), null).getStatus().getSeverity());
+
+		IInstallableUnit e1 = createIU("E", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "D", new VersionRange("[1.0.0, 2.0.0)")));
+		createTestMetdataRepository(new IInstallableUnit[] {e1});
+
+		ProfileChangeRequest req2 = new ProfileChangeRequest(profile);
+		req2.addInstallableUnits(new IInstallableUnit[] {e1});
+		IProvisioningPlan plan = planner.getProvisioningPlan(req2, createIncrementalContext(), null);
+		assertEquals(IStatus.OK, plan.getStatus().getSeverity());
+		assertEquals(Set.of(e1, d1), getUnits(plan.getAdditions()));
+		assertSamePlan(planner.getProvisioningPlan(req2, new ProvisioningContext(getAgent()), null), plan);
+	}
+
+	private static Set<IInstallableUnit> getUnits(IQueryable<IInstallableUnit> queryable) {
+		return queryable.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+	}
+
+	private static void assertSamePlan(IProvisioningPlan expected, IProvisioningPlan actual) {
+		assertEquals(IStatus.OK, expected.getStatus().getSeverity());
+		assertEquals("additions", getUnits(expected.getAdditions()), getUnits(actual.getAdditions()));
+		assertEquals("removals", getUnits(expected.getRemovals()), getUnits(actual.getRemovals()));
+		assertEquals("future state", getUnits(expected.getFutureState()), getUnits(actual.getFutureState()));
+	}
+}
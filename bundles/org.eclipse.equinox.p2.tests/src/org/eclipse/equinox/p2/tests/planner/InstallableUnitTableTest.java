@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.equinox.internal.p2.director.InstallableUnitTable;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class InstallableUnitTableTest extends AbstractProvisioningTest {
+
+	public void testDenseIdsInInterningOrder() {
+		InstallableUnitTable table = new InstallableUnitTable();
+		IInstallableUnit a = createIU("A", Version.create("1.0.0"));
+		IInstallableUnit b = createIU("B", Version.create("1.0.0"));
+		IInstallableUnit a2 = createIU("A", Version.create("2.0.0"));
+		assertEquals(0, table.intern(b));
+		assertEquals(1, table.intern(a));
+		assertEquals(2, table.intern(a2));
+		assertEquals(3, table.size());
+		assertEquals(List.of(b, a, a2), table.units());
+	}
+
+	public void testEqualUnitKeepsFirstIdAndInstance() {
+		InstallableUnitTable table = new InstallableUnitTable();
+		IInstallableUnit a = createIU("A", Version.create("1.0.0"));
+		IInstallableUnit b = createIU("B", Version.create("1.0.0"));
+		IInstallableUnit sameAsA = createIU("A", Version.create("1.0.0"));
+		assertNotSame(a, sameAsA);
+		table.intern(a);
+		table.intern(b);
+
+		// the Slicer detects newly discovered units by comparing the id with the previous size
+		int size = table.size();
+		assertEquals(0, table.intern(sameAsA));
+		assertEquals(size, table.size());
+		assertSame(a, table.get(0));
+		assertEquals(List.of(a, b), table.units());
+	}
+
+	public void testMissingLookup() {
+		InstallableUnitTable table = new InstallableUnitTable();
+		assertEquals(-1, table.indexOf(createIU("A", Version.create("1.0.0"))));
+		table.intern(createIU("A", Version.create("1.0.0")));
+		assertEquals(0, table.indexOf(createIU("A", Version.create("1.0.0"))));
+		assertEquals(-1, table.indexOf(createIU("A", Version.create("1.0.1"))));
+		assertEquals(-1, table.indexOf(createIU("B", Version.create("1.0.0"))));
+		assertEquals(1, table.size());
+	}
+
+	public void testCollisions() {
+		// "Aa" and "BB" have the same String hash code, so both units hash alike
+		IInstallableUnit aa = createIU("Aa", Version.create("1.0.0"));
+		IInstallableUnit bb = createIU("BB", Version.create("1.0.0"));
+		assertEquals(aa.hashCode(), bb.hashCode());
+
+		InstallableUnitTable table = new InstallableUnitTable();
+		assertEquals(0, table.intern(aa));
+		assertEquals(-1, table.indexOf(bb));
+		assertEquals(1, table.intern(bb));
+		assertEquals(0, table.indexOf(createIU("Aa", Version.create("1.0.0"))));
+		assertEquals(1, table.indexOf(createIU("BB", Version.create("1.0.0"))));
+		assertEquals(List.of(aa, bb), table.units());
+	}
+
+	public void testResize() {
+		InstallableUnitTable table = new InstallableUnitTable(1);
+		List<IInstallableUnit> expected = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			IInstallableUnit iu = createIU("IU" + (i % 10), Version.createOSGi(1, i, 0));
+			expected.add(iu);
+			assertEquals(i, table.intern(iu));
+		}
+		assertEquals(1000, table.size());
+		assertEquals(expected, table.units());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, table.indexOf(createIU("IU" + (i % 10), Version.createOSGi(1, i, 0))));
+			assertSame(expected.get(i), table.get(i));
+		}
+		assertEquals(-1, table.indexOf(createIU("IU0", Version.createOSGi(1, 1000, 0))));
+	}
+
+	public void testUnitsIsALiveReadOnlyView() {
+		InstallableUnitTable table = new InstallableUnitTable();
+		List<IInstallableUnit> units = table.units();
+		IInstallableUnit a = createIU("A", Version.create("1.0.0"));
+		table.intern(a);
+		assertEquals(List.of(a), units);
+		try {
+			units.add(a);
+			fail("The view of the interned units should be read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.director.PermissiveSlicer;
+import org.eclipse.equinox.internal.p2.director.Slicer;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
 import org.eclipse.equinox.p2.metadata.IRequirement;
@@ -53,6 +54,49 @@ public class PermissiveSlicerTest extends AbstractProvisioningTest {
 		//		assertOK("1.0", slicer.getStatus());
 	}
 
+	public void testParallelSliceRCP() {
+		IQueryResult<IInstallableUnit> c = repo.query(QueryUtil.createIUQuery("org.eclipse.rcp.feature.group"), new NullProgressMonitor());
+		IInstallableUnit iu = c.iterator().next();
+		PermissiveSlicer sequential = new PermissiveSlicer(repo, Collections.emptyMap(), true, false, true, false, false);
+		IQueryable<IInstallableUnit> expected = sequential.slice(List.of(iu), new NullProgressMonitor());
+		PermissiveSlicer parallel = new PermissiveSlicer(repo, Collections.emptyMap(), true, false, true, false, false);
+		parallel.setParallel(true);
+		IQueryable<IInstallableUnit> result = parallel.slice(List.of(iu), new NullProgressMonitor());
+		assertNotNull(result);
+		assertEquals(expected.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet(), result.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet());
+		assertEquals(sequential.getStatus().getChildren().length, parallel.getStatus().getChildren().length);
+	}
+
+	public void testParallelSliceUsesProcessIU() {
+		IQueryResult<IInstallableUnit> c = repo.query(QueryUtil.createIUQuery("org.eclipse.rcp.feature.group"), new NullProgressMonitor());
+		IInstallableUnit iu = c.iterator().next();
+		Slicer sequential = new RootOnlySlicer(iu);
+		IQueryable<IInstallableUnit> expected = sequential.slice(List.of(iu), new NullProgressMonitor());
+		Slicer parallel = new RootOnlySlicer(iu);
+		parallel.setParallel(true);
+		IQueryable<IInstallableUnit> result = parallel.slice(List.of(iu), new NullProgressMonitor());
+		assertNotNull(result);
+		assertEquals(expected.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet(), result.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet());
+		assertTrue(queryResultSize(result.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor())) < 66);
+	}
+
+	/** A slicer that only follows the requirements of the root IU */
+	private class RootOnlySlicer extends Slicer {
+		private final IInstallableUnit root;
+
+		RootOnlySlicer(IInstallableUnit root) {
+			super(repo, Collections.emptyMap(), true);
+			this.root = root;
+		}
+
+		@Override
+		protected void processIU(IInstallableUnit iu) {
+			if (iu.equals(root)) {
+				super.processIU(iu);
+			}
+		}
+	}
+
 	//Test with and without optional pieces
 	public void testSliceRCPWithOptionalPieces() {
 		PermissiveSlicer slicer = new PermissiveSlicer(repo, Collections.emptyMap(), false, false, true, false, false);
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.internal.p2.director.Explanation;
+import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
+import org.eclipse.equinox.internal.provisional.p2.director.PlannerStatus;
+import org.eclipse.equinox.p2.engine.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.planner.IPlanner;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class SolverPortfolioTest extends AbstractProvisioningTest {
+	IInstallableUnit a1;
+	IInstallableUnit b1;
+	IInstallableUnit b12;
+	IInstallableUnit b14;
+	IInstallableUnit c1;
+	IRequirement missingRequirement;
+
+	IPlanner planner;
+	IProfile profile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "B1", new VersionRange("[1.0.0, 2.0.0)")));
+		b1 = createIU("B1", Version.create("1.0.0"), true);
+		b12 = createIU("B1", Version.create("1.2.0"), true);
+		b14 = createIU("B1", Version.create("1.4.0"), true);
+
+		IRequirement[] missing = createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "D", new VersionRange("[1.0.0, 2.0.0)"));
+		missingRequirement = missing[0];
+		c1 = createIU("C", Version.create("1.0.0"), missing);
+
+		createTestMetdataRepository(new IInstallableUnit[] {a1, b1, b12, b14, c1});
+
+		profile = createProfile("TestProfile." + getName());
+		planner = createPlanner();
+	}
+
+	private ProvisioningContext createPortfolioContext() {
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setProperty("org.eclipse.equinox.p2.planner.solverPortfolio", "3");
+		return context;
+	}
+
+	public void testOptimalSolution() {
+		ProfileChangeRequest req = new ProfileChangeRequest(profile);
+		req.addInstallableUnits(new IInstallableUnit[] {a1});
+		IProvisioningPlan plan = planner.getProvisioningPlan(req, createPortfolioContext(), null);
+		assertEquals(IStatus.OK, plan.getStatus().getSeverity());
+		assertInstallOperand(plan, a1);
+		assertInstallOperand(plan, b14);
+	}
+
+	public void testExplanation() {
+		ProfileChangeRequest req = new ProfileChangeRequest(profile);
+		req.addInstallableUnits(new IInstallableUnit[] {c1});
+		IProvisioningPlan plan = planner.getProvisioningPlan(req, createPortfolioContext(), null);
+		assertEquals(IStatus.ERROR, plan.getStatus().getSeverity());
+		IProvisioningPlan reference = planner.getProvisioningPlan(req, new ProvisioningContext(getAgent()), null);
+		assertEquals(IStatus.ERROR, reference.getStatus().getSeverity());
+
+		Set<String> missingRequirements = getMissingRequirements(plan);
+		assertTrue(missingRequirements.toString(), missingRequirements.contains(c1 + " -> " + missingRequirement));
+		assertEquals(getMissingRequirements(reference), missingRequirements);
+	}
+
+	private static Set<String> getMissingRequirements(IProvisioningPlan plan) {
+		assertTrue(plan.getStatus() instanceof PlannerStatus);
+		Set<String> missing = new HashSet<>();
+		for (Explanation explanation : ((PlannerStatus) plan.getStatus()).getRequestStatus().getExplanations()) {
+			if (explanation instanceof Explanation.MissingIU missingIU) {
+				missing.add(missingIU.iu + " -> " + missingIU.req);
+			}
+		}
+		return missing;
+	}
+}
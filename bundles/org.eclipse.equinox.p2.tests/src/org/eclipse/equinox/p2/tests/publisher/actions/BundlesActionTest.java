@@ -516,6 +516,36 @@ public class BundlesActionTest extends ActionTest {
 		assertThat(ius.size(), is(1));
 	}
 
+	public void testParallelPublishingIsIdentical() throws Exception {
+		List<File> bundleLocations = new ArrayList<>(Arrays.asList(TEST_BASE.listFiles()));
+		bundleLocations.addAll(Arrays.asList(new File(TestActivator.getTestDataFolder(), "bug331683").listFiles()));
+		bundleLocations.add(new File(TestActivator.getTestDataFolder(), "FragmentPublisherTest/foo"));
+		bundleLocations.add(new File(TestActivator.getTestDataFolder(), "FragmentPublisherTest/foo.fragment"));
+		File[] locations = bundleLocations.toArray(new File[0]);
+
+		PublisherResult sequentialResult = new PublisherResult();
+		IStatus sequentialStatus = new BundlesAction(locations).perform(new PublisherInfo(), sequentialResult,
+				new NullProgressMonitor());
+
+		BundlesAction parallelAction = new BundlesAction(locations);
+		parallelAction.setParallel(true);
+		PublisherResult parallelResult = new PublisherResult();
+		IStatus parallelStatus = parallelAction.perform(new PublisherInfo(), parallelResult, new NullProgressMonitor());
+
+		assertEquals(sequentialStatus.getSeverity(), parallelStatus.getSeverity());
+		assertEquals(sequentialStatus.getChildren().length, parallelStatus.getChildren().length);
+		for (String type : new String[] { IPublisherResult.ROOT, IPublisherResult.NON_ROOT }) {
+			List<IInstallableUnit> expected = new ArrayList<>(sequentialResult.getIUs(null, type));
+			List<IInstallableUnit> actual = new ArrayList<>(parallelResult.getIUs(null, type));
+			assertEquals(expected, actual);
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getProperties(), actual.get(i).getProperties());
+				assertEquals(expected.get(i).getRequirements(), actual.get(i).getRequirements());
+				assertEquals(expected.get(i).getProvidedCapabilities(), actual.get(i).getProvidedCapabilities());
+			}
+		}
+	}
+
 	public void testMultiRequired() throws Exception {
 		File testData = new File(TestActivator.getTestDataFolder(), "requireMultiple");
 		IInstallableUnit iu = BundlesAction.createBundleIU(BundlesAction.createBundleDescription(testData), null,
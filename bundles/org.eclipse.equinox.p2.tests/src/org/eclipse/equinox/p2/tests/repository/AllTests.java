@@ -20,7 +20,7 @@ import org.junit.runners.Suite;
  * Performs all automated repository bundle tests.
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ CacheManagerTest.class, RepositoryHelperTest.class, RepositoryExtensionPointTest.class,
+@Suite.SuiteClasses({ CacheManagerTest.class, ChildRepositoryLoaderTest.class, DownloadExecutorTest.class, MetadataPoolTest.class, RepositoryHelperTest.class, RepositoryExtensionPointTest.class,
 		FileReaderTest2.class, ChecksumHelperTest.class })
 public class AllTests {
 	// test suite
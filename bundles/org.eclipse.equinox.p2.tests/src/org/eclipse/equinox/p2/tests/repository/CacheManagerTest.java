@@ -15,21 +15,38 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.repository.AuthenticationFailedException;
 import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
 import org.eclipse.equinox.internal.p2.repository.Messages;
 import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.p2.transport.ecf.RepositoryTransport;
 import org.eclipse.equinox.p2.core.IAgentLocation;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.IProvisioningAgentProvider;
@@ -143,6 +160,234 @@ public class CacheManagerTest {
 		}
 	}
 
+	@Test
+	public void testRefreshTakesSingleConditionalRequest() throws Exception {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		String[] content = {"first"};
+		HttpServer server = startServer("/content.jar", content, requests);
+		try {
+			URI location = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+			CacheManager manager = new CacheManager(new AgentLocationMock(), new HttpTransport());
+
+			File cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("first", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar"), requests);
+
+			// not modified, the cache is kept
+			requests.clear();
+			cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("first", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar 304"), requests);
+
+			// modified, the new content comes with the answer to the conditional request
+			requests.clear();
+			content[0] = "second";
+			cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("second", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar"), requests);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testRefreshFallsBackToXml() throws Exception {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		HttpServer server = startServer("/content.xml", new String[] {"xml"}, requests);
+		try {
+			URI location = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+			CacheManager manager = new CacheManager(new AgentLocationMock(), new HttpTransport());
+
+			File cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertTrue(cache.getName().endsWith(".xml"));
+			assertEquals(List.of("GET /content.jar 404", "GET /content.xml"), requests);
+
+			requests.clear();
+			cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("xml", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar 404", "GET /content.xml 304"), requests);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testRepositoryTransportConditionalDownload() throws Exception {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		HttpServer server = startServer("/content.jar", new String[] {"first"}, requests);
+		try {
+			URI location = URI.create("http://localhost:" + server.getAddress().getPort() + "/content.jar");
+			RepositoryTransport transport = new RepositoryTransport();
+			ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+			IStatus status = transport.downloadIfModified(location, target, null, 0, new NullProgressMonitor());
+			assertTrue(status.toString(), status.isOK());
+			DownloadStatus download = (DownloadStatus) status;
+			assertFalse(download.isNotModified());
+			assertEquals("first", target.toString(StandardCharsets.UTF_8));
+			// the entity tag is read from the response headers
+			String eTag = download.getETag();
+			assertEquals('"' + Integer.toHexString("first".hashCode()) + '"', eTag);
+			long lastModified = download.getLastModified();
+
+			// the server answers 304, reported as not modified rather than as a failure
+			target.reset();
+			status = transport.downloadIfModified(location, target, eTag, lastModified, new NullProgressMonitor());
+			assertTrue(status.toString(), status.isOK());
+			download = (DownloadStatus) status;
+			assertTrue(download.isNotModified());
+			assertEquals(lastModified, download.getLastModified());
+			assertEquals(0, target.size());
+			assertEquals(List.of("GET /content.jar", "GET /content.jar 304"), requests);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testRefreshWithRepositoryTransport() throws Exception {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		HttpServer server = startServer("/content.jar", new String[] {"first"}, requests);
+		try {
+			URI location = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+			CacheManager manager = new CacheManager(new AgentLocationMock(), new RepositoryTransport());
+
+			File cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("first", Files.readString(cache.toPath()));
+			requests.clear();
+			cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("first", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar 304"), requests);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testCacheLookedUpThroughHook() throws Exception {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		HttpServer server = startServer("/content.jar", new String[] {"first"}, requests);
+		try {
+			URI location = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+			List<URI> lookups = new ArrayList<>();
+			boolean[] hideCache = {false};
+			CacheManager manager = new CacheManager(new AgentLocationMock(), new HttpTransport()) {
+				@Override
+				protected File getCache(URI repositoryLocation, String prefix) {
+					lookups.add(repositoryLocation);
+					return hideCache[0] ? null : super.getCache(repositoryLocation, prefix);
+				}
+			};
+
+			File cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals(List.of(location), lookups);
+			requests.clear();
+			assertEquals(cache, manager.createCache(location, cachePrefix, new NullProgressMonitor()));
+			assertEquals(List.of("GET /content.jar 304"), requests);
+
+			// without a cache the content is requested unconditionally
+			requests.clear();
+			hideCache[0] = true;
+			cache = manager.createCache(location, cachePrefix, new NullProgressMonitor());
+			assertEquals("first", Files.readString(cache.toPath()));
+			assertEquals(List.of("GET /content.jar"), requests);
+			assertEquals(3, lookups.size());
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	/**
+	 * Starts a local HTTP server serving the given content at the given path, with
+	 * an entity tag and a last modified date, and recording the requests it gets.
+	 */
+	private static HttpServer startServer(String path, String[] content, List<String> requests) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			String request = exchange.getRequestMethod() + ' ' + exchange.getRequestURI().getPath();
+			if (!exchange.getRequestURI().getPath().equals(path)) {
+				requests.add(request + " 404");
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+				return;
+			}
+			byte[] body = content[0].getBytes(StandardCharsets.UTF_8);
+			String eTag = '"' + Integer.toHexString(content[0].hashCode()) + '"';
+			exchange.getResponseHeaders().set("ETag", eTag);
+			exchange.getResponseHeaders().set("Last-Modified", "Tue, 15 Nov 1994 08:12:31 GMT");
+			if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				requests.add(request + " 304");
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				requests.add(request);
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+			exchange.close();
+		});
+		server.start();
+		return server;
+	}
+
+	/**
+	 * A transport sending conditional requests with the HTTP client of the JRE.
+	 */
+	static class HttpTransport extends Transport {
+		private final HttpClient client = HttpClient.newHttpClient();
+
+		@Override
+		public IStatus download(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+			return downloadIfModified(toDownload, target, null, 0, monitor);
+		}
+
+		@Override
+		public IStatus downloadIfModified(URI toDownload, OutputStream target, String eTag, long lastModified,
+				IProgressMonitor monitor) {
+			HttpRequest.Builder request = HttpRequest.newBuilder(toDownload);
+			if (eTag != null) {
+				request.header("If-None-Match", eTag);
+			}
+			try {
+				HttpResponse<InputStream> response = client.send(request.build(),
+						HttpResponse.BodyHandlers.ofInputStream());
+				try (InputStream in = response.body()) {
+					if (response.statusCode() == 404) {
+						return new DownloadStatus(IStatus.ERROR, "test", ProvisionException.ARTIFACT_NOT_FOUND,
+								toDownload.toString(), new FileNotFoundException(toDownload.toString()));
+					}
+					DownloadStatus status = new DownloadStatus(IStatus.OK, "test", Status.OK_STATUS.getMessage());
+					if (response.statusCode() == 304) {
+						status.setNotModified(true);
+						return status;
+					}
+					in.transferTo(target);
+					status.setETag(response.headers().firstValue("ETag").orElse(null));
+					response.headers().firstValue("Last-Modified").ifPresent(date -> status.setLastModified(
+							ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()));
+					return status;
+				}
+			} catch (IOException e) {
+				return new DownloadStatus(IStatus.ERROR, "test", ProvisionException.REPOSITORY_FAILED_READ,
+						e.getMessage(), e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return Status.CANCEL_STATUS;
+			}
+		}
+
+		@Override
+		public InputStream stream(URI toDownload, IProgressMonitor monitor) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long getLastModified(URI toDownload, IProgressMonitor monitor) {
+			throw new UnsupportedOperationException("a conditional download takes a single request");
+		}
+	}
+
 	private URI createRepistory() throws IOException {
 		File repository = File.createTempFile("remoteFile", ""); //$NON-NLS-1$//$NON-NLS-2$
 		repository.deleteOnExit();
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChildRepositoryLoader.Result;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.junit.Test;
+
+public class ChildRepositoryLoaderTest {
+
+	private static List<URI> children(int count) {
+		List<URI> children = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			children.add(URI.create("http://example.org/child" + i));
+		}
+		return children;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testResultsInChildOrder() {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<URI> children = children(20);
+		List<Result<String>> results = ChildRepositoryLoader.loadAll(null, null, children, (location, monitor) -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			// let the later children finish first
+			sleep(40 - children.indexOf(location) * 2);
+			running.decrementAndGet();
+			return location.toString();
+		}, false, new NullProgressMonitor());
+		assertEquals(children.size(), results.size());
+		for (int i = 0; i < children.size(); i++) {
+			assertEquals(children.get(i).toString(), results.get(i).repository());
+			assertNull(results.get(i).failure());
+		}
+		assertTrue("Ran " + maxRunning.get() + " loads at once", maxRunning.get() > 1 && maxRunning.get() <= 4);
+	}
+
+	@Test
+	public void testFailures() {
+		List<URI> children = children(3);
+		List<Result<String>> results = ChildRepositoryLoader.loadAll(null, null, children, (location, monitor) -> {
+			if (location.equals(children.get(1))) {
+				throw new ProvisionException("expected");
+			}
+			return location.toString();
+		}, false, new NullProgressMonitor());
+		assertNotNull(results.get(0).repository());
+		assertNotNull(results.get(1).failure());
+		assertNotNull(results.get(2).repository());
+	}
+
+	@Test
+	public void testStopOnFailure() {
+		AtomicInteger loaded = new AtomicInteger();
+		List<URI> children = children(40);
+		ProvisionException failure = new ProvisionException("expected");
+		List<Result<String>> results = ChildRepositoryLoader.loadAll(null, null, children, (location, monitor) -> {
+			if (location.equals(children.get(0))) {
+				throw failure;
+			}
+			sleep(10);
+			loaded.incrementAndGet();
+			return location.toString();
+		}, true, new NullProgressMonitor());
+		assertSame(failure, results.get(0).failure());
+		assertNull(results.get(39).repository());
+		assertTrue("Loaded " + loaded.get() + " children after a failure", loaded.get() < 39);
+	}
+
+	@Test
+	public void testCancel() {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		AtomicInteger loaded = new AtomicInteger();
+		assertThrows(OperationCanceledException.class, () -> ChildRepositoryLoader.loadAll(null, null, children(40), (location, m) -> {
+			sleep(10);
+			if (loaded.incrementAndGet() == 2) {
+				monitor.setCanceled(true);
+			}
+			return location.toString();
+		}, false, monitor));
+		assertTrue(loaded.get() < 40);
+	}
+
+	@Test(timeout = 30000)
+	public void testNestedLoadsUseTheCallingThread() {
+		URI parent = URI.create("http://example.org/composite");
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		AtomicInteger leaves = new AtomicInteger();
+		List<Result<String>> results = ChildRepositoryLoader.loadAll(null, parent, children(8), (location, monitor) -> {
+			Thread current = Thread.currentThread();
+			threads.add(current);
+			// every child is a composite of its own children
+			List<URI> nested = List.of(URI.create(location + "/a"), URI.create(location + "/b"), URI.create(location + "/c"));
+			List<Result<String>> nestedResults = ChildRepositoryLoader.loadAll(null, location, nested, (child, m) -> {
+				assertSame(current, Thread.currentThread());
+				sleep(5);
+				leaves.incrementAndGet();
+				return child.toString();
+			}, false, monitor);
+			for (Result<String> result : nestedResults) {
+				assertNotNull(result.repository());
+			}
+			return location.toString();
+		}, false, new NullProgressMonitor());
+		for (Result<String> result : results) {
+			assertNotNull(result.repository());
+		}
+		assertEquals(24, leaves.get());
+		assertTrue("Used " + threads.size() + " threads", threads.size() <= 4);
+	}
+
+	@Test(timeout = 30000)
+	public void testCyclicComposite() {
+		URI parent = URI.create("http://example.org/composite/");
+		URI child = URI.create("http://example.org/child");
+		URI simple = URI.create("http://example.org/simple");
+		List<Result<String>> results = ChildRepositoryLoader.loadAll(null, parent, List.of(child, simple, parent), (location, monitor) -> {
+			if (location.equals(child)) {
+				// the child composite refers back to its parent, without the trailing slash
+				List<Result<String>> nested = ChildRepositoryLoader.loadAll(null, child, List.of(URI.create("http://example.org/composite"), simple), (l, m) -> l.toString(), false, monitor);
+				assertNotNull(nested.get(0).failure());
+				assertEquals(simple.toString(), nested.get(1).repository());
+			}
+			return location.toString();
+		}, false, new NullProgressMonitor());
+		assertEquals(child.toString(), results.get(0).repository());
+		assertEquals(simple.toString(), results.get(1).repository());
+		assertNull(results.get(2).repository());
+		assertNotNull("A composite containing itself should fail", results.get(2).failure());
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.repository.DownloadExecutor;
+import org.junit.*;
+
+public class DownloadExecutorTest {
+	private DownloadExecutor executor;
+
+	@After
+	public void tearDown() {
+		if (executor != null) {
+			executor.stop();
+		}
+	}
+
+	private static List<Runnable> tasks(int count, Runnable task) {
+		return Collections.nCopies(count, task);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testConcurrencyLimit() {
+		executor = new DownloadExecutor(4);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger done = new AtomicInteger();
+		assertTrue(executor.invokeAll(tasks(20, () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			sleep(5);
+			running.decrementAndGet();
+			done.incrementAndGet();
+		}), 2, new NullProgressMonitor()));
+		assertEquals(20, done.get());
+		assertTrue("Ran " + maxRunning.get() + " tasks at once", maxRunning.get() <= 2);
+		assertEquals(20, executor.getCompletedCount());
+		assertEquals(0, executor.getQueueDepth());
+		assertEquals(0, executor.getActiveCount());
+	}
+
+	@Test
+	public void testBatchesTakeTurns() throws Exception {
+		executor = new DownloadExecutor(1);
+		AtomicInteger largeDone = new AtomicInteger();
+		CompletableFuture<Boolean> large = CompletableFuture.supplyAsync(() -> executor.invokeAll(tasks(50, () -> {
+			sleep(10);
+			largeDone.incrementAndGet();
+		}), 1, new NullProgressMonitor()));
+		while (largeDone.get() == 0) {
+			sleep(1);
+		}
+		assertTrue(executor.invokeAll(tasks(2, () -> sleep(1)), 1, new NullProgressMonitor()));
+		assertTrue("The small batch waited for the large one", largeDone.get() < 50);
+		assertTrue(large.get());
+		assertEquals(50, largeDone.get());
+	}
+
+	@Test
+	public void testCancel() {
+		executor = new DownloadExecutor(1);
+		AtomicInteger done = new AtomicInteger();
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		assertFalse(executor.invokeAll(tasks(100, () -> {
+			sleep(5);
+			if (done.incrementAndGet() == 2) {
+				monitor.setCanceled(true);
+			}
+		}), 1, monitor));
+		assertTrue(done.get() < 100);
+		assertEquals(0, executor.getQueueDepth());
+	}
+
+	@Test
+	public void testFailingTask() {
+		executor = new DownloadExecutor(2);
+		AtomicInteger done = new AtomicInteger();
+		assertTrue(executor.invokeAll(List.of(() -> {
+			throw new IllegalStateException("expected");
+		}, done::incrementAndGet), 2, new NullProgressMonitor()));
+		assertEquals(1, done.get());
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.internal.p2.repository.MetadataPool;
+import org.eclipse.equinox.p2.metadata.*;
+import org.junit.Test;
+
+public class MetadataPoolTest {
+	private final MetadataPool pool = new MetadataPool();
+
+	@Test
+	public void testShareCapabilities() {
+		IProvidedCapability first = MetadataFactory.createProvidedCapability("ns", "name", Version.create("1.0.0"));
+		IProvidedCapability second = MetadataFactory.createProvidedCapability("ns", "name", Version.create("1.0.0"));
+		IProvidedCapability other = MetadataFactory.createProvidedCapability("ns", "other", Version.create("1.0.0"));
+		assertSame(first, pool.shareCapability(first));
+		assertSame(first, pool.shareCapability(second));
+		assertSame(other, pool.shareCapability(other));
+		assertNull(pool.shareCapability(null));
+
+		MetadataPool.Pool<?> capabilities = pool.getPools().stream().filter(p -> p.getName().equals("capabilities")).findFirst().orElseThrow();
+		assertEquals(1, capabilities.getHits());
+		assertEquals(2, capabilities.getMisses());
+		assertEquals(1.0 / 3, capabilities.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void testShareVersions() {
+		Version version = pool.shareVersion(Version.create("1.2.3"));
+		assertSame(version, pool.shareVersion(Version.create("1.2.3")));
+		VersionRange range = pool.shareVersionRange(VersionRange.create("[1.0.0,2.0.0)"));
+		assertSame(range, pool.shareVersionRange(VersionRange.create("[1.0.0,2.0.0)")));
+		IRequirement requirement = pool.shareRequirement(MetadataFactory.createRequirement("ns", "name", range, null, false, false));
+		assertSame(requirement, pool.shareRequirement(MetadataFactory.createRequirement("ns", "name", range, null, false, false)));
+	}
+
+	@Test
+	public void testShareProperties() {
+		OrderedProperties properties = new OrderedProperties();
+		properties.setProperty("key", "value");
+		OrderedProperties shared = pool.shareProperties(properties);
+		assertEquals(properties, shared);
+		assertNotSame(properties, shared);
+		assertSame(shared, pool.shareProperties(Map.of("key", "value")));
+		assertThrows(UnsupportedOperationException.class, () -> shared.put("key", "other"));
+		// the map given first is not held by the pool
+		properties.setProperty("key", "other");
+		assertEquals("value", pool.shareProperties(Map.of("key", "value")).get("key"));
+	}
+}
@@ -59,7 +59,7 @@ public abstract class AbstractSimpleConfiguratorTest extends AbstractProvisionin
 		}
 	}
 
-	private File getLocation(String bundleId) {
+	protected File getLocation(String bundleId) {
 		try {
 			URL u = FileLocator.resolve(Platform.getBundle(bundleId).getEntry(""));
 			String urlString = u.toExternalForm();
@@ -75,8 +75,12 @@ public abstract class AbstractSimpleConfiguratorTest extends AbstractProvisionin
 		}
 	}
 
-	@SuppressWarnings("deprecation")
 	protected BundleContext startFramework(File bundleInfo, File[] additionalBundle) {
+		return startFramework(bundleInfo, additionalBundle, Map.of());
+	}
+
+	@SuppressWarnings("deprecation")
+	protected BundleContext startFramework(File bundleInfo, File[] additionalBundle, Map<String, String> properties) {
 		try {
 			File simpleConfiguratorBundle = getLocation("org.eclipse.equinox.simpleconfigurator");
 			File osgiBundleLoc = getLocation("org.eclipse.osgi");
@@ -106,6 +110,7 @@ public abstract class AbstractSimpleConfiguratorTest extends AbstractProvisionin
 
 			frameworkProperties.put("org.eclipse.equinox.simpleconfigurator.configUrl", bundleInfo.toURL().toExternalForm());
 			frameworkProperties.put("osgi.dev", "bin/");
+			frameworkProperties.putAll(properties);
 
 			URL[] osgiPath = osgiBundleDevPath == null ? new URL[] {osgiBundle} : new URL[] {osgiBundle, osgiBundleDevPath};
 			equinox = new EmbeddedEquinox(frameworkProperties, new String[] {}, osgiPath);
@@ -133,7 +138,7 @@ public abstract class AbstractSimpleConfiguratorTest extends AbstractProvisionin
 		return bundlesTxt;
 	}
 
-	private String getBundlesTxtEntry(File bundleJar) {
+	protected String getBundlesTxtEntry(File bundleJar) {
 		String name = getManifestEntry(bundleJar, Constants.BUNDLE_SYMBOLICNAME);
 		String version = getManifestEntry(bundleJar, Constants.BUNDLE_VERSION);
 		// <name>,<version>,file:<file>,<startlevel>,true
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.simpleconfigurator;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.jar.*;
+import org.osgi.framework.*;
+import org.osgi.framework.namespace.HostNamespace;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * Tests how the simple configurator installs, finds and refreshes the bundles
+ * of a configuration.
+ */
+public class ConfigApplierTest extends AbstractSimpleConfiguratorTest {
+	private static final String CONFIGURATOR = "org.eclipse.equinox.internal.provisional.configurator.Configurator";
+	private static final String INSTALL_THREAD_NAME = "Simple Configurator Install";
+
+	private File folder;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		folder = getTempFolder();
+	}
+
+	private File createBundle(String symbolicName, String version, String... headers) throws IOException {
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+		attributes.putValue(Constants.BUNDLE_VERSION, version);
+		for (int i = 0; i < headers.length; i += 2)
+			attributes.putValue(headers[i], headers[i + 1]);
+		File jar = new File(folder, symbolicName + '_' + version + ".jar");
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+			// the manifest is all there is to the bundle
+		}
+		return jar;
+	}
+
+	/**
+	 * Writes a configuration with the given entries followed by those of the
+	 * framework and the simple configurator.
+	 */
+	private File createBundlesInfo(String... entries) throws IOException {
+		File bundlesInfo = File.createTempFile("bundles", ".info", folder);
+		try (BufferedWriter out = new BufferedWriter(new FileWriter(bundlesInfo))) {
+			for (String entry : entries)
+				out.write(entry + "\n");
+			out.write(getBundlesTxtEntry(getLocation("org.eclipse.equinox.simpleconfigurator")) + "\n");
+			out.write(getBundlesTxtEntry(getLocation("org.eclipse.osgi")) + "\n");
+		}
+		return bundlesInfo;
+	}
+
+	private File createBundlesInfo(File... jars) throws IOException {
+		String[] entries = new String[jars.length];
+		for (int i = 0; i < jars.length; i++)
+			entries[i] = getBundlesTxtEntry(jars[i]);
+		return createBundlesInfo(entries);
+	}
+
+	/**
+	 * Applies the given configuration to the running framework, as a client of
+	 * the Configurator service would.
+	 */
+	private void applyConfiguration(BundleContext context, File bundlesInfo) throws Exception {
+		ServiceReference<?> reference = context.getServiceReference(CONFIGURATOR);
+		assertNotNull(reference);
+		Object configurator = context.getService(reference);
+		try {
+			configurator.getClass().getMethod("applyConfiguration", URL.class).invoke(configurator, bundlesInfo.toURI().toURL());
+		} finally {
+			context.ungetService(reference);
+		}
+	}
+
+	private List<Bundle> getBundles(BundleContext context, String symbolicName) {
+		List<Bundle> result = new ArrayList<>();
+		for (Bundle bundle : context.getBundles()) {
+			if (symbolicName.equals(bundle.getSymbolicName()))
+				result.add(bundle);
+		}
+		return result;
+	}
+
+	private Bundle getBundle(BundleContext context, String symbolicName, String version) {
+		for (Bundle bundle : getBundles(context, symbolicName)) {
+			if (bundle.getVersion().equals(Version.parseVersion(version)))
+				return bundle;
+		}
+		return null;
+	}
+
+	public void testInstallOrder() throws Exception {
+		File[] jars = new File[5];
+		for (int i = 0; i < jars.length; i++)
+			jars[i] = createBundle("bundle" + (jars.length - i), "1.0.0");
+		BundleContext context = startFramework(createBundlesInfo(jars), null);
+
+		long previous = -1;
+		for (int i = 0; i < jars.length; i++) {
+			List<Bundle> bundles = getBundles(context, "bundle" + (jars.length - i));
+			assertEquals(1, bundles.size());
+			assertEquals(Bundle.ACTIVE, bundles.get(0).getState());
+			// the bundles are installed in the order of the configuration
+			assertTrue(bundles.get(0).getBundleId() > previous);
+			previous = bundles.get(0).getBundleId();
+		}
+	}
+
+	public void testDuplicateEntries() throws Exception {
+		File jar = createBundle("duplicate", "1.0.0");
+		File copy = new File(folder, "copy.jar");
+		copy(getName(), jar, copy);
+		BundleContext context = startFramework(createBundlesInfo( //
+				"duplicate,1.0.0," + jar.toURI() + ",4,false", //
+				"duplicate,1.0.0," + copy.toURI() + ",5,true"), null);
+
+		// the later entry uses the bundle the first one installed
+		List<Bundle> bundles = getBundles(context, "duplicate");
+		assertEquals(1, bundles.size());
+		Bundle bundle = bundles.get(0);
+		assertTrue(bundle.getLocation(), bundle.getLocation().endsWith(jar.toURI().toString()));
+		assertEquals(Bundle.ACTIVE, bundle.getState());
+		assertEquals(5, bundle.adapt(BundleStartLevel.class).getStartLevel());
+	}
+
+	public void testInstalledBundlesMatchedByVersion() throws Exception {
+		File version1 = createBundle("versioned", "1.0.0");
+		File version2 = createBundle("versioned", "2.0.0");
+		BundleContext context = startFramework(createBundlesInfo(version1), null);
+		Bundle installed = getBundle(context, "versioned", "1.0.0");
+		assertNotNull(installed);
+
+		// the bundle of the same version is kept, the other one is installed
+		applyConfiguration(context, createBundlesInfo(version1, version2));
+		assertEquals(2, getBundles(context, "versioned").size());
+		assertSame(installed, getBundle(context, "versioned", "1.0.0"));
+		assertNotNull(getBundle(context, "versioned", "2.0.0"));
+
+		// only the bundle of the version no longer configured is uninstalled
+		applyConfiguration(context, createBundlesInfo(version2));
+		assertEquals(Bundle.UNINSTALLED, installed.getState());
+		assertEquals(1, getBundles(context, "versioned").size());
+		assertNotNull(getBundle(context, "versioned", "2.0.0"));
+	}
+
+	public void testFragmentWithPayloadAttachedToResolvedHost() throws Exception {
+		File host = createBundle("host", "1.0.0");
+		File provider = createBundle("provider", "1.0.0", Constants.EXPORT_PACKAGE, "provided");
+		File fragment = createBundle("fragment", "1.0.0", Constants.FRAGMENT_HOST, "host", Constants.IMPORT_PACKAGE, "provided");
+		BundleContext context = startFramework(createBundlesInfo(host), null);
+		Bundle hostBundle = getBundle(context, "host", "1.0.0");
+		assertEquals(Bundle.ACTIVE, hostBundle.getState());
+
+		// the fragment needs a package the host is not wired to, so the host has to be refreshed for it to attach
+		applyConfiguration(context, createBundlesInfo(host, provider, fragment));
+		Bundle fragmentBundle = getBundle(context, "fragment", "1.0.0");
+		assertNotNull(fragmentBundle);
+		assertEquals(Bundle.RESOLVED, fragmentBundle.getState());
+		assertEquals(Bundle.ACTIVE, hostBundle.getState());
+		List<Bundle> attached = new ArrayList<>();
+		for (BundleWire wire : hostBundle.adapt(BundleWiring.class).getProvidedWires(HostNamespace.HOST_NAMESPACE))
+			attached.add(wire.getRequirer().getBundle());
+		assertEquals(List.of(fragmentBundle), attached);
+	}
+
+	public void testParallelInstall() throws Exception {
+		File[] jars = new File[20];
+		for (int i = 0; i < jars.length; i++)
+			jars[i] = createBundle("parallel" + i, "1.0.0");
+		File[] duplicated = Arrays.copyOf(jars, jars.length + 1);
+		duplicated[jars.length] = jars[0];
+		BundleContext context = startFramework(createBundlesInfo(duplicated), null, Map.of("equinox.simpleconfigurator.parallelinstall", "true"));
+
+		assertJarsInstalled(jars, context.getBundles());
+		for (int i = 0; i < jars.length; i++) {
+			List<Bundle> bundles = getBundles(context, "parallel" + i);
+			assertEquals(1, bundles.size());
+			assertEquals(Bundle.ACTIVE, bundles.get(0).getState());
+			assertEquals(4, bundles.get(0).adapt(BundleStartLevel.class).getStartLevel());
+		}
+
+		// the threads installing the bundles are not kept
+		long end = System.currentTimeMillis() + 10000;
+		while (hasInstallThreads() && System.currentTimeMillis() < end)
+			Thread.sleep(50);
+		assertFalse(hasInstallThreads());
+	}
+
+	private boolean hasInstallThreads() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && INSTALL_THREAD_NAME.equals(thread.getName()))
+				return true;
+		}
+		return false;
+	}
+}
@@ -39,6 +39,8 @@ public class SimpleConfiguratorTests {
 		suite.addTestSuite(NonExclusiveModeExtended.class);
 		suite.addTestSuite(NonExclusiveModeExtendedConfigured.class);
 
+		suite.addTestSuite(ConfigApplierTest.class);
+
 		//$JUnit-END$
 		return suite;
 	}
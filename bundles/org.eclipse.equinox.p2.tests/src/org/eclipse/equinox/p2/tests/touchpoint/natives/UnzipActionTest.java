@@ -14,9 +14,13 @@
 package org.eclipse.equinox.p2.tests.touchpoint.natives;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.zip.*;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.IBackupStore;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.NativeTouchpoint;
+import org.eclipse.equinox.internal.p2.touchpoint.natives.Util;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.actions.ActionConstants;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.actions.UnzipAction;
 import org.eclipse.equinox.p2.engine.IProfile;
@@ -292,6 +296,93 @@ public class UnzipActionTest extends AbstractProvisioningTest {
 		testUnzip(parameters, getTempFolder(), new String[] {a, b}, new String[] {c});
 	}
 
+	/**
+	 * Tests the filters on a zip with enough entries to be extracted by several threads.
+	 */
+	public void testUnzipFileFilters() throws IOException {
+		File folder = getTempFolder();
+		File zip = new File(folder, "many.zip");
+		createZip(zip, 100, -1);
+		File target = new File(folder, "target");
+		File[] unzipped = Util.unzipFile(zip, target, null, new String[] {"**/*.txt"}, new String[] {"dir1/*"}, null, null, null);
+
+		Set<File> expected = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			File file = new File(target, getEntryName(i));
+			if (i % 10 == 1 || getEntryName(i).endsWith(".bin")) {
+				assertFalse(file.toString(), file.exists());
+			} else {
+				assertEquals(file.toString(), getEntryContent(i), Files.readString(file.toPath()));
+				expected.add(file);
+			}
+		}
+		assertEquals(expected, new HashSet<>(Arrays.asList(unzipped)));
+
+		// the same with a path, which is removed from the names of the extracted entries
+		target = new File(folder, "path");
+		Util.unzipFile(zip, target, "dir2", null, new String[] {"**/*.bin"}, null, null, null);
+		assertEquals(getEntryContent(2), Files.readString(new File(target, "file2.txt").toPath()));
+		assertFalse(new File(target, "file12.bin").exists());
+		assertFalse(new File(target, "file1.txt").exists());
+		assertFalse(new File(target, "dir2").exists());
+	}
+
+	/**
+	 * Tests that a corrupted entry fails the extraction and stops the other threads before the zip is closed.
+	 */
+	public void testUnzipFileFailure() throws IOException {
+		File folder = getTempFolder();
+		File zip = new File(folder, "corrupted.zip");
+		createZip(zip, 100, 0);
+		try {
+			Util.unzipFile(zip, new File(folder, "target"), null, null, null, null, null, null);
+			fail("The corrupted entry should fail the extraction");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(zip.toString()));
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ZipException);
+		}
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			assertFalse(thread.getName().equals("p2 Unzip") && thread.isAlive());
+		}
+		assertTrue(zip.delete());
+	}
+
+	private static String getEntryName(int i) {
+		return "dir" + i % 10 + "/file" + i + (i % 3 == 0 ? ".bin" : ".txt");
+	}
+
+	private static String getEntryContent(int i) {
+		return ("content of entry " + i + '\n').repeat(100 + i);
+	}
+
+	/**
+	 * Creates a zip with the given number of deflated entries, the one at the given index, if any, corrupted.
+	 */
+	private static void createZip(File zip, int entries, int corrupted) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int corruptedHeader = -1;
+		try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries; i++) {
+				out.flush();
+				if (i == corrupted) {
+					corruptedHeader = bytes.size();
+				}
+				out.putNextEntry(new ZipEntry(getEntryName(i)));
+				out.write(getEntryContent(i).getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		}
+		byte[] content = bytes.toByteArray();
+		if (corruptedHeader >= 0) {
+			// the local header holds the lengths of the name and extra field, the deflated data follows them
+			int nameLength = (content[corruptedHeader + 26] & 0xFF) | (content[corruptedHeader + 27] & 0xFF) << 8;
+			int extraLength = (content[corruptedHeader + 28] & 0xFF) | (content[corruptedHeader + 29] & 0xFF) << 8;
+			// a deflate block of the reserved type 3
+			content[corruptedHeader + 30 + nameLength + extraLength] = (byte) 0xFF;
+		}
+		Files.write(zip.toPath(), content);
+	}
+
 	private void testUnzip(Map<String, String> params, File installFolder, String[] shoudlExistNames, String[] shoudlNotExistNames) {
 
 		ArrayList<File> shoudlExist = new ArrayList<>();
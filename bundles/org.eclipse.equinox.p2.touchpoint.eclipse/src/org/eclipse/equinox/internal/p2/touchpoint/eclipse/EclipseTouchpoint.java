@@ -21,10 +21,13 @@ import java.net.URI;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.touchpoint.eclipse.actions.*;
 import org.eclipse.equinox.internal.provisional.frameworkadmin.FrameworkAdminRuntimeException;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.PhaseSetFactory;
+import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
 import org.eclipse.equinox.p2.engine.spi.Touchpoint;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -177,6 +180,17 @@ public class EclipseTouchpoint extends Touchpoint {
 		return touchpointQualifier + "." + actionId; //$NON-NLS-1$
 	}
 
+	@Override
+	public boolean isParallelSafe(String phaseId, ProvisioningAction action) {
+		// collecting and installing a bundle mostly read its artifact, the configuration is changed under its lock
+		return switch (phaseId) {
+		case PhaseSetFactory.PHASE_COLLECT -> action instanceof CollectAction;
+		case PhaseSetFactory.PHASE_INSTALL -> action instanceof InstallBundleAction;
+		case PhaseSetFactory.PHASE_UNINSTALL -> action instanceof UninstallBundleAction;
+		default -> false;
+		};
+	}
+
 	@Override
 	public IStatus initializePhase(IProgressMonitor monitor, IProfile profile, String phaseId,
 			Map<String, Object> touchpointParameters) {
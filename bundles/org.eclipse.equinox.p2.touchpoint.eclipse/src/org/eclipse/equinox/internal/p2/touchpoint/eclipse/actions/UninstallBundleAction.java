@@ -52,14 +52,16 @@ public class UninstallBundleAction extends ProvisioningAction {
 			return Status.OK_STATUS;
 		}
 
-		// Changes to this object will be reflected in the backing runtime configuration
-		// store
-		BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
-		if (bundleInfo == null) {
-			return Util.createWarning(NLS.bind(Messages.failed_find_bundleinfo, iu));
-		}
+		synchronized (manipulator) {
+			// Changes to this object will be reflected in the backing runtime configuration
+			// store
+			BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
+			if (bundleInfo == null) {
+				return Util.createWarning(NLS.bind(Messages.failed_find_bundleinfo, iu));
+			}
 
-		manipulator.getConfigData().removeBundle(bundleInfo);
+			manipulator.getConfigData().removeBundle(bundleInfo);
+		}
 		return Status.OK_STATUS;
 	}
 }
\ No newline at end of file
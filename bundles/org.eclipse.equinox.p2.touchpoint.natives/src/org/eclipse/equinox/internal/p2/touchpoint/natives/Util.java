@@ -17,11 +17,12 @@ package org.eclipse.equinox.internal.p2.touchpoint.natives;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.p2.core.*;
@@ -31,6 +32,8 @@ import org.eclipse.equinox.p2.repository.artifact.*;
 import org.eclipse.osgi.util.NLS;
 
 public class Util {
+	private static final String UNZIP_THREAD_NAME = "p2 Unzip"; //$NON-NLS-1$
+
 	/*
 	 * Logging
 	 */
@@ -139,13 +142,49 @@ public class Util {
 	 * exclude/exclude pattern (that can be null, case when everything is unzipped).
 	 * If a path is specified, the path is consider as entry point in zip, as when
 	 * the to directory in zip would have been the specified path.
+	 * <p>
+	 * The zip is read through its central directory. The overwritten files are
+	 * backed up and the directories are created first, then the entries are
+	 * extracted by a few threads. The first entry that fails stops the others.
 	 */
 	public static File[] unzipFile(File zipFile, File outputDir, String path, String[] includePatterns,
 			String[] excludePatterns, IBackupStore store, String taskName, IProgressMonitor monitor)
 			throws IOException {
-		try (InputStream in = new FileInputStream(zipFile)) {
-			return unzipStream(in, zipFile.length(), outputDir, path, includePatterns, excludePatterns, store, taskName,
-					monitor);
+		try (ZipFile zip = new ZipFile(zipFile)) {
+			if (zip.size() == 0) {
+				throw new IOException(Messages.Util_Invalid_Zip_File_Format);
+			}
+			EntryFilter filter = new EntryFilter(path, includePatterns, excludePatterns);
+			ArrayList<File> unzippedFiles = new ArrayList<>();
+			// the last entry for each file wins, as when the entries are extracted in order
+			Map<File, ZipEntry> files = new LinkedHashMap<>();
+			Set<File> directories = new LinkedHashSet<>();
+			for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+				ZipEntry ze = entries.nextElement();
+				String name = filter.getTargetName(ze.getName());
+				if (name == null) {
+					continue;
+				}
+				File outFile = createSubPathFile(outputDir, name);
+				unzippedFiles.add(outFile);
+				if (ze.isDirectory()) {
+					directories.add(outFile);
+				} else if (files.put(outFile, ze) == null) {
+					if (outFile.exists()) {
+						if (store != null) {
+							store.backup(outFile);
+						} else {
+							outFile.delete();
+						}
+					}
+					directories.add(outFile.getParentFile());
+				}
+			}
+			for (File directory : directories) {
+				directory.mkdirs();
+			}
+			extractAll(zip, files);
+			return unzippedFiles.toArray(new File[unzippedFiles.size()]);
 		} catch (IOException e) {
 			// add the file name to the message
 			IOException ioExc = new IOException(NLS.bind(Messages.Util_Error_Unzipping, zipFile, e.getMessage()), e);
@@ -153,6 +192,114 @@ public class Util {
 		}
 	}
 
+	/**
+	 * Extracts the given entries of a zip to their file. All the threads are done
+	 * when this method returns, so that none reads the zip once it is closed.
+	 */
+	private static void extractAll(ZipFile zip, Map<File, ZipEntry> files) throws IOException {
+		// the extraction waits on the disk as much as on the processors
+		int threads = Math.min(files.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+		if (threads <= 1) {
+			for (Map.Entry<File, ZipEntry> file : files.entrySet()) {
+				extract(zip, file.getValue(), file.getKey());
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, UNZIP_THREAD_NAME);
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<File> completion = new ExecutorCompletionService<>(executor);
+		List<Future<File>> tasks = new ArrayList<>(files.size());
+		try {
+			for (Map.Entry<File, ZipEntry> file : files.entrySet()) {
+				tasks.add(completion.submit(() -> {
+					extract(zip, file.getValue(), file.getKey());
+					return file.getKey();
+				}));
+			}
+			for (int i = 0; i < tasks.size(); i++) {
+				completion.take().get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		} finally {
+			// after a failure the entries not extracted yet are canceled, those being extracted interrupted
+			for (Future<File> task : tasks) {
+				task.cancel(true);
+			}
+			executor.shutdownNow();
+			awaitTermination(executor);
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Extracts an entry of a zip to its file.
+	 */
+	private static void extract(ZipFile zip, ZipEntry entry, File outFile) throws IOException {
+		try (InputStream in = zip.getInputStream(entry)) {
+			write(in, entry.getSize(), outFile);
+		}
+		outFile.setLastModified(entry.getTime());
+	}
+
+	/**
+	 * Writes what remains of the given stream to the given file, whose length is
+	 * set up front when the given size is known.
+	 */
+	private static void write(InputStream in, long size, File outFile) throws IOException {
+		RandomAccessFile out;
+		try {
+			out = new RandomAccessFile(outFile, "rw"); //$NON-NLS-1$
+		} catch (FileNotFoundException e) {
+			// TEMP: ignore this for now in case we're trying to replace
+			// a running eclipse.exe
+			// TODO: This is very questionable as it will shadow any other
+			// issue with extraction!!
+			return;
+		}
+		try (out) {
+			if (size > 0) {
+				out.setLength(size);
+			}
+			FileChannel channel = out.getChannel();
+			ReadableByteChannel source = Channels.newChannel(in);
+			long position = 0;
+			long written;
+			while ((written = channel.transferFrom(source, position, 1024 * 1024)) > 0) {
+				position += written;
+			}
+			out.setLength(position);
+		}
+	}
+
 	/**
 	 * Unzip from an InputStream to an output directory using backup of overwritten
 	 * files if backup store is not null.
@@ -184,13 +331,50 @@ public class Util {
 				throw new IOException(Messages.Util_Invalid_Zip_File_Format);
 			}
 
+			EntryFilter filter = new EntryFilter(path, includePatterns, excludePatterns);
+			ArrayList<File> unzippedFiles = new ArrayList<>();
+			do {
+				String name = filter.getTargetName(ze.getName());
+				if (name != null) {
+					File outFile = createSubPathFile(outputDir, name);
+					unzippedFiles.add(outFile);
+					if (ze.isDirectory()) {
+						outFile.mkdirs();
+					} else {
+						if (outFile.exists()) {
+							if (store != null) {
+								store.backup(outFile);
+							} else {
+								outFile.delete();
+							}
+						} else {
+							outFile.getParentFile().mkdirs();
+						}
+						write(in, ze.getSize(), outFile);
+						outFile.setLastModified(ze.getTime());
+					}
+				}
+				in.closeEntry();
+			} while ((ze = in.getNextEntry()) != null);
+			return unzippedFiles.toArray(new File[unzippedFiles.size()]);
+		}
+
+	}
+
+	/**
+	 * Selects the entries of a zip to extract and gives their path in the output
+	 * directory.
+	 */
+	private static final class EntryFilter {
+		private final Pattern pathRegex;
+		private final Collection<Pattern> includeRegexp = new ArrayList<>();
+		private final Collection<Pattern> excludeRegexp = new ArrayList<>();
+
+		EntryFilter(String path, String[] includePatterns, String[] excludePatterns) {
 			if (path != null && path.trim().length() == 0) {
 				path = null;
 			}
-			Pattern pathRegex = path == null ? null : createAntStylePattern("(" + path + ")(*)"); //$NON-NLS-1$ //$NON-NLS-2$
-
-			Collection<Pattern> includeRegexp = new ArrayList<>();
-			Collection<Pattern> excludeRegexp = new ArrayList<>();
+			pathRegex = path == null ? null : createAntStylePattern("(" + path + ")(*)"); //$NON-NLS-1$ //$NON-NLS-2$
 			if (includePatterns != null) {
 				for (String pattern : includePatterns) {
 					if (pattern != null) {
@@ -205,66 +389,45 @@ public class Util {
 					}
 				}
 			}
-			ArrayList<File> unzippedFiles = new ArrayList<>();
-			do {
-				String name = ze.getName();
-				if (pathRegex == null || pathRegex.matcher(name).matches()) {
-					boolean unzip = includeRegexp.isEmpty();
-					for (Pattern pattern : includeRegexp) {
-						unzip = pattern.matcher(name).matches();
-						if (unzip) {
-							break;
-						}
-					}
-					if (unzip && !excludeRegexp.isEmpty()) {
-						for (Pattern pattern : excludeRegexp) {
-							if (pattern.matcher(name).matches()) {
-								unzip = false;
-								break;
-							}
-						}
+		}
+
+		/**
+		 * Returns the path of the given entry relative to the output directory, or
+		 * <code>null</code> if the entry is not extracted.
+		 */
+		String getTargetName(String name) {
+			if (pathRegex != null && !pathRegex.matcher(name).matches()) {
+				return null;
+			}
+			boolean unzip = includeRegexp.isEmpty();
+			for (Pattern pattern : includeRegexp) {
+				unzip = pattern.matcher(name).matches();
+				if (unzip) {
+					break;
+				}
+			}
+			if (unzip && !excludeRegexp.isEmpty()) {
+				for (Pattern pattern : excludeRegexp) {
+					if (pattern.matcher(name).matches()) {
+						unzip = false;
+						break;
 					}
-					if (unzip) {
-						if (pathRegex != null) {
-							Matcher matcher = pathRegex.matcher(name);
-							if (matcher.matches()) {
-								name = matcher.group(2);
-								if (name.startsWith("/")) { //$NON-NLS-1$
-									name = name.substring(1);
-								}
-							}
-						}
-						File outFile = createSubPathFile(outputDir, name);
-						unzippedFiles.add(outFile);
-						if (ze.isDirectory()) {
-							outFile.mkdirs();
-						} else {
-							if (outFile.exists()) {
-								if (store != null) {
-									store.backup(outFile);
-								} else {
-									outFile.delete();
-								}
-							} else {
-								outFile.getParentFile().mkdirs();
-							}
-							try {
-								copyStream(in, false, new FileOutputStream(outFile), true);
-							} catch (FileNotFoundException e) {
-								// TEMP: ignore this for now in case we're trying to replace
-								// a running eclipse.exe
-								// TODO: This is very questionable as it will shadow any other
-								// issue with extraction!!
-							}
-							outFile.setLastModified(ze.getTime());
-						}
+				}
+			}
+			if (!unzip) {
+				return null;
+			}
+			if (pathRegex != null) {
+				Matcher matcher = pathRegex.matcher(name);
+				if (matcher.matches()) {
+					name = matcher.group(2);
+					if (name.startsWith("/")) { //$NON-NLS-1$
+						name = name.substring(1);
 					}
 				}
-				in.closeEntry();
-			} while ((ze = in.getNextEntry()) != null);
-			return unzippedFiles.toArray(new File[unzippedFiles.size()]);
+			}
+			return name;
 		}
-
 	}
 
 	private static File createSubPathFile(File root, String subPath) throws IOException {
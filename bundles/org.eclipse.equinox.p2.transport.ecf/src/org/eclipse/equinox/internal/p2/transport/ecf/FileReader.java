@@ -98,9 +98,11 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 	}
 
 	private static IFileReaderProbe testProbe;
+	private Map<String, Map<String, String>> requestOptions = options;
 	private boolean closeStreamWhenFinished = false;
 	private Exception exception;
 	private FileInfo fileInfo;
+	private String eTag;
 	private long lastProgressCount;
 	private long lastStatsCount;
 	protected IProgressMonitor theMonitor;
@@ -137,10 +139,45 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 		this.agent = aAgent;
 	}
 
+	/**
+	 * Sends the given headers along with the default ones in the requests of this
+	 * reader.
+	 */
+	public void setRequestHeaders(Map<String, String> headers) {
+		Map<String, String> requestHeaders = new HashMap<>(
+				options.get(org.eclipse.ecf.filetransfer.IRetrieveFileTransferOptions.REQUEST_HEADERS));
+		requestHeaders.putAll(headers);
+		requestOptions = Map.of(org.eclipse.ecf.filetransfer.IRetrieveFileTransferOptions.REQUEST_HEADERS,
+				requestHeaders);
+	}
+
 	public FileInfo getLastFileInfo() {
 		return fileInfo;
 	}
 
+	/**
+	 * Returns the entity tag the server sent along with the last file read, or
+	 * <code>null</code> if it sent none.
+	 */
+	public String getLastETag() {
+		return eTag;
+	}
+
+	private static String getETag(Map<?, ?> responseHeaders) {
+		if (responseHeaders == null)
+			return null;
+		for (Map.Entry<?, ?> header : responseHeaders.entrySet()) {
+			// header names are not case sensitive
+			if (!"ETag".equalsIgnoreCase(String.valueOf(header.getKey()))) //$NON-NLS-1$
+				continue;
+			Object value = header.getValue();
+			if (value instanceof Collection<?> values)
+				value = values.isEmpty() ? null : values.iterator().next();
+			return value == null ? null : value.toString();
+		}
+		return null;
+	}
+
 	/**
 	 * A job to handle cancelation when trying to establish a socket connection. At
 	 * this point we don't have a transfer job running yet, so we need a separate
@@ -202,6 +239,7 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 				fi.setName(source.getRemoteFileName());
 				fi.setSize(source.getFileLength());
 				fileInfo = fi;
+				eTag = getETag(((IIncomingFileTransferReceiveStartEvent) event).getResponseHeaders());
 
 				((IIncomingFileTransferReceiveStartEvent) event).receive(theOutputStream, this);
 			} catch (IOException e) {
@@ -438,6 +476,7 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 		this.exception = null;
 		this.closeStreamWhenFinished = closeStreamOnFinish;
 		this.fileInfo = null;
+		this.eTag = null;
 		this.statistics = null;
 		this.lastProgressCount = 0L;
 		this.lastStatsCount = 0L;
@@ -453,7 +492,7 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 			try {
 				IFileID fileID = FileIDFactory.getDefault().createFileID(adapter.getRetrieveNamespace(),
 						uri.toString());
-				adapter.sendRetrieveRequest(fileID, range, this, options);
+				adapter.sendRetrieveRequest(fileID, range, this, requestOptions);
 			} catch (IncomingFileTransferException e) {
 				exception = e;
 			} catch (FileCreateException e) {
@@ -15,6 +15,10 @@ package org.eclipse.equinox.internal.p2.transport.ecf;
 
 import java.io.*;
 import java.net.*;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -94,6 +98,34 @@ public class RepositoryTransport extends Transport {
 
 	@Override
 	public IStatus download(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+		return download(toDownload, target, Map.of(), monitor);
+	}
+
+	/**
+	 * Sends a conditional request for http locations, so that a cached copy is
+	 * checked and refreshed in a single round trip. The server answers 304 when
+	 * the content was not modified since the date of the cached copy.
+	 */
+	@Override
+	public IStatus downloadIfModified(URI toDownload, OutputStream target, String eTag, long lastModified,
+			IProgressMonitor monitor) {
+		String scheme = toDownload.getScheme();
+		if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) //$NON-NLS-1$ //$NON-NLS-2$
+			return super.downloadIfModified(toDownload, target, eTag, lastModified, monitor);
+		Map<String, String> requestHeaders = new HashMap<>(2);
+		if (eTag != null)
+			requestHeaders.put("If-None-Match", eTag); //$NON-NLS-1$
+		if (lastModified > 0)
+			requestHeaders.put("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME //$NON-NLS-1$
+					.format(Instant.ofEpochMilli(lastModified).atZone(ZoneOffset.UTC)));
+		IStatus result = download(toDownload, target, requestHeaders, monitor);
+		if (result instanceof DownloadStatus && ((DownloadStatus) result).isNotModified())
+			((DownloadStatus) result).setLastModified(lastModified);
+		return result;
+	}
+
+	private IStatus download(URI toDownload, OutputStream target, Map<String, String> requestHeaders,
+			IProgressMonitor monitor) {
 		boolean promptUser = false;
 		boolean useJREHttp = false;
 		AuthenticationInfo loginDetails = null;
@@ -113,6 +145,8 @@ public class RepositoryTransport extends Transport {
 
 				// perform the download
 				reader = new FileReader(agent, context);
+				if (!requestHeaders.isEmpty())
+					reader.setRequestHeaders(requestHeaders);
 				ProvisioningListener listener = null;
 				IProvisioningEventBus eventBus = null;
 				try {
@@ -163,6 +197,13 @@ public class RepositoryTransport extends Transport {
 				statusOn(target, new DownloadStatus(IStatus.CANCEL, Activator.ID, 1, "", null), reader); //$NON-NLS-1$
 				throw e;
 			} catch (CoreException e) {
+				if (e instanceof IncomingFileTransferException
+						&& ((IncomingFileTransferException) e).getErrorCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+					// answer to a conditional request, nothing was written into the target
+					DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+					status.setNotModified(true);
+					return statusOn(target, status, null);
+				}
 				if (e.getStatus().getException() == null)
 					return statusOn(target, forException(e, secureToDownload), reader);
 				return statusOn(target, forStatus(e.getStatus(), secureToDownload), reader);
@@ -251,6 +292,7 @@ public class RepositoryTransport extends Transport {
 				status.setLastModified(fi.getLastModified());
 				status.setTransferRate(fi.getAverageSpeed());
 			}
+			status.setETag(reader.getLastETag());
 		}
 		if (target instanceof IStateful)
 			((IStateful) target).setStatus(status);
@@ -18,7 +18,7 @@ package org.eclipse.equinox.internal.simpleconfigurator;
 import java.io.*;
 import java.net.*;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.*;
@@ -35,8 +35,47 @@ import org.osgi.service.resolver.ResolutionException;
 
 class ConfigApplier {
 
+	/**
+	 * The bundles installed in the framework by symbolic name, so that the
+	 * bundles of a configuration are looked up without asking the framework for
+	 * each of them.
+	 */
+	private static class BundleIndex {
+		private final Map<String, List<Bundle>> bundles = new HashMap<>();
+
+		BundleIndex(Bundle[] installed) {
+			for (Bundle bundle : installed)
+				add(bundle);
+		}
+
+		void add(Bundle bundle) {
+			String symbolicName = bundle.getSymbolicName();
+			if (symbolicName != null)
+				bundles.computeIfAbsent(symbolicName, name -> new ArrayList<>(1)).add(bundle);
+		}
+
+		/**
+		 * Returns the installed bundles with the given symbolic name and version,
+		 * as PackageAdmin.getBundles would for the range [version,version], or with
+		 * any version if the given one is <code>null</code>.
+		 */
+		List<Bundle> get(String symbolicName, String version) {
+			List<Bundle> candidates = symbolicName == null ? null : bundles.get(symbolicName);
+			if (candidates == null)
+				return List.of();
+			Version expected = version == null ? null : Version.parseVersion(version);
+			List<Bundle> result = new ArrayList<>(1);
+			for (Bundle candidate : candidates) {
+				if (candidate.getState() != Bundle.UNINSTALLED && (expected == null || expected.equals(candidate.getVersion())))
+					result.add(candidate);
+			}
+			return result;
+		}
+	}
+
 	private static final String LAST_BUNDLES_INFO = "last.bundles.info"; //$NON-NLS-1$
 	private static final String PROP_DEVMODE = "osgi.dev"; //$NON-NLS-1$
+	private static final String INSTALL_THREAD_NAME = "Simple Configurator Install"; //$NON-NLS-1$
 
 	private final BundleContext manipulatingContext;
 	private final PackageAdmin packageAdminService;
@@ -48,6 +87,7 @@ class ConfigApplier {
 	private final URI baseLocation;
 	private boolean deepRefresh;
 	private int maxRefreshTry;
+	private boolean parallelInstall;
 
 	ConfigApplier(BundleContext context, Bundle callingBundle) {
 		deepRefresh = Boolean.parseBoolean(context.getProperty("equinox.simpleconfigurator.deeprefresh"));
@@ -57,6 +97,7 @@ class ConfigApplier {
 		} else {
 			maxRefreshTry = 10;
 		}
+		parallelInstall = Boolean.parseBoolean(context.getProperty("equinox.simpleconfigurator.parallelinstall"));
 		manipulatingContext = context;
 		this.callingBundle = callingBundle;
 		runningOnEquinox = "Eclipse".equals(context.getProperty(Constants.FRAMEWORK_VENDOR)); //$NON-NLS-1$
@@ -72,9 +113,11 @@ class ConfigApplier {
 	}
 
 	void install(URL url, boolean exclusiveMode) throws IOException {
+		long time = Activator.DEBUG ? System.currentTimeMillis() : 0;
 		List<BundleInfo> bundleInfoList = SimpleConfiguratorUtils.readConfiguration(url, baseLocation);
 		if (Activator.DEBUG)
 			System.out.println("applyConfiguration() bundleInfoList.size()=" + bundleInfoList.size());
+		time = printTime("read configuration", time);
 		if (bundleInfoList.size() == 0)
 			return;
 
@@ -110,12 +153,15 @@ class ConfigApplier {
 		Collection<Bundle> toStart = new ArrayList<>();
 		if (exclusiveMode) {
 			toRefresh.addAll(installBundles(expectedState, toStart));
+			time = printTime("install", time);
 			toRefresh.addAll(uninstallBundles(expectedState, packageAdminService));
 		} else {
 			toRefresh.addAll(installBundles(expectedState, toStart));
+			time = printTime("install", time);
 			if (toUninstall != null)
 				toRefresh.addAll(uninstallBundles(toUninstall));
 		}
+		time = printTime("uninstall", time);
 		if (!toRefresh.isEmpty()) {
 			if (manipulatingContext.getBundle().getState() == Bundle.STARTING) {
 				// This is the startup of simple configurator.
@@ -136,8 +182,15 @@ class ConfigApplier {
 					allSameBSNs.addAll(bundlesByBsn.getOrDefault(bundle.getSymbolicName(), List.of(bundle)));
 				}
 				refreshPackages(allSameBSNs);
+				// The additional bundles are deliberately refreshed in a second pass rather
+				// than together with the first ones: they are the hosts of the fragments the
+				// first refresh could not resolve, and the bundles whose optional requirements
+				// are left unwired, which can only be told once the first refresh is done.
+				// Refreshing them up front would also restart the hosts of fragments that
+				// attach on their own.
 				refreshPackages(getAdditionalRefresh(prevouslyResolved, toRefresh));
 			}
+			time = printTime("refresh", time);
 			if (deepRefresh) {
 				// when refreshing large sets of bundles the resolver sometimes take a choice
 				// where a requirement can't be bound even though it is there and resolvable
@@ -172,9 +225,23 @@ class ConfigApplier {
 						Thread.currentThread().interrupt();
 					}
 				} while (maxtry-- > 0);
+				time = printTime("deep refresh", time);
 			}
 		}
 		startBundles(toStart.toArray(new Bundle[toStart.size()]));
+		printTime("start", time);
+	}
+
+	/**
+	 * Prints how long the given phase took in debug mode, and returns the time
+	 * the next phase starts at. Outside of debug mode the time is not read.
+	 */
+	private long printTime(String phase, long start) {
+		if (!Activator.DEBUG)
+			return start;
+		long now = System.currentTimeMillis();
+		System.out.println("applyConfiguration() " + phase + " took " + (now - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return now;
 	}
 
 	/**
@@ -369,12 +436,12 @@ class ConfigApplier {
 
 	private Collection<Bundle> uninstallBundles(HashSet<BundleInfo> toUninstall) {
 		Collection<Bundle> removedBundles = new ArrayList<>(toUninstall.size());
+		BundleIndex installed = new BundleIndex(manipulatingContext.getBundles());
 		for (BundleInfo current : toUninstall) {
-			Bundle[] matchingBundles = packageAdminService.getBundles(current.getSymbolicName(), getVersionRange(current.getVersion()));
-			for (int j = 0; matchingBundles != null && j < matchingBundles.length; j++) {
+			for (Bundle matchingBundle : installed.get(current.getSymbolicName(), current.getVersion())) {
 				try {
-					removedBundles.add(matchingBundles[j]);
-					matchingBundles[j].uninstall();
+					removedBundles.add(matchingBundle);
+					matchingBundle.uninstall();
 				} catch (BundleException e) {
 					//TODO log in debug mode...
 				}
@@ -424,7 +491,17 @@ class ConfigApplier {
 		String useReferenceProperty = manipulatingContext.getProperty(SimpleConfiguratorConstants.PROP_KEY_USE_REFERENCE);
 		boolean useReference = useReferenceProperty == null ? runningOnEquinox : Boolean.parseBoolean(useReferenceProperty);
 
-		for (BundleInfo element : finalList) {
+		// find the bundles already installed and the entries to install, the
+		// first entry of a symbolic name and version installing it for the others
+		BundleIndex installedBundles = new BundleIndex(manipulatingContext.getBundles());
+		Bundle[] bundles = new Bundle[finalList.length];
+		boolean[] installing = new boolean[finalList.length];
+		int[] sameAs = new int[finalList.length];
+		Arrays.fill(sameAs, -1);
+		Map<String, Integer> firstToInstall = new HashMap<>();
+		List<Integer> toInstall = new ArrayList<>();
+		for (int i = 0; i < finalList.length; i++) {
+			BundleInfo element = finalList[i];
 			if (element == null)
 				continue;
 			//TODO here we do not deal with bundles that don't have a symbolic id
@@ -432,67 +509,66 @@ class ConfigApplier {
 
 			String symbolicName = element.getSymbolicName();
 			String version = element.getVersion();
-
-			Bundle[] matches = null;
-			if (symbolicName != null && version != null)
-				matches = packageAdminService.getBundles(symbolicName, getVersionRange(version));
-
-			String bundleLocation = SimpleConfiguratorUtils.getBundleLocation(element, useReference);
-
-			Bundle current = matches == null ? null : (matches.length == 0 ? null : matches[0]);
-			if (current == null) {
-				try {
-					current = manipulatingContext.installBundle(bundleLocation);
-					if (symbolicName != null && version != null) {
-						Version v;
-						try {
-							v = new Version(version);
-							if (!symbolicName.equals(current.getSymbolicName()) || !v.equals(current.getVersion())) {
-								// can happen if, for example, the new version of the bundle is installed
-								// to the same bundle location as the old version
-								current.update();
-							}
-						} catch (IllegalArgumentException e) {
-							// invalid version string; should log
-							if (Activator.DEBUG)
-								e.printStackTrace();
-						}
-					}
-
-					if (Activator.DEBUG)
-						System.out.println("installed bundle:" + element); //$NON-NLS-1$
-					toRefresh.add(current);
-				} catch (BundleException e) {
-					if (Activator.DEBUG) {
-						System.err.println("Can't install " + symbolicName + '/' + version + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
-						e.printStackTrace();
-					}
+			if (symbolicName != null && version != null) {
+				List<Bundle> matches = installedBundles.get(symbolicName, version);
+				if (!matches.isEmpty()) {
+					bundles[i] = matches.get(0);
 					continue;
 				}
-			} else if (inDevMode && current.getBundleId() != 0 && current != manipulatingContext.getBundle() && !bundleLocation.equals(current.getLocation()) && !current.getLocation().startsWith("initial@")) {
-				// We do not do this for the system bundle (id==0), the manipulating bundle or any bundle installed from the osgi.bundles list (locations starting with "@initial"
-				// The bundle exists; but the location is different. Uninstall the current and install the new one (bug 229700)
-				try {
-					current.uninstall();
-					toRefresh.add(current);
-				} catch (BundleException e) {
-					if (Activator.DEBUG) {
-						System.err.println("Can't uninstall " + symbolicName + '/' + version + " from location " + current.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
-						e.printStackTrace();
-					}
+				Integer first = firstToInstall.putIfAbsent(symbolicName + '_' + version, i);
+				if (first != null) {
+					sameAs[i] = first;
 					continue;
 				}
-				try {
-					current = manipulatingContext.installBundle(bundleLocation);
-					if (Activator.DEBUG)
-						System.out.println("installed bundle:" + element); //$NON-NLS-1$
-					toRefresh.add(current);
-				} catch (BundleException e) {
-					if (Activator.DEBUG) {
-						System.err.println("Can't install " + symbolicName + '/' + version + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
-						e.printStackTrace();
-					}
+			}
+			toInstall.add(i);
+			installing[i] = true;
+		}
+
+		installBundles(finalList, toInstall, bundles, useReference);
+
+		for (int i = 0; i < finalList.length; i++) {
+			BundleInfo element = finalList[i];
+			if (element == null)
+				continue;
+			Bundle current;
+			if (sameAs[i] >= 0) {
+				current = bundles[sameAs[i]];
+				if (current == null)
+					continue;
+			} else if (installing[i]) {
+				current = bundles[i];
+				if (current == null)
 					continue;
+				toRefresh.add(current);
+			} else {
+				current = bundles[i];
+				String bundleLocation = SimpleConfiguratorUtils.getBundleLocation(element, useReference);
+				if (inDevMode && current.getBundleId() != 0 && current != manipulatingContext.getBundle() && !bundleLocation.equals(current.getLocation()) && !current.getLocation().startsWith("initial@")) {
+					// We do not do this for the system bundle (id==0), the manipulating bundle or any bundle installed from the osgi.bundles list (locations starting with "@initial"
+					// The bundle exists; but the location is different. Uninstall the current and install the new one (bug 229700)
+					try {
+						current.uninstall();
+						toRefresh.add(current);
+					} catch (BundleException e) {
+						if (Activator.DEBUG) {
+							System.err.println("Can't uninstall " + element.getSymbolicName() + '/' + element.getVersion() + " from location " + current.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
+							e.printStackTrace();
+						}
+						continue;
+					}
+					try {
+						current = manipulatingContext.installBundle(bundleLocation);
+						if (Activator.DEBUG)
+							System.out.println("installed bundle:" + element); //$NON-NLS-1$
+						toRefresh.add(current);
+					} catch (BundleException e) {
+						if (Activator.DEBUG) {
+							System.err.println("Can't install " + element.getSymbolicName() + '/' + element.getVersion() + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
+							e.printStackTrace();
+						}
+						continue;
+					}
 				}
 			}
 
@@ -521,6 +597,91 @@ class ConfigApplier {
 		return toRefresh;
 	}
 
+	/**
+	 * Installs the bundles of the given entries of the configuration in order or,
+	 * on request, on a few threads. The framework may install several bundles at
+	 * once, but does not give them the same ids in each run.
+	 */
+	private void installBundles(BundleInfo[] finalList, List<Integer> toInstall, Bundle[] bundles, boolean useReference) {
+		int threads = Math.min(toInstall.size(), Runtime.getRuntime().availableProcessors());
+		if (!parallelInstall || !runningOnEquinox || threads <= 1) {
+			for (int i : toInstall)
+				bundles[i] = installBundle(finalList[i], useReference);
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, INSTALL_THREAD_NAME);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<?>> tasks = new ArrayList<>(toInstall.size());
+			for (int i : toInstall)
+				tasks.add(executor.submit(() -> bundles[i] = installBundle(finalList[i], useReference)));
+			boolean interrupted = false;
+			for (Future<?> task : tasks) {
+				while (true) {
+					try {
+						task.get();
+						break;
+					} catch (InterruptedException e) {
+						// the bundles being installed are needed to go on
+						interrupted = true;
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof RuntimeException)
+							throw (RuntimeException) cause;
+						if (cause instanceof Error)
+							throw (Error) cause;
+						throw new IllegalStateException(cause);
+					}
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Installs the bundle of the given entry, and returns it or <code>null</code>
+	 * if it cannot be installed.
+	 */
+	private Bundle installBundle(BundleInfo element, boolean useReference) {
+		String symbolicName = element.getSymbolicName();
+		String version = element.getVersion();
+		try {
+			Bundle current = manipulatingContext.installBundle(SimpleConfiguratorUtils.getBundleLocation(element, useReference));
+			if (symbolicName != null && version != null) {
+				Version v;
+				try {
+					v = new Version(version);
+					if (!symbolicName.equals(current.getSymbolicName()) || !v.equals(current.getVersion())) {
+						// can happen if, for example, the new version of the bundle is installed
+						// to the same bundle location as the old version
+						current.update();
+					}
+				} catch (IllegalArgumentException e) {
+					// invalid version string; should log
+					if (Activator.DEBUG)
+						e.printStackTrace();
+				}
+			}
+
+			if (Activator.DEBUG)
+				System.out.println("installed bundle:" + element); //$NON-NLS-1$
+			return current;
+		} catch (BundleException e) {
+			if (Activator.DEBUG) {
+				System.err.println("Can't install " + symbolicName + '/' + version + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
 	private boolean isFragment(Bundle current) {
 		BundleRevision revision = current.adapt(BundleRevision.class);
 		return (revision != null) && ((revision.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0);
@@ -591,13 +752,11 @@ class ConfigApplier {
 		}
 
 		//Remove all the bundles appearing in the final list from the set of installed bundles
+		BundleIndex installed = new BundleIndex(allBundles);
 		for (BundleInfo element : finalList) {
 			if (element == null)
 				continue;
-			Bundle[] toAdd = packageAdmin.getBundles(element.getSymbolicName(), getVersionRange(element.getVersion()));
-			for (int j = 0; toAdd != null && j < toAdd.length; j++) {
-				removedBundles.remove(toAdd[j]);
-			}
+			removedBundles.removeAll(installed.get(element.getSymbolicName(), element.getVersion()));
 		}
 
 		for (Iterator<Bundle> iter = removedBundles.iterator(); iter.hasNext();) {
@@ -621,8 +780,4 @@ class ConfigApplier {
 
 		return removedBundles;
 	}
-
-	private String getVersionRange(String version) {
-		return version == null ? null : new StringBuilder().append('[').append(version).append(',').append(version).append(']').toString();
-	}
 }